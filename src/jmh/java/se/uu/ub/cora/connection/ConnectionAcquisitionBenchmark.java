@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.naming.NamingException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ConnectionAcquisitionBenchmark measures getConnection and close for each
+ * {@link SqlConnectionProvider}. The providers are backed by test doubles, a {@link DriverSpy}, an
+ * {@link InitialContextSpy} or a {@link ConnectionProviderSpy}, so that the measured time is the
+ * overhead of the provider itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConnectionAcquisitionBenchmark {
+	private static final String URL = "jdbc:NOTpostgresqlNOT://localhost:5432/benchmark";
+	private static final int POOL_SIZE = 16;
+
+	@Param({ "parameter", "context", "pooled" })
+	public String provider;
+
+	private SqlConnectionProvider connectionProvider;
+	private DriverSpy driver;
+
+	@Setup
+	public void setUp() throws SQLException, NamingException {
+		connectionProvider = createConnectionProvider();
+	}
+
+	private SqlConnectionProvider createConnectionProvider() throws SQLException, NamingException {
+		if ("parameter".equals(provider)) {
+			driver = new DriverSpy();
+			DriverManager.registerDriver(driver);
+			return ParameterConnectionProviderImp.usingUriAndUserAndPassword(URL, "someUser",
+					"somePassword");
+		}
+		if ("context".equals(provider)) {
+			InitialContextSpy context = new InitialContextSpy();
+			context.ds = new NonRecordingDataSourceSpy();
+			return ContextConnectionProviderImp.usingInitialContextAndName(context,
+					"java:/comp/env/jdbc/db");
+		}
+		return PooledConnectionProviderImp.usingSqlConnectionProviderAndPoolSettings(
+				new ConnectionProviderSpy(), PoolSettings.defaultSettings().withMaxSize(POOL_SIZE)
+						.withAcquisitionTimeout(Duration.ofSeconds(30)));
+	}
+
+	@TearDown
+	public void tearDown() throws SQLException {
+		if (driver != null) {
+			DriverManager.deregisterDriver(driver);
+		}
+		if (connectionProvider instanceof PooledConnectionProviderImp) {
+			((PooledConnectionProviderImp) connectionProvider).close();
+		}
+	}
+
+	@Benchmark
+	public Connection getAndCloseConnection() throws SQLException {
+		Connection connection = connectionProvider.getConnection();
+		connection.close();
+		return connection;
+	}
+
+	@Benchmark
+	@Threads(POOL_SIZE)
+	public Connection getAndCloseConnectionFromManyThreads() throws SQLException {
+		Connection connection = connectionProvider.getConnection();
+		connection.close();
+		return connection;
+	}
+
+	private static class NonRecordingDataSourceSpy extends DataSourceSpy {
+		@Override
+		public Connection getConnection() {
+			return new ConnectionSpy();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.connection.ResultSetSpy;
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+
+/**
+ * RowMaterialisationBenchmark measures how fast {@link DataReaderImp} turns the rows of a
+ * ResultSet into maps or mapped objects. The ResultSet is a {@link ResultSetSpy} holding rowCount
+ * rows with columnCount columns, so that only the materialisation in DataReaderImp is measured
+ * and not a database or a driver.
+ * <p>
+ * readRowsAsHashMaps is the baseline, it creates one HashMap per row filled by column label, the
+ * way rows were materialised before the compact rows with a shared header were introduced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMaterialisationBenchmark {
+	private static final String SQL = "select * from someTable";
+	private static final List<Object> NO_VALUES = Collections.emptyList();
+
+	@Param({ "1", "100", "100000" })
+	public int rowCount;
+
+	@Param({ "5", "50" })
+	public int columnCount;
+
+	private SqlConnectionProviderSpy sqlConnectionProvider;
+	private DataReaderImp dataReader;
+	private List<String> columnNames;
+	private List<List<Object>> rowValues;
+	private List<Map<String, Object>> rowValuesByColumnName;
+
+	@Setup
+	public void setUp() {
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
+		sqlConnectionProvider = new SqlConnectionProviderSpy();
+		dataReader = DataReaderImp.usingSqlConnectionProvider(sqlConnectionProvider);
+		columnNames = createColumnNames();
+		rowValues = createRowValues();
+		rowValuesByColumnName = createRowValuesByColumnName();
+	}
+
+	private List<String> createColumnNames() {
+		List<String> names = new ArrayList<>(columnCount);
+		for (int column = 0; column < columnCount; column++) {
+			names.add("column" + column);
+		}
+		return names;
+	}
+
+	private List<List<Object>> createRowValues() {
+		List<Object> row = new ArrayList<>(columnCount);
+		for (int column = 0; column < columnCount; column++) {
+			row.add(column % 2 == 0 ? "someValue" + column : Long.valueOf(column));
+		}
+		return Collections.nCopies(rowCount, row);
+	}
+
+	private List<Map<String, Object>> createRowValuesByColumnName() {
+		Map<String, Object> row = new HashMap<>(columnCount);
+		for (int column = 0; column < columnCount; column++) {
+			row.put(columnNames.get(column), rowValues.get(0).get(column));
+		}
+		return Collections.nCopies(rowCount, row);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> readRowsAsMaps() {
+		setNewResultSetInSpy();
+		return dataReader.executePreparedStatementQueryUsingSqlAndValues(SQL, NO_VALUES);
+	}
+
+	@Benchmark
+	public List<Object> readRowsUsingRowMapper() {
+		setNewResultSetInSpy();
+		return dataReader.executePreparedStatementQueryUsingSqlAndValues(SQL, NO_VALUES,
+				resultSet -> resultSet.getObject(1));
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> readRowsAsHashMaps() {
+		ResultSetSpy resultSet = setNewResultSetInSpy();
+		resultSet.rowValues = rowValuesByColumnName;
+		return dataReader.executePreparedStatementQueryUsingSqlAndValues(SQL, NO_VALUES,
+				new HashMapRowMapper());
+	}
+
+	private ResultSetSpy setNewResultSetInSpy() {
+		ResultSetSpy resultSet = new ResultSetSpy();
+		resultSet.columnNames = columnNames;
+		resultSet.rowValuesByColumnIndex = rowValues;
+		sqlConnectionProvider.connection.preparedStatementSpy.resultSet = resultSet;
+		return resultSet;
+	}
+
+	private static final class HashMapRowMapper implements RowMapper<Map<String, Object>> {
+		private List<String> columnNames;
+
+		@Override
+		public Map<String, Object> mapRow(ResultSet resultSet) throws SQLException {
+			if (columnNames == null) {
+				columnNames = readColumnNames(resultSet.getMetaData());
+			}
+			Map<String, Object> row = new HashMap<>(columnNames.size());
+			for (String columnName : columnNames) {
+				row.put(columnName, resultSet.getObject(columnName));
+			}
+			return row;
+		}
+
+		private List<String> readColumnNames(ResultSetMetaData metaData) throws SQLException {
+			int noOfColumns = metaData.getColumnCount();
+			List<String> names = new ArrayList<>(noOfColumns);
+			for (int column = 1; column <= noOfColumns; column++) {
+				names.add(metaData.getColumnName(column));
+			}
+			return names;
+		}
+	}
+}
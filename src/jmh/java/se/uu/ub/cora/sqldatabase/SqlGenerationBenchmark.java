@@ -0,0 +1,101 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+
+/**
+ * SqlGenerationBenchmark measures the cost of creating sql and values in {@link RecordReaderImp}
+ * and {@link RecordUpdaterImp} for a number of conditions. The readers and updaters run against
+ * {@link SqlConnectionProviderSpy}, that returns no rows, so the measured time is the sql
+ * generation and the fixed cost of binding values to a statement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlGenerationBenchmark {
+	private static final String TABLE_NAME = "someTable";
+
+	@Param({ "1", "5" })
+	public int conditionCount;
+
+	private RecordReaderImp recordReader;
+	private RecordUpdaterImp recordUpdater;
+	private Map<String, Object> conditions;
+	private Map<String, Object> columnsWithValues;
+	private List<String> columnNames;
+
+	@Setup
+	public void setUp() {
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
+		SqlConnectionProviderSpy sqlConnectionProvider = new SqlConnectionProviderSpy();
+		recordReader = RecordReaderImp
+				.usingDataReader(DataReaderImp.usingSqlConnectionProvider(sqlConnectionProvider));
+		recordUpdater = new RecordUpdaterImp(
+				DataUpdaterImp.usingSqlConnectionProvider(sqlConnectionProvider));
+		conditions = createMapWithPrefixAndSize("condition", conditionCount);
+		columnsWithValues = createMapWithPrefixAndSize("column", 5);
+		columnNames = List.copyOf(columnsWithValues.keySet());
+	}
+
+	private Map<String, Object> createMapWithPrefixAndSize(String prefix, int size) {
+		Map<String, Object> map = new LinkedHashMap<>();
+		for (int i = 0; i < size; i++) {
+			map.put(prefix + i, "someValue" + i);
+		}
+		return map;
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> readFromTableUsingConditions() {
+		return recordReader.readFromTableUsingConditions(TABLE_NAME, conditions);
+	}
+
+	@Benchmark
+	public List<Map<String, Object>> readFromTableUsingConditionsAndColumnNames() {
+		return recordReader.readFromTableUsingConditions(TABLE_NAME, conditions, columnNames);
+	}
+
+	@Benchmark
+	public void updateTableUsingColumnsWithValuesAndConditions() {
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions(TABLE_NAME,
+				columnsWithValues, conditions);
+	}
+}
@@ -2,6 +2,7 @@ module se.uu.ub.cora.sqldatabase {
 	requires transitive java.naming;
 	requires transitive java.sql;
 	requires se.uu.ub.cora.logger;
+	requires org.postgresql.jdbc;
 
 	exports se.uu.ub.cora.connection;
 	exports se.uu.ub.cora.sqldatabase;
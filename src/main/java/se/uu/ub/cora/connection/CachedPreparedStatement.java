@@ -0,0 +1,226 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * CachedPreparedStatement wraps a PreparedStatement held by a {@link StatementCache}, one wrapper
+ * each time the statement is handed out. Calling {@link #close()} resets the statement and returns
+ * it to the cache instead of closing it, and the wrapper can not be used after that. A statement
+ * that can not be reset, or that has been evicted from the cache while in use, is closed for real.
+ * So is a statement that has had a cursor name set, as a cursor name can not be reset.
+ * <p>
+ * Everything else is handled as for other statements created through a {@link PooledConnection},
+ * see {@link PooledStatement}.
+ */
+final class CachedPreparedStatement extends PooledPreparedStatement<PreparedStatement> {
+	private final StatementCache cache;
+	private final String sql;
+	private boolean closeOnCompletionUsed = false;
+	private boolean cursorNameUsed = false;
+	private boolean executeUsed = false;
+	private boolean settingsChanged = false;
+	private boolean batchAdded = false;
+	private ResultSet lastResultSet;
+
+	CachedPreparedStatement(StatementCache cache, String sql, PreparedStatement statement,
+			Connection owner) {
+		super(statement, owner);
+		this.cache = cache;
+		this.sql = sql;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (markClosed()) {
+			boolean reusable = !closeOnCompletionUsed && !cursorNameUsed && resetStatement();
+			cache.checkIn(sql, getPhysicalStatement(), reusable);
+		}
+	}
+
+	private boolean resetStatement() {
+		try {
+			closeLastResultSet();
+			closeResultSetOfExecuteIfUsed();
+			getPhysicalStatement().clearParameters();
+			resetChangedSettingsAndBatch();
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void closeLastResultSet() throws SQLException {
+		if (lastResultSet != null) {
+			lastResultSet.close();
+			lastResultSet = null;
+		}
+	}
+
+	private void closeResultSetOfExecuteIfUsed() throws SQLException {
+		if (executeUsed) {
+			ResultSet resultSet = getPhysicalStatement().getResultSet();
+			if (resultSet != null) {
+				resultSet.close();
+			}
+			executeUsed = false;
+		}
+	}
+
+	private void resetChangedSettingsAndBatch() throws SQLException {
+		PreparedStatement statement = getPhysicalStatement();
+		if (settingsChanged) {
+			statement.setMaxRows(0);
+			statement.setFetchSize(0);
+			statement.setQueryTimeout(0);
+			statement.setMaxFieldSize(0);
+			statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+			statement.setEscapeProcessing(true);
+			statement.setPoolable(true);
+			settingsChanged = false;
+		}
+		if (batchAdded) {
+			statement.clearBatch();
+			batchAdded = false;
+		}
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		super.setMaxRows(max);
+		settingsChanged = true;
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		super.setFetchSize(rows);
+		settingsChanged = true;
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		super.setQueryTimeout(seconds);
+		settingsChanged = true;
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException {
+		super.setMaxFieldSize(max);
+		settingsChanged = true;
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		super.setEscapeProcessing(enable);
+		settingsChanged = true;
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		super.setFetchDirection(direction);
+		settingsChanged = true;
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException {
+		super.setPoolable(poolable);
+		settingsChanged = true;
+	}
+
+	@Override
+	public void addBatch() throws SQLException {
+		super.addBatch();
+		batchAdded = true;
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		super.addBatch(sql);
+		batchAdded = true;
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		super.closeOnCompletion();
+		closeOnCompletionUsed = true;
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		super.setCursorName(name);
+		cursorNameUsed = true;
+	}
+
+	@Override
+	public boolean execute() throws SQLException {
+		boolean hasResultSet = super.execute();
+		executeUsed = true;
+		return hasResultSet;
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		boolean hasResultSet = super.execute(sql);
+		executeUsed = true;
+		return hasResultSet;
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		boolean hasResultSet = super.execute(sql, autoGeneratedKeys);
+		executeUsed = true;
+		return hasResultSet;
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		boolean hasResultSet = super.execute(sql, columnIndexes);
+		executeUsed = true;
+		return hasResultSet;
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		boolean hasResultSet = super.execute(sql, columnNames);
+		executeUsed = true;
+		return hasResultSet;
+	}
+
+	@Override
+	public ResultSet executeQuery() throws SQLException {
+		lastResultSet = super.executeQuery();
+		return lastResultSet;
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		lastResultSet = super.executeQuery(sql);
+		return lastResultSet;
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		lastResultSet = super.getResultSet();
+		return lastResultSet;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * ConnectionBag holds the entries of a connection pool without a global lock. Entries are claimed
+ * by compare and set on their state.
+ * <p>
+ * A borrowing thread first tries the entry it returned last, then scans the shared list of all
+ * entries. Threads that have to wait for an entry are registered as waiters, and a returning thread
+ * hands its entry directly to a waiter through a handoff queue when there is one.
+ */
+final class ConnectionBag {
+	private static final int MAX_HANDOFF_ATTEMPTS = 64;
+	private final CopyOnWriteArrayList<PoolEntry> sharedEntries = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<WeakReference<PoolEntry>> lastReturnedEntry = new ThreadLocal<>();
+	private final SynchronousQueue<PoolEntry> handoffQueue = new SynchronousQueue<>(true);
+	private final AtomicInteger waiters = new AtomicInteger();
+
+	PoolEntry claimLastReturnedEntry() {
+		WeakReference<PoolEntry> reference = lastReturnedEntry.get();
+		if (reference != null) {
+			PoolEntry entry = reference.get();
+			if (entry != null && entry.claim()) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	PoolEntry claimSharedEntry() {
+		for (PoolEntry entry : sharedEntries) {
+			if (entry.claim()) {
+				return entry;
+			}
+		}
+		return null;
+	}
+
+	PoolEntry claimHandedOffEntry(long timeoutInNanos) throws InterruptedException {
+		PoolEntry entry = handoffQueue.poll(timeoutInNanos, TimeUnit.NANOSECONDS);
+		if (entry != null && entry.claim()) {
+			return entry;
+		}
+		return null;
+	}
+
+	void startWaiting() {
+		waiters.incrementAndGet();
+	}
+
+	void stopWaiting() {
+		waiters.decrementAndGet();
+	}
+
+	void add(PoolEntry entry) {
+		sharedEntries.add(entry);
+	}
+
+	void requite(PoolEntry entry, long now) {
+		entry.markReturned(now);
+		for (int i = 0; waiters.get() > 0 && i < MAX_HANDOFF_ATTEMPTS; i++) {
+			if (!entry.isNotInUse() || handoffQueue.offer(entry)) {
+				return;
+			}
+			Thread.yield();
+		}
+		lastReturnedEntry.set(new WeakReference<>(entry));
+	}
+
+	void remove(PoolEntry entry) {
+		entry.markRemoved();
+		sharedEntries.remove(entry);
+	}
+
+	List<PoolEntry> getIdleEntriesMatching(Predicate<PoolEntry> predicate) {
+		List<PoolEntry> matching = new ArrayList<>();
+		for (PoolEntry entry : sharedEntries) {
+			if (entry.isNotInUse() && predicate.test(entry)) {
+				matching.add(entry);
+			}
+		}
+		return matching;
+	}
+
+	void removeClaimed(PoolEntry entry) {
+		sharedEntries.remove(entry);
+	}
+
+	List<PoolEntry> removeIdleEntriesMatching(Predicate<PoolEntry> predicate, int maxToRemove) {
+		List<PoolEntry> removed = new ArrayList<>();
+		for (PoolEntry entry : sharedEntries) {
+			if (removed.size() < maxToRemove && entry.isNotInUse() && predicate.test(entry)
+					&& entry.claimForRemoval()) {
+				sharedEntries.remove(entry);
+				removed.add(entry);
+			}
+		}
+		return removed;
+	}
+
+	int getNoOfIdleEntries() {
+		int noOfIdle = 0;
+		for (PoolEntry entry : sharedEntries) {
+			if (entry.isNotInUse()) {
+				noOfIdle++;
+			}
+		}
+		return noOfIdle;
+	}
+}
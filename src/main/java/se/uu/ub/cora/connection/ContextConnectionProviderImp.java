@@ -19,6 +19,7 @@
 package se.uu.ub.cora.connection;
 
 import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
@@ -26,10 +27,20 @@ import javax.sql.DataSource;
 
 import se.uu.ub.cora.sqldatabase.SqlStorageException;
 
+/**
+ * ContextConnectionProviderImp is a {@link SqlConnectionProvider} that gets connections from a
+ * DataSource looked up in an InitialContext using a name. The DataSource is looked up on the first
+ * call to {@link #getConnection()} and then reused.
+ * <p>
+ * The looked up DataSource is kept in an AtomicReference instead of being guarded by a monitor, so
+ * that threads, virtual threads included, never block each other here. Threads that call
+ * getConnection for the first time at the same moment may all do a lookup, but they all use the
+ * DataSource from the lookup that finished first.
+ */
 public final class ContextConnectionProviderImp implements SqlConnectionProvider {
 	private InitialContext context;
 	private String name;
-	private DataSource ds;
+	private final AtomicReference<DataSource> dataSource = new AtomicReference<>();
 
 	public String getName() {
 		// for test
@@ -54,20 +65,29 @@ public final class ContextConnectionProviderImp implements SqlConnectionProvider
 	@Override
 	public Connection getConnection() {
 		try {
-			lookupDatasourceUsingNameIfNotLookedUpSinceBefore(context, name);
+			DataSource ds = lookupDatasourceUsingNameIfNotLookedUpSinceBefore(context, name);
 			return ds.getConnection();
 		} catch (Exception e) {
 			throw SqlStorageException.withMessageAndException(e.getMessage(), e);
 		}
 	}
 
-	private void lookupDatasourceUsingNameIfNotLookedUpSinceBefore(InitialContext context,
+	private DataSource lookupDatasourceUsingNameIfNotLookedUpSinceBefore(InitialContext context,
 			String name) throws NamingException {
+		DataSource ds = dataSource.get();
 		if (null == ds) {
-			ds = (DataSource) context.lookup(name);
+			ds = lookupDatasourceUsingName(context, name);
+			dataSource.compareAndSet(null, ds);
 		}
+		return dataSource.get();
+	}
+
+	private DataSource lookupDatasourceUsingName(InitialContext context, String name)
+			throws NamingException {
+		DataSource ds = (DataSource) context.lookup(name);
 		if (ds == null) {
 			throw SqlStorageException.withMessage("Data source not found!");
 		}
+		return ds;
 	}
 }
@@ -20,10 +20,20 @@ package se.uu.ub.cora.connection;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.Properties;
 
 import se.uu.ub.cora.sqldatabase.SqlStorageException;
 
+/**
+ * ParameterConnectionProviderImp creates a new connection using {@link DriverManager} for each
+ * call to {@link #getConnection()}.
+ * <p>
+ * Connections to postgres are opened with reWriteBatchedInserts, so that batched inserts are sent
+ * as multi row statements. The option only affects inserts, batched updates and deletes are sent
+ * as before.
+ */
 public final class ParameterConnectionProviderImp implements SqlConnectionProvider {
+	private static final String POSTGRES_URL_PREFIX = "jdbc:postgresql:";
 	private String url;
 	private String user;
 	private String password;
@@ -42,10 +52,25 @@ public final class ParameterConnectionProviderImp implements SqlConnectionProvid
 	@Override
 	public Connection getConnection() {
 		try {
-			return DriverManager.getConnection(url, user, password);
+			return DriverManager.getConnection(url, getConnectionProperties());
 		} catch (Exception e) {
 			throw SqlStorageException.withMessageAndException("Error getting connection", e);
 		}
 	}
 
+	Properties getConnectionProperties() {
+		Properties properties = new Properties();
+		setPropertyIfNotNull(properties, "user", user);
+		setPropertyIfNotNull(properties, "password", password);
+		if (url.startsWith(POSTGRES_URL_PREFIX)) {
+			properties.setProperty("reWriteBatchedInserts", "true");
+		}
+		return properties;
+	}
+
+	private void setPropertyIfNotNull(Properties properties, String key, String value) {
+		if (value != null) {
+			properties.setProperty(key, value);
+		}
+	}
 }
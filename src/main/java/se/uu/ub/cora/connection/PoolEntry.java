@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+final class PoolEntry {
+	private static final int NOT_IN_USE = 0;
+	private static final int IN_USE = 1;
+	private static final int REMOVED = -1;
+	private static final String CONNECTION_EXCEPTION_CLASS = "08";
+	private static final Set<String> SERVER_SHUTDOWN_STATES = Set.of("57P01", "57P02", "57P03");
+
+	private final Connection connection;
+	private final StatementCache statementCache;
+	private final long createdAt;
+	private final AtomicInteger state = new AtomicInteger(IN_USE);
+	private volatile long lastReturnedAt;
+	private volatile boolean connectionErrorOccurred = false;
+
+	PoolEntry(Connection connection, StatementCache statementCache, long now) {
+		this.connection = connection;
+		this.statementCache = statementCache;
+		this.createdAt = now;
+		this.lastReturnedAt = now;
+	}
+
+	Connection getConnection() {
+		return connection;
+	}
+
+	StatementCache getStatementCache() {
+		return statementCache;
+	}
+
+	boolean claim() {
+		return state.compareAndSet(NOT_IN_USE, IN_USE);
+	}
+
+	boolean claimForRemoval() {
+		return state.compareAndSet(NOT_IN_USE, REMOVED);
+	}
+
+	void releaseClaimForRemoval() {
+		state.compareAndSet(REMOVED, NOT_IN_USE);
+	}
+
+	void markRemoved() {
+		state.set(REMOVED);
+	}
+
+	void markReturned(long now) {
+		lastReturnedAt = now;
+		state.set(NOT_IN_USE);
+	}
+
+	boolean isNotInUse() {
+		return state.get() == NOT_IN_USE;
+	}
+
+	boolean hasExceededLifetime(long now, Duration maxLifetime) {
+		return isPositive(maxLifetime) && now - createdAt >= maxLifetime.toNanos();
+	}
+
+	boolean hasBeenIdleLongerThan(long now, Duration idleTimeout) {
+		return isPositive(idleTimeout) && now - lastReturnedAt >= idleTimeout.toNanos();
+	}
+
+	boolean hasBeenIdleAtLeast(long now, Duration duration) {
+		return now - lastReturnedAt >= duration.toNanos();
+	}
+
+	private boolean isPositive(Duration duration) {
+		return !duration.isZero() && !duration.isNegative();
+	}
+
+	void markBrokenIfConnectionError(SQLException exception) {
+		String sqlState = exception.getSQLState();
+		if (sqlState != null && (sqlState.startsWith(CONNECTION_EXCEPTION_CLASS)
+				|| SERVER_SHUTDOWN_STATES.contains(sqlState))) {
+			connectionErrorOccurred = true;
+		}
+	}
+
+	boolean isBroken() {
+		return connectionErrorOccurred;
+	}
+
+	boolean isValid(int timeoutInSeconds) {
+		try {
+			return connection.isValid(timeoutInSeconds);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	void closeQuietly() {
+		try {
+			connection.close();
+		} catch (Exception e) {
+			// nothing more we can do with a connection that fails to close
+		}
+	}
+}
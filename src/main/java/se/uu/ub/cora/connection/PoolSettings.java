@@ -0,0 +1,145 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.time.Duration;
+
+/**
+ * PoolSettings holds the sizing and timeout settings used by {@link PooledConnectionProviderImp}.
+ * Instances are immutable, each with method returns a new instance with the changed setting.
+ * <p>
+ * A timeout of {@link Duration#ZERO} for idleTimeout or maxLifetime means that connections are
+ * never closed for that reason. A statementCacheSize of 0 turns off caching of PreparedStatements.
+ * <p>
+ * A connection that has been idle for at least validationIdleTime is validated before it is handed
+ * out again, a validationIdleTime of {@link Duration#ZERO} validates it every time.
+ */
+public final class PoolSettings {
+	private static final int DEFAULT_MIN_SIZE = 0;
+	private static final int DEFAULT_MAX_SIZE = 10;
+	private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+	private static final Duration DEFAULT_MAX_LIFETIME = Duration.ofMinutes(30);
+	private static final Duration DEFAULT_ACQUISITION_TIMEOUT = Duration.ofSeconds(30);
+	private static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+	private static final Duration DEFAULT_VALIDATION_IDLE_TIME = Duration.ofMillis(500);
+
+	private final int minSize;
+	private final int maxSize;
+	private final Duration idleTimeout;
+	private final Duration maxLifetime;
+	private final Duration acquisitionTimeout;
+	private final int statementCacheSize;
+	private final Duration validationIdleTime;
+
+	public static PoolSettings defaultSettings() {
+		return new PoolSettings(DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE, DEFAULT_IDLE_TIMEOUT,
+				DEFAULT_MAX_LIFETIME, DEFAULT_ACQUISITION_TIMEOUT, DEFAULT_STATEMENT_CACHE_SIZE,
+				DEFAULT_VALIDATION_IDLE_TIME);
+	}
+
+	private PoolSettings(int minSize, int maxSize, Duration idleTimeout, Duration maxLifetime,
+			Duration acquisitionTimeout, int statementCacheSize, Duration validationIdleTime) {
+		throwErrorIfSizesAreInvalid(minSize, maxSize);
+		throwErrorIfStatementCacheSizeIsInvalid(statementCacheSize);
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.idleTimeout = idleTimeout;
+		this.maxLifetime = maxLifetime;
+		this.acquisitionTimeout = acquisitionTimeout;
+		this.statementCacheSize = statementCacheSize;
+		this.validationIdleTime = validationIdleTime;
+	}
+
+	private void throwErrorIfSizesAreInvalid(int minSize, int maxSize) {
+		if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+			throw new IllegalArgumentException(
+					"Invalid pool size, min: " + minSize + " max: " + maxSize);
+		}
+	}
+
+	private void throwErrorIfStatementCacheSizeIsInvalid(int statementCacheSize) {
+		if (statementCacheSize < 0) {
+			throw new IllegalArgumentException(
+					"Invalid statement cache size: " + statementCacheSize);
+		}
+	}
+
+	public PoolSettings withMinSize(int minSize) {
+		return new PoolSettings(minSize, maxSize, idleTimeout, maxLifetime, acquisitionTimeout,
+				statementCacheSize, validationIdleTime);
+	}
+
+	public PoolSettings withMaxSize(int maxSize) {
+		return new PoolSettings(minSize, maxSize, idleTimeout, maxLifetime, acquisitionTimeout,
+				statementCacheSize, validationIdleTime);
+	}
+
+	public PoolSettings withIdleTimeout(Duration idleTimeout) {
+		return new PoolSettings(minSize, maxSize, idleTimeout, maxLifetime, acquisitionTimeout,
+				statementCacheSize, validationIdleTime);
+	}
+
+	public PoolSettings withMaxLifetime(Duration maxLifetime) {
+		return new PoolSettings(minSize, maxSize, idleTimeout, maxLifetime, acquisitionTimeout,
+				statementCacheSize, validationIdleTime);
+	}
+
+	public PoolSettings withAcquisitionTimeout(Duration acquisitionTimeout) {
+		return new PoolSettings(minSize, maxSize, idleTimeout, maxLifetime, acquisitionTimeout,
+				statementCacheSize, validationIdleTime);
+	}
+
+	public PoolSettings withStatementCacheSize(int statementCacheSize) {
+		return new PoolSettings(minSize, maxSize, idleTimeout, maxLifetime, acquisitionTimeout,
+				statementCacheSize, validationIdleTime);
+	}
+
+	public PoolSettings withValidationIdleTime(Duration validationIdleTime) {
+		return new PoolSettings(minSize, maxSize, idleTimeout, maxLifetime, acquisitionTimeout,
+				statementCacheSize, validationIdleTime);
+	}
+
+	public int getMinSize() {
+		return minSize;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public Duration getIdleTimeout() {
+		return idleTimeout;
+	}
+
+	public Duration getMaxLifetime() {
+		return maxLifetime;
+	}
+
+	public Duration getAcquisitionTimeout() {
+		return acquisitionTimeout;
+	}
+
+	public int getStatementCacheSize() {
+		return statementCacheSize;
+	}
+
+	public Duration getValidationIdleTime() {
+		return validationIdleTime;
+	}
+}
@@ -0,0 +1,595 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * PooledConnection wraps a physical connection handed out by {@link PooledConnectionProviderImp}.
+ * Calling {@link #close()} returns the physical connection to the pool instead of closing it,
+ * after rolling back and restoring autoCommit if it has been turned off, and restoring readOnly,
+ * transaction isolation, catalog, schema, type map, holdability, network timeout and client info
+ * if they have been changed. A physical connection that is closed, that has had a connection error
+ * or that can not be restored is closed by the pool.
+ * <p>
+ * All statements are wrapped, see {@link PooledStatement}, so that they return this connection
+ * from getConnection and are tracked by it. PreparedStatements created using
+ * {@link #prepareStatement(String)} come from the statement cache of the physical connection.
+ * Statements that are still open when the connection is closed are closed, returning cached
+ * statements to the cache, so that a statement leaked by one caller can neither be used by it
+ * after the connection has been handed to someone else, nor keep its place in the cache in use.
+ */
+final class PooledConnection implements Connection {
+	private final PooledConnectionProviderImp pool;
+	private final PoolEntry entry;
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+	private final List<Statement> openStatements = new ArrayList<>();
+	private boolean autoCommitChanged = false;
+	private boolean readOnlyChanged = false;
+	private boolean originalReadOnly;
+	private boolean transactionIsolationChanged = false;
+	private int originalTransactionIsolation;
+	private boolean catalogChanged = false;
+	private String originalCatalog;
+	private boolean schemaChanged = false;
+	private String originalSchema;
+	private boolean typeMapChanged = false;
+	private Map<String, Class<?>> originalTypeMap;
+	private boolean holdabilityChanged = false;
+	private int originalHoldability;
+	private boolean networkTimeoutChanged = false;
+	private int originalNetworkTimeout;
+	private Executor networkTimeoutExecutor;
+	private boolean clientInfoChanged = false;
+	private Properties originalClientInfo;
+
+	PooledConnection(PooledConnectionProviderImp pool, PoolEntry entry) {
+		this.pool = pool;
+		this.entry = entry;
+	}
+
+	private Connection connection() throws SQLException {
+		if (closed.get()) {
+			throw new SQLException("Connection is closed");
+		}
+		return entry.getConnection();
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (closed.compareAndSet(false, true)) {
+			boolean statementsClosed = closeOpenStatements();
+			pool.returnEntry(entry, statementsClosed && resetStateOfPhysicalConnection());
+		}
+	}
+
+	private boolean closeOpenStatements() {
+		List<Statement> statements = new ArrayList<>(openStatements);
+		openStatements.clear();
+		boolean allClosed = true;
+		for (Statement statement : statements) {
+			allClosed &= closeStatement(statement);
+		}
+		return allClosed;
+	}
+
+	private boolean closeStatement(Statement statement) {
+		try {
+			statement.close();
+			return true;
+		} catch (SQLException e) {
+			markBrokenIfConnectionError(e);
+			return false;
+		}
+	}
+
+	void forgetStatement(Statement statement) {
+		openStatements.remove(statement);
+	}
+
+	private <T extends Statement> T track(T statement) {
+		openStatements.add(statement);
+		return statement;
+	}
+
+	private boolean resetStateOfPhysicalConnection() {
+		if (entry.isBroken()) {
+			return false;
+		}
+		try {
+			Connection physicalConnection = entry.getConnection();
+			if (physicalConnection.isClosed()) {
+				return false;
+			}
+			restoreAutoCommitIfChanged(physicalConnection);
+			restoreSessionStateIfChanged(physicalConnection);
+			return true;
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void restoreAutoCommitIfChanged(Connection physicalConnection) throws SQLException {
+		if (autoCommitChanged && !physicalConnection.getAutoCommit()) {
+			physicalConnection.rollback();
+			physicalConnection.setAutoCommit(true);
+		}
+	}
+
+	private void restoreSessionStateIfChanged(Connection physicalConnection)
+			throws SQLException {
+		if (readOnlyChanged) {
+			physicalConnection.setReadOnly(originalReadOnly);
+		}
+		if (transactionIsolationChanged) {
+			physicalConnection.setTransactionIsolation(originalTransactionIsolation);
+		}
+		if (catalogChanged) {
+			physicalConnection.setCatalog(originalCatalog);
+		}
+		if (schemaChanged) {
+			physicalConnection.setSchema(originalSchema);
+		}
+		if (typeMapChanged) {
+			physicalConnection.setTypeMap(originalTypeMap);
+		}
+		if (holdabilityChanged) {
+			physicalConnection.setHoldability(originalHoldability);
+		}
+		if (networkTimeoutChanged) {
+			physicalConnection.setNetworkTimeout(networkTimeoutExecutor, originalNetworkTimeout);
+		}
+		if (clientInfoChanged) {
+			physicalConnection.setClientInfo(originalClientInfo);
+		}
+	}
+
+	SQLException markBrokenIfConnectionError(SQLException exception) {
+		entry.markBrokenIfConnectionError(exception);
+		return exception;
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed.get() || entry.getConnection().isClosed();
+	}
+
+	@Override
+	public void setAutoCommit(boolean autoCommit) throws SQLException {
+		try {
+			connection().setAutoCommit(autoCommit);
+			autoCommitChanged = true;
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return connection().unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || connection().isWrapperFor(iface);
+	}
+
+	Connection getPhysicalConnection() {
+		// needed for test
+		return entry.getConnection();
+	}
+
+	@Override
+	public Statement createStatement() throws SQLException {
+		try {
+			return track(new PooledStatement<>(connection().createStatement(), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql) throws SQLException {
+		try {
+			return track(entry.getStatementCache().prepareStatement(connection(), this, sql));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql) throws SQLException {
+		try {
+			return track(new PooledCallableStatement(connection().prepareCall(sql), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public String nativeSQL(String sql) throws SQLException {
+		return connection().nativeSQL(sql);
+	}
+
+	@Override
+	public boolean getAutoCommit() throws SQLException {
+		return connection().getAutoCommit();
+	}
+
+	@Override
+	public void commit() throws SQLException {
+		try {
+			connection().commit();
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public void rollback() throws SQLException {
+		try {
+			connection().rollback();
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public DatabaseMetaData getMetaData() throws SQLException {
+		return connection().getMetaData();
+	}
+
+	@Override
+	public void setReadOnly(boolean readOnly) throws SQLException {
+		Connection connection = connection();
+		if (!readOnlyChanged) {
+			originalReadOnly = connection.isReadOnly();
+			readOnlyChanged = true;
+		}
+		connection.setReadOnly(readOnly);
+	}
+
+	@Override
+	public boolean isReadOnly() throws SQLException {
+		return connection().isReadOnly();
+	}
+
+	@Override
+	public void setCatalog(String catalog) throws SQLException {
+		Connection connection = connection();
+		if (!catalogChanged) {
+			originalCatalog = connection.getCatalog();
+			catalogChanged = true;
+		}
+		connection.setCatalog(catalog);
+	}
+
+	@Override
+	public String getCatalog() throws SQLException {
+		return connection().getCatalog();
+	}
+
+	@Override
+	public void setTransactionIsolation(int level) throws SQLException {
+		Connection connection = connection();
+		if (!transactionIsolationChanged) {
+			originalTransactionIsolation = connection.getTransactionIsolation();
+			transactionIsolationChanged = true;
+		}
+		connection.setTransactionIsolation(level);
+	}
+
+	@Override
+	public int getTransactionIsolation() throws SQLException {
+		return connection().getTransactionIsolation();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return connection().getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		connection().clearWarnings();
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency)
+			throws SQLException {
+		try {
+			return track(new PooledStatement<>(
+					connection().createStatement(resultSetType, resultSetConcurrency), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType,
+			int resultSetConcurrency) throws SQLException {
+		try {
+			return track(new PooledPreparedStatement<>(
+					connection().prepareStatement(sql, resultSetType, resultSetConcurrency), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
+			throws SQLException {
+		try {
+			return track(new PooledCallableStatement(
+					connection().prepareCall(sql, resultSetType, resultSetConcurrency), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public Map<String, Class<?>> getTypeMap() throws SQLException {
+		return connection().getTypeMap();
+	}
+
+	@Override
+	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+		Connection connection = connection();
+		if (!typeMapChanged) {
+			originalTypeMap = connection.getTypeMap();
+			typeMapChanged = true;
+		}
+		connection.setTypeMap(map);
+	}
+
+	@Override
+	public void setHoldability(int holdability) throws SQLException {
+		Connection connection = connection();
+		if (!holdabilityChanged) {
+			originalHoldability = connection.getHoldability();
+			holdabilityChanged = true;
+		}
+		connection.setHoldability(holdability);
+	}
+
+	@Override
+	public int getHoldability() throws SQLException {
+		return connection().getHoldability();
+	}
+
+	@Override
+	public Savepoint setSavepoint() throws SQLException {
+		return connection().setSavepoint();
+	}
+
+	@Override
+	public Savepoint setSavepoint(String name) throws SQLException {
+		return connection().setSavepoint(name);
+	}
+
+	@Override
+	public void rollback(Savepoint savepoint) throws SQLException {
+		connection().rollback(savepoint);
+	}
+
+	@Override
+	public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+		connection().releaseSavepoint(savepoint);
+	}
+
+	@Override
+	public Statement createStatement(int resultSetType, int resultSetConcurrency,
+			int resultSetHoldability) throws SQLException {
+		try {
+			return track(new PooledStatement<>(connection().createStatement(resultSetType,
+					resultSetConcurrency, resultSetHoldability), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int resultSetType,
+			int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+		try {
+			return track(new PooledPreparedStatement<>(connection().prepareStatement(sql,
+					resultSetType, resultSetConcurrency, resultSetHoldability), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+			int resultSetHoldability) throws SQLException {
+		try {
+			return track(new PooledCallableStatement(connection().prepareCall(sql, resultSetType,
+					resultSetConcurrency, resultSetHoldability), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys)
+			throws SQLException {
+		try {
+			return track(new PooledPreparedStatement<>(
+					connection().prepareStatement(sql, autoGeneratedKeys), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return track(new PooledPreparedStatement<>(
+					connection().prepareStatement(sql, columnIndexes), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public PreparedStatement prepareStatement(String sql, String[] columnNames)
+			throws SQLException {
+		try {
+			return track(new PooledPreparedStatement<>(
+					connection().prepareStatement(sql, columnNames), this));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public Clob createClob() throws SQLException {
+		return connection().createClob();
+	}
+
+	@Override
+	public Blob createBlob() throws SQLException {
+		return connection().createBlob();
+	}
+
+	@Override
+	public NClob createNClob() throws SQLException {
+		return connection().createNClob();
+	}
+
+	@Override
+	public SQLXML createSQLXML() throws SQLException {
+		return connection().createSQLXML();
+	}
+
+	@Override
+	public boolean isValid(int timeout) throws SQLException {
+		return connection().isValid(timeout);
+	}
+
+	@Override
+	public void setClientInfo(String name, String value) throws SQLClientInfoException {
+		clientInfoConnection().setClientInfo(name, value);
+	}
+
+	private Connection clientInfoConnection() throws SQLClientInfoException {
+		if (closed.get()) {
+			throw new SQLClientInfoException("Connection is closed", Collections.emptyMap());
+		}
+		Connection connection = entry.getConnection();
+		rememberOriginalClientInfo(connection);
+		return connection;
+	}
+
+	private void rememberOriginalClientInfo(Connection connection) throws SQLClientInfoException {
+		if (!clientInfoChanged) {
+			try {
+				originalClientInfo = connection.getClientInfo();
+			} catch (SQLException e) {
+				throw new SQLClientInfoException(e.getMessage(), Collections.emptyMap(), e);
+			}
+			clientInfoChanged = true;
+		}
+	}
+
+	@Override
+	public void setClientInfo(Properties properties) throws SQLClientInfoException {
+		clientInfoConnection().setClientInfo(properties);
+	}
+
+	@Override
+	public String getClientInfo(String name) throws SQLException {
+		return connection().getClientInfo(name);
+	}
+
+	@Override
+	public Properties getClientInfo() throws SQLException {
+		return connection().getClientInfo();
+	}
+
+	@Override
+	public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+		return connection().createArrayOf(typeName, elements);
+	}
+
+	@Override
+	public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+		return connection().createStruct(typeName, attributes);
+	}
+
+	@Override
+	public void setSchema(String schema) throws SQLException {
+		Connection connection = connection();
+		if (!schemaChanged) {
+			originalSchema = connection.getSchema();
+			schemaChanged = true;
+		}
+		connection.setSchema(schema);
+	}
+
+	@Override
+	public String getSchema() throws SQLException {
+		return connection().getSchema();
+	}
+
+	@Override
+	public void abort(Executor executor) throws SQLException {
+		connection().abort(executor);
+	}
+
+	@Override
+	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+		Connection connection = connection();
+		if (!networkTimeoutChanged) {
+			originalNetworkTimeout = connection.getNetworkTimeout();
+			networkTimeoutChanged = true;
+		}
+		networkTimeoutExecutor = executor;
+		connection.setNetworkTimeout(executor, milliseconds);
+	}
+
+	@Override
+	public int getNetworkTimeout() throws SQLException {
+		return connection().getNetworkTimeout();
+	}
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import se.uu.ub.cora.sqldatabase.SqlStorageException;
+
+/**
+ * PooledConnectionProviderImp is a {@link SqlConnectionProvider} that keeps a bounded pool of
+ * physical connections, created by a wrapped SqlConnectionProvider. Connections handed out by
+ * {@link #getConnection()} are returned to the pool when they are closed.
+ * <p>
+ * The pool does not use a global lock, see {@link ConnectionBag}. A thread that gets a connection
+ * shortly after it returned one will most often get the same physical connection back without
+ * touching any shared state.
+ * <p>
+ * Connections that have exceeded the max lifetime or the idle timeout are closed instead of being
+ * handed out again. Idle connections that have exceeded the idle timeout are also closed when
+ * another connection is returned, as long as the pool has more than min size connections. The pool
+ * is filled up to min size when it is created and whenever a connection is closed.
+ * <p>
+ * A connection that has been idle for at least {@link PoolSettings#getValidationIdleTime()} is
+ * checked using {@link Connection#isValid(int)} before it is handed out. A connection that is
+ * closed, has had a connection error (SQLState class 08, or the server shutting down) or can not
+ * have its state reset when it is returned is closed instead of being reused.
+ * <p>
+ * Each physical connection keeps a {@link StatementCache} of PreparedStatements, sized by
+ * {@link PoolSettings#getStatementCacheSize()}, so that statements prepared by the server can be
+ * reused the next time the same sql is used on the connection.
+ */
+public final class PooledConnectionProviderImp implements SqlConnectionProvider, AutoCloseable {
+	private static final long MAX_WAIT_SLICE = TimeUnit.MILLISECONDS.toNanos(10);
+	private static final int VALIDATION_TIMEOUT_IN_SECONDS = 5;
+	private final SqlConnectionProvider connectionFactory;
+	private final PoolSettings settings;
+	private final ConnectionBag bag = new ConnectionBag();
+	private final AtomicInteger noOfConnections = new AtomicInteger();
+	private final LongAdder statementCacheHits = new LongAdder();
+	private final LongAdder statementCacheMisses = new LongAdder();
+	private volatile boolean closed = false;
+
+	public static PooledConnectionProviderImp usingUriAndUserAndPasswordAndPoolSettings(String url,
+			String user, String password, PoolSettings settings) {
+		SqlConnectionProvider connectionFactory = ParameterConnectionProviderImp
+				.usingUriAndUserAndPassword(url, user, password);
+		return usingSqlConnectionProviderAndPoolSettings(connectionFactory, settings);
+	}
+
+	public static PooledConnectionProviderImp usingSqlConnectionProviderAndPoolSettings(
+			SqlConnectionProvider connectionFactory, PoolSettings settings) {
+		PooledConnectionProviderImp pool = new PooledConnectionProviderImp(connectionFactory,
+				settings);
+		pool.fillPoolToMinSize();
+		return pool;
+	}
+
+	private PooledConnectionProviderImp(SqlConnectionProvider connectionFactory,
+			PoolSettings settings) {
+		this.connectionFactory = connectionFactory;
+		this.settings = settings;
+	}
+
+	@Override
+	public Connection getConnection() {
+		throwErrorIfClosed();
+		PoolEntry entry = bag.claimLastReturnedEntry();
+		if (entry != null && isUsable(entry)) {
+			return new PooledConnection(this, entry);
+		}
+		return new PooledConnection(this, borrowSharedOrNewEntry());
+	}
+
+	private void throwErrorIfClosed() {
+		if (closed) {
+			throw SqlStorageException.withMessage("Connection pool is closed");
+		}
+	}
+
+	private boolean isUsable(PoolEntry entry) {
+		long now = System.nanoTime();
+		if (entry.hasExceededLifetime(now, settings.getMaxLifetime())
+				|| entry.hasBeenIdleLongerThan(now, settings.getIdleTimeout())
+				|| isIdleAndNotValid(entry, now)) {
+			discardEntry(entry);
+			return false;
+		}
+		return true;
+	}
+
+	private boolean isIdleAndNotValid(PoolEntry entry, long now) {
+		return entry.hasBeenIdleAtLeast(now, settings.getValidationIdleTime())
+				&& !entry.isValid(VALIDATION_TIMEOUT_IN_SECONDS);
+	}
+
+	private PoolEntry borrowSharedOrNewEntry() {
+		long deadline = System.nanoTime() + settings.getAcquisitionTimeout().toNanos();
+		bag.startWaiting();
+		try {
+			return waitForSharedOrNewEntryUntil(deadline);
+		} finally {
+			bag.stopWaiting();
+		}
+	}
+
+	private PoolEntry waitForSharedOrNewEntryUntil(long deadline) {
+		while (true) {
+			throwErrorIfClosed();
+			PoolEntry entry = bag.claimSharedEntry();
+			if (entry != null && isUsable(entry)) {
+				return entry;
+			}
+			if (reserveSlotIfPoolIsNotFull()) {
+				return createEntryInReservedSlot();
+			}
+			long remaining = deadline - System.nanoTime();
+			throwErrorIfTimedOut(remaining);
+			entry = waitForHandedOffEntry(Math.min(remaining, MAX_WAIT_SLICE));
+			if (entry != null && isUsable(entry)) {
+				return entry;
+			}
+		}
+	}
+
+	private boolean reserveSlotIfPoolIsNotFull() {
+		return reserveSlotIfPoolIsSmallerThan(settings.getMaxSize());
+	}
+
+	private boolean reserveSlotIfPoolIsSmallerThan(int size) {
+		int current = noOfConnections.get();
+		while (current < size) {
+			if (noOfConnections.compareAndSet(current, current + 1)) {
+				return true;
+			}
+			current = noOfConnections.get();
+		}
+		return false;
+	}
+
+	private void throwErrorIfTimedOut(long remaining) {
+		if (remaining <= 0) {
+			throw SqlStorageException.withMessage("Timeout waiting for connection from pool after "
+					+ settings.getAcquisitionTimeout().toMillis() + " ms");
+		}
+	}
+
+	private PoolEntry waitForHandedOffEntry(long timeoutInNanos) {
+		try {
+			return bag.claimHandedOffEntry(timeoutInNanos);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw SqlStorageException
+					.withMessageAndException("Interrupted waiting for connection from pool", e);
+		}
+	}
+
+	private PoolEntry createEntryInReservedSlot() {
+		try {
+			Connection physicalConnection = connectionFactory.getConnection();
+			StatementCache statementCache = new StatementCache(settings.getStatementCacheSize(),
+					statementCacheHits, statementCacheMisses);
+			PoolEntry entry = new PoolEntry(physicalConnection, statementCache, System.nanoTime());
+			bag.add(entry);
+			return entry;
+		} catch (RuntimeException e) {
+			noOfConnections.decrementAndGet();
+			throw e;
+		}
+	}
+
+	private void discardEntry(PoolEntry entry) {
+		bag.remove(entry);
+		noOfConnections.decrementAndGet();
+		entry.closeQuietly();
+		fillPoolToMinSize();
+	}
+
+	private void fillPoolToMinSize() {
+		while (!closed && reserveSlotIfPoolIsSmallerThan(settings.getMinSize())) {
+			try {
+				PoolEntry entry = createEntryInReservedSlot();
+				bag.requite(entry, System.nanoTime());
+			} catch (RuntimeException e) {
+				// connections are created when they are needed instead
+				return;
+			}
+		}
+	}
+
+	void returnEntry(PoolEntry entry, boolean reusable) {
+		long now = System.nanoTime();
+		if (closed || !reusable || entry.hasExceededLifetime(now, settings.getMaxLifetime())) {
+			discardEntry(entry);
+			return;
+		}
+		bag.requite(entry, now);
+		if (closed) {
+			close();
+			return;
+		}
+		closeIdleEntriesThatHaveTimedOut(now);
+	}
+
+	private void closeIdleEntriesThatHaveTimedOut(long now) {
+		if (noOfConnections.get() <= settings.getMinSize()) {
+			return;
+		}
+		List<PoolEntry> timedOut = bag.getIdleEntriesMatching(
+				entry -> entry.hasBeenIdleLongerThan(now, settings.getIdleTimeout()));
+		for (PoolEntry entry : timedOut) {
+			if (entry.claimForRemoval()) {
+				closeClaimedEntryIfPoolIsLargerThanMinSize(entry);
+			}
+		}
+	}
+
+	private void closeClaimedEntryIfPoolIsLargerThanMinSize(PoolEntry entry) {
+		if (reserveRemovalIfPoolIsLargerThanMinSize()) {
+			bag.removeClaimed(entry);
+			entry.closeQuietly();
+		} else {
+			entry.releaseClaimForRemoval();
+		}
+	}
+
+	private boolean reserveRemovalIfPoolIsLargerThanMinSize() {
+		int current = noOfConnections.get();
+		while (current > settings.getMinSize()) {
+			if (noOfConnections.compareAndSet(current, current - 1)) {
+				return true;
+			}
+			current = noOfConnections.get();
+		}
+		return false;
+	}
+
+	private void closeEntries(List<PoolEntry> entries) {
+		for (PoolEntry entry : entries) {
+			entry.closeQuietly();
+		}
+	}
+
+	/**
+	 * close closes all idle connections and marks the pool as closed. Connections that are in use
+	 * are closed when they are returned to the pool.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		List<PoolEntry> idleEntries = bag.removeIdleEntriesMatching(entry -> true,
+				Integer.MAX_VALUE);
+		noOfConnections.addAndGet(-idleEntries.size());
+		closeEntries(idleEntries);
+	}
+
+	public int getNoOfConnections() {
+		return noOfConnections.get();
+	}
+
+	public int getNoOfIdleConnections() {
+		return bag.getNoOfIdleEntries();
+	}
+
+	public long getNoOfStatementCacheHits() {
+		return statementCacheHits.sum();
+	}
+
+	public long getNoOfStatementCacheMisses() {
+		return statementCacheMisses.sum();
+	}
+
+	public SqlConnectionProvider getSqlConnectionProvider() {
+		// needed for test
+		return connectionFactory;
+	}
+
+	public PoolSettings getPoolSettings() {
+		// needed for test
+		return settings;
+	}
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * PooledStatement wraps a Statement created through a {@link PooledConnection}.
+ * {@link #getConnection()} returns the pooled connection rather than the physical one, ResultSets
+ * are wrapped so that their statement is this wrapper, and errors from executing the statement are
+ * reported to the connection, so that a physical connection that has had a connection error is
+ * not reused. The connection closes statements that are still open when it is returned to the
+ * pool, and a statement can not be used after it has been closed.
+ */
+class PooledStatement<T extends Statement> implements Statement {
+	private final T statement;
+	private final Connection owner;
+	private boolean closed = false;
+
+	PooledStatement(T statement, Connection owner) {
+		this.statement = statement;
+		this.owner = owner;
+	}
+
+	T getPhysicalStatement() {
+		return statement;
+	}
+
+	T statement() throws SQLException {
+		if (closed) {
+			throw new SQLException("Statement is closed");
+		}
+		return statement;
+	}
+
+	SQLException markBrokenIfConnectionError(SQLException exception) {
+		if (owner instanceof PooledConnection) {
+			((PooledConnection) owner).markBrokenIfConnectionError(exception);
+		}
+		return exception;
+	}
+
+	ResultSet wrapResultSet(ResultSet resultSet) {
+		if (resultSet == null) {
+			return null;
+		}
+		return new PooledResultSet(this, resultSet);
+	}
+
+	/**
+	 * markClosed marks this wrapper as closed and tells the connection that created it that it no
+	 * longer has to be closed when the connection is returned. False is returned if the wrapper
+	 * already was closed.
+	 */
+	boolean markClosed() {
+		if (closed) {
+			return false;
+		}
+		closed = true;
+		if (owner instanceof PooledConnection) {
+			((PooledConnection) owner).forgetStatement(this);
+		}
+		return true;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		if (markClosed()) {
+			statement.close();
+		}
+	}
+
+	@Override
+	public boolean isClosed() throws SQLException {
+		return closed || statement.isClosed();
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		statement();
+		return owner;
+	}
+
+	@Override
+	public <U> U unwrap(Class<U> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		return statement().unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return iface.isInstance(this) || statement().isWrapperFor(iface);
+	}
+
+	@Override
+	public ResultSet executeQuery(String sql) throws SQLException {
+		try {
+			return wrapResultSet(statement().executeQuery(sql));
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql) throws SQLException {
+		try {
+			return statement().executeUpdate(sql);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public int getMaxFieldSize() throws SQLException {
+		return statement().getMaxFieldSize();
+	}
+
+	@Override
+	public void setMaxFieldSize(int max) throws SQLException {
+		statement().setMaxFieldSize(max);
+	}
+
+	@Override
+	public int getMaxRows() throws SQLException {
+		return statement().getMaxRows();
+	}
+
+	@Override
+	public void setMaxRows(int max) throws SQLException {
+		statement().setMaxRows(max);
+	}
+
+	@Override
+	public void setEscapeProcessing(boolean enable) throws SQLException {
+		statement().setEscapeProcessing(enable);
+	}
+
+	@Override
+	public int getQueryTimeout() throws SQLException {
+		return statement().getQueryTimeout();
+	}
+
+	@Override
+	public void setQueryTimeout(int seconds) throws SQLException {
+		statement().setQueryTimeout(seconds);
+	}
+
+	@Override
+	public void cancel() throws SQLException {
+		statement().cancel();
+	}
+
+	@Override
+	public SQLWarning getWarnings() throws SQLException {
+		return statement().getWarnings();
+	}
+
+	@Override
+	public void clearWarnings() throws SQLException {
+		statement().clearWarnings();
+	}
+
+	@Override
+	public void setCursorName(String name) throws SQLException {
+		statement().setCursorName(name);
+	}
+
+	@Override
+	public boolean execute(String sql) throws SQLException {
+		try {
+			return statement().execute(sql);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public ResultSet getResultSet() throws SQLException {
+		return wrapResultSet(statement().getResultSet());
+	}
+
+	@Override
+	public int getUpdateCount() throws SQLException {
+		return statement().getUpdateCount();
+	}
+
+	@Override
+	public boolean getMoreResults() throws SQLException {
+		return statement().getMoreResults();
+	}
+
+	@Override
+	public void setFetchDirection(int direction) throws SQLException {
+		statement().setFetchDirection(direction);
+	}
+
+	@Override
+	public int getFetchDirection() throws SQLException {
+		return statement().getFetchDirection();
+	}
+
+	@Override
+	public void setFetchSize(int rows) throws SQLException {
+		statement().setFetchSize(rows);
+	}
+
+	@Override
+	public int getFetchSize() throws SQLException {
+		return statement().getFetchSize();
+	}
+
+	@Override
+	public int getResultSetConcurrency() throws SQLException {
+		return statement().getResultSetConcurrency();
+	}
+
+	@Override
+	public int getResultSetType() throws SQLException {
+		return statement().getResultSetType();
+	}
+
+	@Override
+	public void addBatch(String sql) throws SQLException {
+		statement().addBatch(sql);
+	}
+
+	@Override
+	public void clearBatch() throws SQLException {
+		statement().clearBatch();
+	}
+
+	@Override
+	public int[] executeBatch() throws SQLException {
+		try {
+			return statement().executeBatch();
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public boolean getMoreResults(int current) throws SQLException {
+		return statement().getMoreResults(current);
+	}
+
+	@Override
+	public ResultSet getGeneratedKeys() throws SQLException {
+		return wrapResultSet(statement().getGeneratedKeys());
+	}
+
+	@Override
+	public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return statement().executeUpdate(sql, autoGeneratedKeys);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return statement().executeUpdate(sql, columnIndexes);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+		try {
+			return statement().executeUpdate(sql, columnNames);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+		try {
+			return statement().execute(sql, autoGeneratedKeys);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+		try {
+			return statement().execute(sql, columnIndexes);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public boolean execute(String sql, String[] columnNames) throws SQLException {
+		try {
+			return statement().execute(sql, columnNames);
+		} catch (SQLException e) {
+			throw markBrokenIfConnectionError(e);
+		}
+	}
+
+	@Override
+	public int getResultSetHoldability() throws SQLException {
+		return statement().getResultSetHoldability();
+	}
+
+	@Override
+	public void setPoolable(boolean poolable) throws SQLException {
+		statement().setPoolable(poolable);
+	}
+
+	@Override
+	public boolean isPoolable() throws SQLException {
+		return statement().isPoolable();
+	}
+
+	@Override
+	public void closeOnCompletion() throws SQLException {
+		statement().closeOnCompletion();
+	}
+
+	@Override
+	public boolean isCloseOnCompletion() throws SQLException {
+		return statement().isCloseOnCompletion();
+	}
+}
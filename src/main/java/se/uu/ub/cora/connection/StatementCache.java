@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StatementCache keeps the PreparedStatements of one physical connection, keyed by sql, so that
+ * the driver can reuse statements it has prepared on the server. Each time a cached statement is
+ * handed out it is wrapped in a new {@link CachedPreparedStatement}. Closing that wrapper returns
+ * the statement to the cache, after which the wrapper can not be used any more, so a caller that
+ * keeps a closed statement can not run it while it is handed out to someone else. The least
+ * recently used statement is closed when the cache is full.
+ * <p>
+ * A cache is only used by the thread that currently has its connection, so it is not thread safe.
+ * If a statement for the same sql is requested while the cached one is in use, a statement that is
+ * not cached is handed out, wrapped in a {@link PooledPreparedStatement}.
+ */
+final class StatementCache {
+	private final int maxSize;
+	private final LongAdder hits;
+	private final LongAdder misses;
+	private final Map<String, CacheEntry> entries;
+
+	StatementCache(int maxSize, LongAdder hits, LongAdder misses) {
+		this.maxSize = maxSize;
+		this.hits = hits;
+		this.misses = misses;
+		this.entries = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	PreparedStatement prepareStatement(Connection physicalConnection, Connection owner,
+			String sql) throws SQLException {
+		if (maxSize == 0) {
+			return prepareUncachedStatement(physicalConnection, owner, sql);
+		}
+		CacheEntry entry = entries.get(sql);
+		if (entry != null && !entry.inUse) {
+			hits.increment();
+			entry.inUse = true;
+			return new CachedPreparedStatement(this, sql, entry.statement, owner);
+		}
+		misses.increment();
+		if (entry != null) {
+			return prepareUncachedStatement(physicalConnection, owner, sql);
+		}
+		return prepareAndCacheStatement(physicalConnection, owner, sql);
+	}
+
+	private PreparedStatement prepareUncachedStatement(Connection physicalConnection,
+			Connection owner, String sql) throws SQLException {
+		return new PooledPreparedStatement<>(physicalConnection.prepareStatement(sql), owner);
+	}
+
+	private PreparedStatement prepareAndCacheStatement(Connection physicalConnection,
+			Connection owner, String sql) throws SQLException {
+		PreparedStatement statement = physicalConnection.prepareStatement(sql);
+		entries.put(sql, new CacheEntry(statement));
+		evictLeastRecentlyUsedIfFull();
+		return new CachedPreparedStatement(this, sql, statement, owner);
+	}
+
+	private void evictLeastRecentlyUsedIfFull() {
+		Iterator<CacheEntry> iterator = entries.values().iterator();
+		while (entries.size() > maxSize) {
+			CacheEntry eldest = iterator.next();
+			iterator.remove();
+			if (!eldest.inUse) {
+				closeQuietly(eldest.statement);
+			}
+		}
+	}
+
+	/**
+	 * checkIn returns a statement that has been handed out. The statement is closed if it can not
+	 * be reused or if it has been evicted from the cache while in use.
+	 */
+	void checkIn(String sql, PreparedStatement statement, boolean reusable) {
+		CacheEntry entry = entries.get(sql);
+		if (entry == null || entry.statement != statement) {
+			closeQuietly(statement);
+			return;
+		}
+		entry.inUse = false;
+		if (!reusable) {
+			entries.remove(sql);
+			closeQuietly(statement);
+		}
+	}
+
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+		} catch (SQLException e) {
+			// nothing more we can do with a statement that fails to close
+		}
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	private static final class CacheEntry {
+		private final PreparedStatement statement;
+		private boolean inUse = true;
+
+		private CacheEntry(PreparedStatement statement) {
+			this.statement = statement;
+		}
+	}
+}
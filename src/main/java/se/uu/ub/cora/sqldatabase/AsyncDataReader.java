@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * AsyncDataReader has the same operations as {@link DataReader}, but runs them asynchronously and
+ * returns a CompletableFuture for the result. This makes it possible to run independent queries
+ * at the same time, and wait for the slowest instead of for all of them one after the other.
+ * <p>
+ * A failing operation completes its future exceptionally with the {@link SqlStorageException}
+ * that the blocking operation would have thrown.
+ */
+public interface AsyncDataReader {
+
+	CompletableFuture<List<Map<String, Object>>> executePreparedStatementQueryUsingSqlAndValues(
+			String sql, List<Object> values);
+
+	<T> CompletableFuture<List<T>> executePreparedStatementQueryUsingSqlAndValues(String sql,
+			List<Object> values, RowMapper<T> rowMapper);
+
+	CompletableFuture<Map<String, Object>> readOneRowOrFailUsingSqlAndValues(String sql,
+			List<Object> values);
+
+	<T> CompletableFuture<T> readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper);
+
+	CompletableFuture<Optional<Map<String, Object>>> readOptionalOneRowUsingSqlAndValues(
+			String sql, List<Object> values);
+
+	<T> CompletableFuture<Optional<T>> readOptionalOneRowUsingSqlAndValues(String sql,
+			List<Object> values, RowMapper<T> rowMapper);
+
+	/**
+	 * streamRowsUsingSqlAndValuesAndFetchSize streams the rows in the same way as
+	 * {@link DataReader#streamRowsUsingSqlAndValuesAndFetchSize(String, List, int, Consumer)}. The
+	 * rowConsumer is called from the thread running the query, and the returned future is
+	 * completed when all rows have been handed to it.
+	 */
+	CompletableFuture<Void> streamRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize, Consumer<Map<String, Object>> rowConsumer);
+
+	/**
+	 * publishRowsUsingSqlAndValuesAndFetchSize publishes the rows in the same way as
+	 * {@link DataReader#publishRowsUsingSqlAndValuesAndFetchSize(String, List, int)}, but the rows
+	 * are read from the database by the executor instead of by the thread that calls request on
+	 * the subscription, so request returns at once and the rows are handed to the subscriber from
+	 * the executor.
+	 */
+	Flow.Publisher<Map<String, Object>> publishRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize);
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * AsyncDataReaderImp is an {@link AsyncDataReader} that runs each operation using a wrapped
+ * {@link DataReader} on an Executor, normally one created by {@link SqlExecutors}.
+ */
+public final class AsyncDataReaderImp implements AsyncDataReader {
+	private final DataReader dataReader;
+	private final Executor executor;
+
+	public static AsyncDataReaderImp usingDataReaderAndExecutor(DataReader dataReader,
+			Executor executor) {
+		return new AsyncDataReaderImp(dataReader, executor);
+	}
+
+	private AsyncDataReaderImp(DataReader dataReader, Executor executor) {
+		this.dataReader = dataReader;
+		this.executor = executor;
+	}
+
+	@Override
+	public CompletableFuture<List<Map<String, Object>>>
+			executePreparedStatementQueryUsingSqlAndValues(String sql, List<Object> values) {
+		return SqlExecutors.supplyUsingExecutor(executor,
+				() -> dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values));
+	}
+
+	@Override
+	public <T> CompletableFuture<List<T>> executePreparedStatementQueryUsingSqlAndValues(
+			String sql, List<Object> values, RowMapper<T> rowMapper) {
+		return SqlExecutors.supplyUsingExecutor(executor, () -> dataReader
+				.executePreparedStatementQueryUsingSqlAndValues(sql, values, rowMapper));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, Object>> readOneRowOrFailUsingSqlAndValues(String sql,
+			List<Object> values) {
+		return SqlExecutors.supplyUsingExecutor(executor,
+				() -> dataReader.readOneRowOrFailUsingSqlAndValues(sql, values));
+	}
+
+	@Override
+	public <T> CompletableFuture<T> readOneRowOrFailUsingSqlAndValues(String sql,
+			List<Object> values, RowMapper<T> rowMapper) {
+		return SqlExecutors.supplyUsingExecutor(executor,
+				() -> dataReader.readOneRowOrFailUsingSqlAndValues(sql, values, rowMapper));
+	}
+
+	@Override
+	public CompletableFuture<Optional<Map<String, Object>>> readOptionalOneRowUsingSqlAndValues(
+			String sql, List<Object> values) {
+		return SqlExecutors.supplyUsingExecutor(executor,
+				() -> dataReader.readOptionalOneRowUsingSqlAndValues(sql, values));
+	}
+
+	@Override
+	public <T> CompletableFuture<Optional<T>> readOptionalOneRowUsingSqlAndValues(String sql,
+			List<Object> values, RowMapper<T> rowMapper) {
+		return SqlExecutors.supplyUsingExecutor(executor,
+				() -> dataReader.readOptionalOneRowUsingSqlAndValues(sql, values, rowMapper));
+	}
+
+	@Override
+	public CompletableFuture<Void> streamRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize, Consumer<Map<String, Object>> rowConsumer) {
+		return SqlExecutors.supplyUsingExecutor(executor, () -> {
+			dataReader.streamRowsUsingSqlAndValuesAndFetchSize(sql, values, fetchSize,
+					rowConsumer);
+			return null;
+		});
+	}
+
+	@Override
+	public Flow.Publisher<Map<String, Object>> publishRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize) {
+		return ExecutorPublisher.usingPublisherAndExecutor(
+				dataReader.publishRowsUsingSqlAndValuesAndFetchSize(sql, values, fetchSize),
+				executor);
+	}
+
+	public DataReader getDataReader() {
+		// needed for test
+		return dataReader;
+	}
+
+	public Executor getExecutor() {
+		// needed for test
+		return executor;
+	}
+}
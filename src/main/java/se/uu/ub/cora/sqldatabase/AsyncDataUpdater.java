@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * AsyncDataUpdater has the same operations as {@link DataUpdater}, but runs them asynchronously
+ * and returns a CompletableFuture for the result.
+ * <p>
+ * A failing operation completes its future exceptionally with the {@link SqlStorageException}
+ * that the blocking operation would have thrown.
+ */
+public interface AsyncDataUpdater {
+
+	CompletableFuture<Integer> executeUsingSqlAndValues(String sql, List<Object> values);
+
+	CompletableFuture<int[]> executeBatchUsingSqlAndListOfValuesAndBatchSize(String sql,
+			List<List<Object>> listOfValues, int batchSize);
+
+	CompletableFuture<Map<String, int[]>> executeBatchesUsingListOfValuesForSqlAndBatchSize(
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize);
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * AsyncDataUpdaterImp is an {@link AsyncDataUpdater} that runs each operation using a wrapped
+ * {@link DataUpdater} on an Executor, normally one created by {@link SqlExecutors}.
+ */
+public final class AsyncDataUpdaterImp implements AsyncDataUpdater {
+	private final DataUpdater dataUpdater;
+	private final Executor executor;
+
+	public static AsyncDataUpdaterImp usingDataUpdaterAndExecutor(DataUpdater dataUpdater,
+			Executor executor) {
+		return new AsyncDataUpdaterImp(dataUpdater, executor);
+	}
+
+	private AsyncDataUpdaterImp(DataUpdater dataUpdater, Executor executor) {
+		this.dataUpdater = dataUpdater;
+		this.executor = executor;
+	}
+
+	@Override
+	public CompletableFuture<Integer> executeUsingSqlAndValues(String sql, List<Object> values) {
+		return SqlExecutors.supplyUsingExecutor(executor,
+				() -> dataUpdater.executeUsingSqlAndValues(sql, values));
+	}
+
+	@Override
+	public CompletableFuture<int[]> executeBatchUsingSqlAndListOfValuesAndBatchSize(String sql,
+			List<List<Object>> listOfValues, int batchSize) {
+		return SqlExecutors.supplyUsingExecutor(executor, () -> dataUpdater
+				.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql, listOfValues, batchSize));
+	}
+
+	@Override
+	public CompletableFuture<Map<String, int[]>> executeBatchesUsingListOfValuesForSqlAndBatchSize(
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize) {
+		return SqlExecutors.supplyUsingExecutor(executor, () -> dataUpdater
+				.executeBatchesUsingListOfValuesForSqlAndBatchSize(listOfValuesForSql, batchSize));
+	}
+
+	public DataUpdater getDataUpdater() {
+		// needed for test
+		return dataUpdater;
+	}
+
+	public Executor getExecutor() {
+		// needed for test
+		return executor;
+	}
+}
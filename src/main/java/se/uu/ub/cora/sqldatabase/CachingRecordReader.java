@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * CachingRecordReader is a {@link RecordReader} that uses a {@link RecordCache} for reads from
+ * tables that are cached, and reads using the wrapped RecordReader for all other tables. Reads
+ * using a {@link RowMapper}, reads of named columns, reads of many keys and reads of pages are
+ * never cached.
+ */
+public final class CachingRecordReader implements RecordReader {
+	private final RecordReader recordReader;
+	private final RecordCache recordCache;
+
+	public static CachingRecordReader usingRecordReaderAndRecordCache(RecordReader recordReader,
+			RecordCache recordCache) {
+		return new CachingRecordReader(recordReader, recordCache);
+	}
+
+	private CachingRecordReader(RecordReader recordReader, RecordCache recordCache) {
+		this.recordReader = recordReader;
+		this.recordCache = recordCache;
+	}
+
+	@Override
+	public List<Map<String, Object>> readAllFromTable(String tableName) {
+		if (recordCache.isTableCached(tableName)) {
+			return recordCache.getOrReadListUsingTableAndConditions(tableName,
+					Collections.emptyMap(),
+					() -> recordReader.readAllFromTable(tableName));
+		}
+		return recordReader.readAllFromTable(tableName);
+	}
+
+	@Override
+	public <T> List<T> readAllFromTable(String tableName, RowMapper<T> rowMapper) {
+		return recordReader.readAllFromTable(tableName, rowMapper);
+	}
+
+	@Override
+	public List<Map<String, Object>> readAllFromTable(String tableName, List<String> columnNames) {
+		return recordReader.readAllFromTable(tableName, columnNames);
+	}
+
+	@Override
+	public List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions) {
+		if (recordCache.isTableCached(tableName)) {
+			return recordCache.getOrReadListUsingTableAndConditions(tableName, conditions,
+					() -> recordReader.readFromTableUsingConditions(tableName, conditions));
+		}
+		return recordReader.readFromTableUsingConditions(tableName, conditions);
+	}
+
+	@Override
+	public <T> List<T> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		return recordReader.readFromTableUsingConditions(tableName, conditions, rowMapper);
+	}
+
+	@Override
+	public List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		return recordReader.readFromTableUsingConditions(tableName, conditions, columnNames);
+	}
+
+	@Override
+	public Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions) {
+		if (recordCache.isTableCached(tableName)) {
+			return recordCache.getOrReadOneRowUsingTableAndConditions(tableName, conditions,
+					() -> recordReader.readOneRowFromDbUsingTableAndConditions(tableName,
+							conditions));
+		}
+		return recordReader.readOneRowFromDbUsingTableAndConditions(tableName, conditions);
+	}
+
+	@Override
+	public <T> T readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		return recordReader.readOneRowFromDbUsingTableAndConditions(tableName, conditions,
+				rowMapper);
+	}
+
+	/**
+	 * readOptionalOneRowFromDbUsingTableAndConditions reads cached tables through the same cache
+	 * entries as {@link #readFromTableUsingConditions(String, Map)}, so that misses are cached as
+	 * well as hits. If the cached entry has more than one row, the read is made by the wrapped
+	 * reader, so that the error is the same as for a table that is not cached.
+	 */
+	@Override
+	public Optional<Map<String, Object>> readOptionalOneRowFromDbUsingTableAndConditions(
+			String tableName, Map<String, Object> conditions) {
+		if (recordCache.isTableCached(tableName)) {
+			List<Map<String, Object>> rows = readFromTableUsingConditions(tableName, conditions);
+			if (rows.size() <= 1) {
+				return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+			}
+		}
+		return recordReader.readOptionalOneRowFromDbUsingTableAndConditions(tableName,
+				conditions);
+	}
+
+	@Override
+	public <T> Optional<T> readOptionalOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		return recordReader.readOptionalOneRowFromDbUsingTableAndConditions(tableName, conditions,
+				rowMapper);
+	}
+
+	@Override
+	public Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		return recordReader.readOneRowFromDbUsingTableAndConditions(tableName, conditions,
+				columnNames);
+	}
+
+	@Override
+	public <K> Map<K, List<Map<String, Object>>> readFromTableUsingKeyColumnAndKeys(
+			String tableName, String keyColumn, Collection<K> keys) {
+		return recordReader.readFromTableUsingKeyColumnAndKeys(tableName, keyColumn, keys);
+	}
+
+	@Override
+	public RecordPage readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+			String tableName, Map<String, Object> conditions, List<String> keyColumns,
+			List<Object> afterKey, int pageSize) {
+		return recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				tableName, conditions, keyColumns, afterKey, pageSize);
+	}
+
+	public RecordReader getRecordReader() {
+		// needed for test
+		return recordReader;
+	}
+
+	public RecordCache getRecordCache() {
+		// needed for test
+		return recordCache;
+	}
+}
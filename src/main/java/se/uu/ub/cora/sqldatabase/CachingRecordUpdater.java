@@ -0,0 +1,81 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * CachingRecordUpdater is a {@link RecordUpdater} that invalidates a table in a
+ * {@link TableInvalidator}, such as a {@link RecordCache} or {@link TableSnapshots}, when the table
+ * is updated using the wrapped RecordUpdater. The table is invalidated even if the update fails, as
+ * part of it might have been done. The change is also published to other nodes if the
+ * TableInvalidator has a {@link TableChangePublisher}.
+ */
+public final class CachingRecordUpdater implements RecordUpdater {
+	private final RecordUpdater recordUpdater;
+	private final TableInvalidator tableInvalidator;
+
+	public static CachingRecordUpdater usingRecordUpdaterAndRecordCache(
+			RecordUpdater recordUpdater, RecordCache recordCache) {
+		return new CachingRecordUpdater(recordUpdater, recordCache);
+	}
+
+	public static CachingRecordUpdater usingRecordUpdaterAndTableInvalidator(
+			RecordUpdater recordUpdater, TableInvalidator tableInvalidator) {
+		return new CachingRecordUpdater(recordUpdater, tableInvalidator);
+	}
+
+	private CachingRecordUpdater(RecordUpdater recordUpdater, TableInvalidator tableInvalidator) {
+		this.recordUpdater = recordUpdater;
+		this.tableInvalidator = tableInvalidator;
+	}
+
+	@Override
+	public void updateTableUsingNameAndColumnsWithValuesAndConditions(String tableName,
+			Map<String, Object> values, Map<String, Object> conditions) {
+		try {
+			recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions(tableName, values,
+					conditions);
+		} finally {
+			tableInvalidator.invalidateTableAndPublishChange(tableName);
+		}
+	}
+
+	@Override
+	public void updateTableUsingNameAndRowUpdatesAndBatchSize(String tableName,
+			List<RowUpdate> rowUpdates, int batchSize) {
+		try {
+			recordUpdater.updateTableUsingNameAndRowUpdatesAndBatchSize(tableName, rowUpdates,
+					batchSize);
+		} finally {
+			tableInvalidator.invalidateTableAndPublishChange(tableName);
+		}
+	}
+
+	public RecordUpdater getRecordUpdater() {
+		// needed for test
+		return recordUpdater;
+	}
+
+	public TableInvalidator getTableInvalidator() {
+		// needed for test
+		return tableInvalidator;
+	}
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * CoalescingDataReader is a {@link DataReader} that lets concurrent identical reads share one
+ * query. The first caller for a sql and list of values runs the query using the wrapped
+ * DataReader, callers that ask for the same sql and values while that query is running wait for
+ * it and get the same result, or the same error. A call made after the query has finished runs a
+ * new query, nothing is cached.
+ * <p>
+ * As results can be shared between callers they are always returned as unmodifiable lists and
+ * maps. Reads using a {@link RowMapper}, streamed reads and published reads are not coalesced, as
+ * the mapped objects, the consumer and the subscriber belong to each caller.
+ */
+public final class CoalescingDataReader implements DataReader {
+	private final DataReader dataReader;
+	private final ConcurrentHashMap<QueryKey, CompletableFuture<Object>> runningQueries =
+			new ConcurrentHashMap<>();
+	private final LongAdder coalescedCalls = new LongAdder();
+
+	public static CoalescingDataReader usingDataReader(DataReader dataReader) {
+		return new CoalescingDataReader(dataReader);
+	}
+
+	private CoalescingDataReader(DataReader dataReader) {
+		this.dataReader = dataReader;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public List<Map<String, Object>> executePreparedStatementQueryUsingSqlAndValues(String sql,
+			List<Object> values) {
+		QueryKey key = new QueryKey(QueryKind.LIST, sql, values);
+		return (List<Map<String, Object>>) runOrJoinQuery(key, () -> toUnmodifiableRows(
+				dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values)));
+	}
+
+	private List<Map<String, Object>> toUnmodifiableRows(List<Map<String, Object>> rows) {
+		List<Map<String, Object>> unmodifiableRows = new ArrayList<>(rows.size());
+		for (Map<String, Object> row : rows) {
+			unmodifiableRows.add(Collections.unmodifiableMap(row));
+		}
+		return Collections.unmodifiableList(unmodifiableRows);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Map<String, Object> readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values) {
+		QueryKey key = new QueryKey(QueryKind.ONE_ROW, sql, values);
+		return (Map<String, Object>) runOrJoinQuery(key, () -> Collections
+				.unmodifiableMap(dataReader.readOneRowOrFailUsingSqlAndValues(sql, values)));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public Optional<Map<String, Object>> readOptionalOneRowUsingSqlAndValues(String sql,
+			List<Object> values) {
+		QueryKey key = new QueryKey(QueryKind.OPTIONAL_ROW, sql, values);
+		return (Optional<Map<String, Object>>) runOrJoinQuery(key,
+				() -> dataReader.readOptionalOneRowUsingSqlAndValues(sql, values)
+						.map(Collections::unmodifiableMap));
+	}
+
+	private Object runOrJoinQuery(QueryKey key, Supplier<Object> query) {
+		CompletableFuture<Object> ownQuery = new CompletableFuture<>();
+		CompletableFuture<Object> runningQuery = runningQueries.putIfAbsent(key, ownQuery);
+		if (runningQuery != null) {
+			coalescedCalls.increment();
+			return waitForResultOfRunningQuery(runningQuery);
+		}
+		return runQuery(key, ownQuery, query);
+	}
+
+	private Object waitForResultOfRunningQuery(CompletableFuture<Object> runningQuery) {
+		try {
+			return runningQuery.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw SqlStorageException.withMessageAndException(cause.getMessage(),
+					(Exception) cause);
+		}
+	}
+
+	private Object runQuery(QueryKey key, CompletableFuture<Object> ownQuery,
+			Supplier<Object> query) {
+		Object result;
+		try {
+			result = query.get();
+		} catch (Throwable e) {
+			runningQueries.remove(key, ownQuery);
+			ownQuery.completeExceptionally(e);
+			throw e;
+		}
+		runningQueries.remove(key, ownQuery);
+		ownQuery.complete(result);
+		return result;
+	}
+
+	@Override
+	public <T> List<T> executePreparedStatementQueryUsingSqlAndValues(String sql,
+			List<Object> values, RowMapper<T> rowMapper) {
+		return dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values, rowMapper);
+	}
+
+	@Override
+	public <T> T readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper) {
+		return dataReader.readOneRowOrFailUsingSqlAndValues(sql, values, rowMapper);
+	}
+
+	@Override
+	public <T> Optional<T> readOptionalOneRowUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper) {
+		return dataReader.readOptionalOneRowUsingSqlAndValues(sql, values, rowMapper);
+	}
+
+	@Override
+	public void streamRowsUsingSqlAndValuesAndFetchSize(String sql, List<Object> values,
+			int fetchSize, Consumer<Map<String, Object>> rowConsumer) {
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize(sql, values, fetchSize, rowConsumer);
+	}
+
+	@Override
+	public Flow.Publisher<Map<String, Object>> publishRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize) {
+		return dataReader.publishRowsUsingSqlAndValuesAndFetchSize(sql, values, fetchSize);
+	}
+
+	/**
+	 * getNoOfCoalescedCalls returns the number of calls that have been answered by waiting for an
+	 * identical query that was already running, instead of running a query of their own.
+	 */
+	public long getNoOfCoalescedCalls() {
+		return coalescedCalls.sum();
+	}
+
+	int getNoOfRunningQueries() {
+		return runningQueries.size();
+	}
+
+	public DataReader getDataReader() {
+		// needed for test
+		return dataReader;
+	}
+
+	private enum QueryKind {
+		LIST, ONE_ROW, OPTIONAL_ROW
+	}
+
+	private static final class QueryKey {
+		private final QueryKind kind;
+		private final String sql;
+		private final List<Object> values;
+		private final int hashCode;
+
+		QueryKey(QueryKind kind, String sql, List<Object> values) {
+			this.kind = kind;
+			this.sql = sql;
+			this.values = new ArrayList<>(values);
+			this.hashCode = 31 * (31 * kind.hashCode() + sql.hashCode()) + this.values.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof QueryKey)) {
+				return false;
+			}
+			QueryKey otherKey = (QueryKey) other;
+			return kind == otherKey.kind && sql.equals(otherKey.sql)
+					&& values.equals(otherKey.values);
+		}
+	}
+}
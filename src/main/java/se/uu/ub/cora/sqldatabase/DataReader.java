@@ -21,12 +21,121 @@ package se.uu.ub.cora.sqldatabase;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 public interface DataReader {
 
 	List<Map<String, Object>> executePreparedStatementQueryUsingSqlAndValues(String sql,
 			List<Object> values);
 
+	/**
+	 * Executes a sql statement as a preparedQuery and returns a List with the result of mapping
+	 * each row using the rowMapper.
+	 * 
+	 * @param sql
+	 *            A String with the sql statement to execute
+	 * @param values
+	 *            A List with Objects to use in the prepared statement
+	 * @param rowMapper
+	 *            A RowMapper that maps each row in the result
+	 * @return A List with one mapped object for each row in the result
+	 */
+	<T> List<T> executePreparedStatementQueryUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper);
+
 	Map<String, Object> readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values);
 
+	/**
+	 * Executes a sql statement as a preparedQuery and returns the result of mapping the only row in
+	 * the result using the rowMapper. A SqlStorageException is thrown if the result does not have
+	 * exactly one row.
+	 * 
+	 * @param sql
+	 *            A String with the sql statement to execute
+	 * @param values
+	 *            A List with Objects to use in the prepared statement
+	 * @param rowMapper
+	 *            A RowMapper that maps the row in the result
+	 * @return The mapped object for the only row in the result
+	 */
+	<T> T readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper);
+
+	/**
+	 * Executes a sql statement as a preparedQuery and returns the only row in the result, or an
+	 * empty Optional if the result has no rows. A result without rows is reported without creating
+	 * an exception, so that a lookup that misses costs no more than one that hits. A
+	 * SqlStorageException is thrown if the result has more than one row.
+	 * 
+	 * @param sql
+	 *            A String with the sql statement to execute
+	 * @param values
+	 *            A List with Objects to use in the prepared statement
+	 * @return An Optional with the only row in the result, or an empty Optional
+	 */
+	Optional<Map<String, Object>> readOptionalOneRowUsingSqlAndValues(String sql,
+			List<Object> values);
+
+	/**
+	 * Executes a sql statement as a preparedQuery and returns the result of mapping the only row in
+	 * the result using the rowMapper, in the same way as
+	 * {@link #readOptionalOneRowUsingSqlAndValues(String, List)}. An empty Optional is also
+	 * returned if the rowMapper maps the row to null.
+	 * 
+	 * @param sql
+	 *            A String with the sql statement to execute
+	 * @param values
+	 *            A List with Objects to use in the prepared statement
+	 * @param rowMapper
+	 *            A RowMapper that maps the row in the result
+	 * @return An Optional with the mapped object for the only row in the result, or an empty
+	 *         Optional
+	 */
+	<T> Optional<T> readOptionalOneRowUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper);
+
+	/**
+	 * Executes a sql statement as a preparedQuery and hands each row of the result to the
+	 * rowConsumer as soon as it has been read. The result is never collected, so only the rows in
+	 * the current fetch are held in memory no matter how large the result is.
+	 * <p>
+	 * The query is run with autoCommit turned off, as that is needed for the Postgres driver to
+	 * use a cursor and fetch the result in chunks of fetchSize rows.
+	 * 
+	 * @param sql
+	 *            A String with the sql statement to execute
+	 * @param values
+	 *            A List with Objects to use in the prepared statement
+	 * @param fetchSize
+	 *            An int with the number of rows to fetch from the database in each round trip
+	 * @param rowConsumer
+	 *            A Consumer that is called once for each row in the result
+	 */
+	void streamRowsUsingSqlAndValuesAndFetchSize(String sql, List<Object> values, int fetchSize,
+			Consumer<Map<String, Object>> rowConsumer);
+
+	/**
+	 * Returns a Publisher that runs a sql statement as a preparedQuery for each subscriber, and
+	 * publishes the rows of the result as the subscriber requests them. Rows are read from the
+	 * database cursor only while the subscriber has outstanding demand, so a slow subscriber slows
+	 * down the read instead of making the result pile up in memory.
+	 * <p>
+	 * The query is run with autoCommit turned off, so that the Postgres driver uses a cursor and
+	 * fetches the result in chunks of fetchSize rows. The connection is released when the last row
+	 * has been published, when the subscription is cancelled and when an error occurs. Errors are
+	 * signalled to the subscriber as a SqlStorageException.
+	 * 
+	 * @param sql
+	 *            A String with the sql statement to execute
+	 * @param values
+	 *            A List with Objects to use in the prepared statement
+	 * @param fetchSize
+	 *            An int with the number of rows to fetch from the database in each round trip
+	 * @return A Publisher of the rows in the result
+	 */
+	Flow.Publisher<Map<String, Object>> publishRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize);
+
 }
@@ -22,12 +22,13 @@ package se.uu.ub.cora.sqldatabase;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 import se.uu.ub.cora.connection.SqlConnectionProvider;
 import se.uu.ub.cora.logger.Logger;
@@ -35,70 +36,220 @@ import se.uu.ub.cora.logger.LoggerProvider;
 
 public final class DataReaderImp implements DataReader {
 	private static final String ERROR_READING_DATA_USING_SQL = "Error reading data using sql: ";
+	private static final int MAX_ROWS_TO_FIND_ONE_ROW = 2;
 	private SqlConnectionProvider sqlConnectionProvider;
+	private StatementMetrics statementMetrics;
 	private Logger log = LoggerProvider.getLoggerForClass(DataReaderImp.class);
 
-	private DataReaderImp(SqlConnectionProvider sqlConnectionProvider) {
+	private DataReaderImp(SqlConnectionProvider sqlConnectionProvider,
+			StatementMetrics statementMetrics) {
 		this.sqlConnectionProvider = sqlConnectionProvider;
+		this.statementMetrics = statementMetrics;
 	}
 
 	public static DataReaderImp usingSqlConnectionProvider(
 			SqlConnectionProvider sqlConnectionProvider) {
-		return new DataReaderImp(sqlConnectionProvider);
+		return new DataReaderImp(sqlConnectionProvider, null);
+	}
+
+	/**
+	 * usingSqlConnectionProviderAndStatementMetrics creates a DataReaderImp that records the calls,
+	 * rows and phase latencies of its queries in statementMetrics. Rows published through
+	 * {@link #publishRowsUsingSqlAndValuesAndFetchSize(String, List, int)} are not recorded, as
+	 * their materialisation is driven by the subscriber.
+	 */
+	public static DataReaderImp usingSqlConnectionProviderAndStatementMetrics(
+			SqlConnectionProvider sqlConnectionProvider, StatementMetrics statementMetrics) {
+		return new DataReaderImp(sqlConnectionProvider, statementMetrics);
 	}
 
 	@Override
 	public Map<String, Object> readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values) {
-		List<Map<String, Object>> readRows = executePreparedStatementQueryUsingSqlAndValues(sql,
-				values);
-		throwErrorIfNoRowIsReturned(sql, readRows);
-		throwErrorIfMoreThanOneRowIsReturned(sql, readRows);
-		return getSingleResultFromList(readRows);
+		return readOneRowOrFailUsingSqlAndValues(sql, values, new MapRowMapper());
 	}
 
-	private void throwErrorIfNoRowIsReturned(String sql, List<Map<String, Object>> readRows) {
-		if (readRows.isEmpty()) {
+	@Override
+	public <T> T readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper) {
+		List<T> rows = runAndRecordUsingSql(sql,
+				recording -> readOneRowUsingSqlAndValues(sql, values, rowMapper, recording));
+		if (rows.isEmpty()) {
 			throw SqlStorageException
 					.withMessage(ERROR_READING_DATA_USING_SQL + sql + ": no row returned");
 		}
+		return rows.get(0);
 	}
 
-	private void throwErrorIfMoreThanOneRowIsReturned(String sql,
-			List<Map<String, Object>> readRows) {
-		if (resultHasMoreThanOneRow(readRows)) {
-			throw SqlStorageException.withMessage(
-					ERROR_READING_DATA_USING_SQL + sql + ": more than one row returned");
+	@Override
+	public Optional<Map<String, Object>> readOptionalOneRowUsingSqlAndValues(String sql,
+			List<Object> values) {
+		return readOptionalOneRowUsingSqlAndValues(sql, values, new MapRowMapper());
+	}
+
+	@Override
+	public <T> Optional<T> readOptionalOneRowUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper) {
+		List<T> rows = runAndRecordUsingSql(sql,
+				recording -> readOneRowUsingSqlAndValues(sql, values, rowMapper, recording));
+		return rows.isEmpty() ? Optional.empty() : Optional.ofNullable(rows.get(0));
+	}
+
+	private <T> T runAndRecordUsingSql(String sql, RecordedOperation<T> operation) {
+		StatementRecording recording = StatementRecording
+				.startUsingMetricsAndSql(statementMetrics, sql);
+		try {
+			return operation.runUsingRecording(recording);
+		} catch (SQLException e) {
+			recording.failed();
+			throw logAndCreateStorageExceptionForSql(sql, e);
+		} catch (RuntimeException e) {
+			recording.failed();
+			throw e;
+		}
+	}
+
+	@FunctionalInterface
+	private interface RecordedOperation<T> {
+		T runUsingRecording(StatementRecording recording) throws SQLException;
+	}
+
+	/**
+	 * readOneRowUsingSqlAndValues limits the query to two rows, as that is enough to know that the
+	 * result does not have exactly one row, and stops reading as soon as a second row is found, so
+	 * that a condition that is not unique never pulls more than two rows from the database. A
+	 * result without rows returns an empty list, and is recorded as a successful statement, so that
+	 * the caller decides if a missing row is an error.
+	 */
+	private <T> List<T> readOneRowUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper, StatementRecording recording) throws SQLException {
+		try (Connection connection = getConnectionUsingRecording(recording);
+				PreparedStatement prepareStatement = connection.prepareStatement(sql);) {
+			prepareStatement.setMaxRows(MAX_ROWS_TO_FIND_ONE_ROW);
+			prepareStatement.setFetchSize(MAX_ROWS_TO_FIND_ONE_ROW);
+			addParameterValuesToPreparedStatement(values, prepareStatement);
+			try (ResultSet resultSet = executeQueryUsingRecording(prepareStatement, recording);) {
+				List<T> rows = readOnlyRowFromResultSet(sql, resultSet, rowMapper);
+				recording.materialisedNoOfRows(rows.size());
+				return rows;
+			}
 		}
 	}
 
-	private boolean resultHasMoreThanOneRow(List<Map<String, Object>> readRows) {
-		return readRows.size() > 1;
+	private Connection getConnectionUsingRecording(StatementRecording recording) {
+		Connection connection = sqlConnectionProvider.getConnection();
+		recording.connectionAcquired();
+		return connection;
 	}
 
-	private Map<String, Object> getSingleResultFromList(List<Map<String, Object>> readRows) {
-		return readRows.get(0);
+	private ResultSet executeQueryUsingRecording(PreparedStatement prepareStatement,
+			StatementRecording recording) throws SQLException {
+		ResultSet resultSet = prepareStatement.executeQuery();
+		recording.executed();
+		return resultSet;
+	}
+
+	private <T> List<T> readOnlyRowFromResultSet(String sql, ResultSet resultSet,
+			RowMapper<T> rowMapper) throws SQLException {
+		rowMapper.startResult(resultSet);
+		List<T> rows = new ArrayList<>(1);
+		if (!resultSet.next()) {
+			return rows;
+		}
+		rows.add(rowMapper.mapRow(resultSet));
+		if (resultSet.next()) {
+			throw SqlStorageException.withMessage(
+					ERROR_READING_DATA_USING_SQL + sql + ": more than one row returned");
+		}
+		return rows;
 	}
 
 	@Override
 	public List<Map<String, Object>> executePreparedStatementQueryUsingSqlAndValues(String sql,
 			List<Object> values) {
+		return executePreparedStatementQueryUsingSqlAndValues(sql, values, new MapRowMapper());
+	}
+
+	@Override
+	public <T> List<T> executePreparedStatementQueryUsingSqlAndValues(String sql,
+			List<Object> values, RowMapper<T> rowMapper) {
+		return runAndRecordUsingSql(sql,
+				recording -> readUsingSqlAndValues(sql, values, rowMapper, recording));
+	}
+
+	private SqlStorageException logAndCreateStorageExceptionForSql(String sql, SQLException e) {
+		String message = ERROR_READING_DATA_USING_SQL + sql;
+		log.logErrorUsingMessageAndException(message, null);
+		return SqlStorageException.withMessageAndException(message, e);
+	}
+
+	@Override
+	public void streamRowsUsingSqlAndValuesAndFetchSize(String sql, List<Object> values,
+			int fetchSize, Consumer<Map<String, Object>> rowConsumer) {
+		runAndRecordUsingSql(sql, recording -> {
+			streamUsingSqlAndValuesAndFetchSize(sql, values, fetchSize, rowConsumer, recording);
+			return null;
+		});
+	}
+
+	private void streamUsingSqlAndValuesAndFetchSize(String sql, List<Object> values,
+			int fetchSize, Consumer<Map<String, Object>> rowConsumer,
+			StatementRecording recording) throws SQLException {
+		try (Connection connection = getConnectionUsingRecording(recording);) {
+			boolean originalAutoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			try {
+				streamUsingConnection(connection, sql, values, fetchSize, rowConsumer, recording);
+			} catch (SQLException | RuntimeException e) {
+				restoreAutoCommitKeepingError(connection, originalAutoCommit, e);
+				throw e;
+			}
+			connection.setAutoCommit(originalAutoCommit);
+		}
+	}
+
+	private void restoreAutoCommitKeepingError(Connection connection, boolean originalAutoCommit,
+			Exception error) {
 		try {
-			return readUsingSqlAndValues(sql, values);
-		} catch (SQLException e) {
-			String message = ERROR_READING_DATA_USING_SQL + sql;
-			log.logErrorUsingMessageAndException(message, null);
-			throw SqlStorageException.withMessageAndException(message, e);
+			connection.setAutoCommit(originalAutoCommit);
+		} catch (SQLException | RuntimeException autoCommitError) {
+			error.addSuppressed(autoCommitError);
 		}
 	}
 
-	private List<Map<String, Object>> readUsingSqlAndValues(String sql, List<Object> values)
-			throws SQLException {
+	private void streamUsingConnection(Connection connection, String sql, List<Object> values,
+			int fetchSize, Consumer<Map<String, Object>> rowConsumer,
+			StatementRecording recording) throws SQLException {
+		try (PreparedStatement prepareStatement = connection.prepareStatement(sql);) {
+			prepareStatement.setFetchSize(fetchSize);
+			addParameterValuesToPreparedStatement(values, prepareStatement);
+			try (ResultSet resultSet = executeQueryUsingRecording(prepareStatement, recording);) {
+				MapRowMapper rowMapper = new MapRowMapper();
+				long noOfRows = 0;
+				while (resultSet.next()) {
+					rowConsumer.accept(rowMapper.mapRow(resultSet));
+					noOfRows++;
+				}
+				recording.materialisedNoOfRows(noOfRows);
+			}
+		}
+	}
 
-		try (Connection connection = sqlConnectionProvider.getConnection();
+	@Override
+	public Flow.Publisher<Map<String, Object>> publishRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize) {
+		return RowPublisher.usingConnectionProviderAndSqlAndValuesAndFetchSizeAndErrorFactory(
+				sqlConnectionProvider, sql, values, fetchSize,
+				e -> logAndCreateStorageExceptionForSql(sql, e));
+	}
+
+	private <T> List<T> readUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper, StatementRecording recording) throws SQLException {
+
+		try (Connection connection = getConnectionUsingRecording(recording);
 				PreparedStatement prepareStatement = connection.prepareStatement(sql);) {
 
 			addParameterValuesToPreparedStatement(values, prepareStatement);
-			return getResultUsingQuery(prepareStatement);
+			return getResultUsingQuery(prepareStatement, rowMapper, recording);
 		}
 	}
 
@@ -111,51 +262,32 @@ public final class DataReaderImp implements DataReader {
 		}
 	}
 
-	private List<Map<String, Object>> getResultUsingQuery(PreparedStatement prepareStatement)
-			throws SQLException {
-		try (ResultSet resultSet = prepareStatement.executeQuery();) {
-			List<String> columnNames = createListOfColumnNamesFromResultSet(resultSet);
-			return createListOfMapsFromResultSetUsingColumnNames(resultSet, columnNames);
-		}
-	}
-
-	private List<String> createListOfColumnNamesFromResultSet(ResultSet resultSet)
-			throws SQLException {
-		ResultSetMetaData metaData = resultSet.getMetaData();
-		int columnCount = metaData.getColumnCount();
-		return createListOfColumnNamesFromMetadata(metaData, columnCount);
-	}
-
-	private List<String> createListOfColumnNamesFromMetadata(ResultSetMetaData metaData,
-			int columnCount) throws SQLException {
-		List<String> columnNames = new ArrayList<>(columnCount);
-		for (int i = 1; i <= columnCount; i++) {
-			columnNames.add(metaData.getColumnName(i));
+	private <T> List<T> getResultUsingQuery(PreparedStatement prepareStatement,
+			RowMapper<T> rowMapper, StatementRecording recording) throws SQLException {
+		try (ResultSet resultSet = executeQueryUsingRecording(prepareStatement, recording);) {
+			List<T> rows = createListOfMappedRowsFromResultSet(resultSet, rowMapper);
+			recording.materialisedNoOfRows(rows.size());
+			return rows;
 		}
-		return columnNames;
 	}
 
-	private List<Map<String, Object>> createListOfMapsFromResultSetUsingColumnNames(
-			ResultSet resultSet, List<String> columnNames) throws SQLException {
-		List<Map<String, Object>> all = new ArrayList<>();
+	private <T> List<T> createListOfMappedRowsFromResultSet(ResultSet resultSet,
+			RowMapper<T> rowMapper) throws SQLException {
+		rowMapper.startResult(resultSet);
+		List<T> all = new ArrayList<>();
 		while (resultSet.next()) {
-			HashMap<String, Object> row = createMapForCurrentRowInResultSet(resultSet, columnNames);
-			all.add(row);
+			all.add(rowMapper.mapRow(resultSet));
 		}
 		return all;
 	}
 
-	private HashMap<String, Object> createMapForCurrentRowInResultSet(ResultSet resultSet,
-			List<String> columnNames) throws SQLException {
-		HashMap<String, Object> row = new HashMap<>(columnNames.size());
-		for (String columnName : columnNames) {
-			row.put(columnName, resultSet.getObject(columnName));
-		}
-		return row;
-	}
-
 	public SqlConnectionProvider getSqlConnectionProvider() {
 		// needed for test
 		return sqlConnectionProvider;
 	}
+
+	public StatementMetrics getStatementMetrics() {
+		// needed for test
+		return statementMetrics;
+	}
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
 package se.uu.ub.cora.sqldatabase;
 
 import java.util.List;
+import java.util.Map;
 
 public interface DataUpdater {
 	/**
@@ -32,4 +33,46 @@ public interface DataUpdater {
 	 */
 	int executeUsingSqlAndValues(String sql, List<Object> values);
 
+	/**
+	 * Executes a sql statement as a batched preparedQuery, once for each list of values, returning
+	 * the number of rows affected for each list of values. The values are sent to the database in
+	 * batches of at most batchSize statements, and all batches are executed in one transaction that
+	 * is rolled back if any of them fails. If the connection is not in autocommit mode, the
+	 * transaction is owned by the caller and the batches are executed in it without commit or
+	 * rollback.
+	 * <p>
+	 * Drivers that rewrite batched inserts into multi row statements, like postgres with
+	 * reWriteBatchedInserts, may report {@link java.sql.Statement#SUCCESS_NO_INFO} instead of the
+	 * number of affected rows. Batched updates and deletes are not rewritten.
+	 * 
+	 * @param sql
+	 *            A String with the sql statement to execute
+	 * @param listOfValues
+	 *            A List with one List of Objects to use in the prepared statement for each
+	 *            execution
+	 * @param batchSize
+	 *            An int with the max number of statements to send to the database in one batch
+	 * @return An int array with the number of rows affected for each list of values, in the same
+	 *         order as listOfValues
+	 */
+	int[] executeBatchUsingSqlAndListOfValuesAndBatchSize(String sql,
+			List<List<Object>> listOfValues, int batchSize);
+
+	/**
+	 * Executes many sql statements as batched preparedQueries, in the same way as
+	 * {@link #executeBatchUsingSqlAndListOfValuesAndBatchSize(String, List, int)}, but with all
+	 * statements executed in one transaction.
+	 * 
+	 * @param listOfValuesForSql
+	 *            A Map with sql statements as keys and a List with one List of Objects to use in
+	 *            the prepared statement for each execution as values. The statements are executed
+	 *            in the iteration order of the Map.
+	 * @param batchSize
+	 *            An int with the max number of statements to send to the database in one batch
+	 * @return A Map with the sql statements as keys and an int array with the number of rows
+	 *         affected for each list of values as values
+	 */
+	Map<String, int[]> executeBatchesUsingListOfValuesForSqlAndBatchSize(
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize);
+
 }
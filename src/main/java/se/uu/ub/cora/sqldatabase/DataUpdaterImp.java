@@ -21,41 +21,225 @@ package se.uu.ub.cora.sqldatabase;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import se.uu.ub.cora.connection.SqlConnectionProvider;
 
 public class DataUpdaterImp implements DataUpdater {
 
 	private SqlConnectionProvider sqlConnectionProvider;
+	private StatementMetrics statementMetrics;
 
 	public static DataUpdaterImp usingSqlConnectionProvider(
 			SqlConnectionProvider sqlConnectionProvider) {
-		return new DataUpdaterImp(sqlConnectionProvider);
+		return new DataUpdaterImp(sqlConnectionProvider, null);
 	}
 
-	private DataUpdaterImp(SqlConnectionProvider sqlConnectionProvider) {
+	/**
+	 * usingSqlConnectionProviderAndStatementMetrics creates a DataUpdaterImp that records the
+	 * calls, affected rows and phase latencies of its statements in statementMetrics. Each sql in a
+	 * batch is recorded as one call, the connection acquisition for a batch is not recorded as it
+	 * is shared by all sqls in the batch.
+	 */
+	public static DataUpdaterImp usingSqlConnectionProviderAndStatementMetrics(
+			SqlConnectionProvider sqlConnectionProvider, StatementMetrics statementMetrics) {
+		return new DataUpdaterImp(sqlConnectionProvider, statementMetrics);
+	}
+
+	private DataUpdaterImp(SqlConnectionProvider sqlConnectionProvider,
+			StatementMetrics statementMetrics) {
 		this.sqlConnectionProvider = sqlConnectionProvider;
+		this.statementMetrics = statementMetrics;
 	}
 
 	@Override
 	public int executeUsingSqlAndValues(String sql, List<Object> values) {
 		try {
-			return updateUsingSqlAndValues(sql, values);
+			return updateAndRecordUsingSqlAndValues(sql, values);
 		} catch (SQLException e) {
 			throw SqlStorageException.withMessageAndException("Error executing statement: " + sql,
 					e);
 		}
 	}
 
-	private int updateUsingSqlAndValues(String sql, List<Object> values) throws SQLException {
-		try (Connection connection = sqlConnectionProvider.getConnection();
-				PreparedStatement prepareStatement = connection.prepareStatement(sql);) {
-			addParameterValuesToPreparedStatement(values, prepareStatement);
-			return prepareStatement.executeUpdate();
+	private int updateAndRecordUsingSqlAndValues(String sql, List<Object> values)
+			throws SQLException {
+		StatementRecording recording = StatementRecording
+				.startUsingMetricsAndSql(statementMetrics, sql);
+		try {
+			return updateUsingSqlAndValues(sql, values, recording);
+		} catch (SQLException | RuntimeException e) {
+			recording.failed();
+			throw e;
+		}
+	}
+
+	private int updateUsingSqlAndValues(String sql, List<Object> values,
+			StatementRecording recording) throws SQLException {
+		try (Connection connection = sqlConnectionProvider.getConnection();) {
+			recording.connectionAcquired();
+			try (PreparedStatement prepareStatement = connection.prepareStatement(sql);) {
+				addParameterValuesToPreparedStatement(values, prepareStatement);
+				int noOfAffectedRows = prepareStatement.executeUpdate();
+				recording.executedWithNoOfAffectedRows(noOfAffectedRows);
+				return noOfAffectedRows;
+			}
+		}
+	}
+
+	@Override
+	public int[] executeBatchUsingSqlAndListOfValuesAndBatchSize(String sql,
+			List<List<Object>> listOfValues, int batchSize) {
+		Map<String, int[]> updateCounts = executeBatchesUsingListOfValuesForSqlAndBatchSize(
+				Collections.singletonMap(sql, listOfValues), batchSize);
+		return updateCounts.get(sql);
+	}
+
+	@Override
+	public Map<String, int[]> executeBatchesUsingListOfValuesForSqlAndBatchSize(
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize) {
+		throwErrorIfBatchSizeIsInvalid(batchSize);
+		try {
+			return updateInBatchesUsingListOfValuesForSql(listOfValuesForSql, batchSize);
+		} catch (SQLException e) {
+			throw SqlStorageException.withMessageAndException(
+					"Error executing batch: " + String.join("; ", listOfValuesForSql.keySet()), e);
+		}
+	}
+
+	private void throwErrorIfBatchSizeIsInvalid(int batchSize) {
+		if (batchSize < 1) {
+			throw SqlStorageException.withMessage("Invalid batch size: " + batchSize);
+		}
+	}
+
+	private Map<String, int[]> updateInBatchesUsingListOfValuesForSql(
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize)
+			throws SQLException {
+		try (Connection connection = sqlConnectionProvider.getConnection();) {
+			if (!connection.getAutoCommit()) {
+				return updateUsingConnection(connection, listOfValuesForSql, batchSize);
+			}
+			return updateInOwnTransactionUsingConnection(connection, listOfValuesForSql,
+					batchSize);
+		}
+	}
+
+	private Map<String, int[]> updateInOwnTransactionUsingConnection(Connection connection,
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize)
+			throws SQLException {
+		connection.setAutoCommit(false);
+		Map<String, int[]> updateCounts;
+		try {
+			updateCounts = updateInTransactionUsingConnection(connection, listOfValuesForSql,
+					batchSize);
+		} catch (SQLException | RuntimeException e) {
+			restoreAutoCommitKeepingError(connection, e);
+			throw e;
+		}
+		connection.setAutoCommit(true);
+		return updateCounts;
+	}
+
+	private void restoreAutoCommitKeepingError(Connection connection, Exception error) {
+		try {
+			connection.setAutoCommit(true);
+		} catch (SQLException | RuntimeException autoCommitError) {
+			error.addSuppressed(autoCommitError);
 		}
 	}
 
+	private Map<String, int[]> updateInTransactionUsingConnection(Connection connection,
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize)
+			throws SQLException {
+		try {
+			Map<String, int[]> updateCounts = updateUsingConnection(connection,
+					listOfValuesForSql, batchSize);
+			connection.commit();
+			return updateCounts;
+		} catch (SQLException | RuntimeException e) {
+			rollbackKeepingError(connection, e);
+			throw e;
+		}
+	}
+
+	private Map<String, int[]> updateUsingConnection(Connection connection,
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize)
+			throws SQLException {
+		Map<String, int[]> updateCounts = new LinkedHashMap<>();
+		for (Entry<String, List<List<Object>>> entry : listOfValuesForSql.entrySet()) {
+			updateCounts.put(entry.getKey(), updateAndRecordInBatchesUsingConnection(connection,
+					entry.getKey(), entry.getValue(), batchSize));
+		}
+		return updateCounts;
+	}
+
+	private void rollbackKeepingError(Connection connection, Exception error) {
+		try {
+			connection.rollback();
+		} catch (SQLException | RuntimeException rollbackError) {
+			error.addSuppressed(rollbackError);
+		}
+	}
+
+	private int[] updateAndRecordInBatchesUsingConnection(Connection connection, String sql,
+			List<List<Object>> listOfValues, int batchSize) throws SQLException {
+		StatementRecording recording = StatementRecording
+				.startUsingMetricsAndSql(statementMetrics, sql);
+		try {
+			int[] updateCounts = updateInBatchesUsingConnection(connection, sql, listOfValues,
+					batchSize);
+			recording.executedWithNoOfAffectedRows(sumOfKnownUpdateCounts(updateCounts));
+			return updateCounts;
+		} catch (SQLException | RuntimeException e) {
+			recording.failed();
+			throw e;
+		}
+	}
+
+	private long sumOfKnownUpdateCounts(int[] updateCounts) {
+		long sum = 0;
+		for (int updateCount : updateCounts) {
+			if (updateCount > 0) {
+				sum += updateCount;
+			}
+		}
+		return sum;
+	}
+
+	private int[] updateInBatchesUsingConnection(Connection connection, String sql,
+			List<List<Object>> listOfValues, int batchSize) throws SQLException {
+		int[] updateCounts = new int[listOfValues.size()];
+		try (PreparedStatement prepareStatement = connection.prepareStatement(sql);) {
+			int noOfExecuted = 0;
+			for (int i = 0; i < listOfValues.size(); i++) {
+				addParameterValuesToPreparedStatement(listOfValues.get(i), prepareStatement);
+				prepareStatement.addBatch();
+				if (isLastInBatch(i, listOfValues.size(), batchSize)) {
+					noOfExecuted = executeBatchAndCopyUpdateCounts(prepareStatement, updateCounts,
+							noOfExecuted);
+				}
+			}
+		}
+		return updateCounts;
+	}
+
+	private boolean isLastInBatch(int index, int noOfValues, int batchSize) {
+		return (index + 1) % batchSize == 0 || index == noOfValues - 1;
+	}
+
+	private int executeBatchAndCopyUpdateCounts(PreparedStatement prepareStatement,
+			int[] updateCounts, int noOfExecuted) throws SQLException {
+		int[] batchUpdateCounts = prepareStatement.executeBatch();
+		System.arraycopy(batchUpdateCounts, 0, updateCounts, noOfExecuted,
+				batchUpdateCounts.length);
+		return noOfExecuted + batchUpdateCounts.length;
+	}
+
 	private void addParameterValuesToPreparedStatement(List<Object> values,
 			PreparedStatement prepareStatement) throws SQLException {
 		int position = 1;
@@ -69,4 +253,9 @@ public class DataUpdaterImp implements DataUpdater {
 		// needed for test
 		return sqlConnectionProvider;
 	}
+
+	public StatementMetrics getStatementMetrics() {
+		// needed for test
+		return statementMetrics;
+	}
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+
+/**
+ * ExecutorPublisher is a Flow.Publisher that wraps another publisher and runs the request and
+ * cancel calls of its subscriptions using an Executor. For a {@link RowPublisher}, that reads rows
+ * in the thread that calls request, this moves the reads from the subscriber's thread to the
+ * executor, so that request returns at once and the rows are handed to the subscriber from the
+ * executor.
+ * <p>
+ * If the executor rejects a request, the wrapped subscription is cancelled and the subscriber gets
+ * a SqlStorageException "Error starting async task" that has the rejection as cause.
+ */
+final class ExecutorPublisher<T> implements Flow.Publisher<T> {
+	private final Flow.Publisher<T> publisher;
+	private final Executor executor;
+
+	static <T> ExecutorPublisher<T> usingPublisherAndExecutor(Flow.Publisher<T> publisher,
+			Executor executor) {
+		return new ExecutorPublisher<>(publisher, executor);
+	}
+
+	private ExecutorPublisher(Flow.Publisher<T> publisher, Executor executor) {
+		this.publisher = publisher;
+		this.executor = executor;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super T> subscriber) {
+		publisher.subscribe(new ExecutorSubscriber(subscriber));
+	}
+
+	private final class ExecutorSubscriber implements Subscriber<T> {
+		private final Subscriber<? super T> subscriber;
+
+		ExecutorSubscriber(Subscriber<? super T> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			subscriber.onSubscribe(new ExecutorSubscription(subscriber, subscription));
+		}
+
+		@Override
+		public void onNext(T item) {
+			subscriber.onNext(item);
+		}
+
+		@Override
+		public void onError(Throwable throwable) {
+			subscriber.onError(throwable);
+		}
+
+		@Override
+		public void onComplete() {
+			subscriber.onComplete();
+		}
+	}
+
+	private final class ExecutorSubscription implements Subscription {
+		private final Subscriber<? super T> subscriber;
+		private final Subscription subscription;
+
+		ExecutorSubscription(Subscriber<? super T> subscriber, Subscription subscription) {
+			this.subscriber = subscriber;
+			this.subscription = subscription;
+		}
+
+		@Override
+		public void request(long n) {
+			try {
+				executor.execute(() -> subscription.request(n));
+			} catch (RuntimeException e) {
+				subscription.cancel();
+				subscriber.onError(createStartError(e));
+			}
+		}
+
+		private SqlStorageException createStartError(RuntimeException e) {
+			return SqlStorageException.withMessageAndException("Error starting async task", e);
+		}
+
+		@Override
+		public void cancel() {
+			try {
+				executor.execute(subscription::cancel);
+			} catch (RuntimeException e) {
+				subscription.cancel();
+			}
+		}
+	}
+
+	Flow.Publisher<T> getPublisher() {
+		// needed for test
+		return publisher;
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram counts recorded values, typically durations in nanoseconds, in buckets with a
+ * relative width of at most 1/64, so that percentiles can be read with less than 2% error using a
+ * fixed amount of memory. Values are recorded without locks and can be recorded from many threads
+ * at once.
+ * <p>
+ * A histogram that needs less memory can be created with fewer sub bucket bits, each bit less
+ * doubles the relative width of the buckets and halves the memory used.
+ */
+final class LatencyHistogram {
+	private static final int DEFAULT_SUB_BUCKET_BITS = 7;
+	private final int subBucketBits;
+	private final int subBucketCount;
+	private final int halfSubBucketCount;
+	private final int noOfBuckets;
+	private final AtomicLongArray counts;
+	private final LongAdder totalCount = new LongAdder();
+	private final AtomicLong maxValue = new AtomicLong();
+
+	LatencyHistogram() {
+		this(DEFAULT_SUB_BUCKET_BITS);
+	}
+
+	LatencyHistogram(int subBucketBits) {
+		this.subBucketBits = subBucketBits;
+		subBucketCount = 1 << subBucketBits;
+		halfSubBucketCount = subBucketCount / 2;
+		noOfBuckets = subBucketCount + (Long.SIZE - 1 - subBucketBits) * halfSubBucketCount;
+		counts = new AtomicLongArray(noOfBuckets);
+	}
+
+	void recordValue(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException(
+					"Invalid value: " + value + ", must not be negative");
+		}
+		counts.incrementAndGet(getBucketIndex(value));
+		totalCount.increment();
+		maxValue.accumulateAndGet(value, Math::max);
+	}
+
+	private int getBucketIndex(long value) {
+		if (value < subBucketCount) {
+			return (int) value;
+		}
+		int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - subBucketBits;
+		int subBucket = (int) (value >>> shift);
+		return subBucketCount + (shift - 1) * halfSubBucketCount + (subBucket - halfSubBucketCount);
+	}
+
+	private long getHighestValueInBucket(int index) {
+		if (index < subBucketCount) {
+			return index;
+		}
+		int shift = (index - subBucketCount) / halfSubBucketCount + 1;
+		long subBucket = (index - subBucketCount) % halfSubBucketCount + halfSubBucketCount;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * getValueAtPercentile returns the highest value that is equivalent, within the precision of
+	 * the histogram, to the value that percentile percent of all recorded values are less than or
+	 * equal to. Zero is returned if no values have been recorded.
+	 */
+	long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException(
+					"Invalid percentile: " + percentile + ", must be between 0 and 100");
+		}
+		long count = getCount();
+		long countAtPercentile = Math.max(1, (long) Math.ceil(percentile * count / 100));
+		long seenCount = 0;
+		for (int index = 0; index < noOfBuckets && seenCount < count; index++) {
+			seenCount += counts.get(index);
+			if (seenCount >= countAtPercentile) {
+				return Math.min(getHighestValueInBucket(index), getMaxValue());
+			}
+		}
+		return 0;
+	}
+
+	long getCount() {
+		return totalCount.sum();
+	}
+
+	long getMaxValue() {
+		return maxValue.get();
+	}
+
+	void reset() {
+		for (int index = 0; index < noOfBuckets; index++) {
+			counts.set(index, 0);
+		}
+		totalCount.reset();
+		maxValue.set(0);
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MapRowMapper maps rows to {@link Row}s. The {@link RowHeader} is created from the metadata of the
+ * result when the result is started, or when the first row is mapped, and then shared by all rows,
+ * so a new MapRowMapper must be used for each result.
+ */
+final class MapRowMapper implements RowMapper<Map<String, Object>> {
+	private RowHeader header;
+
+	@Override
+	public void startResult(ResultSet resultSet) throws SQLException {
+		header = createRowHeaderFromResultSet(resultSet);
+	}
+
+	/**
+	 * getHeader returns the header of the result, or null if the result has not been started and
+	 * no row has been mapped.
+	 */
+	RowHeader getHeader() {
+		return header;
+	}
+
+	@Override
+	public Map<String, Object> mapRow(ResultSet resultSet) throws SQLException {
+		if (header == null) {
+			header = createRowHeaderFromResultSet(resultSet);
+		}
+		return createRowForCurrentRowInResultSet(resultSet);
+	}
+
+	private RowHeader createRowHeaderFromResultSet(ResultSet resultSet) throws SQLException {
+		ResultSetMetaData metaData = resultSet.getMetaData();
+		int columnCount = metaData.getColumnCount();
+		List<String> columnLabels = createListOfColumnLabelsFromMetadata(metaData, columnCount);
+		return RowHeader.usingColumnNames(columnLabels);
+	}
+
+	private List<String> createListOfColumnLabelsFromMetadata(ResultSetMetaData metaData,
+			int columnCount) throws SQLException {
+		List<String> columnLabels = new ArrayList<>(columnCount);
+		for (int i = 1; i <= columnCount; i++) {
+			columnLabels.add(metaData.getColumnLabel(i));
+		}
+		return columnLabels;
+	}
+
+	private Row createRowForCurrentRowInResultSet(ResultSet resultSet) throws SQLException {
+		Object[] values = new Object[header.size()];
+		for (int position = 0; position < values.length; position++) {
+			values[position] = resultSet.getObject(header.getColumnIndex(position));
+		}
+		return Row.usingHeaderAndValues(header, values);
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+interface NotificationReceiver {
+
+	/**
+	 * receivePayloads waits at most timeoutInMillis for notifications on a connection that listens
+	 * to a channel, and returns the payloads of the received notifications, or an empty list if
+	 * none was received.
+	 */
+	List<String> receivePayloads(Connection connection, int timeoutInMillis) throws SQLException;
+
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+final class PostgresNotificationReceiver implements NotificationReceiver {
+
+	@Override
+	public List<String> receivePayloads(Connection connection, int timeoutInMillis)
+			throws SQLException {
+		PGNotification[] notifications = connection.unwrap(PGConnection.class)
+				.getNotifications(timeoutInMillis);
+		if (notifications == null) {
+			return Collections.emptyList();
+		}
+		List<String> payloads = new ArrayList<>(notifications.length);
+		for (PGNotification notification : notifications) {
+			payloads.add(notification.getParameter());
+		}
+		return payloads;
+	}
+}
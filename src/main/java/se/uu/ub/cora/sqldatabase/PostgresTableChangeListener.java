@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+import se.uu.ub.cora.connection.SqlConnectionProvider;
+import se.uu.ub.cora.logger.Logger;
+import se.uu.ub.cora.logger.LoggerProvider;
+
+/**
+ * PostgresTableChangeListener keeps a dedicated connection listening to a postgres channel, and
+ * invalidates tables using a {@link TableInvalidator}, such as a {@link RecordCache}, as changes
+ * are published on the channel by {@link PostgresTableChangePublisher}s on other nodes.
+ * <p>
+ * Listening is done in a daemon thread started by {@link #start()} and stopped by {@link #close()}.
+ * The listener can be started again after it is closed. If the connection fails, a new connection
+ * is made after a short delay. All cached tables are invalidated each time listening starts, as
+ * changes made while not listening can not be known.
+ * <p>
+ * The connection should not come from a pool, as it is kept for as long as the listener runs.
+ */
+public final class PostgresTableChangeListener implements AutoCloseable {
+	private static final Pattern VALID_CHANNEL = Pattern.compile("[a-z_][a-z0-9_]*");
+	private static final int RECEIVE_TIMEOUT_IN_MILLIS = 500;
+	private static final long RECONNECT_DELAY_IN_MILLIS = 1000;
+	private Logger log = LoggerProvider.getLoggerForClass(PostgresTableChangeListener.class);
+	private final SqlConnectionProvider sqlConnectionProvider;
+	private final String channel;
+	private final TableInvalidator tableInvalidator;
+	private NotificationReceiver notificationReceiver = new PostgresNotificationReceiver();
+	private volatile boolean running = false;
+	private volatile Thread listenerThread;
+
+	public static PostgresTableChangeListener usingSqlConnectionProviderAndChannelAndTableInvalidator(
+			SqlConnectionProvider sqlConnectionProvider, String channel,
+			TableInvalidator tableInvalidator) {
+		throwErrorIfChannelIsInvalid(channel);
+		return new PostgresTableChangeListener(sqlConnectionProvider, channel, tableInvalidator);
+	}
+
+	private static void throwErrorIfChannelIsInvalid(String channel) {
+		if (!VALID_CHANNEL.matcher(channel).matches()) {
+			throw SqlStorageException.withMessage("Invalid channel name: " + channel);
+		}
+	}
+
+	private PostgresTableChangeListener(SqlConnectionProvider sqlConnectionProvider,
+			String channel, TableInvalidator tableInvalidator) {
+		this.sqlConnectionProvider = sqlConnectionProvider;
+		this.channel = channel;
+		this.tableInvalidator = tableInvalidator;
+	}
+
+	/**
+	 * start starts listening in a new daemon thread, unless the listener is already running. If the
+	 * listener has been closed, start waits for the thread from the previous start to end, so that
+	 * only one thread listens at a time.
+	 */
+	public synchronized void start() {
+		if (running) {
+			return;
+		}
+		waitForPreviousListenerThreadToEnd();
+		running = true;
+		listenerThread = new Thread(this::listen, "table-change-listener-" + channel);
+		listenerThread.setDaemon(true);
+		listenerThread.start();
+	}
+
+	private void waitForPreviousListenerThreadToEnd() {
+		if (listenerThread == null) {
+			return;
+		}
+		try {
+			listenerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw SqlStorageException.withMessageAndException(
+					"Interrupted while waiting for listener on channel " + channel + " to stop", e);
+		}
+	}
+
+	void startInCurrentThread() {
+		// needed for test
+		running = true;
+		listen();
+	}
+
+	void listen() {
+		while (running) {
+			try {
+				listenUsingNewConnection();
+			} catch (SQLException | RuntimeException e) {
+				log.logErrorUsingMessageAndException("Error listening to channel " + channel, e);
+				waitBeforeReconnecting();
+			}
+		}
+	}
+
+	private void listenUsingNewConnection() throws SQLException {
+		try (Connection connection = sqlConnectionProvider.getConnection();) {
+			startListeningUsingConnection(connection);
+			tableInvalidator.invalidateAllTables();
+			while (running) {
+				invalidateTablesInReceivedPayloads(connection);
+			}
+		}
+	}
+
+	private void startListeningUsingConnection(Connection connection) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("LISTEN " + channel);) {
+			statement.execute();
+		}
+	}
+
+	private void invalidateTablesInReceivedPayloads(Connection connection) throws SQLException {
+		for (String tableName : notificationReceiver.receivePayloads(connection,
+				RECEIVE_TIMEOUT_IN_MILLIS)) {
+			tableInvalidator.invalidateTable(tableName);
+		}
+	}
+
+	private void waitBeforeReconnecting() {
+		try {
+			Thread.sleep(RECONNECT_DELAY_IN_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			running = false;
+		}
+	}
+
+	/**
+	 * close stops listening. The connection is closed by the listener thread as soon as a receive
+	 * in progress returns.
+	 */
+	@Override
+	public void close() {
+		running = false;
+		Thread thread = listenerThread;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	public SqlConnectionProvider getSqlConnectionProvider() {
+		// needed for test
+		return sqlConnectionProvider;
+	}
+
+	public String getChannel() {
+		// needed for test
+		return channel;
+	}
+
+	public TableInvalidator getTableInvalidator() {
+		// needed for test
+		return tableInvalidator;
+	}
+
+	void setNotificationReceiver(NotificationReceiver notificationReceiver) {
+		// needed for test
+		this.notificationReceiver = notificationReceiver;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+
+import se.uu.ub.cora.logger.Logger;
+import se.uu.ub.cora.logger.LoggerProvider;
+
+/**
+ * PostgresTableChangePublisher publishes changed tables using postgres NOTIFY on a channel, with
+ * the name of the table as payload. Changes are received by {@link PostgresTableChangeListener}s
+ * listening to the same channel.
+ * <p>
+ * A failure to publish is logged but not thrown, as the table has already been changed. Other nodes
+ * then keep what they have cached from the table until it reaches its time to live.
+ */
+public final class PostgresTableChangePublisher implements TableChangePublisher {
+	private static final String NOTIFY_SQL = "select pg_notify(?, ?)";
+	private Logger log = LoggerProvider.getLoggerForClass(PostgresTableChangePublisher.class);
+	private final DataReader dataReader;
+	private final String channel;
+
+	public static PostgresTableChangePublisher usingDataReaderAndChannel(DataReader dataReader,
+			String channel) {
+		return new PostgresTableChangePublisher(dataReader, channel);
+	}
+
+	private PostgresTableChangePublisher(DataReader dataReader, String channel) {
+		this.dataReader = dataReader;
+		this.channel = channel;
+	}
+
+	@Override
+	public void publishChangeOfTable(String tableName) {
+		try {
+			dataReader.readOneRowOrFailUsingSqlAndValues(NOTIFY_SQL, List.of(channel, tableName));
+		} catch (SqlStorageException e) {
+			log.logErrorUsingMessageAndException("Error publishing change of table " + tableName
+					+ " on channel " + channel, e);
+		}
+	}
+
+	public DataReader getDataReader() {
+		// needed for test
+		return dataReader;
+	}
+
+	public String getChannel() {
+		// needed for test
+		return channel;
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * RecordCache holds results read from tables that have been configured to be cached using
+ * {@link #cacheTableUsingTimeToLive(String, Duration)}. One RecordCache is meant to be shared by a
+ * {@link CachingRecordReader} and a {@link CachingRecordUpdater} so that all cached results for a
+ * table are invalidated when the table is updated.
+ * <p>
+ * The cache holds at most maxSize results. When it is full, the least recently used results are
+ * removed, a tenth of maxSize more than needed so that eviction does not run on every read.
+ * Results older than the time to live of their table are never returned.
+ * <p>
+ * Cached results are shared between callers, and are therefore returned as unmodifiable lists and
+ * maps.
+ * <p>
+ * When several application nodes use the same database, changes of tables can be published to the
+ * other nodes using {@link #publishTableChangesUsing(TableChangePublisher)}. Changes are published
+ * for all updated tables, also tables that the publishing node does not cache itself, as other
+ * nodes might cache them.
+ */
+public final class RecordCache implements TableInvalidator {
+	private static final int EVICTION_DIVISOR = 10;
+	private final int maxSize;
+	private final Map<String, Duration> timeToLiveForTables = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> generationForTables = new ConcurrentHashMap<>();
+	private final Map<CacheKey, CacheEntry> entries = new ConcurrentHashMap<>();
+	private volatile TableChangePublisher tableChangePublisher;
+	private final AtomicLong accessCounter = new AtomicLong();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+
+	public static RecordCache usingMaxSize(int maxSize) {
+		return new RecordCache(maxSize);
+	}
+
+	private RecordCache(int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+		}
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * cacheTableUsingTimeToLive turns on caching of results read from the table. Results are kept
+	 * for at most timeToLive, or until the table is updated.
+	 */
+	public void cacheTableUsingTimeToLive(String tableName, Duration timeToLive) {
+		timeToLiveForTables.put(tableName, timeToLive);
+	}
+
+	/**
+	 * publishTableChangesUsing sets a publisher that is told about each change of a table made
+	 * through a {@link CachingRecordUpdater} using this cache.
+	 */
+	public void publishTableChangesUsing(TableChangePublisher tableChangePublisher) {
+		this.tableChangePublisher = tableChangePublisher;
+	}
+
+	public boolean isTableCached(String tableName) {
+		return timeToLiveForTables.containsKey(tableName);
+	}
+
+	List<Map<String, Object>> getOrReadListUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, Supplier<List<Map<String, Object>>> reader) {
+		return getOrRead(new CacheKey(tableName, true, conditions),
+				() -> makeListUnmodifiable(reader.get()));
+	}
+
+	private List<Map<String, Object>> makeListUnmodifiable(List<Map<String, Object>> rows) {
+		List<Map<String, Object>> unmodifiableRows = new ArrayList<>(rows.size());
+		for (Map<String, Object> row : rows) {
+			unmodifiableRows.add(Collections.unmodifiableMap(row));
+		}
+		return Collections.unmodifiableList(unmodifiableRows);
+	}
+
+	Map<String, Object> getOrReadOneRowUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, Supplier<Map<String, Object>> reader) {
+		return getOrRead(new CacheKey(tableName, false, conditions),
+				() -> Collections.unmodifiableMap(reader.get()));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T getOrRead(CacheKey key, Supplier<T> reader) {
+		AtomicLong generation = getGenerationForTable(key.tableName);
+		long now = System.nanoTime();
+		CacheEntry entry = entries.get(key);
+		if (entry != null && entry.isValid(generation.get(), now)) {
+			hits.incrementAndGet();
+			entry.lastAccess = accessCounter.incrementAndGet();
+			return (T) entry.value;
+		}
+		misses.incrementAndGet();
+		return (T) readAndStore(key, generation, reader);
+	}
+
+	private AtomicLong getGenerationForTable(String tableName) {
+		return generationForTables.computeIfAbsent(tableName, name -> new AtomicLong());
+	}
+
+	private Object readAndStore(CacheKey key, AtomicLong generation, Supplier<?> reader) {
+		long generationBeforeRead = generation.get();
+		Object value = reader.get();
+		long expiresAt = System.nanoTime() + timeToLiveForTables.get(key.tableName).toNanos();
+		CacheEntry entry = new CacheEntry(value, generationBeforeRead, expiresAt,
+				accessCounter.incrementAndGet());
+		entries.put(key.copyForStorage(), entry);
+		removeIfTableWasUpdatedDuringRead(key, entry, generation, generationBeforeRead);
+		evictLeastRecentlyUsedIfFull();
+		return value;
+	}
+
+	private void removeIfTableWasUpdatedDuringRead(CacheKey key, CacheEntry entry,
+			AtomicLong generation, long generationBeforeRead) {
+		if (generation.get() != generationBeforeRead) {
+			entries.remove(key, entry);
+		}
+	}
+
+	private void evictLeastRecentlyUsedIfFull() {
+		int size = entries.size();
+		if (size <= maxSize) {
+			return;
+		}
+		long[] lastAccesses = collectLastAccessesSorted(size);
+		int noToEvict = Math.min(lastAccesses.length,
+				size - maxSize + maxSize / EVICTION_DIVISOR);
+		if (noToEvict > 0) {
+			long lastAccessToEvict = lastAccesses[noToEvict - 1];
+			entries.values().removeIf(entry -> entry.lastAccess <= lastAccessToEvict);
+		}
+	}
+
+	private long[] collectLastAccessesSorted(int expectedSize) {
+		long[] lastAccesses = new long[expectedSize];
+		int noOfAccesses = 0;
+		for (CacheEntry entry : entries.values()) {
+			if (noOfAccesses == lastAccesses.length) {
+				break;
+			}
+			lastAccesses[noOfAccesses++] = entry.lastAccess;
+		}
+		lastAccesses = Arrays.copyOf(lastAccesses, noOfAccesses);
+		Arrays.sort(lastAccesses);
+		return lastAccesses;
+	}
+
+	/**
+	 * invalidateTable removes all cached results for the table. Results being read from the table
+	 * while it is invalidated are not stored.
+	 */
+	@Override
+	public void invalidateTable(String tableName) {
+		getGenerationForTable(tableName).incrementAndGet();
+		entries.keySet().removeIf(key -> key.tableName.equals(tableName));
+	}
+
+	@Override
+	public void invalidateTableAndPublishChange(String tableName) {
+		invalidateTable(tableName);
+		if (tableChangePublisher != null) {
+			tableChangePublisher.publishChangeOfTable(tableName);
+		}
+	}
+
+	/**
+	 * invalidateAllTables removes all cached results. Results being read while the tables are
+	 * invalidated are not stored.
+	 */
+	@Override
+	public void invalidateAllTables() {
+		for (AtomicLong generation : generationForTables.values()) {
+			generation.incrementAndGet();
+		}
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public long getNoOfHits() {
+		return hits.get();
+	}
+
+	public long getNoOfMisses() {
+		return misses.get();
+	}
+
+	private static final class CacheKey {
+		private final String tableName;
+		private final boolean readsList;
+		private final Map<String, Object> conditions;
+		private final int hash;
+
+		CacheKey(String tableName, boolean readsList, Map<String, Object> conditions) {
+			this.tableName = tableName;
+			this.readsList = readsList;
+			this.conditions = conditions;
+			this.hash = 31 * (31 * tableName.hashCode() + Boolean.hashCode(readsList))
+					+ conditions.hashCode();
+		}
+
+		CacheKey copyForStorage() {
+			return new CacheKey(tableName, readsList, new HashMap<>(conditions));
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return hash == other.hash && readsList == other.readsList
+					&& tableName.equals(other.tableName) && conditions.equals(other.conditions);
+		}
+	}
+
+	private static final class CacheEntry {
+		private final Object value;
+		private final long generation;
+		private final long expiresAt;
+		private volatile long lastAccess;
+
+		CacheEntry(Object value, long generation, long expiresAt, long lastAccess) {
+			this.value = value;
+			this.generation = generation;
+			this.expiresAt = expiresAt;
+			this.lastAccess = lastAccess;
+		}
+
+		boolean isValid(long currentGeneration, long now) {
+			return generation == currentGeneration && now - expiresAt < 0;
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * RecordLoader collects lookups of single keys in one table, and reads all collected keys using
+ * one call to {@link RecordReader#readFromTableUsingKeyColumnAndKeys(String, String,
+ * java.util.Collection)} when {@link #dispatch()} is called. Code that would otherwise read one
+ * row at a time, for instance while walking a list of records, can load all keys first and then
+ * dispatch once, turning N queries into one.
+ * <p>
+ * A RecordLoader is meant to live for one request. Each key is only read once, loading a key that
+ * has already been loaded returns the same future, so a loaded result is never refreshed. A key
+ * whose read failed is forgotten, so it is read again if it is loaded again.
+ */
+public final class RecordLoader<K> {
+	private final RecordReader recordReader;
+	private final String tableName;
+	private final String keyColumn;
+	private final Map<K, CompletableFuture<List<Map<String, Object>>>> loads =
+			new ConcurrentHashMap<>();
+	private final ConcurrentLinkedQueue<K> keysToRead = new ConcurrentLinkedQueue<>();
+
+	public static <K> RecordLoader<K> usingRecordReaderAndTableNameAndKeyColumn(
+			RecordReader recordReader, String tableName, String keyColumn) {
+		return new RecordLoader<>(recordReader, tableName, keyColumn);
+	}
+
+	private RecordLoader(RecordReader recordReader, String tableName, String keyColumn) {
+		this.recordReader = recordReader;
+		this.tableName = tableName;
+		this.keyColumn = keyColumn;
+	}
+
+	/**
+	 * load returns a future for the rows matching the key. The future is completed when
+	 * {@link #dispatch()} is called, unless the key has already been read. As in sql, a null key
+	 * matches no rows.
+	 * 
+	 * @param key
+	 *            The value to match against the key column
+	 * @return A CompletableFuture with the rows matching the key
+	 */
+	public CompletableFuture<List<Map<String, Object>>> load(K key) {
+		if (key == null) {
+			return CompletableFuture.completedFuture(Collections.emptyList());
+		}
+		return loads.computeIfAbsent(key, this::createLoadForKeyToRead);
+	}
+
+	private CompletableFuture<List<Map<String, Object>>> createLoadForKeyToRead(K key) {
+		keysToRead.add(key);
+		return new CompletableFuture<>();
+	}
+
+	/**
+	 * dispatch reads all keys loaded since the last dispatch using one call to the RecordReader,
+	 * and completes their futures. If the read fails, the futures are completed with the error.
+	 */
+	public void dispatch() {
+		List<K> keys = takeKeysToRead();
+		if (keys.isEmpty()) {
+			return;
+		}
+		try {
+			Map<K, List<Map<String, Object>>> rowsForKeys = recordReader
+					.readFromTableUsingKeyColumnAndKeys(tableName, keyColumn, keys);
+			completeLoads(keys, rowsForKeys);
+		} catch (RuntimeException e) {
+			failLoads(keys, e);
+		}
+	}
+
+	private List<K> takeKeysToRead() {
+		List<K> keys = new ArrayList<>();
+		K key = keysToRead.poll();
+		while (key != null) {
+			keys.add(key);
+			key = keysToRead.poll();
+		}
+		return keys;
+	}
+
+	private void completeLoads(List<K> keys, Map<K, List<Map<String, Object>>> rowsForKeys) {
+		for (K key : keys) {
+			List<Map<String, Object>> rows = rowsForKeys.getOrDefault(key,
+					Collections.emptyList());
+			loads.get(key).complete(rows);
+		}
+	}
+
+	private void failLoads(List<K> keys, RuntimeException e) {
+		for (K key : keys) {
+			loads.remove(key).completeExceptionally(e);
+		}
+	}
+
+	public RecordReader getRecordReader() {
+		// needed for test
+		return recordReader;
+	}
+
+	public String getTableName() {
+		// needed for test
+		return tableName;
+	}
+
+	public String getKeyColumn() {
+		// needed for test
+		return keyColumn;
+	}
+}
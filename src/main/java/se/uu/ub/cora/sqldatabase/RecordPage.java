@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RecordPage holds one page of rows read using
+ * {@link RecordReader#readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize}
+ * and the key to continue reading after, that is the key column values of the last row in the
+ * page. The next key is null for the last page.
+ */
+public final class RecordPage {
+	private final List<Map<String, Object>> rows;
+	private final List<Object> nextKey;
+
+	public static RecordPage usingRowsAndNextKey(List<Map<String, Object>> rows,
+			List<Object> nextKey) {
+		return new RecordPage(rows, nextKey);
+	}
+
+	private RecordPage(List<Map<String, Object>> rows, List<Object> nextKey) {
+		this.rows = rows;
+		this.nextKey = nextKey;
+	}
+
+	public List<Map<String, Object>> getRows() {
+		return rows;
+	}
+
+	public List<Object> getNextKey() {
+		return nextKey;
+	}
+
+	public boolean hasNextPage() {
+		return nextKey != null;
+	}
+}
@@ -19,17 +19,124 @@
 
 package se.uu.ub.cora.sqldatabase;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public interface RecordReader {
 
 	List<Map<String, Object>> readAllFromTable(String tableName);
 
+	/**
+	 * readAllFromTable reads all rows from the table and returns them mapped using the rowMapper.
+	 */
+	<T> List<T> readAllFromTable(String tableName, RowMapper<T> rowMapper);
+
+	/**
+	 * readAllFromTable reads the named columns of all rows in the table. Only the named columns are
+	 * sent from the database, which is much cheaper than reading all columns of tables with large
+	 * columns that are not needed.
+	 */
+	List<Map<String, Object>> readAllFromTable(String tableName, List<String> columnNames);
+
 	List<Map<String, Object>> readFromTableUsingConditions(String tableName,
 			Map<String, Object> conditions);
 
+	/**
+	 * readFromTableUsingConditions reads the rows matching all conditions from the table and
+	 * returns them mapped using the rowMapper.
+	 */
+	<T> List<T> readFromTableUsingConditions(String tableName, Map<String, Object> conditions,
+			RowMapper<T> rowMapper);
+
+	/**
+	 * readFromTableUsingConditions reads the named columns of the rows matching all conditions from
+	 * the table.
+	 */
+	List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames);
+
 	Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
 			Map<String, Object> conditions);
 
+	/**
+	 * readOneRowFromDbUsingTableAndConditions reads the only row matching all conditions from the
+	 * table and returns it mapped using the rowMapper. A SqlStorageException is thrown if not
+	 * exactly one row matches.
+	 */
+	<T> T readOneRowFromDbUsingTableAndConditions(String tableName, Map<String, Object> conditions,
+			RowMapper<T> rowMapper);
+
+	/**
+	 * readOptionalOneRowFromDbUsingTableAndConditions reads the only row matching all conditions
+	 * from the table, or returns an empty Optional if no row matches. No exception is created when
+	 * no row matches, so a miss costs no more than a hit. A SqlStorageException is thrown if more
+	 * than one row matches.
+	 */
+	Optional<Map<String, Object>> readOptionalOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions);
+
+	/**
+	 * readOptionalOneRowFromDbUsingTableAndConditions reads the only row matching all conditions
+	 * from the table and returns it mapped using the rowMapper, or returns an empty Optional if no
+	 * row matches.
+	 */
+	<T> Optional<T> readOptionalOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper);
+
+	/**
+	 * readOneRowFromDbUsingTableAndConditions reads the named columns of the only row matching all
+	 * conditions from the table. A SqlStorageException is thrown if not exactly one row matches.
+	 */
+	Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames);
+
+	/**
+	 * readFromTableUsingKeyColumnAndKeys reads all rows from the table where the value in the key
+	 * column is one of the keys, and returns them grouped by key. The keys are read using as few
+	 * queries as possible, instead of one query for each key.
+	 * <p>
+	 * The returned map has one entry for each distinct key, in the order they are given, with an
+	 * empty list for keys that match no rows. As in sql, a null key matches no rows and is left out
+	 * of the returned map.
+	 * 
+	 * @param tableName
+	 *            A String with the name of the table to read from
+	 * @param keyColumn
+	 *            A String with the name of the column to match the keys against
+	 * @param keys
+	 *            A Collection with the keys to read rows for
+	 * @return A Map with the rows read for each key
+	 */
+	<K> Map<K, List<Map<String, Object>>> readFromTableUsingKeyColumnAndKeys(String tableName,
+			String keyColumn, Collection<K> keys);
+
+	/**
+	 * readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize reads one page of the
+	 * rows matching all conditions, ordered by the key columns, using keyset pagination. Instead of
+	 * skipping rows with an offset, the page starts directly after the key of the last row in the
+	 * previous page, so reading a page costs the same no matter how far into the table it is,
+	 * given an index on the key columns.
+	 * <p>
+	 * The key columns must together be unique and not null for all rows, otherwise rows can be
+	 * skipped or read twice.
+	 * 
+	 * @param tableName
+	 *            A String with the name of the table to read from
+	 * @param conditions
+	 *            A Map with column names and values that the rows must match
+	 * @param keyColumns
+	 *            A List with the names of the columns to order and page by
+	 * @param afterKey
+	 *            A List with one value for each key column, normally the next key of the previous
+	 *            page, or null to read the first page
+	 * @param pageSize
+	 *            An int with the max number of rows in the page
+	 * @return A RecordPage with the rows and the key to read the next page after
+	 */
+	RecordPage readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+			String tableName, Map<String, Object> conditions, List<String> keyColumns,
+			List<Object> afterKey, int pageSize);
+
 }
@@ -21,23 +21,81 @@ package se.uu.ub.cora.sqldatabase;
 
 import se.uu.ub.cora.connection.SqlConnectionProvider;
 
+/**
+ * RecordReaderFactoryImp creates RecordReaders that read using a {@link SqlConnectionProvider}. The
+ * with methods return a new factory that also adds a decorator to the created readers, and they
+ * can be combined. The statements run are recorded in {@link StatementMetrics}, reads of tables
+ * with snapshots are answered from {@link TableSnapshots} and reads of cached tables are answered
+ * from the {@link RecordCache}, in that order from the database outwards.
+ */
 public final class RecordReaderFactoryImp implements RecordReaderFactory {
 
 	public static RecordReaderFactoryImp usingSqlConnectionProvider(
 			SqlConnectionProvider sqlConnectionProvider) {
-		return new RecordReaderFactoryImp(sqlConnectionProvider);
+		return new RecordReaderFactoryImp(sqlConnectionProvider, null, null, null);
 	}
 
 	private SqlConnectionProvider sqlConnectionProvider;
+	private RecordCache recordCache;
+	private TableSnapshots tableSnapshots;
+	private StatementMetrics statementMetrics;
 
-	private RecordReaderFactoryImp(SqlConnectionProvider sqlConnectionProvider) {
+	private RecordReaderFactoryImp(SqlConnectionProvider sqlConnectionProvider,
+			RecordCache recordCache, TableSnapshots tableSnapshots,
+			StatementMetrics statementMetrics) {
 		this.sqlConnectionProvider = sqlConnectionProvider;
+		this.recordCache = recordCache;
+		this.tableSnapshots = tableSnapshots;
+		this.statementMetrics = statementMetrics;
+	}
+
+	/**
+	 * withRecordCache returns a factory whose RecordReaders use the recordCache for cached tables,
+	 * see {@link CachingRecordReader}
+	 */
+	public RecordReaderFactoryImp withRecordCache(RecordCache recordCache) {
+		return new RecordReaderFactoryImp(sqlConnectionProvider, recordCache, tableSnapshots,
+				statementMetrics);
+	}
+
+	/**
+	 * withTableSnapshots returns a factory whose RecordReaders read tables with snapshots from
+	 * memory, see {@link SnapshotRecordReader}
+	 */
+	public RecordReaderFactoryImp withTableSnapshots(TableSnapshots tableSnapshots) {
+		return new RecordReaderFactoryImp(sqlConnectionProvider, recordCache, tableSnapshots,
+				statementMetrics);
+	}
+
+	/**
+	 * withStatementMetrics returns a factory whose RecordReaders record the statements they run in
+	 * the statementMetrics, see {@link StatementMetrics}
+	 */
+	public RecordReaderFactoryImp withStatementMetrics(StatementMetrics statementMetrics) {
+		return new RecordReaderFactoryImp(sqlConnectionProvider, recordCache, tableSnapshots,
+				statementMetrics);
 	}
 
 	@Override
 	public RecordReader factor() {
-		DataReader dataReader = DataReaderImp.usingSqlConnectionProvider(sqlConnectionProvider);
-		return RecordReaderImp.usingDataReader(dataReader);
+		RecordReader recordReader = RecordReaderImp.usingDataReader(createDataReader());
+		if (tableSnapshots != null) {
+			recordReader = SnapshotRecordReader.usingRecordReaderAndTableSnapshots(recordReader,
+					tableSnapshots);
+		}
+		if (recordCache != null) {
+			recordReader = CachingRecordReader.usingRecordReaderAndRecordCache(recordReader,
+					recordCache);
+		}
+		return recordReader;
+	}
+
+	private DataReader createDataReader() {
+		if (statementMetrics != null) {
+			return DataReaderImp.usingSqlConnectionProviderAndStatementMetrics(
+					sqlConnectionProvider, statementMetrics);
+		}
+		return DataReaderImp.usingSqlConnectionProvider(sqlConnectionProvider);
 	}
 
 	public SqlConnectionProvider getSqlConnectionProvider() {
@@ -45,4 +103,19 @@ public final class RecordReaderFactoryImp implements RecordReaderFactory {
 		return sqlConnectionProvider;
 	}
 
+	public RecordCache getRecordCache() {
+		// needed for tests
+		return recordCache;
+	}
+
+	public TableSnapshots getTableSnapshots() {
+		// needed for tests
+		return tableSnapshots;
+	}
+
+	public StatementMetrics getStatementMetrics() {
+		// needed for tests
+		return statementMetrics;
+	}
+
 }
@@ -20,14 +20,26 @@
 package se.uu.ub.cora.sqldatabase;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.StringJoiner;
 
+import se.uu.ub.cora.sqldatabase.SqlTemplateCache.SqlShape;
+
 public final class RecordReaderImp implements RecordReader {
 	private static final String ERROR_READING_DATA_FROM = "Error reading data from ";
+	private static final String SELECT = "select";
+	private static final String SELECT_WHERE = "selectWhere";
+	private static final String SELECT_COLUMNS = "selectColumns";
+	private static final String SELECT_IN = "selectIn";
+	private static final String SELECT_PAGE = "selectPage";
+	static final int MAX_NO_OF_KEYS_PER_QUERY = 256;
 	private DataReader dataReader;
+	private SqlTemplateCache sqlTemplateCache = SqlTemplateCache.shared();
 
 	private RecordReaderImp(DataReader dataReader) {
 		this.dataReader = dataReader;
@@ -54,8 +66,25 @@ public final class RecordReaderImp implements RecordReader {
 
 	}
 
+	@Override
+	public <T> List<T> readAllFromTable(String tableName, RowMapper<T> rowMapper) {
+		try {
+			String sql = createSelectAllFor(tableName);
+			return dataReader.executePreparedStatementQueryUsingSqlAndValues(sql,
+					Collections.emptyList(), rowMapper);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
 	private String createSelectAllFor(String tableName) {
-		return "select * from " + tableName;
+		SqlShape shape = SqlShape.usingTypeTableAndKeyGroups(SELECT, tableName);
+		return sqlTemplateCache.getOrCreateSql(shape, RecordReaderImp::createSelectAllForShape);
+	}
+
+	private static String createSelectAllForShape(SqlShape shape) {
+		return "select * from " + shape.getTableName();
 	}
 
 	@Override
@@ -69,6 +98,45 @@ public final class RecordReaderImp implements RecordReader {
 		}
 	}
 
+	@Override
+	public <T> T readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		try {
+			String sql = createSqlForTableNameAndConditions(tableName, conditions);
+			List<Object> values = new ArrayList<>(conditions.values());
+			return dataReader.readOneRowOrFailUsingSqlAndValues(sql, values, rowMapper);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
+	@Override
+	public Optional<Map<String, Object>> readOptionalOneRowFromDbUsingTableAndConditions(
+			String tableName, Map<String, Object> conditions) {
+		try {
+			String sql = createSqlForTableNameAndConditions(tableName, conditions);
+			List<Object> values = new ArrayList<>(conditions.values());
+			return dataReader.readOptionalOneRowUsingSqlAndValues(sql, values);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
+	@Override
+	public <T> Optional<T> readOptionalOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		try {
+			String sql = createSqlForTableNameAndConditions(tableName, conditions);
+			List<Object> values = new ArrayList<>(conditions.values());
+			return dataReader.readOptionalOneRowUsingSqlAndValues(sql, values, rowMapper);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
 	private Map<String, Object> tryToReadOneRowFromDbUsingTableAndConditions(String tableName,
 			Map<String, Object> conditions) {
 
@@ -81,15 +149,22 @@ public final class RecordReaderImp implements RecordReader {
 
 	private String createSqlForTableNameAndConditions(String tableName,
 			Map<String, Object> conditions) {
-		String sql = "select * from " + tableName + " where ";
-		String conditionPart = createConditionPartOfSql(conditions);
+		SqlShape shape = SqlShape.usingTypeTableAndKeyGroups(SELECT_WHERE, tableName,
+				conditions.keySet());
+		return sqlTemplateCache.getOrCreateSql(shape,
+				RecordReaderImp::createSqlForTableNameAndConditionsInShape);
+	}
+
+	private static String createSqlForTableNameAndConditionsInShape(SqlShape shape) {
+		String sql = "select * from " + shape.getTableName() + " where ";
+		String conditionPart = createConditionPartOfSql(shape.getKeyGroup(0));
 		sql += conditionPart;
 		return sql;
 	}
 
-	private String createConditionPartOfSql(Map<String, Object> conditions) {
+	private static String createConditionPartOfSql(Collection<?> conditionNames) {
 		StringJoiner joiner = new StringJoiner(" and ");
-		for (String key : conditions.keySet()) {
+		for (Object key : conditionNames) {
 			joiner.add(key + " = ?");
 		}
 		return joiner.toString();
@@ -114,6 +189,273 @@ public final class RecordReaderImp implements RecordReader {
 		return dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values);
 	}
 
+	@Override
+	public <T> List<T> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		try {
+			String sql = createSqlForTableNameAndConditions(tableName, conditions);
+			List<Object> values = new ArrayList<>(conditions.values());
+			return dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values,
+					rowMapper);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
+	@Override
+	public List<Map<String, Object>> readAllFromTable(String tableName, List<String> columnNames) {
+		return readFromTableUsingConditions(tableName, Collections.emptyMap(), columnNames);
+	}
+
+	@Override
+	public List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		throwErrorIfNoColumnNames(columnNames);
+		try {
+			String sql = createSqlForTableNameAndColumnsAndConditions(tableName, columnNames,
+					conditions);
+			List<Object> values = new ArrayList<>(conditions.values());
+			return dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
+	private void throwErrorIfNoColumnNames(List<String> columnNames) {
+		if (columnNames.isEmpty()) {
+			throw SqlStorageException.withMessage("Invalid projection, no column names");
+		}
+	}
+
+	@Override
+	public Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		throwErrorIfNoColumnNames(columnNames);
+		try {
+			String sql = createSqlForTableNameAndColumnsAndConditions(tableName, columnNames,
+					conditions);
+			List<Object> values = new ArrayList<>(conditions.values());
+			return dataReader.readOneRowOrFailUsingSqlAndValues(sql, values);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
+	private String createSqlForTableNameAndColumnsAndConditions(String tableName,
+			List<String> columnNames, Map<String, Object> conditions) {
+		SqlShape shape = SqlShape.usingTypeTableAndKeyGroups(SELECT_COLUMNS, tableName,
+				columnNames, conditions.keySet());
+		return sqlTemplateCache.getOrCreateSql(shape,
+				RecordReaderImp::createSqlForColumnsAndConditionsInShape);
+	}
+
+	private static String createSqlForColumnsAndConditionsInShape(SqlShape shape) {
+		String sql = "select " + joinNames(shape.getKeyGroup(0)) + " from "
+				+ shape.getTableName();
+		Collection<?> conditionNames = shape.getKeyGroup(1);
+		if (!conditionNames.isEmpty()) {
+			sql += " where " + createConditionPartOfSql(conditionNames);
+		}
+		return sql;
+	}
+
+	@Override
+	public <K> Map<K, List<Map<String, Object>>> readFromTableUsingKeyColumnAndKeys(
+			String tableName, String keyColumn, Collection<K> keys) {
+		try {
+			return tryToReadFromTableUsingKeyColumnAndKeys(tableName, keyColumn, keys);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
+	private <K> Map<K, List<Map<String, Object>>> tryToReadFromTableUsingKeyColumnAndKeys(
+			String tableName, String keyColumn, Collection<K> keys) {
+		Map<K, List<Map<String, Object>>> rowsForKeys = new LinkedHashMap<>();
+		Map<Object, List<K>> keysForNormalizedKey = new LinkedHashMap<>();
+		for (K key : keys) {
+			if (key != null && !rowsForKeys.containsKey(key)) {
+				rowsForKeys.put(key, new ArrayList<>());
+				keysForNormalizedKey
+						.computeIfAbsent(ValueNormalizer.normalizeValue(key), k -> new ArrayList<>())
+						.add(key);
+			}
+		}
+		List<Object> distinctKeys = new ArrayList<>(keysForNormalizedKey.size());
+		for (List<K> equalKeys : keysForNormalizedKey.values()) {
+			distinctKeys.add(equalKeys.get(0));
+		}
+		for (int from = 0; from < distinctKeys.size(); from += MAX_NO_OF_KEYS_PER_QUERY) {
+			int to = Math.min(from + MAX_NO_OF_KEYS_PER_QUERY, distinctKeys.size());
+			List<Map<String, Object>> rows = readChunkOfKeys(tableName, keyColumn,
+					distinctKeys.subList(from, to));
+			addRowsToKeys(rows, keyColumn, keysForNormalizedKey, rowsForKeys);
+		}
+		return rowsForKeys;
+	}
+
+	private List<Map<String, Object>> readChunkOfKeys(String tableName, String keyColumn,
+			List<Object> keys) {
+		int noOfPlaceholders = roundUpToPowerOfTwo(keys.size());
+		List<Object> values = new ArrayList<>(noOfPlaceholders);
+		values.addAll(keys);
+		Object lastKey = keys.get(keys.size() - 1);
+		while (values.size() < noOfPlaceholders) {
+			values.add(lastKey);
+		}
+		String sql = createSqlForKeyColumnAndNoOfKeys(tableName, keyColumn, noOfPlaceholders);
+		return dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values);
+	}
+
+	private static int roundUpToPowerOfTwo(int number) {
+		return number == 1 ? 1 : Integer.highestOneBit(number - 1) << 1;
+	}
+
+	private String createSqlForKeyColumnAndNoOfKeys(String tableName, String keyColumn,
+			int noOfKeys) {
+		SqlShape shape = SqlShape.usingTypeTableAndKeyGroups(SELECT_IN, tableName,
+				List.of(keyColumn, noOfKeys));
+		return sqlTemplateCache.getOrCreateSql(shape, RecordReaderImp::createSqlForKeysInShape);
+	}
+
+	private static String createSqlForKeysInShape(SqlShape shape) {
+		List<?> keyGroup = (List<?>) shape.getKeyGroup(0);
+		int noOfKeys = (int) keyGroup.get(1);
+		StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+		for (int i = 0; i < noOfKeys; i++) {
+			placeholders.add("?");
+		}
+		return "select * from " + shape.getTableName() + " where " + keyGroup.get(0) + " in "
+				+ placeholders;
+	}
+
+	private <K> void addRowsToKeys(List<Map<String, Object>> rows, String keyColumn,
+			Map<Object, List<K>> keysForNormalizedKey,
+			Map<K, List<Map<String, Object>>> rowsForKeys) {
+		throwErrorIfKeyColumnIsMissingInRows(rows, keyColumn);
+		for (Map<String, Object> row : rows) {
+			Object normalizedKey = ValueNormalizer.normalizeValue(row.get(keyColumn));
+			for (K key : keysForNormalizedKey.getOrDefault(normalizedKey,
+					Collections.emptyList())) {
+				rowsForKeys.get(key).add(row);
+			}
+		}
+	}
+
+	private void throwErrorIfKeyColumnIsMissingInRows(List<Map<String, Object>> rows,
+			String keyColumn) {
+		if (!rows.isEmpty()) {
+			throwErrorIfKeyColumnIsMissingInRow(rows.get(0), keyColumn);
+		}
+	}
+
+	@Override
+	public RecordPage readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+			String tableName, Map<String, Object> conditions, List<String> keyColumns,
+			List<Object> afterKey, int pageSize) {
+		throwErrorIfPageArgumentsAreInvalid(keyColumns, afterKey, pageSize);
+		try {
+			return tryToReadPage(tableName, conditions, keyColumns, afterKey, pageSize);
+		} catch (SqlStorageException e) {
+			throw SqlStorageException.withMessageAndException(ERROR_READING_DATA_FROM + tableName,
+					e);
+		}
+	}
+
+	private void throwErrorIfPageArgumentsAreInvalid(List<String> keyColumns,
+			List<Object> afterKey, int pageSize) {
+		if (keyColumns.isEmpty()) {
+			throw SqlStorageException.withMessage("Invalid page, no key columns");
+		}
+		if (afterKey != null && afterKey.size() != keyColumns.size()) {
+			throw SqlStorageException.withMessage("Invalid page key, expected "
+					+ keyColumns.size() + " values but got " + afterKey.size());
+		}
+		if (pageSize < 1 || pageSize == Integer.MAX_VALUE) {
+			throw SqlStorageException.withMessage("Invalid page size: " + pageSize);
+		}
+	}
+
+	private RecordPage tryToReadPage(String tableName, Map<String, Object> conditions,
+			List<String> keyColumns, List<Object> afterKey, int pageSize) {
+		String sql = createSqlForPage(tableName, conditions, keyColumns, afterKey != null);
+		List<Object> values = new ArrayList<>(conditions.values());
+		if (afterKey != null) {
+			values.addAll(afterKey);
+		}
+		values.add(pageSize + 1);
+		List<Map<String, Object>> rows = dataReader
+				.executePreparedStatementQueryUsingSqlAndValues(sql, values);
+		if (rows.size() <= pageSize) {
+			return RecordPage.usingRowsAndNextKey(rows, null);
+		}
+		List<Map<String, Object>> pageRows = rows.subList(0, pageSize);
+		return RecordPage.usingRowsAndNextKey(pageRows,
+				readKeyFromRow(keyColumns, pageRows.get(pageSize - 1)));
+	}
+
+	private List<Object> readKeyFromRow(List<String> keyColumns, Map<String, Object> row) {
+		List<Object> key = new ArrayList<>(keyColumns.size());
+		for (String keyColumn : keyColumns) {
+			throwErrorIfKeyColumnIsMissingInRow(row, keyColumn);
+			key.add(row.get(keyColumn));
+		}
+		return key;
+	}
+
+	private void throwErrorIfKeyColumnIsMissingInRow(Map<String, Object> row, String keyColumn) {
+		if (!row.containsKey(keyColumn)) {
+			throw SqlStorageException
+					.withMessage("Key column: " + keyColumn + " is missing in read rows");
+		}
+	}
+
+	private String createSqlForPage(String tableName, Map<String, Object> conditions,
+			List<String> keyColumns, boolean afterKey) {
+		SqlShape shape = SqlShape.usingTypeTableAndKeyGroups(SELECT_PAGE, tableName,
+				conditions.keySet(), keyColumns, List.of(afterKey));
+		return sqlTemplateCache.getOrCreateSql(shape, RecordReaderImp::createSqlForPageInShape);
+	}
+
+	private static String createSqlForPageInShape(SqlShape shape) {
+		Collection<?> conditionNames = shape.getKeyGroup(0);
+		Collection<?> keyColumns = shape.getKeyGroup(1);
+		boolean afterKey = (boolean) shape.getKeyGroup(2).iterator().next();
+		StringJoiner where = new StringJoiner(" and ", " where ", "").setEmptyValue("");
+		if (!conditionNames.isEmpty()) {
+			where.add(createConditionPartOfSql(conditionNames));
+		}
+		if (afterKey) {
+			where.add(createAfterKeyPartOfSql(keyColumns));
+		}
+		String orderBy = joinNames(keyColumns);
+		return "select * from " + shape.getTableName() + where + " order by " + orderBy
+				+ " limit ?";
+	}
+
+	private static String createAfterKeyPartOfSql(Collection<?> keyColumns) {
+		if (keyColumns.size() == 1) {
+			return keyColumns.iterator().next() + " > ?";
+		}
+		StringJoiner placeholders = new StringJoiner(", ", "(", ")");
+		for (int i = 0; i < keyColumns.size(); i++) {
+			placeholders.add("?");
+		}
+		return "(" + joinNames(keyColumns) + ") > " + placeholders;
+	}
+
+	private static String joinNames(Collection<?> names) {
+		StringJoiner joiner = new StringJoiner(", ");
+		for (Object name : names) {
+			joiner.add(name.toString());
+		}
+		return joiner.toString();
+	}
+
 	public DataReader getDataReader() {
 		// needed for test
 		return dataReader;
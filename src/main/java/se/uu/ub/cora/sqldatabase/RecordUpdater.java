@@ -18,6 +18,7 @@
  */
 package se.uu.ub.cora.sqldatabase;
 
+import java.util.List;
 import java.util.Map;
 
 public interface RecordUpdater {
@@ -25,4 +26,19 @@ public interface RecordUpdater {
 	void updateTableUsingNameAndColumnsWithValuesAndConditions(String tableName,
 			Map<String, Object> values, Map<String, Object> conditions);
 
+	/**
+	 * Updates many rows in a table. Rows with the same columns and conditions, in the same order,
+	 * are updated using the same sql statement sent to the database in batches of at most
+	 * batchSize rows. All rows are updated in one transaction.
+	 * 
+	 * @param tableName
+	 *            A String with the name of the table to update
+	 * @param rowUpdates
+	 *            A List of {@link RowUpdate} with the columns and conditions for each row
+	 * @param batchSize
+	 *            An int with the max number of rows to send to the database in one batch
+	 */
+	void updateTableUsingNameAndRowUpdatesAndBatchSize(String tableName,
+			List<RowUpdate> rowUpdates, int batchSize);
+
 }
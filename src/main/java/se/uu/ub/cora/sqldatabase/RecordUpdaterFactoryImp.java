@@ -20,22 +20,79 @@ package se.uu.ub.cora.sqldatabase;
 
 import se.uu.ub.cora.connection.SqlConnectionProvider;
 
+/**
+ * RecordUpdaterFactoryImp creates RecordUpdaters that update using a {@link SqlConnectionProvider}.
+ * The with methods return a new factory that also adds a decorator to the created updaters, and
+ * they can be combined. The statements run are recorded in {@link StatementMetrics}, and updated
+ * tables are invalidated in {@link TableSnapshots} and in the {@link RecordCache}.
+ */
 public class RecordUpdaterFactoryImp implements RecordUpdaterFactory {
 	private SqlConnectionProvider sqlConnectionProvider;
+	private RecordCache recordCache;
+	private TableSnapshots tableSnapshots;
+	private StatementMetrics statementMetrics;
 
 	public static RecordUpdaterFactoryImp usingSqlConnectionProvider(
 			SqlConnectionProvider sqlConnectionProvider) {
-		return new RecordUpdaterFactoryImp(sqlConnectionProvider);
+		return new RecordUpdaterFactoryImp(sqlConnectionProvider, null, null, null);
 	}
 
-	private RecordUpdaterFactoryImp(SqlConnectionProvider sqlConnectionProvider) {
+	private RecordUpdaterFactoryImp(SqlConnectionProvider sqlConnectionProvider,
+			RecordCache recordCache, TableSnapshots tableSnapshots,
+			StatementMetrics statementMetrics) {
 		this.sqlConnectionProvider = sqlConnectionProvider;
+		this.recordCache = recordCache;
+		this.tableSnapshots = tableSnapshots;
+		this.statementMetrics = statementMetrics;
+	}
+
+	/**
+	 * withRecordCache returns a factory whose RecordUpdaters invalidate updated tables in the
+	 * recordCache, see {@link CachingRecordUpdater}
+	 */
+	public RecordUpdaterFactoryImp withRecordCache(RecordCache recordCache) {
+		return new RecordUpdaterFactoryImp(sqlConnectionProvider, recordCache, tableSnapshots,
+				statementMetrics);
+	}
+
+	/**
+	 * withTableSnapshots returns a factory whose RecordUpdaters invalidate updated tables in the
+	 * tableSnapshots, see {@link CachingRecordUpdater}
+	 */
+	public RecordUpdaterFactoryImp withTableSnapshots(TableSnapshots tableSnapshots) {
+		return new RecordUpdaterFactoryImp(sqlConnectionProvider, recordCache, tableSnapshots,
+				statementMetrics);
+	}
+
+	/**
+	 * withStatementMetrics returns a factory whose RecordUpdaters record the statements they run
+	 * in the statementMetrics, see {@link StatementMetrics}
+	 */
+	public RecordUpdaterFactoryImp withStatementMetrics(StatementMetrics statementMetrics) {
+		return new RecordUpdaterFactoryImp(sqlConnectionProvider, recordCache, tableSnapshots,
+				statementMetrics);
 	}
 
 	@Override
 	public RecordUpdater factor() {
-		DataUpdater dataUpdater = DataUpdaterImp.usingSqlConnectionProvider(sqlConnectionProvider);
-		return new RecordUpdaterImp(dataUpdater);
+		RecordUpdater recordUpdater = new RecordUpdaterImp(createDataUpdater());
+		if (tableSnapshots != null) {
+			recordUpdater = CachingRecordUpdater.usingRecordUpdaterAndTableInvalidator(
+					recordUpdater, tableSnapshots);
+		}
+		if (recordCache != null) {
+			recordUpdater = CachingRecordUpdater.usingRecordUpdaterAndRecordCache(recordUpdater,
+					recordCache);
+		}
+		return recordUpdater;
+	}
+
+	private DataUpdater createDataUpdater() {
+		if (statementMetrics != null) {
+			return DataUpdaterImp.usingSqlConnectionProviderAndStatementMetrics(
+					sqlConnectionProvider, statementMetrics);
+		}
+		return DataUpdaterImp.usingSqlConnectionProvider(sqlConnectionProvider);
 	}
 
 	public SqlConnectionProvider getSqlConnectionProvider() {
@@ -43,4 +100,19 @@ public class RecordUpdaterFactoryImp implements RecordUpdaterFactory {
 		return sqlConnectionProvider;
 	}
 
+	public RecordCache getRecordCache() {
+		// needed for tests
+		return recordCache;
+	}
+
+	public TableSnapshots getTableSnapshots() {
+		// needed for tests
+		return tableSnapshots;
+	}
+
+	public StatementMetrics getStatementMetrics() {
+		// needed for tests
+		return statementMetrics;
+	}
+
 }
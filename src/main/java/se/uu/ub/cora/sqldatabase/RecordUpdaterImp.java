@@ -19,14 +19,18 @@
 package se.uu.ub.cora.sqldatabase;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.StringJoiner;
 
-public class RecordUpdaterImp implements RecordUpdater {
+import se.uu.ub.cora.sqldatabase.SqlTemplateCache.SqlShape;
 
+public class RecordUpdaterImp implements RecordUpdater {
+	private static final String UPDATE = "update";
 	private DataUpdater dataUpdater;
+	private SqlTemplateCache sqlTemplateCache = SqlTemplateCache.shared();
 
 	public RecordUpdaterImp(DataUpdater dataUpdater) {
 		this.dataUpdater = dataUpdater;
@@ -36,75 +40,87 @@ public class RecordUpdaterImp implements RecordUpdater {
 	public void updateTableUsingNameAndColumnsWithValuesAndConditions(String tableName,
 			Map<String, Object> columnsWithValues, Map<String, Object> conditions) {
 
-		StringBuilder sql = createSql(tableName, columnsWithValues, conditions);
+		String sql = createSql(tableName, columnsWithValues, conditions);
 		List<Object> valuesForUpdate = addColumnsAndConditionsToValuesForUpdate(columnsWithValues,
 				conditions);
 
-		dataUpdater.executeUsingSqlAndValues(sql.toString(), valuesForUpdate);
+		dataUpdater.executeUsingSqlAndValues(sql, valuesForUpdate);
 	}
 
-	private StringBuilder createSql(String tableName, Map<String, Object> columnsWithValues,
+	@Override
+	public void updateTableUsingNameAndRowUpdatesAndBatchSize(String tableName,
+			List<RowUpdate> rowUpdates, int batchSize) {
+		Map<String, List<List<Object>>> listOfValuesForSql = new LinkedHashMap<>();
+		for (RowUpdate rowUpdate : rowUpdates) {
+			addRowUpdateToListOfValuesForSql(tableName, rowUpdate, listOfValuesForSql);
+		}
+		dataUpdater.executeBatchesUsingListOfValuesForSqlAndBatchSize(listOfValuesForSql,
+				batchSize);
+	}
+
+	private void addRowUpdateToListOfValuesForSql(String tableName, RowUpdate rowUpdate,
+			Map<String, List<List<Object>>> listOfValuesForSql) {
+		Map<String, Object> columnsWithValues = rowUpdate.getColumnsWithValues();
+		Map<String, Object> conditions = rowUpdate.getConditions();
+		String sql = createSql(tableName, columnsWithValues, conditions);
+		listOfValuesForSql.computeIfAbsent(sql, key -> new ArrayList<>())
+				.add(addColumnsAndConditionsToValuesForUpdate(columnsWithValues, conditions));
+	}
+
+	private String createSql(String tableName, Map<String, Object> columnsWithValues,
 			Map<String, Object> conditions) {
-		StringBuilder sql = new StringBuilder(createSettingPartOfSqlStatement(tableName, columnsWithValues));
-		sql.append(createWherePartOfSqlStatement(conditions));
-		return sql;
+		SqlShape shape = SqlShape.usingTypeTableAndKeyGroups(UPDATE, tableName,
+				columnsWithValues.keySet(), conditions.keySet());
+		return sqlTemplateCache.getOrCreateSql(shape, RecordUpdaterImp::createSqlForShape);
 	}
 
-	private String createSettingPartOfSqlStatement(String tableName, Map<String, Object> columnsWithValues) {
-		StringBuilder sql = new StringBuilder("update " + tableName + " set ");
-		List<String> columnNames = getAllColumnNames(columnsWithValues);
-		return appendColumnsToSelectPart(sql, columnNames);
+	private static String createSqlForShape(SqlShape shape) {
+		StringBuilder sql = new StringBuilder(
+				createSettingPartOfSqlStatement(shape.getTableName(), shape.getKeyGroup(0)));
+		sql.append(createWherePartOfSqlStatement(shape.getKeyGroup(1)));
+		return sql.toString();
 	}
 
-	private List<String> getAllColumnNames(Map<String, Object> columnsWithValues) {
-		List<String> columnNames = new ArrayList<>(columnsWithValues.size());
-		for (Entry<String, Object> column : columnsWithValues.entrySet()) {
-			columnNames.add(column.getKey());
-		}
-		return columnNames;
+	private static String createSettingPartOfSqlStatement(String tableName,
+			Collection<?> columnNames) {
+		StringBuilder sql = new StringBuilder("update " + tableName + " set ");
+		return appendColumnsToSelectPart(sql, columnNames);
 	}
 
-	private String appendColumnsToSelectPart(StringBuilder sql, List<String> columnNames) {
+	private static String appendColumnsToSelectPart(StringBuilder sql,
+			Collection<?> columnNames) {
 		StringJoiner joiner = new StringJoiner(", ");
 		addAllToJoiner(columnNames, joiner);
 		sql.append(joiner);
 		return sql.toString();
 	}
 
-	private void addAllToJoiner(List<String> columnNames, StringJoiner joiner) {
-		for (String columnName : columnNames) {
+	private static void addAllToJoiner(Collection<?> columnNames, StringJoiner joiner) {
+		for (Object columnName : columnNames) {
 			joiner.add(columnName + " = ?");
 		}
 	}
 
-	private String createWherePartOfSqlStatement(Map<String, Object> conditions) {
+	private static String createWherePartOfSqlStatement(Collection<?> conditionNames) {
 		StringBuilder sql = new StringBuilder(" where ");
-		List<String> conditionNames = getAllConditionNames(conditions);
 		return appendConditionsToWherePart(sql, conditionNames);
 	}
 
-	private List<String> getAllConditionNames(Map<String, Object> conditions) {
-		List<String> conditionNames = new ArrayList<>(conditions.size());
-		for (Entry<String, Object> condition : conditions.entrySet()) {
-			conditionNames.add(condition.getKey());
-		}
-		return conditionNames;
-	}
-
 	public DataUpdater getDataUpdater() {
 		return dataUpdater;
 	}
 
-	private String appendConditionsToWherePart(StringBuilder sql, List<String> conditions) {
+	private static String appendConditionsToWherePart(StringBuilder sql,
+			Collection<?> conditionNames) {
 		StringJoiner joiner = new StringJoiner(" and ");
-		addAllToJoiner(conditions, joiner);
+		addAllToJoiner(conditionNames, joiner);
 		sql.append(joiner);
 		return sql.toString();
 	}
 
 	private List<Object> addColumnsAndConditionsToValuesForUpdate(Map<String, Object> columns,
 			Map<String, Object> conditions) {
-		List<Object> valuesForUpdate = new ArrayList<>();
+		List<Object> valuesForUpdate = new ArrayList<>(columns.size() + conditions.size());
 		valuesForUpdate.addAll(columns.values());
 		valuesForUpdate.addAll(conditions.values());
 		return valuesForUpdate;
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Row is a compact {@link Map} for one row in a result. It only holds the values of the row, the
+ * column names are held by a {@link RowHeader} shared by all rows in the same result.
+ * <p>
+ * The values of existing columns can be changed in place using put. The first time a column is
+ * added or removed, the content of the row is copied to a {@link HashMap} that holds the row from
+ * then on, so a Row can be changed in all the ways a HashMap can.
+ */
+public final class Row extends AbstractMap<String, Object> {
+	private final RowHeader header;
+	private final Object[] values;
+	private Map<String, Object> copy;
+
+	static Row usingHeaderAndValues(RowHeader header, Object[] values) {
+		return new Row(header, values);
+	}
+
+	private Row(RowHeader header, Object[] values) {
+		this.header = header;
+		this.values = values;
+	}
+
+	public RowHeader getHeader() {
+		return header;
+	}
+
+	/**
+	 * getValue returns the value of the column at the given position in the header, or null if
+	 * that column has been removed from the row.
+	 */
+	public Object getValue(int position) {
+		if (copy != null) {
+			return copy.get(header.getColumnName(position));
+		}
+		return values[position];
+	}
+
+	@Override
+	public int size() {
+		if (copy != null) {
+			return copy.size();
+		}
+		return values.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		if (copy != null) {
+			return copy.containsKey(key);
+		}
+		return header.positionOf(key) >= 0;
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (copy != null) {
+			return copy.get(key);
+		}
+		int position = header.positionOf(key);
+		return position < 0 ? null : values[position];
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		int position = header.positionOf(key);
+		if (copy != null || position < 0) {
+			return copyOfRow().put(key, value);
+		}
+		Object previousValue = values[position];
+		values[position] = value;
+		return previousValue;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		return copyOfRow().remove(key);
+	}
+
+	@Override
+	public void clear() {
+		copyOfRow().clear();
+	}
+
+	private Map<String, Object> copyOfRow() {
+		if (copy == null) {
+			copy = new HashMap<>(this);
+		}
+		return copy;
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		if (copy != null) {
+			return copy.entrySet();
+		}
+		return new EntrySet();
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+		@Override
+		public Iterator<Entry<String, Object>> iterator() {
+			return new EntryIterator();
+		}
+
+		@Override
+		public int size() {
+			return values.length;
+		}
+	}
+
+	private final class EntryIterator implements Iterator<Entry<String, Object>> {
+		private int position = 0;
+		private boolean removed = true;
+
+		@Override
+		public boolean hasNext() {
+			return position < values.length;
+		}
+
+		@Override
+		public Entry<String, Object> next() {
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			removed = false;
+			return new RowEntry(position++);
+		}
+
+		@Override
+		public void remove() {
+			if (removed) {
+				throw new IllegalStateException();
+			}
+			removed = true;
+			copyOfRow().remove(header.getColumnName(position - 1));
+		}
+	}
+
+	private final class RowEntry implements Entry<String, Object> {
+		private final int position;
+
+		private RowEntry(int position) {
+			this.position = position;
+		}
+
+		@Override
+		public String getKey() {
+			return header.getColumnName(position);
+		}
+
+		@Override
+		public Object getValue() {
+			return Row.this.getValue(position);
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			if (copy != null) {
+				return copy.put(getKey(), value);
+			}
+			Object previousValue = values[position];
+			values[position] = value;
+			return previousValue;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> otherEntry = (Entry<?, ?>) other;
+			return getKey().equals(otherEntry.getKey())
+					&& Objects.equals(getValue(), otherEntry.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return getKey().hashCode() ^ Objects.hashCode(getValue());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+}
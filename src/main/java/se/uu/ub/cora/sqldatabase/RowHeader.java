@@ -0,0 +1,89 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RowHeader holds the column layout of a result, it is created once per result and shared by all
+ * {@link Row}s in that result. The position of a name in the header is the position of the value
+ * for that column in each Row, and the header also knows the column index in the result that the
+ * value is read from.
+ * <p>
+ * If more than one column in a result has the same label, only the first of them is included in
+ * the header. This is the same column that a lookup by label in a JDBC ResultSet returns.
+ */
+public final class RowHeader {
+	private final String[] columnNames;
+	private final int[] columnIndexes;
+	private final Map<String, Integer> positionOfColumn;
+
+	/**
+	 * usingColumnNames creates a RowHeader for a result with the given column names, in the order
+	 * they appear in the result. The first name has column index 1.
+	 */
+	static RowHeader usingColumnNames(List<String> columnNames) {
+		return new RowHeader(columnNames);
+	}
+
+	private RowHeader(List<String> columnNames) {
+		positionOfColumn = new HashMap<>(columnNames.size() * 2);
+		List<String> uniqueNames = new ArrayList<>(columnNames.size());
+		int[] indexes = new int[columnNames.size()];
+		for (int i = 0; i < columnNames.size(); i++) {
+			String columnName = columnNames.get(i);
+			if (!positionOfColumn.containsKey(columnName)) {
+				indexes[uniqueNames.size()] = i + 1;
+				positionOfColumn.put(columnName, uniqueNames.size());
+				uniqueNames.add(columnName);
+			}
+		}
+		this.columnNames = uniqueNames.toArray(new String[uniqueNames.size()]);
+		this.columnIndexes = Arrays.copyOf(indexes, uniqueNames.size());
+	}
+
+	public int size() {
+		return columnNames.length;
+	}
+
+	public String getColumnName(int position) {
+		return columnNames[position];
+	}
+
+	/**
+	 * getColumnIndex returns the index in the result, starting at 1, of the column at the given
+	 * position in the header.
+	 */
+	public int getColumnIndex(int position) {
+		return columnIndexes[position];
+	}
+
+	/**
+	 * positionOf returns the position of the column with the given name, or -1 if the header has
+	 * no such column.
+	 */
+	public int positionOf(Object columnName) {
+		Integer position = positionOfColumn.get(columnName);
+		return position == null ? -1 : position;
+	}
+}
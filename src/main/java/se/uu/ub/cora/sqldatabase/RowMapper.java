@@ -0,0 +1,52 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * RowMapper maps one row of a result directly to an object of type T, so that no intermediate Map
+ * has to be created for the row.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+	/**
+	 * mapRow is called once for each row in a result, with the resultSet positioned at the row to
+	 * map. Implementations should only read values from the current row and must not move the
+	 * resultSet or close it.
+	 * 
+	 * @param resultSet
+	 *            A ResultSet positioned at the row to map
+	 * @return An object of type T created from the current row
+	 */
+	T mapRow(ResultSet resultSet) throws SQLException;
+
+	/**
+	 * startResult is called once for each result before the first row is mapped, also when the
+	 * result has no rows. It can be used to read the metadata of the result. The default
+	 * implementation does nothing.
+	 * 
+	 * @param resultSet
+	 *            A ResultSet positioned before the first row
+	 */
+	default void startResult(ResultSet resultSet) throws SQLException {
+		// nothing to do by default
+	}
+}
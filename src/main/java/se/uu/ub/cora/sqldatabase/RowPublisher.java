@@ -0,0 +1,231 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import se.uu.ub.cora.connection.SqlConnectionProvider;
+
+/**
+ * RowPublisher is a Flow.Publisher that reads the rows of a query from a database cursor as they
+ * are requested by the subscriber. Each subscriber gets its own subscription that runs the query
+ * on its own connection.
+ * <p>
+ * The connection is taken, and the query run, when the subscriber requests its first rows. Rows
+ * are then read from the ResultSet, and handed to the subscriber, only while there is
+ * outstanding demand, and are read by the thread that calls request. As the query is run with
+ * autoCommit turned off the driver fetches fetchSize rows per round trip, so no more than that is
+ * held in memory no matter how slowly the subscriber requests rows.
+ * <p>
+ * The ResultSet, statement and connection are closed, and autoCommit restored, when all rows have
+ * been published, when the subscription is cancelled and when an error occurs. A subscriber that
+ * stops requesting rows without cancelling keeps its connection, and an open transaction, until it
+ * cancels.
+ */
+final class RowPublisher implements Flow.Publisher<Map<String, Object>> {
+	private final SqlConnectionProvider sqlConnectionProvider;
+	private final String sql;
+	private final List<Object> values;
+	private final int fetchSize;
+	private final Function<SQLException, SqlStorageException> errorFactory;
+
+	static RowPublisher usingConnectionProviderAndSqlAndValuesAndFetchSizeAndErrorFactory(
+			SqlConnectionProvider sqlConnectionProvider, String sql, List<Object> values,
+			int fetchSize, Function<SQLException, SqlStorageException> errorFactory) {
+		return new RowPublisher(sqlConnectionProvider, sql, values, fetchSize, errorFactory);
+	}
+
+	private RowPublisher(SqlConnectionProvider sqlConnectionProvider, String sql,
+			List<Object> values, int fetchSize,
+			Function<SQLException, SqlStorageException> errorFactory) {
+		this.sqlConnectionProvider = sqlConnectionProvider;
+		this.sql = sql;
+		this.values = values;
+		this.fetchSize = fetchSize;
+		this.errorFactory = errorFactory;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super Map<String, Object>> subscriber) {
+		subscriber.onSubscribe(new RowSubscription(subscriber));
+	}
+
+	/**
+	 * RowSubscription only touches the JDBC objects from inside drain, and drain is only ever run
+	 * by one thread at a time. A thread that calls request or cancel while another thread is
+	 * draining, including the subscriber calling request from onNext, only registers that more
+	 * work is needed, and the draining thread runs another round before it leaves.
+	 */
+	private final class RowSubscription implements Subscription {
+		private final Subscriber<? super Map<String, Object>> subscriber;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger drainRequests = new AtomicInteger();
+		private volatile boolean cancelled = false;
+		private volatile Long invalidRequest = null;
+		private boolean finished = false;
+		private Connection connection;
+		private boolean originalAutoCommit;
+		private PreparedStatement preparedStatement;
+		private ResultSet resultSet;
+		private final MapRowMapper rowMapper = new MapRowMapper();
+
+		RowSubscription(Subscriber<? super Map<String, Object>> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				invalidRequest = n;
+			} else {
+				demand.getAndAccumulate(n, RowSubscription::addWithoutOverflow);
+			}
+			drain();
+		}
+
+		private static long addWithoutOverflow(long current, long added) {
+			long sum = current + added;
+			return sum < 0 ? Long.MAX_VALUE : sum;
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			drain();
+		}
+
+		private void drain() {
+			if (drainRequests.getAndIncrement() != 0) {
+				return;
+			}
+			int missed = 1;
+			do {
+				drainOnce();
+				missed = drainRequests.addAndGet(-missed);
+			} while (missed != 0);
+		}
+
+		private void drainOnce() {
+			if (finished) {
+				return;
+			}
+			if (cancelled) {
+				finish();
+				return;
+			}
+			if (invalidRequest != null) {
+				finish();
+				subscriber.onError(new IllegalArgumentException(
+						"Invalid request of " + invalidRequest + " rows, must be positive"));
+				return;
+			}
+			try {
+				publishRowsWhileThereIsDemand();
+			} catch (SQLException e) {
+				finish();
+				subscriber.onError(errorFactory.apply(e));
+			} catch (RuntimeException e) {
+				finish();
+				subscriber.onError(e);
+			}
+		}
+
+		private void publishRowsWhileThereIsDemand() throws SQLException {
+			while (demand.get() > 0 && !cancelled) {
+				openCursorIfNotOpen();
+				if (!resultSet.next()) {
+					finish();
+					subscriber.onComplete();
+					return;
+				}
+				Map<String, Object> row = rowMapper.mapRow(resultSet);
+				decrementDemandIfBounded();
+				subscriber.onNext(row);
+			}
+			if (cancelled) {
+				finish();
+			}
+		}
+
+		private void openCursorIfNotOpen() throws SQLException {
+			if (resultSet == null) {
+				connection = sqlConnectionProvider.getConnection();
+				originalAutoCommit = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+				preparedStatement = connection.prepareStatement(sql);
+				preparedStatement.setFetchSize(fetchSize);
+				addParameterValuesToPreparedStatement();
+				resultSet = preparedStatement.executeQuery();
+			}
+		}
+
+		private void addParameterValuesToPreparedStatement() throws SQLException {
+			int position = 1;
+			for (Object value : values) {
+				preparedStatement.setObject(position, value);
+				position++;
+			}
+		}
+
+		private void decrementDemandIfBounded() {
+			if (demand.get() != Long.MAX_VALUE) {
+				demand.decrementAndGet();
+			}
+		}
+
+		private void finish() {
+			finished = true;
+			closeQuietly(resultSet);
+			closeQuietly(preparedStatement);
+			if (connection != null) {
+				restoreAutoCommitQuietly();
+				closeQuietly(connection);
+			}
+		}
+
+		private void restoreAutoCommitQuietly() {
+			try {
+				connection.setAutoCommit(originalAutoCommit);
+			} catch (SQLException e) {
+				// the connection is closed next, and then discarded by a pool
+			}
+		}
+
+		private void closeQuietly(AutoCloseable closeable) {
+			if (closeable != null) {
+				try {
+					closeable.close();
+				} catch (Exception e) {
+					// nothing more can be done with a resource that fails to close
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.Map;
+
+/**
+ * RowUpdate holds the columns with new values and the conditions for one row to update using
+ * {@link RecordUpdater#updateTableUsingNameAndRowUpdatesAndBatchSize(String, java.util.List, int)}
+ */
+public final class RowUpdate {
+	private final Map<String, Object> columnsWithValues;
+	private final Map<String, Object> conditions;
+
+	public static RowUpdate usingColumnsWithValuesAndConditions(
+			Map<String, Object> columnsWithValues, Map<String, Object> conditions) {
+		return new RowUpdate(columnsWithValues, conditions);
+	}
+
+	private RowUpdate(Map<String, Object> columnsWithValues, Map<String, Object> conditions) {
+		this.columnsWithValues = columnsWithValues;
+		this.conditions = conditions;
+	}
+
+	public Map<String, Object> getColumnsWithValues() {
+		return columnsWithValues;
+	}
+
+	public Map<String, Object> getConditions() {
+		return conditions;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * SnapshotRecordReader is a {@link RecordReader} that answers reads from tables with snapshots in
+ * {@link TableSnapshots} from memory, without touching the database. Snapshots are loaded using
+ * readAllFromTable with a {@link RowMapper} on the wrapped RecordReader, so that the column names
+ * of the table are known from the metadata of the result also when the table is empty. Reads from
+ * other tables, reads using a {@link RowMapper}, reads of named columns and reads of pages are done
+ * using the wrapped RecordReader.
+ */
+public final class SnapshotRecordReader implements RecordReader {
+	private final RecordReader recordReader;
+	private final TableSnapshots tableSnapshots;
+
+	public static SnapshotRecordReader usingRecordReaderAndTableSnapshots(
+			RecordReader recordReader, TableSnapshots tableSnapshots) {
+		return new SnapshotRecordReader(recordReader, tableSnapshots);
+	}
+
+	private SnapshotRecordReader(RecordReader recordReader, TableSnapshots tableSnapshots) {
+		this.recordReader = recordReader;
+		this.tableSnapshots = tableSnapshots;
+	}
+
+	private TableSnapshot getSnapshot(String tableName) {
+		return tableSnapshots.getOrLoadSnapshot(tableName, () -> loadSnapshot(tableName));
+	}
+
+	private TableSnapshot loadSnapshot(String tableName) {
+		MapRowMapper rowMapper = new MapRowMapper();
+		List<Map<String, Object>> rows = recordReader.readAllFromTable(tableName, rowMapper);
+		return TableSnapshot.usingTableNameAndColumnNamesAndRows(tableName,
+				getColumnNamesFromHeader(rowMapper.getHeader()), rows);
+	}
+
+	private static Set<String> getColumnNamesFromHeader(RowHeader header) {
+		Set<String> columnNames = new HashSet<>();
+		if (header != null) {
+			for (int position = 0; position < header.size(); position++) {
+				columnNames.add(header.getColumnName(position));
+			}
+		}
+		return columnNames;
+	}
+
+	@Override
+	public List<Map<String, Object>> readAllFromTable(String tableName) {
+		if (tableSnapshots.isTableSnapshotted(tableName)) {
+			return getSnapshot(tableName).readAll();
+		}
+		return recordReader.readAllFromTable(tableName);
+	}
+
+	@Override
+	public <T> List<T> readAllFromTable(String tableName, RowMapper<T> rowMapper) {
+		return recordReader.readAllFromTable(tableName, rowMapper);
+	}
+
+	@Override
+	public List<Map<String, Object>> readAllFromTable(String tableName, List<String> columnNames) {
+		return recordReader.readAllFromTable(tableName, columnNames);
+	}
+
+	@Override
+	public List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions) {
+		if (tableSnapshots.isTableSnapshotted(tableName)) {
+			return getSnapshot(tableName).readUsingConditions(conditions);
+		}
+		return recordReader.readFromTableUsingConditions(tableName, conditions);
+	}
+
+	@Override
+	public <T> List<T> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		return recordReader.readFromTableUsingConditions(tableName, conditions, rowMapper);
+	}
+
+	@Override
+	public List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		return recordReader.readFromTableUsingConditions(tableName, conditions, columnNames);
+	}
+
+	@Override
+	public Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions) {
+		if (tableSnapshots.isTableSnapshotted(tableName)) {
+			return getSnapshot(tableName).readOneRowUsingConditions(conditions);
+		}
+		return recordReader.readOneRowFromDbUsingTableAndConditions(tableName, conditions);
+	}
+
+	@Override
+	public <T> T readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		return recordReader.readOneRowFromDbUsingTableAndConditions(tableName, conditions,
+				rowMapper);
+	}
+
+	@Override
+	public Optional<Map<String, Object>> readOptionalOneRowFromDbUsingTableAndConditions(
+			String tableName, Map<String, Object> conditions) {
+		if (tableSnapshots.isTableSnapshotted(tableName)) {
+			return getSnapshot(tableName).readOptionalOneRowUsingConditions(conditions);
+		}
+		return recordReader.readOptionalOneRowFromDbUsingTableAndConditions(tableName,
+				conditions);
+	}
+
+	@Override
+	public <T> Optional<T> readOptionalOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		return recordReader.readOptionalOneRowFromDbUsingTableAndConditions(tableName, conditions,
+				rowMapper);
+	}
+
+	@Override
+	public Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		return recordReader.readOneRowFromDbUsingTableAndConditions(tableName, conditions,
+				columnNames);
+	}
+
+	@Override
+	public <K> Map<K, List<Map<String, Object>>> readFromTableUsingKeyColumnAndKeys(
+			String tableName, String keyColumn, Collection<K> keys) {
+		if (tableSnapshots.isTableSnapshotted(tableName)) {
+			return readKeysFromSnapshot(getSnapshot(tableName), keyColumn, keys);
+		}
+		return recordReader.readFromTableUsingKeyColumnAndKeys(tableName, keyColumn, keys);
+	}
+
+	private <K> Map<K, List<Map<String, Object>>> readKeysFromSnapshot(TableSnapshot snapshot,
+			String keyColumn, Collection<K> keys) {
+		Map<K, List<Map<String, Object>>> rowsForKeys = new LinkedHashMap<>();
+		for (K key : keys) {
+			if (key != null && !rowsForKeys.containsKey(key)) {
+				rowsForKeys.put(key, snapshot.readUsingConditions(Map.of(keyColumn, key)));
+			}
+		}
+		return rowsForKeys;
+	}
+
+	@Override
+	public RecordPage readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+			String tableName, Map<String, Object> conditions, List<String> keyColumns,
+			List<Object> afterKey, int pageSize) {
+		return recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				tableName, conditions, keyColumns, afterKey, pageSize);
+	}
+
+	public RecordReader getRecordReader() {
+		// needed for test
+		return recordReader;
+	}
+
+	public TableSnapshots getTableSnapshots() {
+		// needed for test
+		return tableSnapshots;
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import se.uu.ub.cora.connection.PoolSettings;
+
+/**
+ * SqlExecutors creates executors for {@link AsyncDataReaderImp} and {@link AsyncDataUpdaterImp}.
+ * <p>
+ * Every task run by the async readers and updaters holds a connection while it runs, so running
+ * more tasks at the same time than there are connections in the pool only makes tasks wait for
+ * connections. The executors created here therefore have a fixed number of threads, normally the
+ * max size of the connection pool, and queue further tasks until a thread is free. Threads are
+ * daemon threads and are stopped when they have been idle for a minute.
+ * <p>
+ * On java 21 and later {@link #createVirtualThreadExecutor()} can be used instead, it starts one
+ * virtual thread for each task. The number of tasks holding a connection is then limited by the
+ * connection pool alone, and tasks waiting for a connection only park their virtual thread. The
+ * connection pool, the caches and the coalescing reader in this library never block while holding
+ * a monitor, so they do not pin the carrier threads of virtual threads.
+ */
+public final class SqlExecutors {
+	private static final long KEEP_ALIVE_SECONDS = 60;
+	private static final AtomicInteger EXECUTOR_NUMBER = new AtomicInteger();
+	private static final String NEW_VIRTUAL_THREAD_EXECUTOR = "newVirtualThreadPerTaskExecutor";
+
+	private SqlExecutors() {
+	}
+
+	public static ExecutorService createBoundedExecutorUsingPoolSettings(PoolSettings settings) {
+		return createBoundedExecutorUsingNoOfThreads(settings.getMaxSize());
+	}
+
+	public static ExecutorService createBoundedExecutorUsingNoOfThreads(int noOfThreads) {
+		throwErrorIfNoOfThreadsIsInvalid(noOfThreads);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(noOfThreads, noOfThreads,
+				KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+				createDaemonThreadFactory());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
+	/**
+	 * createVirtualThreadExecutor creates an executor that starts a new virtual thread for each
+	 * task. A SqlStorageException is thrown if the running java version does not have virtual
+	 * threads.
+	 */
+	public static ExecutorService createVirtualThreadExecutor() {
+		try {
+			Method factoryMethod = Executors.class.getMethod(NEW_VIRTUAL_THREAD_EXECUTOR);
+			return (ExecutorService) factoryMethod.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			throw SqlStorageException.withMessageAndException(
+					"Virtual threads are not available in java " + Runtime.version(), e);
+		}
+	}
+
+	public static boolean virtualThreadsAreAvailable() {
+		try {
+			Executors.class.getMethod(NEW_VIRTUAL_THREAD_EXECUTOR);
+			return true;
+		} catch (NoSuchMethodException e) {
+			return false;
+		}
+	}
+
+	private static void throwErrorIfNoOfThreadsIsInvalid(int noOfThreads) {
+		if (noOfThreads < 1) {
+			throw SqlStorageException.withMessage("Invalid number of threads: " + noOfThreads);
+		}
+	}
+
+	private static ThreadFactory createDaemonThreadFactory() {
+		String namePrefix = "cora-sql-" + EXECUTOR_NUMBER.incrementAndGet() + "-";
+		AtomicInteger threadNumber = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, namePrefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * supplyUsingExecutor runs the supplier using the executor and returns a future that is
+	 * completed with the result. Errors thrown by the supplier complete the future exceptionally
+	 * with the thrown error itself, not wrapped in a CompletionException, so that handlers of the
+	 * future get the SqlStorageException. If the executor rejects the task, the future is
+	 * completed exceptionally with a SqlStorageException "Error starting async task" that has the
+	 * rejection as cause.
+	 */
+	static <T> CompletableFuture<T> supplyUsingExecutor(Executor executor, Supplier<T> supplier) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			executor.execute(() -> completeUsingSupplier(future, supplier));
+		} catch (RuntimeException e) {
+			future.completeExceptionally(
+					SqlStorageException.withMessageAndException("Error starting async task", e));
+		}
+		return future;
+	}
+
+	private static <T> void completeUsingSupplier(CompletableFuture<T> future,
+			Supplier<T> supplier) {
+		try {
+			future.complete(supplier.get());
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.regex.Pattern;
+
+/**
+ * SqlFingerprint normalises sql so that statements that only differ in literal values, whitespace,
+ * letter case or the number of placeholders in a list get the same fingerprint. String and number
+ * literals are replaced with ?, and a list of placeholders, such as the ones created for IN lists,
+ * is replaced with "?, ...". Quoted identifiers are kept as they are.
+ */
+final class SqlFingerprint {
+	private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\?( ?, ?\\?)+");
+	private static final String PLACEHOLDER_LIST_REPLACEMENT = "?, ...";
+
+	private SqlFingerprint() {
+	}
+
+	static String fingerprintSql(String sql) {
+		StringBuilder fingerprint = new StringBuilder(sql.length());
+		int position = 0;
+		while (position < sql.length()) {
+			position = appendNormalisedPartStartingAt(sql, position, fingerprint);
+		}
+		removeTrailingSemicolonAndSpace(fingerprint);
+		return PLACEHOLDER_LIST.matcher(fingerprint).replaceAll(PLACEHOLDER_LIST_REPLACEMENT);
+	}
+
+	private static int appendNormalisedPartStartingAt(String sql, int position,
+			StringBuilder fingerprint) {
+		char character = sql.charAt(position);
+		if (character == '\'') {
+			fingerprint.append('?');
+			return findEndOfQuoted(sql, position, '\'');
+		}
+		if (character == '"') {
+			int end = findEndOfQuoted(sql, position, '"');
+			fingerprint.append(sql, position, end);
+			return end;
+		}
+		if (Character.isWhitespace(character)) {
+			appendSpaceIfNotFirstOrAfterSpace(fingerprint);
+			return position + 1;
+		}
+		if (Character.isDigit(character) && !isAfterIdentifierPart(fingerprint)) {
+			fingerprint.append('?');
+			return findEndOfNumber(sql, position);
+		}
+		fingerprint.append(Character.toLowerCase(character));
+		return position + 1;
+	}
+
+	private static int findEndOfQuoted(String sql, int start, char quote) {
+		int position = start + 1;
+		while (position < sql.length()) {
+			if (sql.charAt(position) == quote) {
+				if (!isEscapedQuote(sql, position, quote)) {
+					return position + 1;
+				}
+				position++;
+			}
+			position++;
+		}
+		return position;
+	}
+
+	private static boolean isEscapedQuote(String sql, int position, char quote) {
+		return position + 1 < sql.length() && sql.charAt(position + 1) == quote;
+	}
+
+	private static void appendSpaceIfNotFirstOrAfterSpace(StringBuilder fingerprint) {
+		int length = fingerprint.length();
+		if (length > 0 && fingerprint.charAt(length - 1) != ' ') {
+			fingerprint.append(' ');
+		}
+	}
+
+	private static boolean isAfterIdentifierPart(StringBuilder fingerprint) {
+		int length = fingerprint.length();
+		if (length == 0) {
+			return false;
+		}
+		char previous = fingerprint.charAt(length - 1);
+		return Character.isLetterOrDigit(previous) || previous == '_' || previous == '$';
+	}
+
+	private static int findEndOfNumber(String sql, int start) {
+		int position = start;
+		while (position < sql.length() && isPartOfNumber(sql.charAt(position))) {
+			position++;
+		}
+		return position;
+	}
+
+	private static boolean isPartOfNumber(char character) {
+		return Character.isDigit(character) || character == '.';
+	}
+
+	private static void removeTrailingSemicolonAndSpace(StringBuilder fingerprint) {
+		int length = fingerprint.length();
+		while (length > 0 && (fingerprint.charAt(length - 1) == ';'
+				|| fingerprint.charAt(length - 1) == ' ')) {
+			length--;
+		}
+		fingerprint.setLength(length);
+	}
+}
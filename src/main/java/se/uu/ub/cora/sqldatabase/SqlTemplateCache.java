@@ -0,0 +1,177 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * SqlTemplateCache holds generated sql, keyed by the shape of the statement: its type, the table
+ * name and the ordered names of the columns and conditions used. The same String instance is
+ * returned for every statement of the same shape, which also lets statement caches keyed on the
+ * sql find it using a cheap identity check.
+ * <p>
+ * The cache is bounded, when it is full sql for new shapes is still created but not stored.
+ */
+final class SqlTemplateCache {
+	private static final int DEFAULT_MAX_SIZE = 512;
+	private static final SqlTemplateCache SHARED = new SqlTemplateCache(DEFAULT_MAX_SIZE);
+	private final int maxSize;
+	private final ConcurrentHashMap<SqlShape, String> cachedSql = new ConcurrentHashMap<>();
+
+	static SqlTemplateCache shared() {
+		return SHARED;
+	}
+
+	static SqlTemplateCache withMaxSize(int maxSize) {
+		return new SqlTemplateCache(maxSize);
+	}
+
+	private SqlTemplateCache(int maxSize) {
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * getOrCreateSql returns cached sql for the shape, or creates it using the sqlCreator if not
+	 * found.
+	 * 
+	 * @param shape
+	 *            A SqlShape describing the statement, see
+	 *            {@link SqlShape#usingTypeTableAndKeyGroups(String, String, Collection...)}
+	 * @param sqlCreator
+	 *            A Function that creates the sql for the shape if it is not cached
+	 */
+	String getOrCreateSql(SqlShape shape, Function<SqlShape, String> sqlCreator) {
+		String sql = cachedSql.get(shape);
+		if (sql != null) {
+			return sql;
+		}
+		return createAndStoreIfRoom(shape, sqlCreator);
+	}
+
+	private String createAndStoreIfRoom(SqlShape shape, Function<SqlShape, String> sqlCreator) {
+		String sql = sqlCreator.apply(shape);
+		if (cachedSql.size() >= maxSize) {
+			return sql;
+		}
+		String existingSql = cachedSql.putIfAbsent(shape.copyForStorage(), sql);
+		return existingSql != null ? existingSql : sql;
+	}
+
+	int size() {
+		return cachedSql.size();
+	}
+
+	/**
+	 * SqlShape is the key of the cache. Shapes used for lookup refer to the callers collections,
+	 * often keySet views of maps, and are only copied when they are stored in the cache.
+	 */
+	static final class SqlShape {
+		private final String statementType;
+		private final String tableName;
+		private final Collection<?>[] keyGroups;
+		private final int hash;
+
+		static SqlShape usingTypeTableAndKeyGroups(String statementType, String tableName,
+				Collection<?>... keyGroups) {
+			return new SqlShape(statementType, tableName, keyGroups);
+		}
+
+		private SqlShape(String statementType, String tableName, Collection<?>[] keyGroups) {
+			this.statementType = statementType;
+			this.tableName = tableName;
+			this.keyGroups = keyGroups;
+			this.hash = calculateHash();
+		}
+
+		private int calculateHash() {
+			int result = 31 * statementType.hashCode() + tableName.hashCode();
+			for (Collection<?> keyGroup : keyGroups) {
+				result = 31 * result + keyGroup.size();
+				for (Object key : keyGroup) {
+					result = 31 * result + Objects.hashCode(key);
+				}
+			}
+			return result;
+		}
+
+		String getTableName() {
+			return tableName;
+		}
+
+		Collection<?> getKeyGroup(int index) {
+			return keyGroups[index];
+		}
+
+		SqlShape copyForStorage() {
+			Collection<?>[] copiedGroups = new Collection<?>[keyGroups.length];
+			for (int i = 0; i < keyGroups.length; i++) {
+				copiedGroups[i] = new ArrayList<>(keyGroups[i]);
+			}
+			return new SqlShape(statementType, tableName, copiedGroups);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SqlShape)) {
+				return false;
+			}
+			SqlShape other = (SqlShape) obj;
+			return hash == other.hash && statementType.equals(other.statementType)
+					&& tableName.equals(other.tableName) && keyGroupsAreEqual(other.keyGroups);
+		}
+
+		private boolean keyGroupsAreEqual(Collection<?>[] otherKeyGroups) {
+			if (keyGroups.length != otherKeyGroups.length) {
+				return false;
+			}
+			for (int i = 0; i < keyGroups.length; i++) {
+				if (!iterateInSameOrder(keyGroups[i], otherKeyGroups[i])) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean iterateInSameOrder(Collection<?> keys, Collection<?> otherKeys) {
+			if (keys.size() != otherKeys.size()) {
+				return false;
+			}
+			Iterator<?> otherIterator = otherKeys.iterator();
+			for (Object key : keys) {
+				if (!Objects.equals(key, otherIterator.next())) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
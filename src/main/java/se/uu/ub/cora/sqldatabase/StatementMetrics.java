@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import se.uu.ub.cora.logger.Logger;
+import se.uu.ub.cora.logger.LoggerProvider;
+
+/**
+ * StatementMetrics records call counts, error counts, row counts and latencies for the statements
+ * run by a {@link DataReaderImp} or {@link DataUpdaterImp} created with it. Numbers are kept per
+ * sql fingerprint, see {@link SqlFingerprint}, so that statements that only differ in literal
+ * values or in the length of an IN list are counted together.
+ * <p>
+ * At most maxNoOfFingerprints fingerprints are kept. Statements with other fingerprints are
+ * counted together under the fingerprint {@value #OTHER_STATEMENTS}, so that the memory used stays
+ * bounded even if an application creates sql with literal values.
+ * <p>
+ * The numbers can be read with {@link #getStatistics()}, and can be written to the log at a fixed
+ * interval using {@link #startLoggingUsingInterval(Duration)}.
+ */
+public final class StatementMetrics implements AutoCloseable {
+	static final String OTHER_STATEMENTS = "other statements";
+	private static final int MAX_NO_OF_SQLS_PER_FINGERPRINT = 4;
+	private static final double NANOS_PER_MILLI = 1_000_000.0;
+	private final int maxNoOfFingerprints;
+	private final Map<String, StatementStatistics> sqls = new ConcurrentHashMap<>();
+	private final Map<String, StatementStatistics> fingerprints = new ConcurrentHashMap<>();
+	private final StatementStatistics otherStatistics = new StatementStatistics(OTHER_STATEMENTS);
+	private Logger log = LoggerProvider.getLoggerForClass(StatementMetrics.class);
+	private ScheduledExecutorService loggingExecutor;
+
+	public static StatementMetrics usingMaxNoOfFingerprints(int maxNoOfFingerprints) {
+		if (maxNoOfFingerprints < 1) {
+			throw SqlStorageException
+					.withMessage("Invalid max number of fingerprints: " + maxNoOfFingerprints);
+		}
+		return new StatementMetrics(maxNoOfFingerprints);
+	}
+
+	private StatementMetrics(int maxNoOfFingerprints) {
+		this.maxNoOfFingerprints = maxNoOfFingerprints;
+	}
+
+	StatementStatistics getStatisticsForSql(String sql) {
+		StatementStatistics statistics = sqls.get(sql);
+		if (statistics != null) {
+			return statistics;
+		}
+		return findAndRememberStatisticsForSql(sql);
+	}
+
+	private StatementStatistics findAndRememberStatisticsForSql(String sql) {
+		StatementStatistics statistics = getOrCreateStatisticsForFingerprint(
+				SqlFingerprint.fingerprintSql(sql));
+		if (sqls.size() < maxNoOfFingerprints * MAX_NO_OF_SQLS_PER_FINGERPRINT) {
+			sqls.put(sql, statistics);
+		}
+		return statistics;
+	}
+
+	private StatementStatistics getOrCreateStatisticsForFingerprint(String fingerprint) {
+		StatementStatistics statistics = fingerprints.get(fingerprint);
+		if (statistics != null) {
+			return statistics;
+		}
+		if (fingerprints.size() >= maxNoOfFingerprints) {
+			return otherStatistics;
+		}
+		return fingerprints.computeIfAbsent(fingerprint, StatementStatistics::new);
+	}
+
+	/**
+	 * getStatistics returns the statistics for all fingerprints that have been called since the
+	 * metrics were created or reset, ordered by the total time spent in them, longest first.
+	 */
+	public List<StatementStatistics> getStatistics() {
+		List<StatementStatistics> statistics = new ArrayList<>();
+		for (StatementStatistics fingerprintStatistics : fingerprints.values()) {
+			addIfCalled(statistics, fingerprintStatistics);
+		}
+		addIfCalled(statistics, otherStatistics);
+		statistics.sort(Comparator.comparingLong(StatementStatistics::getTotalTimeInNanos)
+				.reversed());
+		return statistics;
+	}
+
+	private void addIfCalled(List<StatementStatistics> statistics,
+			StatementStatistics fingerprintStatistics) {
+		if (fingerprintStatistics.getNoOfCalls() > 0) {
+			statistics.add(fingerprintStatistics);
+		}
+	}
+
+	public void reset() {
+		for (StatementStatistics statistics : fingerprints.values()) {
+			statistics.reset();
+		}
+		otherStatistics.reset();
+	}
+
+	/**
+	 * logStatistics writes one info message for each fingerprint returned by
+	 * {@link #getStatistics()}.
+	 */
+	public void logStatistics() {
+		for (StatementStatistics statistics : getStatistics()) {
+			log.logInfoUsingMessage(createLogMessage(statistics));
+		}
+	}
+
+	private String createLogMessage(StatementStatistics statistics) {
+		return String.format(Locale.ROOT,
+				"sql: %s calls: %d errors: %d rows: %d total: %.3f ms"
+						+ " acquire p50/p99: %.3f/%.3f ms execute p50/p99/max: %.3f/%.3f/%.3f ms"
+						+ " materialise p50/p99: %.3f/%.3f ms",
+				statistics.getFingerprint(), statistics.getNoOfCalls(),
+				statistics.getNoOfErrors(), statistics.getNoOfRows(),
+				toMillis(statistics.getTotalTimeInNanos()),
+				toMillis(statistics.getConnectionAcquisitionNanosAtPercentile(50)),
+				toMillis(statistics.getConnectionAcquisitionNanosAtPercentile(99)),
+				toMillis(statistics.getExecuteNanosAtPercentile(50)),
+				toMillis(statistics.getExecuteNanosAtPercentile(99)),
+				toMillis(statistics.getExecuteNanosAtPercentile(100)),
+				toMillis(statistics.getMaterialisationNanosAtPercentile(50)),
+				toMillis(statistics.getMaterialisationNanosAtPercentile(99)));
+	}
+
+	private double toMillis(long nanos) {
+		return nanos / NANOS_PER_MILLI;
+	}
+
+	/**
+	 * startLoggingUsingInterval starts a daemon thread that calls {@link #logStatistics()} once
+	 * every interval, until {@link #close()} is called. An error while logging is logged and does
+	 * not stop later calls.
+	 */
+	public synchronized void startLoggingUsingInterval(Duration interval) {
+		throwErrorIfIntervalIsInvalid(interval);
+		throwErrorIfLoggingIsStarted();
+		loggingExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "cora-sql-metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalInNanos = interval.toNanos();
+		loggingExecutor.scheduleAtFixedRate(this::logStatisticsKeepingScheduleOnError,
+				intervalInNanos, intervalInNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private void logStatisticsKeepingScheduleOnError() {
+		try {
+			logStatistics();
+		} catch (RuntimeException e) {
+			log.logErrorUsingMessageAndException("Error logging statement metrics", e);
+		}
+	}
+
+	private void throwErrorIfIntervalIsInvalid(Duration interval) {
+		if (interval.isZero() || interval.isNegative()) {
+			throw SqlStorageException.withMessage("Invalid logging interval: " + interval);
+		}
+	}
+
+	private void throwErrorIfLoggingIsStarted() {
+		if (loggingExecutor != null) {
+			throw SqlStorageException
+					.withMessage("Logging of statement metrics is already started");
+		}
+	}
+
+	/**
+	 * close stops periodic logging, if it has been started. Recorded numbers are kept.
+	 */
+	@Override
+	public synchronized void close() {
+		if (loggingExecutor != null) {
+			loggingExecutor.shutdownNow();
+			loggingExecutor = null;
+		}
+	}
+}
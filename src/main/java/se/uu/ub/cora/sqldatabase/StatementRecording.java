@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+/**
+ * StatementRecording times the phases of one statement and records them in the
+ * {@link StatementStatistics} for the statement. Each phase ends when the next one starts. A
+ * reader or updater that has no {@link StatementMetrics} uses {@link #NOT_RECORDING}, that does
+ * not read the clock.
+ */
+final class StatementRecording {
+	static final StatementRecording NOT_RECORDING = new StatementRecording(null);
+	private final StatementStatistics statistics;
+	private long phaseStartTime;
+
+	static StatementRecording startUsingMetricsAndSql(StatementMetrics statementMetrics,
+			String sql) {
+		if (statementMetrics == null) {
+			return NOT_RECORDING;
+		}
+		return new StatementRecording(statementMetrics.getStatisticsForSql(sql));
+	}
+
+	private StatementRecording(StatementStatistics statistics) {
+		this.statistics = statistics;
+		if (statistics != null) {
+			phaseStartTime = System.nanoTime();
+		}
+	}
+
+	void connectionAcquired() {
+		if (statistics != null) {
+			statistics.recordConnectionAcquisition(endPhase());
+		}
+	}
+
+	private long endPhase() {
+		long now = System.nanoTime();
+		long phaseTime = now - phaseStartTime;
+		phaseStartTime = now;
+		return phaseTime;
+	}
+
+	void executed() {
+		if (statistics != null) {
+			statistics.recordExecute(endPhase());
+		}
+	}
+
+	void executedWithNoOfAffectedRows(long noOfRows) {
+		if (statistics != null) {
+			statistics.recordExecute(endPhase());
+			statistics.recordCallWithNoOfRows(noOfRows);
+		}
+	}
+
+	void materialisedNoOfRows(long noOfRows) {
+		if (statistics != null) {
+			statistics.recordMaterialisation(endPhase());
+			statistics.recordCallWithNoOfRows(noOfRows);
+		}
+	}
+
+	void failed() {
+		if (statistics != null) {
+			statistics.recordFailedCall();
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * StatementStatistics holds the numbers recorded by {@link StatementMetrics} for all statements
+ * with the same sql fingerprint. The latency of each statement is split into three phases,
+ * connection acquisition, execute (preparing and executing the statement) and materialisation
+ * (reading the rows of a query). Latencies are in nanoseconds and are kept in histograms with a
+ * precision of about 6%.
+ * <p>
+ * The numbers are live and keep changing while statements are recorded.
+ */
+public final class StatementStatistics {
+	private static final int HISTOGRAM_SUB_BUCKET_BITS = 5;
+	private final String fingerprint;
+	private final LongAdder noOfCalls = new LongAdder();
+	private final LongAdder noOfErrors = new LongAdder();
+	private final LongAdder noOfRows = new LongAdder();
+	private final LongAdder totalTimeInNanos = new LongAdder();
+	private final LatencyHistogram connectionAcquisitionTimes = new LatencyHistogram(
+			HISTOGRAM_SUB_BUCKET_BITS);
+	private final LatencyHistogram executeTimes = new LatencyHistogram(HISTOGRAM_SUB_BUCKET_BITS);
+	private final LatencyHistogram materialisationTimes = new LatencyHistogram(
+			HISTOGRAM_SUB_BUCKET_BITS);
+
+	StatementStatistics(String fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	void recordConnectionAcquisition(long nanos) {
+		connectionAcquisitionTimes.recordValue(nanos);
+		totalTimeInNanos.add(nanos);
+	}
+
+	void recordExecute(long nanos) {
+		executeTimes.recordValue(nanos);
+		totalTimeInNanos.add(nanos);
+	}
+
+	void recordMaterialisation(long nanos) {
+		materialisationTimes.recordValue(nanos);
+		totalTimeInNanos.add(nanos);
+	}
+
+	void recordCallWithNoOfRows(long rows) {
+		noOfCalls.increment();
+		noOfRows.add(rows);
+	}
+
+	void recordFailedCall() {
+		noOfCalls.increment();
+		noOfErrors.increment();
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public long getNoOfCalls() {
+		return noOfCalls.sum();
+	}
+
+	public long getNoOfErrors() {
+		return noOfErrors.sum();
+	}
+
+	/**
+	 * getNoOfRows returns the number of rows returned by queries, or affected by updates, in all
+	 * calls that did not fail.
+	 */
+	public long getNoOfRows() {
+		return noOfRows.sum();
+	}
+
+	public long getTotalTimeInNanos() {
+		return totalTimeInNanos.sum();
+	}
+
+	public long getConnectionAcquisitionNanosAtPercentile(double percentile) {
+		return connectionAcquisitionTimes.getValueAtPercentile(percentile);
+	}
+
+	public long getExecuteNanosAtPercentile(double percentile) {
+		return executeTimes.getValueAtPercentile(percentile);
+	}
+
+	public long getMaterialisationNanosAtPercentile(double percentile) {
+		return materialisationTimes.getValueAtPercentile(percentile);
+	}
+
+	void reset() {
+		noOfCalls.reset();
+		noOfErrors.reset();
+		noOfRows.reset();
+		totalTimeInNanos.reset();
+		connectionAcquisitionTimes.reset();
+		executeTimes.reset();
+		materialisationTimes.reset();
+	}
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+/**
+ * TableInvalidator is implemented by the classes that keep data read from tables in memory, so
+ * that a {@link PostgresTableChangeListener} can tell them when tables have been changed, and so
+ * that a {@link CachingRecordUpdater} can tell them when a table is updated.
+ */
+public interface TableInvalidator {
+
+	void invalidateTable(String tableName);
+
+	void invalidateAllTables();
+
+	/**
+	 * invalidateTableAndPublishChange is called when a table has been updated on this node. It
+	 * invalidates the table, and implementations that have a {@link TableChangePublisher} also
+	 * publish the change to other nodes.
+	 */
+	default void invalidateTableAndPublishChange(String tableName) {
+		invalidateTable(tableName);
+	}
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TableSnapshot is an immutable copy of all rows in a table. Reads using conditions are answered
+ * using hash indexes, one for each set of column names used in conditions, that are built the
+ * first time the set of column names is used.
+ * <p>
+ * Condition values are compared to column values using equals, with integral numbers compared as
+ * longs. As in sql, a condition with a null value matches no rows.
+ * <p>
+ * Column names in conditions are folded to lower case, as the database does with the unquoted
+ * names in the sql used when reading from the database, and are validated against the column
+ * names of the table captured from the metadata of the result when the snapshot was loaded.
+ */
+final class TableSnapshot {
+	private static final String ERROR_READING_DATA_FROM = "Error reading data from ";
+	private final String tableName;
+	private final Set<String> columnNames;
+	private final List<Map<String, Object>> rows;
+	private final long createdAt;
+	private final Map<List<String>, Map<List<Object>, List<Map<String, Object>>>> indexes;
+
+	/**
+	 * usingTableNameAndColumnNamesAndRows creates a snapshot of the table with the given column
+	 * names and rows, created now.
+	 */
+	static TableSnapshot usingTableNameAndColumnNamesAndRows(String tableName,
+			Set<String> columnNames, List<Map<String, Object>> rows) {
+		return new TableSnapshot(tableName, columnNames, rows);
+	}
+
+	private TableSnapshot(String tableName, Set<String> columnNames,
+			List<Map<String, Object>> rows) {
+		this.tableName = tableName;
+		this.columnNames = columnNames;
+		this.rows = makeRowsUnmodifiable(rows);
+		this.createdAt = System.nanoTime();
+		this.indexes = new ConcurrentHashMap<>();
+	}
+
+	private static List<Map<String, Object>> makeRowsUnmodifiable(
+			List<Map<String, Object>> rows) {
+		List<Map<String, Object>> unmodifiableRows = new ArrayList<>(rows.size());
+		for (Map<String, Object> row : rows) {
+			unmodifiableRows.add(Collections.unmodifiableMap(row));
+		}
+		return Collections.unmodifiableList(unmodifiableRows);
+	}
+
+	long getCreatedAt() {
+		return createdAt;
+	}
+
+	List<Map<String, Object>> readAll() {
+		return rows;
+	}
+
+	List<Map<String, Object>> readUsingConditions(Map<String, Object> conditions) {
+		Map<String, Object> foldedConditions = foldColumnNamesToLowerCase(conditions);
+		List<String> conditionColumnNames = new ArrayList<>(foldedConditions.keySet());
+		Collections.sort(conditionColumnNames);
+		throwErrorIfColumnsAreMissing(conditionColumnNames);
+		List<Object> key = createKeyUsingColumnNamesAndValues(conditionColumnNames,
+				foldedConditions);
+		if (key == null) {
+			return Collections.emptyList();
+		}
+		List<Map<String, Object>> matchingRows = getIndexForColumnNames(conditionColumnNames)
+				.get(key);
+		return matchingRows != null ? matchingRows : Collections.emptyList();
+	}
+
+	private static Map<String, Object> foldColumnNamesToLowerCase(Map<String, Object> conditions) {
+		Map<String, Object> foldedConditions = new HashMap<>(conditions.size() * 2);
+		for (Entry<String, Object> condition : conditions.entrySet()) {
+			foldedConditions.put(condition.getKey().toLowerCase(Locale.ROOT),
+					condition.getValue());
+		}
+		return foldedConditions;
+	}
+
+	private void throwErrorIfColumnsAreMissing(List<String> conditionColumnNames) {
+		if (!columnNames.containsAll(conditionColumnNames)) {
+			throw SqlStorageException.withMessage(ERROR_READING_DATA_FROM + tableName);
+		}
+	}
+
+	Map<String, Object> readOneRowUsingConditions(Map<String, Object> conditions) {
+		List<Map<String, Object>> matchingRows = readUsingConditions(conditions);
+		if (matchingRows.size() != 1) {
+			throw SqlStorageException.withMessage(ERROR_READING_DATA_FROM + tableName);
+		}
+		return matchingRows.get(0);
+	}
+
+	Optional<Map<String, Object>> readOptionalOneRowUsingConditions(
+			Map<String, Object> conditions) {
+		List<Map<String, Object>> matchingRows = readUsingConditions(conditions);
+		if (matchingRows.size() > 1) {
+			throw SqlStorageException.withMessage(ERROR_READING_DATA_FROM + tableName);
+		}
+		return matchingRows.isEmpty() ? Optional.empty() : Optional.of(matchingRows.get(0));
+	}
+
+	private Map<List<Object>, List<Map<String, Object>>> getIndexForColumnNames(
+			List<String> columnNames) {
+		Map<List<Object>, List<Map<String, Object>>> index = indexes.get(columnNames);
+		if (index == null) {
+			index = createIndexForColumnNames(columnNames);
+			Map<List<Object>, List<Map<String, Object>>> existingIndex = indexes
+					.putIfAbsent(columnNames, index);
+			return existingIndex != null ? existingIndex : index;
+		}
+		return index;
+	}
+
+	private Map<List<Object>, List<Map<String, Object>>> createIndexForColumnNames(
+			List<String> columnNames) {
+		Map<List<Object>, List<Map<String, Object>>> index = new HashMap<>();
+		for (Map<String, Object> row : rows) {
+			List<Object> key = createKeyUsingColumnNamesAndValues(columnNames, row);
+			if (key != null) {
+				index.computeIfAbsent(key, k -> new ArrayList<>()).add(row);
+			}
+		}
+		return makeIndexUnmodifiable(index);
+	}
+
+	private static Map<List<Object>, List<Map<String, Object>>> makeIndexUnmodifiable(
+			Map<List<Object>, List<Map<String, Object>>> index) {
+		for (Entry<List<Object>, List<Map<String, Object>>> entry : index.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(entry.getValue()));
+		}
+		return Collections.unmodifiableMap(index);
+	}
+
+	private static List<Object> createKeyUsingColumnNamesAndValues(List<String> columnNames,
+			Map<String, Object> values) {
+		List<Object> key = new ArrayList<>(columnNames.size());
+		for (String columnName : columnNames) {
+			Object value = values.get(columnName);
+			if (value == null) {
+				return null;
+			}
+			key.add(ValueNormalizer.normalizeValue(value));
+		}
+		return key;
+	}
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * TableSnapshots holds in memory snapshots of small tables that have been configured using
+ * {@link #snapshotTableUsingRefreshInterval(String, Duration)}. One TableSnapshots is meant to be
+ * shared by all {@link SnapshotRecordReader}s, so that each table is only loaded once.
+ * <p>
+ * A table is loaded the first time it is read, by one thread while other threads reading it wait
+ * for the load. When a snapshot is older than the refresh interval of its table, the next reading
+ * thread loads a new snapshot while other threads keep reading the old one. After a table has been
+ * invalidated, for instance by a {@link PostgresTableChangeListener} or a
+ * {@link CachingRecordUpdater}, the table is loaded again in the same way as the first time.
+ * <p>
+ * Changes of tables made on this node can be published to other nodes using
+ * {@link #publishTableChangesUsing(TableChangePublisher)}.
+ */
+public final class TableSnapshots implements TableInvalidator {
+	private final Map<String, SnapshotHolder> holders = new ConcurrentHashMap<>();
+	private volatile TableChangePublisher tableChangePublisher;
+
+	/**
+	 * snapshotTableUsingRefreshInterval turns on snapshots for the table, with a new snapshot
+	 * loaded when the current one is older than refreshInterval.
+	 */
+	public void snapshotTableUsingRefreshInterval(String tableName, Duration refreshInterval) {
+		holders.put(tableName, new SnapshotHolder(refreshInterval));
+	}
+
+	/**
+	 * publishTableChangesUsing sets a publisher that is told about each change of a table made
+	 * through a {@link CachingRecordUpdater} using these snapshots.
+	 */
+	public void publishTableChangesUsing(TableChangePublisher tableChangePublisher) {
+		this.tableChangePublisher = tableChangePublisher;
+	}
+
+	public boolean isTableSnapshotted(String tableName) {
+		return holders.containsKey(tableName);
+	}
+
+	TableSnapshot getOrLoadSnapshot(String tableName, Supplier<TableSnapshot> loader) {
+		SnapshotHolder holder = holders.get(tableName);
+		TableSnapshot snapshot = holder.snapshot;
+		if (snapshot == null) {
+			return loadSnapshotOnce(tableName, holder, loader);
+		}
+		if (holder.isTooOld(snapshot) && holder.refreshing.compareAndSet(false, true)) {
+			return refreshSnapshot(tableName, holder, loader);
+		}
+		return snapshot;
+	}
+
+	private TableSnapshot loadSnapshotOnce(String tableName, SnapshotHolder holder,
+			Supplier<TableSnapshot> loader) {
+		holder.loadLock.lock();
+		try {
+			TableSnapshot snapshot = holder.snapshot;
+			if (snapshot != null) {
+				return snapshot;
+			}
+			return loadSnapshot(tableName, holder, loader);
+		} finally {
+			holder.loadLock.unlock();
+		}
+	}
+
+	private TableSnapshot refreshSnapshot(String tableName, SnapshotHolder holder,
+			Supplier<TableSnapshot> loader) {
+		try {
+			return loadSnapshot(tableName, holder, loader);
+		} finally {
+			holder.refreshing.set(false);
+		}
+	}
+
+	private TableSnapshot loadSnapshot(String tableName, SnapshotHolder holder,
+			Supplier<TableSnapshot> loader) {
+		long generationBeforeLoad = holder.generation.get();
+		TableSnapshot snapshot = loader.get();
+		if (holder.generation.get() == generationBeforeLoad) {
+			holder.snapshot = snapshot;
+		}
+		return snapshot;
+	}
+
+	@Override
+	public void invalidateTable(String tableName) {
+		SnapshotHolder holder = holders.get(tableName);
+		if (holder != null) {
+			holder.invalidate();
+		}
+	}
+
+	@Override
+	public void invalidateTableAndPublishChange(String tableName) {
+		invalidateTable(tableName);
+		if (tableChangePublisher != null) {
+			tableChangePublisher.publishChangeOfTable(tableName);
+		}
+	}
+
+	@Override
+	public void invalidateAllTables() {
+		for (SnapshotHolder holder : holders.values()) {
+			holder.invalidate();
+		}
+	}
+
+	private static final class SnapshotHolder {
+		private final Duration refreshInterval;
+		private final AtomicLong generation = new AtomicLong();
+		private final AtomicBoolean refreshing = new AtomicBoolean(false);
+		private final ReentrantLock loadLock = new ReentrantLock();
+		private volatile TableSnapshot snapshot;
+
+		SnapshotHolder(Duration refreshInterval) {
+			this.refreshInterval = refreshInterval;
+		}
+
+		boolean isTooOld(TableSnapshot snapshot) {
+			return System.nanoTime() - snapshot.getCreatedAt() >= refreshInterval.toNanos();
+		}
+
+		void invalidate() {
+			generation.incrementAndGet();
+			snapshot = null;
+		}
+	}
+}
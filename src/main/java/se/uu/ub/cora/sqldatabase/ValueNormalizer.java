@@ -0,0 +1,70 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * ValueNormalizer normalizes values read from or written to the database so that values that are
+ * equal in sql are also equal in java. The driver can return a column as another numeric type than
+ * the one used by the caller, for instance a BigDecimal for a numeric column that is compared to an
+ * Integer. All numbers with an integral value that fits in a long are therefore normalized to
+ * longs, and other numbers to BigDecimals without trailing zeros.
+ */
+final class ValueNormalizer {
+	private static final int MAX_BIT_LENGTH_OF_LONG = 63;
+
+	private ValueNormalizer() {
+	}
+
+	static Object normalizeValue(Object value) {
+		if (value instanceof Integer || value instanceof Long || value instanceof Short
+				|| value instanceof Byte) {
+			return ((Number) value).longValue();
+		}
+		if (value instanceof BigDecimal) {
+			return normalizeDecimal((BigDecimal) value);
+		}
+		if (value instanceof BigInteger) {
+			return normalizeDecimal(new BigDecimal((BigInteger) value));
+		}
+		if (value instanceof Double || value instanceof Float) {
+			return normalizeFloatingPoint((Number) value);
+		}
+		return value;
+	}
+
+	private static Object normalizeFloatingPoint(Number value) {
+		double doubleValue = value.doubleValue();
+		if (Double.isNaN(doubleValue) || Double.isInfinite(doubleValue)) {
+			return doubleValue;
+		}
+		return normalizeDecimal(new BigDecimal(value.toString()));
+	}
+
+	private static Object normalizeDecimal(BigDecimal value) {
+		BigDecimal stripped = value.stripTrailingZeros();
+		if (stripped.scale() <= 0
+				&& stripped.toBigInteger().bitLength() <= MAX_BIT_LENGTH_OF_LONG) {
+			return stripped.longValue();
+		}
+		return stripped;
+	}
+}
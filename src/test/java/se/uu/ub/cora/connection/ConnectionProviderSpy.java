@@ -0,0 +1,24 @@
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import se.uu.ub.cora.sqldatabase.SqlStorageException;
+
+public class ConnectionProviderSpy implements SqlConnectionProvider {
+
+	public List<ConnectionSpy> createdConnections = new ArrayList<>();
+	public boolean throwError = false;
+
+	@Override
+	public synchronized Connection getConnection() {
+		if (throwError) {
+			throw SqlStorageException.withMessage("Error from ConnectionProviderSpy");
+		}
+		ConnectionSpy connectionSpy = new ConnectionSpy();
+		createdConnections.add(connectionSpy);
+		return connectionSpy;
+	}
+
+}
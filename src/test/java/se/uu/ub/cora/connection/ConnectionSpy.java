@@ -8,6 +8,7 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.NClob;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLClientInfoException;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
@@ -15,6 +16,9 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
@@ -25,6 +29,28 @@ public class ConnectionSpy implements Connection {
 	public String sql;
 	public PreparedStatementSpy preparedStatementSpy = new PreparedStatementSpy();
 	public boolean closeWasCalled = false;
+	public boolean autoCommit = true;
+	public List<Boolean> autoCommitCalls = new ArrayList<>();
+	public boolean commitWasCalled = false;
+	public boolean rollbackWasCalled = false;
+	public int noOfPrepareStatementCalls = 0;
+	public String sqlStateOfError = null;
+	public boolean closedByServer = false;
+	public boolean valid = true;
+	public int noOfIsValidCalls = 0;
+	public boolean readOnly = false;
+	public int transactionIsolation = Connection.TRANSACTION_READ_COMMITTED;
+	public String catalog = "someCatalog";
+	public String schema = "public";
+	public String clientInfoName;
+	public Properties clientInfo = new Properties();
+	public Map<String, Class<?>> typeMap = new HashMap<>();
+	public int holdability = ResultSet.HOLD_CURSORS_OVER_COMMIT;
+	public int networkTimeout = 0;
+	public Executor networkTimeoutExecutor;
+	public CallableStatementSpy callableStatementSpy = new CallableStatementSpy();
+	public boolean throwErrorOnRollback = false;
+	public boolean throwErrorWhenAutoCommitIsTurnedOn = false;
 
 	@Override
 	public <T> T unwrap(Class<T> iface) throws SQLException {
@@ -40,23 +66,23 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public Statement createStatement() throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return preparedStatementSpy;
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
 		this.sql = sql;
+		noOfPrepareStatementCalls++;
 		if (returnErrorConnection) {
-			throw new SQLException("error thrown from prepareStatement in spy");
+			throw new SQLException("error thrown from prepareStatement in spy", sqlStateOfError);
 		}
 		return preparedStatementSpy;
 	}
 
 	@Override
 	public CallableStatement prepareCall(String sql) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return callableStatementSpy;
 	}
 
 	@Override
@@ -67,26 +93,29 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public void setAutoCommit(boolean autoCommit) throws SQLException {
-		// TODO Auto-generated method stub
-
+		autoCommitCalls.add(autoCommit);
+		if (autoCommit && throwErrorWhenAutoCommitIsTurnedOn) {
+			throw new SQLException("error thrown from setAutoCommit in spy");
+		}
+		this.autoCommit = autoCommit;
 	}
 
 	@Override
 	public boolean getAutoCommit() throws SQLException {
-		// TODO Auto-generated method stub
-		return false;
+		return autoCommit;
 	}
 
 	@Override
 	public void commit() throws SQLException {
-		// TODO Auto-generated method stub
-
+		commitWasCalled = true;
 	}
 
 	@Override
 	public void rollback() throws SQLException {
-		// TODO Auto-generated method stub
-
+		rollbackWasCalled = true;
+		if (throwErrorOnRollback) {
+			throw new SQLException("error thrown from rollback in spy");
+		}
 	}
 
 	@Override
@@ -96,8 +125,7 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public boolean isClosed() throws SQLException {
-		// TODO Auto-generated method stub
-		return false;
+		return closeWasCalled || closedByServer;
 	}
 
 	@Override
@@ -108,38 +136,32 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public void setReadOnly(boolean readOnly) throws SQLException {
-		// TODO Auto-generated method stub
-
+		this.readOnly = readOnly;
 	}
 
 	@Override
 	public boolean isReadOnly() throws SQLException {
-		// TODO Auto-generated method stub
-		return false;
+		return readOnly;
 	}
 
 	@Override
 	public void setCatalog(String catalog) throws SQLException {
-		// TODO Auto-generated method stub
-
+		this.catalog = catalog;
 	}
 
 	@Override
 	public String getCatalog() throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return catalog;
 	}
 
 	@Override
 	public void setTransactionIsolation(int level) throws SQLException {
-		// TODO Auto-generated method stub
-
+		transactionIsolation = level;
 	}
 
 	@Override
 	public int getTransactionIsolation() throws SQLException {
-		// TODO Auto-generated method stub
-		return 0;
+		return transactionIsolation;
 	}
 
 	@Override
@@ -157,46 +179,41 @@ public class ConnectionSpy implements Connection {
 	@Override
 	public Statement createStatement(int resultSetType, int resultSetConcurrency)
 			throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return preparedStatementSpy;
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, int resultSetType,
 			int resultSetConcurrency) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return preparedStatementSpy;
 	}
 
 	@Override
 	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency)
 			throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return callableStatementSpy;
 	}
 
 	@Override
 	public Map<String, Class<?>> getTypeMap() throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return typeMap;
 	}
 
 	@Override
 	public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
-		// TODO Auto-generated method stub
-
+		typeMap = map;
 	}
 
 	@Override
 	public void setHoldability(int holdability) throws SQLException {
-		// TODO Auto-generated method stub
-
+		this.holdability = holdability;
 	}
 
 	@Override
 	public int getHoldability() throws SQLException {
-		// TODO Auto-generated method stub
-		return 0;
+		return holdability;
 	}
 
 	@Override
@@ -226,42 +243,41 @@ public class ConnectionSpy implements Connection {
 	@Override
 	public Statement createStatement(int resultSetType, int resultSetConcurrency,
 			int resultSetHoldability) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return preparedStatementSpy;
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, int resultSetType,
 			int resultSetConcurrency, int resultSetHoldability) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return preparedStatementSpy;
 	}
 
 	@Override
 	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
 			int resultSetHoldability) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return callableStatementSpy;
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys)
 			throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return preparedStatementSpy;
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return preparedStatementSpy;
 	}
 
 	@Override
 	public PreparedStatement prepareStatement(String sql, String[] columnNames)
 			throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		this.sql = sql;
+		return preparedStatementSpy;
 	}
 
 	@Override
@@ -290,20 +306,19 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public boolean isValid(int timeout) throws SQLException {
-		// TODO Auto-generated method stub
-		return false;
+		noOfIsValidCalls++;
+		return valid;
 	}
 
 	@Override
 	public void setClientInfo(String name, String value) throws SQLClientInfoException {
-		// TODO Auto-generated method stub
-
+		clientInfoName = name;
+		clientInfo.setProperty(name, value);
 	}
 
 	@Override
 	public void setClientInfo(Properties properties) throws SQLClientInfoException {
-		// TODO Auto-generated method stub
-
+		clientInfo = properties;
 	}
 
 	@Override
@@ -314,8 +329,9 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public Properties getClientInfo() throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		Properties copy = new Properties();
+		copy.putAll(clientInfo);
+		return copy;
 	}
 
 	@Override
@@ -332,14 +348,12 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public void setSchema(String schema) throws SQLException {
-		// TODO Auto-generated method stub
-
+		this.schema = schema;
 	}
 
 	@Override
 	public String getSchema() throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return schema;
 	}
 
 	@Override
@@ -350,14 +364,13 @@ public class ConnectionSpy implements Connection {
 
 	@Override
 	public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
-		// TODO Auto-generated method stub
-
+		networkTimeoutExecutor = executor;
+		networkTimeout = milliseconds;
 	}
 
 	@Override
 	public int getNetworkTimeout() throws SQLException {
-		// TODO Auto-generated method stub
-		return 0;
+		return networkTimeout;
 	}
 
 }
@@ -19,9 +19,11 @@
 package se.uu.ub.cora.connection;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
 
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.util.Properties;
 
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
@@ -48,6 +50,18 @@ public class ParameterConnectionProviderTest {
 		assertEquals(driver.url, url);
 		assertEquals(driver.info.getProperty("user"), user);
 		assertEquals(driver.info.getProperty("password"), password);
+		assertNull(driver.info.getProperty("reWriteBatchedInserts"));
+	}
+
+	@Test
+	public void testPostgresConnectionsRewriteBatchedInserts() throws Exception {
+		String url = "jdbc:postgresql://alvin-cora-docker-postgresql:5432/alvin";
+		ParameterConnectionProviderImp connectionProvider = ParameterConnectionProviderImp
+				.usingUriAndUserAndPassword(url, "someUserId", "somePassword");
+		Properties properties = connectionProvider.getConnectionProperties();
+		assertEquals(properties.getProperty("user"), "someUserId");
+		assertEquals(properties.getProperty("password"), "somePassword");
+		assertEquals(properties.getProperty("reWriteBatchedInserts"), "true");
 	}
 
 	@Test
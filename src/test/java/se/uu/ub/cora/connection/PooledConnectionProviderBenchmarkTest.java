@@ -0,0 +1,93 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.testng.annotations.Test;
+
+/**
+ * Measures how many getConnection/close pairs per second the pool manages for 1 to 64 threads.
+ * Enable and run manually, results are printed to standard out.
+ * <p>
+ * Threads only contend for the pool when they run on more than one core at the same time, so the
+ * results from a machine with a single core say nothing about how the pool scales. No results are
+ * recorded for this benchmark.
+ */
+public class PooledConnectionProviderBenchmarkTest {
+	private static final int POOL_SIZE = 16;
+	private static final long WARMUP_MILLIS = 1000;
+	private static final long MEASURE_MILLIS = 3000;
+
+	@Test(enabled = false)
+	public void benchmarkAcquisitionThroughput() throws Exception {
+		for (int noOfThreads = 1; noOfThreads <= 64; noOfThreads *= 2) {
+			long opsPerSecond = measureThroughputUsingThreads(noOfThreads);
+			System.out.println(String.format("threads: %2d  acquisitions/s: %,d", noOfThreads,
+					opsPerSecond));
+		}
+	}
+
+	private long measureThroughputUsingThreads(int noOfThreads) throws Exception {
+		PooledConnectionProviderImp pool = PooledConnectionProviderImp
+				.usingSqlConnectionProviderAndPoolSettings(new ConnectionProviderSpy(),
+						PoolSettings.defaultSettings().withMaxSize(POOL_SIZE)
+								.withAcquisitionTimeout(Duration.ofSeconds(30)));
+		LongAdder operations = new LongAdder();
+		AtomicBoolean measuring = new AtomicBoolean(false);
+		AtomicBoolean running = new AtomicBoolean(true);
+		CountDownLatch done = new CountDownLatch(noOfThreads);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < noOfThreads; i++) {
+			threads.add(new Thread(
+					() -> acquireAndReleaseInLoop(pool, operations, measuring, running, done)));
+		}
+		threads.forEach(Thread::start);
+		Thread.sleep(WARMUP_MILLIS);
+		measuring.set(true);
+		Thread.sleep(MEASURE_MILLIS);
+		running.set(false);
+		done.await();
+		pool.close();
+		return operations.sum() * 1000 / MEASURE_MILLIS;
+	}
+
+	private void acquireAndReleaseInLoop(PooledConnectionProviderImp pool, LongAdder operations,
+			AtomicBoolean measuring, AtomicBoolean running, CountDownLatch done) {
+		try {
+			while (running.get()) {
+				Connection connection = pool.getConnection();
+				connection.close();
+				if (measuring.get()) {
+					operations.increment();
+				}
+			}
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		} finally {
+			done.countDown();
+		}
+	}
+}
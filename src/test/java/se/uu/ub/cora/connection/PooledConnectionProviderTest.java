@@ -0,0 +1,699 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.sqldatabase.SqlStorageException;
+
+public class PooledConnectionProviderTest {
+	private ConnectionProviderSpy connectionFactory;
+	private PoolSettings settings;
+	private PooledConnectionProviderImp pool;
+
+	@BeforeMethod
+	public void setUp() {
+		connectionFactory = new ConnectionProviderSpy();
+		settings = PoolSettings.defaultSettings().withMaxSize(2)
+				.withAcquisitionTimeout(Duration.ofMillis(10));
+		pool = PooledConnectionProviderImp
+				.usingSqlConnectionProviderAndPoolSettings(connectionFactory, settings);
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(pool.getSqlConnectionProvider(), connectionFactory);
+		assertSame(pool.getPoolSettings(), settings);
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	@Test
+	public void testUsingUriAndUserAndPasswordUsesParameterConnectionProvider() {
+		PooledConnectionProviderImp uriPool = PooledConnectionProviderImp
+				.usingUriAndUserAndPasswordAndPoolSettings("jdbc:someUrl", "someUser",
+						"somePassword", settings);
+		assertTrue(uriPool.getSqlConnectionProvider() instanceof ParameterConnectionProviderImp);
+	}
+
+	@Test
+	public void testGetConnectionReturnsWrappedPhysicalConnection() {
+		Connection connection = pool.getConnection();
+		assertTrue(connection instanceof PooledConnection);
+		assertSame(((PooledConnection) connection).getPhysicalConnection(),
+				connectionFactory.createdConnections.get(0));
+		assertEquals(pool.getNoOfConnections(), 1);
+	}
+
+	@Test
+	public void testCloseReturnsConnectionToPool() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.close();
+
+		assertTrue(connection.isClosed());
+		assertFalse(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+
+	@Test
+	public void testReturnedConnectionIsReused() throws Exception {
+		pool.getConnection().close();
+		PooledConnection connection = (PooledConnection) pool.getConnection();
+
+		assertEquals(connectionFactory.createdConnections.size(), 1);
+		assertSame(connection.getPhysicalConnection(), connectionFactory.createdConnections.get(0));
+	}
+
+	@Test
+	public void testCloseTwiceOnlyReturnsConnectionOnce() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.close();
+		connection.close();
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+
+	@Test(expectedExceptions = SQLClientInfoException.class, expectedExceptionsMessageRegExp = ""
+			+ "Connection is closed")
+	public void testSetClientInfoOnClosedConnectionThrowsError() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.close();
+		connection.setClientInfo("ApplicationName", "someApplication");
+	}
+
+	@Test
+	public void testSetClientInfoIsDelegatedToPhysicalConnection() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.setClientInfo("ApplicationName", "someApplication");
+		assertEquals(connectionFactory.createdConnections.get(0).clientInfoName,
+				"ApplicationName");
+	}
+
+	@Test(expectedExceptions = SQLException.class, expectedExceptionsMessageRegExp = ""
+			+ "Connection is closed")
+	public void testUseOfClosedConnectionThrowsError() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.close();
+		connection.prepareStatement("select 1");
+	}
+
+	@Test
+	public void testCallsAreDelegatedToPhysicalConnection() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.prepareStatement("select x from y");
+		assertEquals(connectionFactory.createdConnections.get(0).sql, "select x from y");
+	}
+
+	@Test
+	public void testThreadGetsTheConnectionItReturnedLast() throws Exception {
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+		second.close();
+		first.close();
+
+		PooledConnection connection = (PooledConnection) pool.getConnection();
+		assertSame(connection.getPhysicalConnection(), connectionFactory.createdConnections.get(0));
+	}
+
+	@Test
+	public void testConnectionReturnedByOtherThreadIsFoundInSharedEntries() throws Exception {
+		Thread otherThread = new Thread(() -> closeAfterDelay(pool.getConnection()));
+		otherThread.start();
+		otherThread.join();
+
+		PooledConnection connection = (PooledConnection) pool.getConnection();
+		assertSame(connection.getPhysicalConnection(), connectionFactory.createdConnections.get(0));
+		assertEquals(connectionFactory.createdConnections.size(), 1);
+	}
+
+	@Test
+	public void testManyThreadsNeverShareAPhysicalConnection() throws Exception {
+		pool = createPoolUsingSettings(settings.withMaxSize(4)
+				.withAcquisitionTimeout(Duration.ofSeconds(10)));
+		Set<Connection> connectionsInUse = ConcurrentHashMap.newKeySet();
+		AtomicInteger errors = new AtomicInteger();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 16; i++) {
+			threads.add(new Thread(() -> useConnectionsInLoop(connectionsInUse, errors)));
+		}
+		startAndJoin(threads);
+
+		assertEquals(errors.get(), 0);
+		assertTrue(connectionFactory.createdConnections.size() <= 4);
+		assertEquals(pool.getNoOfIdleConnections(), pool.getNoOfConnections());
+	}
+
+	private void useConnectionsInLoop(Set<Connection> connectionsInUse, AtomicInteger errors) {
+		for (int i = 0; i < 500; i++) {
+			try {
+				PooledConnection connection = (PooledConnection) pool.getConnection();
+				Connection physicalConnection = connection.getPhysicalConnection();
+				if (!connectionsInUse.add(physicalConnection)) {
+					errors.incrementAndGet();
+				}
+				connectionsInUse.remove(physicalConnection);
+				connection.close();
+			} catch (Exception e) {
+				errors.incrementAndGet();
+			}
+		}
+	}
+
+	private void startAndJoin(List<Thread> threads) throws InterruptedException {
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	@Test
+	public void testTwoConnectionsInUseAreDifferent() {
+		PooledConnection first = (PooledConnection) pool.getConnection();
+		PooledConnection second = (PooledConnection) pool.getConnection();
+		assertNotSame(first.getPhysicalConnection(), second.getPhysicalConnection());
+		assertEquals(pool.getNoOfConnections(), 2);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Timeout waiting for connection from pool after 10 ms")
+	public void testGetConnectionWhenPoolIsExhaustedTimesOut() {
+		pool.getConnection();
+		pool.getConnection();
+		pool.getConnection();
+	}
+
+	@Test
+	public void testWaitingThreadGetsReturnedConnection() throws Exception {
+		settings = settings.withMaxSize(1).withAcquisitionTimeout(Duration.ofSeconds(5));
+		pool = PooledConnectionProviderImp
+				.usingSqlConnectionProviderAndPoolSettings(connectionFactory, settings);
+		Connection connection = pool.getConnection();
+		Thread closer = new Thread(() -> closeAfterDelay(connection));
+		closer.start();
+
+		PooledConnection waitedFor = (PooledConnection) pool.getConnection();
+
+		assertSame(waitedFor.getPhysicalConnection(), connectionFactory.createdConnections.get(0));
+		closer.join();
+	}
+
+	private void closeAfterDelay(Connection connection) {
+		try {
+			Thread.sleep(20);
+			connection.close();
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Test
+	public void testErrorCreatingConnectionReleasesSlot() {
+		connectionFactory.throwError = true;
+		try {
+			pool.getConnection();
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), "Error from ConnectionProviderSpy");
+		}
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	@Test
+	public void testChangedAutoCommitIsRolledBackAndRestoredOnClose() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.setAutoCommit(false);
+		connection.close();
+
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertTrue(physicalConnection.rollbackWasCalled);
+		assertTrue(physicalConnection.autoCommit);
+	}
+
+	@Test
+	public void testUnchangedAutoCommitIsNotTouchedOnClose() throws Exception {
+		pool.getConnection().close();
+
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertFalse(physicalConnection.rollbackWasCalled);
+		assertTrue(physicalConnection.autoCommitCalls.isEmpty());
+	}
+
+	@Test
+	public void testChangedSessionStateIsRestoredOnClose() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.setReadOnly(true);
+		connection.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		connection.setCatalog("otherCatalog");
+		connection.setSchema("otherSchema");
+		connection.close();
+
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertFalse(physicalConnection.readOnly);
+		assertEquals(physicalConnection.transactionIsolation,
+				Connection.TRANSACTION_READ_COMMITTED);
+		assertEquals(physicalConnection.catalog, "someCatalog");
+		assertEquals(physicalConnection.schema, "public");
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+
+	@Test
+	public void testSessionStateIsRestoredToStateBeforeFirstChange() throws Exception {
+		Connection connection = pool.getConnection();
+		connection.setSchema("otherSchema");
+		connection.setSchema("yetAnotherSchema");
+		connection.close();
+
+		assertEquals(connectionFactory.createdConnections.get(0).schema, "public");
+	}
+
+	@Test
+	public void testChangedTypeMapHoldabilityTimeoutAndClientInfoAreRestoredOnClose()
+			throws Exception {
+		Connection connection = pool.getConnection();
+		connection.setTypeMap(Map.of("someType", String.class));
+		connection.setHoldability(ResultSet.CLOSE_CURSORS_AT_COMMIT);
+		connection.setNetworkTimeout(Runnable::run, 1000);
+		connection.setClientInfo("ApplicationName", "someApplication");
+		connection.close();
+
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertTrue(physicalConnection.typeMap.isEmpty());
+		assertEquals(physicalConnection.holdability, ResultSet.HOLD_CURSORS_OVER_COMMIT);
+		assertEquals(physicalConnection.networkTimeout, 0);
+		assertTrue(physicalConnection.clientInfo.isEmpty());
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionClosedByServerIsClosedOnReturn() throws Exception {
+		Connection connection = pool.getConnection();
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		physicalConnection.closedByServer = true;
+		connection.close();
+
+		assertTrue(physicalConnection.closeWasCalled);
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	@Test
+	public void testConnectionWithConnectionErrorIsClosedOnReturn() throws Exception {
+		Connection connection = pool.getConnection();
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		physicalConnection.returnErrorConnection = true;
+		physicalConnection.sqlStateOfError = "08006";
+		tryToPrepareStatement(connection);
+		connection.close();
+
+		assertTrue(physicalConnection.closeWasCalled);
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	private void tryToPrepareStatement(Connection connection) {
+		try {
+			connection.prepareStatement("select x from y");
+		} catch (SQLException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testConnectionWithServerShutdownErrorIsClosedOnReturn() throws Exception {
+		Connection connection = pool.getConnection();
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		physicalConnection.returnErrorConnection = true;
+		physicalConnection.sqlStateOfError = "57P01";
+		tryToPrepareStatement(connection);
+		connection.close();
+
+		assertTrue(physicalConnection.closeWasCalled);
+	}
+
+	@Test
+	public void testConnectionWithOtherErrorIsReused() throws Exception {
+		Connection connection = pool.getConnection();
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		physicalConnection.returnErrorConnection = true;
+		physicalConnection.sqlStateOfError = "42P01";
+		tryToPrepareStatement(connection);
+		connection.close();
+
+		assertFalse(physicalConnection.closeWasCalled);
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+
+	@Test
+	public void testConnectionErrorFromCachedStatementClosesConnectionOnReturn() throws Exception {
+		Connection connection = pool.getConnection();
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		physicalConnection.preparedStatementSpy.errorToThrowOnExecute = new SQLException(
+				"error from spy", "08003");
+		PreparedStatement statement = connection.prepareStatement("select x from y");
+		try {
+			statement.executeQuery();
+		} catch (SQLException e) {
+			// expected
+		}
+		statement.close();
+		connection.close();
+
+		assertTrue(physicalConnection.closeWasCalled);
+	}
+
+	@Test
+	public void testIdleConnectionIsValidatedOnBorrow() throws Exception {
+		pool = createPoolUsingSettings(settings.withValidationIdleTime(Duration.ZERO));
+		pool.getConnection().close();
+		pool.getConnection();
+
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertEquals(physicalConnection.noOfIsValidCalls, 1);
+		assertFalse(physicalConnection.closeWasCalled);
+	}
+
+	@Test
+	public void testRecentlyReturnedConnectionIsNotValidatedOnBorrow() throws Exception {
+		pool.getConnection().close();
+		pool.getConnection();
+
+		assertEquals(connectionFactory.createdConnections.get(0).noOfIsValidCalls, 0);
+	}
+
+	@Test
+	public void testInvalidConnectionIsReplacedOnBorrow() throws Exception {
+		pool = createPoolUsingSettings(settings.withValidationIdleTime(Duration.ZERO));
+		pool.getConnection().close();
+		connectionFactory.createdConnections.get(0).valid = false;
+		PooledConnection connection = (PooledConnection) pool.getConnection();
+
+		assertTrue(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertSame(connection.getPhysicalConnection(), connectionFactory.createdConnections.get(1));
+		assertEquals(pool.getNoOfConnections(), 1);
+	}
+
+	@Test
+	public void testDefaultValidationIdleTime() {
+		assertEquals(PoolSettings.defaultSettings().getValidationIdleTime(),
+				Duration.ofMillis(500));
+	}
+
+	@Test
+	public void testConnectionOlderThanMaxLifetimeIsClosedOnReturn() throws Exception {
+		pool = createPoolUsingSettings(settings.withMaxLifetime(Duration.ofNanos(1)));
+		pool.getConnection().close();
+
+		assertTrue(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	private PooledConnectionProviderImp createPoolUsingSettings(PoolSettings poolSettings) {
+		return PooledConnectionProviderImp
+				.usingSqlConnectionProviderAndPoolSettings(connectionFactory, poolSettings);
+	}
+
+	@Test
+	public void testIdleConnectionOlderThanIdleTimeoutIsReplacedOnBorrow() throws Exception {
+		pool = createPoolUsingSettings(settings.withIdleTimeout(Duration.ofMillis(5)));
+		pool.getConnection().close();
+		Thread.sleep(10);
+		pool.getConnection();
+
+		assertTrue(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertEquals(connectionFactory.createdConnections.size(), 2);
+		assertEquals(pool.getNoOfConnections(), 1);
+	}
+
+	@Test
+	public void testIdleConnectionsAboveMinSizeAreClosedWhenAnotherIsReturned() throws Exception {
+		pool = createPoolUsingSettings(settings.withIdleTimeout(Duration.ofMillis(5)));
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+		first.close();
+		Thread.sleep(10);
+		second.close();
+
+		assertTrue(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+
+	@Test
+	public void testIdleConnectionsAreKeptAtMinSize() throws Exception {
+		pool = createPoolUsingSettings(
+				settings.withMinSize(2).withIdleTimeout(Duration.ofMillis(5)));
+		Connection first = pool.getConnection();
+		Connection second = pool.getConnection();
+		first.close();
+		Thread.sleep(10);
+		second.close();
+
+		assertFalse(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertEquals(pool.getNoOfIdleConnections(), 2);
+	}
+
+	@Test
+	public void testConcurrentReturnsNeverCloseIdleConnectionsBelowMinSize() throws Exception {
+		pool = createPoolUsingSettings(settings.withMinSize(2).withMaxSize(8)
+				.withIdleTimeout(Duration.ofMillis(1)));
+		List<Connection> connections = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			connections.add(pool.getConnection());
+		}
+		Thread.sleep(5);
+		List<Thread> threads = new ArrayList<>();
+		for (Connection connection : connections) {
+			threads.add(new Thread(() -> closeQuietly(connection)));
+		}
+		startAndJoin(threads);
+
+		assertTrue(pool.getNoOfConnections() >= 2);
+		assertEquals(pool.getNoOfConnections(), countOpenPhysicalConnections());
+	}
+
+	private void closeQuietly(Connection connection) {
+		try {
+			Thread.sleep(2);
+			connection.close();
+		} catch (Exception e) {
+			// not relevant for test
+		}
+	}
+
+	private int countOpenPhysicalConnections() {
+		int noOfOpen = 0;
+		for (ConnectionSpy connection : connectionFactory.createdConnections) {
+			if (!connection.closeWasCalled) {
+				noOfOpen++;
+			}
+		}
+		return noOfOpen;
+	}
+
+	@Test
+	public void testPoolIsFilledToMinSizeWhenCreated() throws Exception {
+		pool = createPoolUsingSettings(settings.withMinSize(2));
+
+		assertEquals(connectionFactory.createdConnections.size(), 2);
+		assertEquals(pool.getNoOfConnections(), 2);
+		assertEquals(pool.getNoOfIdleConnections(), 2);
+	}
+
+	@Test
+	public void testPoolIsFilledToMinSizeWhenConnectionIsClosed() throws Exception {
+		pool = createPoolUsingSettings(settings.withMinSize(1));
+		Connection connection = pool.getConnection();
+		connectionFactory.createdConnections.get(0).closedByServer = true;
+		connection.close();
+
+		assertEquals(connectionFactory.createdConnections.size(), 2);
+		assertEquals(pool.getNoOfConnections(), 1);
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+
+	@Test
+	public void testErrorFillingPoolToMinSizeLeavesPoolEmpty() throws Exception {
+		connectionFactory.throwError = true;
+		pool = createPoolUsingSettings(settings.withMinSize(2));
+
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	@Test
+	public void testClosePoolClosesIdleConnections() throws Exception {
+		pool.getConnection().close();
+		pool.close();
+
+		assertTrue(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	@Test
+	public void testConnectionReturnedToClosedPoolIsClosed() throws Exception {
+		Connection connection = pool.getConnection();
+		pool.close();
+		connection.close();
+
+		assertTrue(connectionFactory.createdConnections.get(0).closeWasCalled);
+		assertEquals(pool.getNoOfConnections(), 0);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Connection pool is closed")
+	public void testGetConnectionFromClosedPoolThrowsError() {
+		pool.close();
+		pool.getConnection();
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid pool size, min: 3 max: 2")
+	public void testMinSizeLargerThanMaxSizeThrowsError() {
+		settings.withMinSize(3);
+	}
+
+	@Test
+	public void testDefaultStatementCacheSize() {
+		assertEquals(PoolSettings.defaultSettings().getStatementCacheSize(), 32);
+		assertEquals(settings.withStatementCacheSize(5).getStatementCacheSize(), 5);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid statement cache size: -1")
+	public void testNegativeStatementCacheSizeThrowsError() {
+		settings.withStatementCacheSize(-1);
+	}
+
+	@Test
+	public void testPreparedStatementIsReusedAfterConnectionIsReturned() throws Exception {
+		Connection connection = pool.getConnection();
+		PreparedStatement first = connection.prepareStatement("select x from y");
+		first.close();
+		connection.close();
+
+		connection = pool.getConnection();
+		PreparedStatement second = connection.prepareStatement("select x from y");
+
+		assertSame(((CachedPreparedStatement) second).getPhysicalStatement(),
+				((CachedPreparedStatement) first).getPhysicalStatement());
+		assertSame(second.getConnection(), connection);
+		assertEquals(connectionFactory.createdConnections.get(0).noOfPrepareStatementCalls, 1);
+		assertEquals(pool.getNoOfStatementCacheHits(), 1L);
+		assertEquals(pool.getNoOfStatementCacheMisses(), 1L);
+	}
+
+	@Test
+	public void testStatementLeakedByCallerIsClosedWhenConnectionIsReturned() throws Exception {
+		Connection connection = pool.getConnection();
+		PreparedStatement leaked = connection.prepareStatement("select x from y");
+		connection.close();
+
+		connection = pool.getConnection();
+		PreparedStatement statement = connection.prepareStatement("select x from y");
+
+		assertSame(((PooledConnection) connection).getPhysicalConnection(),
+				connectionFactory.createdConnections.get(0));
+		assertTrue(leaked.isClosed());
+		assertFalse(statement.isClosed());
+		assertEquals(pool.getNoOfStatementCacheHits(), 1L);
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertFalse(physicalConnection.preparedStatementSpy.closeWasCalled);
+		try {
+			leaked.executeQuery();
+			fail();
+		} catch (SQLException e) {
+			assertEquals(e.getMessage(), "Statement is closed");
+		}
+	}
+
+	@Test
+	public void testStatementCacheSizeZeroDoesNotCacheStatements() throws Exception {
+		pool = createPoolUsingSettings(settings.withStatementCacheSize(0));
+		Connection connection = pool.getConnection();
+		connection.prepareStatement("select x from y").close();
+		connection.prepareStatement("select x from y");
+
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertEquals(physicalConnection.noOfPrepareStatementCalls, 2);
+		assertTrue(physicalConnection.preparedStatementSpy.closeWasCalled);
+		assertEquals(pool.getNoOfStatementCacheHits(), 0L);
+	}
+
+	@Test
+	public void testAllStatementsAreWrappedAndReturnPooledConnection() throws Exception {
+		Connection connection = pool.getConnection();
+		List<Statement> statements = List.of(connection.createStatement(),
+				connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY),
+				connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT),
+				connection.prepareStatement("select x from y", ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY),
+				connection.prepareStatement("select x from y", ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT),
+				connection.prepareStatement("select x from y", Statement.RETURN_GENERATED_KEYS),
+				connection.prepareStatement("select x from y", new int[] { 1 }),
+				connection.prepareStatement("select x from y", new String[] { "x" }),
+				connection.prepareCall("call x()"),
+				connection.prepareCall("call x()", ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY),
+				connection.prepareCall("call x()", ResultSet.TYPE_FORWARD_ONLY,
+						ResultSet.CONCUR_READ_ONLY, ResultSet.HOLD_CURSORS_OVER_COMMIT));
+
+		for (Statement statement : statements) {
+			assertTrue(statement instanceof PooledStatement);
+			assertSame(statement.getConnection(), connection);
+		}
+		assertTrue(statements.get(8) instanceof CallableStatement);
+	}
+
+	@Test
+	public void testUncachedStatementsLeakedByCallerAreClosedWhenConnectionIsReturned()
+			throws Exception {
+		Connection connection = pool.getConnection();
+		Statement statement = connection.createStatement();
+		CallableStatement call = connection.prepareCall("call x()");
+		connection.close();
+
+		ConnectionSpy physicalConnection = connectionFactory.createdConnections.get(0);
+		assertTrue(statement.isClosed());
+		assertTrue(call.isClosed());
+		assertTrue(physicalConnection.preparedStatementSpy.closeWasCalled);
+		assertTrue(physicalConnection.callableStatementSpy.closeWasCalled);
+		assertEquals(pool.getNoOfIdleConnections(), 1);
+	}
+}
@@ -21,8 +21,11 @@ import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.sql.Time;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class PreparedStatementSpy implements PreparedStatement {
@@ -34,6 +37,20 @@ public class PreparedStatementSpy implements PreparedStatement {
 	public Map<String, String> usedSetStrings = new HashMap<>();
 	public Map<String, Object> usedSetObjects = new HashMap<>();
 	public int noOfAffectedRows = 0;
+	public int fetchSize = 0;
+	public int maxRows = 0;
+	public int queryTimeout = 0;
+	public boolean clearParametersWasCalled = false;
+	public boolean clearBatchWasCalled = false;
+	public List<Map<String, Object>> addedBatches = new ArrayList<>();
+	public List<Integer> executedBatchSizes = new ArrayList<>();
+	public boolean throwErrorOnExecuteBatch = false;
+	public SQLException errorToThrowOnExecute = null;
+	public boolean escapeProcessing = true;
+	public boolean poolable = true;
+	public String cursorName;
+	public boolean executeWasCalled = false;
+	private int noOfBatchesNotExecuted = 0;
 
 	@Override
 	public ResultSet executeQuery(String sql) throws SQLException {
@@ -72,14 +89,12 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public void setMaxRows(int max) throws SQLException {
-		// TODO Auto-generated method stub
-
+		maxRows = max;
 	}
 
 	@Override
 	public void setEscapeProcessing(boolean enable) throws SQLException {
-		// TODO Auto-generated method stub
-
+		escapeProcessing = enable;
 	}
 
 	@Override
@@ -90,8 +105,7 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public void setQueryTimeout(int seconds) throws SQLException {
-		// TODO Auto-generated method stub
-
+		queryTimeout = seconds;
 	}
 
 	@Override
@@ -114,8 +128,7 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public void setCursorName(String name) throws SQLException {
-		// TODO Auto-generated method stub
-
+		cursorName = name;
 	}
 
 	@Override
@@ -126,8 +139,7 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public ResultSet getResultSet() throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return executeWasCalled ? resultSet : null;
 	}
 
 	@Override
@@ -156,14 +168,12 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public void setFetchSize(int rows) throws SQLException {
-		// TODO Auto-generated method stub
-
+		fetchSize = rows;
 	}
 
 	@Override
 	public int getFetchSize() throws SQLException {
-		// TODO Auto-generated method stub
-		return 0;
+		return fetchSize;
 	}
 
 	@Override
@@ -186,14 +196,19 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public void clearBatch() throws SQLException {
-		// TODO Auto-generated method stub
-
+		clearBatchWasCalled = true;
 	}
 
 	@Override
 	public int[] executeBatch() throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		if (throwErrorOnExecuteBatch) {
+			throw new SQLException("error thrown from executeBatch in spy");
+		}
+		int[] updateCounts = new int[noOfBatchesNotExecuted];
+		Arrays.fill(updateCounts, 1);
+		executedBatchSizes.add(noOfBatchesNotExecuted);
+		noOfBatchesNotExecuted = 0;
+		return updateCounts;
 	}
 
 	@Override
@@ -264,8 +279,7 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public void setPoolable(boolean poolable) throws SQLException {
-		// TODO Auto-generated method stub
-
+		this.poolable = poolable;
 	}
 
 	@Override
@@ -301,6 +315,9 @@ public class PreparedStatementSpy implements PreparedStatement {
 	@Override
 	public ResultSet executeQuery() throws SQLException {
 		executeQueryWasCalled = true;
+		if (errorToThrowOnExecute != null) {
+			throw errorToThrowOnExecute;
+		}
 		return resultSet;
 	}
 
@@ -414,8 +431,7 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public void clearParameters() throws SQLException {
-		// TODO Auto-generated method stub
-
+		clearParametersWasCalled = true;
 	}
 
 	@Override
@@ -432,14 +448,14 @@ public class PreparedStatementSpy implements PreparedStatement {
 
 	@Override
 	public boolean execute() throws SQLException {
-		// TODO Auto-generated method stub
-		return false;
+		executeWasCalled = true;
+		return true;
 	}
 
 	@Override
 	public void addBatch() throws SQLException {
-		// TODO Auto-generated method stub
-
+		addedBatches.add(new HashMap<>(usedSetObjects));
+		noOfBatchesNotExecuted++;
 	}
 
 	@Override
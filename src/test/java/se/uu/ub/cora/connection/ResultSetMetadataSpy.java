@@ -73,8 +73,7 @@ public class ResultSetMetadataSpy implements ResultSetMetaData {
 
 	@Override
 	public String getColumnLabel(int column) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		return columnNames.get(column - 1);
 	}
 
 	@Override
@@ -32,8 +32,11 @@ public class ResultSetSpy implements ResultSet {
 	public boolean getMetadataWasCalled = false;
 	public Map<String, String> columnValues = new HashMap<>();
 	public List<Map<String, Object>> rowValues = new ArrayList<>();
+	public List<List<Object>> rowValuesByColumnIndex = new ArrayList<>();
+	public int noOfGetObjectUsingColumnLabelCalls = 0;
 	private int currentRow = -1;
 	public boolean closeWasCalled = false;
+	public int noOfNextCalls = 0;
 
 	@Override
 	public <T> T unwrap(Class<T> iface) throws SQLException {
@@ -49,8 +52,9 @@ public class ResultSetSpy implements ResultSet {
 
 	@Override
 	public boolean next() throws SQLException {
+		noOfNextCalls++;
 		currentRow++;
-		return currentRow < rowValues.size();
+		return currentRow < Math.max(rowValues.size(), rowValuesByColumnIndex.size());
 	}
 
 	@Override
@@ -283,12 +287,15 @@ public class ResultSetSpy implements ResultSet {
 
 	@Override
 	public Object getObject(int columnIndex) throws SQLException {
-		// TODO Auto-generated method stub
-		return null;
+		if (!rowValuesByColumnIndex.isEmpty()) {
+			return rowValuesByColumnIndex.get(currentRow).get(columnIndex - 1);
+		}
+		return rowValues.get(currentRow).get(columnNames.get(columnIndex - 1));
 	}
 
 	@Override
 	public Object getObject(String columnLabel) throws SQLException {
+		noOfGetObjectUsingColumnLabelCalls++;
 		return rowValues.get(currentRow).get(columnLabel);
 	}
 
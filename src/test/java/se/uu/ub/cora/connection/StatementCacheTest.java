@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.connection;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class StatementCacheTest {
+	private ConnectionSpy physicalConnection;
+	private ConnectionSpy owner;
+	private LongAdder hits;
+	private LongAdder misses;
+	private StatementCache cache;
+
+	@BeforeMethod
+	public void setUp() {
+		physicalConnection = new ConnectionSpy();
+		owner = new ConnectionSpy();
+		hits = new LongAdder();
+		misses = new LongAdder();
+		cache = new StatementCache(2, hits, misses);
+	}
+
+	private PreparedStatement prepare(String sql) throws SQLException {
+		return cache.prepareStatement(physicalConnection, owner, sql);
+	}
+
+	@Test
+	public void testFirstPrepareIsAMissAndIsCached() throws Exception {
+		CachedPreparedStatement statement = (CachedPreparedStatement) prepare("select 1");
+
+		assertSame(statement.getPhysicalStatement(), physicalConnection.preparedStatementSpy);
+		assertEquals(physicalConnection.sql, "select 1");
+		assertEquals(misses.intValue(), 1);
+		assertEquals(hits.intValue(), 0);
+		assertEquals(cache.size(), 1);
+	}
+
+	@Test
+	public void testClosedStatementIsReusedForSameSql() throws Exception {
+		CachedPreparedStatement first = (CachedPreparedStatement) prepare("select 1");
+		first.close();
+		CachedPreparedStatement second = (CachedPreparedStatement) prepare("select 1");
+
+		assertNotSame(second, first);
+		assertSame(second.getPhysicalStatement(), first.getPhysicalStatement());
+		assertTrue(first.isClosed());
+		assertFalse(second.isClosed());
+		assertEquals(physicalConnection.noOfPrepareStatementCalls, 1);
+		assertEquals(hits.intValue(), 1);
+		assertEquals(misses.intValue(), 1);
+		assertFalse(physicalConnection.preparedStatementSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testStatementInUseIsNotHandedOutAgain() throws Exception {
+		prepare("select 1");
+		PooledPreparedStatement<?> second = (PooledPreparedStatement<?>) prepare("select 1");
+
+		assertSame(second.getPhysicalStatement(), physicalConnection.preparedStatementSpy);
+		assertEquals(physicalConnection.noOfPrepareStatementCalls, 2);
+		assertEquals(misses.intValue(), 2);
+		assertEquals(cache.size(), 1);
+	}
+
+	@Test
+	public void testCloseResetsStatement() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.setMaxRows(2);
+		statement.setFetchSize(10);
+		statement.setQueryTimeout(5);
+		statement.addBatch();
+		statement.close();
+
+		PreparedStatementSpy statementSpy = physicalConnection.preparedStatementSpy;
+		assertTrue(statementSpy.clearParametersWasCalled);
+		assertTrue(statementSpy.clearBatchWasCalled);
+		assertEquals(statementSpy.maxRows, 0);
+		assertEquals(statementSpy.fetchSize, 0);
+		assertEquals(statementSpy.queryTimeout, 0);
+		assertFalse(statementSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testCloseClosesLastResultSet() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.executeQuery();
+		statement.close();
+
+		assertTrue(physicalConnection.preparedStatementSpy.resultSet.closeWasCalled);
+	}
+
+	@Test
+	public void testCloseResetsEscapeProcessingAndPoolable() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.setEscapeProcessing(false);
+		statement.setPoolable(false);
+		statement.close();
+
+		PreparedStatementSpy statementSpy = physicalConnection.preparedStatementSpy;
+		assertTrue(statementSpy.escapeProcessing);
+		assertTrue(statementSpy.poolable);
+		assertFalse(statementSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testCloseClosesResultSetOfExecute() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.execute();
+		statement.close();
+
+		assertTrue(physicalConnection.preparedStatementSpy.resultSet.closeWasCalled);
+		assertFalse(physicalConnection.preparedStatementSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testCloseClosesResultSetFromGetResultSet() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.execute();
+		statement.getResultSet();
+		statement.close();
+
+		assertTrue(physicalConnection.preparedStatementSpy.resultSet.closeWasCalled);
+	}
+
+	@Test
+	public void testStatementUsingCursorNameIsNotReused() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.setCursorName("someCursor");
+		statement.close();
+
+		assertTrue(physicalConnection.preparedStatementSpy.closeWasCalled);
+		assertEquals(cache.size(), 0);
+	}
+
+	@Test
+	public void testClosedStatementIsClosedForCaller() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.close();
+
+		assertTrue(statement.isClosed());
+	}
+
+	@Test(expectedExceptions = SQLException.class, expectedExceptionsMessageRegExp = ""
+			+ "Statement is closed")
+	public void testUseOfClosedStatementThrowsError() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.close();
+		statement.executeQuery();
+	}
+
+	@Test(expectedExceptions = SQLException.class, expectedExceptionsMessageRegExp = ""
+			+ "Statement is closed")
+	public void testClosedStatementCanNotBeUsedWhenHandedOutAgain() throws Exception {
+		PreparedStatement first = prepare("select 1");
+		first.close();
+		prepare("select 1");
+
+		first.executeQuery();
+	}
+
+	@Test
+	public void testResultSetReturnsWrapperAsStatement() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+
+		assertSame(statement.executeQuery().getStatement(), statement);
+		statement.execute();
+		assertSame(statement.getResultSet().getStatement(), statement);
+	}
+
+	@Test
+	public void testResultSetWrapsPhysicalResultSet() throws Exception {
+		PooledResultSet resultSet = (PooledResultSet) prepare("select 1").executeQuery();
+
+		assertSame(resultSet.getPhysicalResultSet(),
+				physicalConnection.preparedStatementSpy.resultSet);
+	}
+
+	@Test
+	public void testGetConnectionReturnsOwner() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+
+		assertSame(statement.getConnection(), owner);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsClosedWhenCacheIsFull() throws Exception {
+		PreparedStatementSpy firstSpy = physicalConnection.preparedStatementSpy;
+		prepare("select 1").close();
+		PreparedStatementSpy secondSpy = useNewPreparedStatementSpy();
+		prepare("select 2").close();
+		prepare("select 1").close();
+		useNewPreparedStatementSpy();
+		prepare("select 3");
+
+		assertEquals(cache.size(), 2);
+		assertTrue(secondSpy.closeWasCalled);
+		assertFalse(firstSpy.closeWasCalled);
+	}
+
+	private PreparedStatementSpy useNewPreparedStatementSpy() {
+		physicalConnection.preparedStatementSpy = new PreparedStatementSpy();
+		return physicalConnection.preparedStatementSpy;
+	}
+
+	@Test
+	public void testStatementEvictedWhileInUseIsClosedWhenClosed() throws Exception {
+		PreparedStatementSpy firstSpy = physicalConnection.preparedStatementSpy;
+		PreparedStatement first = prepare("select 1");
+		useNewPreparedStatementSpy();
+		prepare("select 2");
+		prepare("select 3");
+
+		assertFalse(firstSpy.closeWasCalled);
+		first.close();
+		assertTrue(firstSpy.closeWasCalled);
+		assertEquals(cache.size(), 2);
+	}
+
+	@Test
+	public void testStatementUsingCloseOnCompletionIsNotReused() throws Exception {
+		PreparedStatement statement = prepare("select 1");
+		statement.closeOnCompletion();
+		statement.close();
+
+		assertTrue(physicalConnection.preparedStatementSpy.closeWasCalled);
+		assertEquals(cache.size(), 0);
+	}
+
+	@Test
+	public void testCacheSizeZeroDoesNotCache() throws Exception {
+		cache = new StatementCache(0, hits, misses);
+		PooledPreparedStatement<?> statement = (PooledPreparedStatement<?>) prepare("select 1");
+
+		assertSame(statement.getPhysicalStatement(), physicalConnection.preparedStatementSpy);
+		assertEquals(cache.size(), 0);
+		assertEquals(misses.intValue(), 0);
+	}
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AsyncDataReaderTest {
+	private DataReaderSpy dataReaderSpy;
+	private Executor executor;
+	private AsyncDataReaderImp asyncDataReader;
+	private List<Object> values;
+
+	@BeforeMethod
+	public void setUp() {
+		dataReaderSpy = new DataReaderSpy();
+		executor = Runnable::run;
+		asyncDataReader = AsyncDataReaderImp.usingDataReaderAndExecutor(dataReaderSpy, executor);
+		values = List.of("someId");
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(asyncDataReader.getDataReader(), dataReaderSpy);
+		assertSame(asyncDataReader.getExecutor(), executor);
+	}
+
+	@Test
+	public void testExecuteQuery() {
+		CompletableFuture<List<Map<String, Object>>> future = asyncDataReader
+				.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+
+		assertSame(future.join(), dataReaderSpy.result);
+		assertEquals(dataReaderSpy.sql, "select x");
+		assertSame(dataReaderSpy.values, values);
+	}
+
+	@Test
+	public void testExecuteQueryUsingRowMapper() {
+		RowMapper<String> rowMapper = resultSet -> "mapped";
+
+		CompletableFuture<List<String>> future = asyncDataReader
+				.executePreparedStatementQueryUsingSqlAndValues("select x", values, rowMapper);
+
+		assertEquals(future.join(), List.of("someMappedResult"));
+		assertSame(dataReaderSpy.rowMapper, rowMapper);
+	}
+
+	@Test
+	public void testReadOneRow() {
+		CompletableFuture<Map<String, Object>> future = asyncDataReader
+				.readOneRowOrFailUsingSqlAndValues("select x", values);
+
+		assertSame(future.join(), dataReaderSpy.oneRowResult);
+	}
+
+	@Test
+	public void testReadOneRowUsingRowMapper() {
+		RowMapper<String> rowMapper = resultSet -> "mapped";
+
+		CompletableFuture<String> future = asyncDataReader
+				.readOneRowOrFailUsingSqlAndValues("select x", values, rowMapper);
+
+		assertEquals(future.join(), "someMappedResult");
+		assertSame(dataReaderSpy.rowMapper, rowMapper);
+	}
+
+	@Test
+	public void testReadOptionalOneRow() {
+		CompletableFuture<Optional<Map<String, Object>>> future = asyncDataReader
+				.readOptionalOneRowUsingSqlAndValues("select x", values);
+
+		assertSame(future.join().get(), dataReaderSpy.oneRowResult);
+		assertEquals(dataReaderSpy.sql, "select x");
+		assertSame(dataReaderSpy.values, values);
+	}
+
+	@Test
+	public void testReadOptionalOneRowWithoutRowIsEmpty() {
+		dataReaderSpy.returnEmptyOptional = true;
+
+		CompletableFuture<Optional<Map<String, Object>>> future = asyncDataReader
+				.readOptionalOneRowUsingSqlAndValues("select x", values);
+
+		assertTrue(future.join().isEmpty());
+	}
+
+	@Test
+	public void testReadOptionalOneRowUsingRowMapper() {
+		RowMapper<String> rowMapper = resultSet -> "mapped";
+
+		CompletableFuture<Optional<String>> future = asyncDataReader
+				.readOptionalOneRowUsingSqlAndValues("select x", values, rowMapper);
+
+		assertEquals(future.join().get(), "someMappedResult");
+		assertSame(dataReaderSpy.rowMapper, rowMapper);
+	}
+
+	@Test
+	public void testReadOptionalOneRowErrorCompletesFutureWithSqlStorageException() {
+		dataReaderSpy.throwError = true;
+
+		Throwable handled = asyncDataReader
+				.readOptionalOneRowUsingSqlAndValues("select x", values)
+				.handle((row, error) -> error).join();
+
+		assertTrue(handled instanceof SqlStorageException);
+	}
+
+	@Test
+	public void testPublishRowsRunsRequestsUsingExecutor() {
+		List<Runnable> tasks = new ArrayList<>();
+		asyncDataReader = AsyncDataReaderImp.usingDataReaderAndExecutor(dataReaderSpy, tasks::add);
+		List<Long> requests = new ArrayList<>();
+		dataReaderSpy.publisher = subscriber -> subscriber.onSubscribe(new Subscription() {
+			@Override
+			public void request(long n) {
+				requests.add(n);
+				subscriber.onNext(Map.of("id", "someId"));
+			}
+
+			@Override
+			public void cancel() {
+				requests.add(0L);
+			}
+		});
+		SubscriberSpy subscriber = new SubscriberSpy();
+
+		asyncDataReader.publishRowsUsingSqlAndValuesAndFetchSize("select x", values, 10)
+				.subscribe(subscriber);
+		subscriber.subscription.request(1);
+
+		assertEquals(dataReaderSpy.sql, "select x");
+		assertEquals(dataReaderSpy.fetchSize, 10);
+		assertTrue(requests.isEmpty());
+		assertEquals(tasks.size(), 1);
+		tasks.get(0).run();
+		assertEquals(requests, List.of(1L));
+		assertEquals(subscriber.receivedRows, List.of(Map.of("id", "someId")));
+
+		subscriber.subscription.cancel();
+		tasks.get(1).run();
+		assertEquals(requests, List.of(1L, 0L));
+	}
+
+	@Test
+	public void testPublishRowsRejectedRequestCancelsAndSignalsError() {
+		asyncDataReader = AsyncDataReaderImp.usingDataReaderAndExecutor(dataReaderSpy,
+				runnable -> {
+					throw new RejectedExecutionException("rejected");
+				});
+		List<String> calls = new ArrayList<>();
+		dataReaderSpy.publisher = subscriber -> subscriber.onSubscribe(new Subscription() {
+			@Override
+			public void request(long n) {
+				calls.add("request");
+			}
+
+			@Override
+			public void cancel() {
+				calls.add("cancel");
+			}
+		});
+		SubscriberSpy subscriber = new SubscriberSpy();
+
+		asyncDataReader.publishRowsUsingSqlAndValuesAndFetchSize("select x", values, 10)
+				.subscribe(subscriber);
+		subscriber.subscription.request(1);
+
+		assertEquals(calls, List.of("cancel"));
+		assertEquals(subscriber.error.getMessage(), "Error starting async task");
+		assertEquals(subscriber.error.getCause().getMessage(), "rejected");
+	}
+
+	@Test
+	public void testStreamRows() {
+		List<Map<String, Object>> streamed = new ArrayList<>();
+
+		CompletableFuture<Void> future = asyncDataReader
+				.streamRowsUsingSqlAndValuesAndFetchSize("select x", values, 10, streamed::add);
+
+		future.join();
+		assertEquals(dataReaderSpy.fetchSize, 10);
+		assertEquals(streamed.size(), 1);
+	}
+
+	@Test
+	public void testErrorCompletesFutureWithSqlStorageException() throws Exception {
+		dataReaderSpy.throwError = true;
+
+		CompletableFuture<List<Map<String, Object>>> future = asyncDataReader
+				.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+
+		assertTrue(future.isCompletedExceptionally());
+		try {
+			future.get();
+			fail("an error should have been thrown");
+		} catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof SqlStorageException);
+			assertEquals(e.getCause().getMessage(),
+					"Error from executePreparedStatementQueryUsingSqlAndValues in DataReaderSpy");
+		}
+	}
+
+	@Test
+	public void testErrorIsGivenUnwrappedToHandlers() {
+		dataReaderSpy.throwError = true;
+
+		Throwable handled = asyncDataReader
+				.readOneRowOrFailUsingSqlAndValues("select x", values)
+				.handle((row, error) -> error).join();
+
+		assertTrue(handled instanceof SqlStorageException);
+	}
+
+	@Test
+	public void testRejectedTaskCompletesFutureWithSqlStorageException() {
+		asyncDataReader = AsyncDataReaderImp.usingDataReaderAndExecutor(dataReaderSpy,
+				runnable -> {
+					throw new RejectedExecutionException("rejected");
+				});
+
+		Throwable handled = asyncDataReader
+				.readOneRowOrFailUsingSqlAndValues("select x", values)
+				.handle((row, error) -> error).join();
+
+		assertEquals(handled.getMessage(), "Error starting async task");
+		assertEquals(handled.getCause().getMessage(), "rejected");
+	}
+
+	@Test
+	public void testQueriesRunOnBoundedExecutor() {
+		ExecutorService boundedExecutor = SqlExecutors.createBoundedExecutorUsingNoOfThreads(2);
+		asyncDataReader = AsyncDataReaderImp.usingDataReaderAndExecutor(dataReaderSpy,
+				boundedExecutor);
+		CompletableFuture<Map<String, Object>> future = asyncDataReader
+				.readOneRowOrFailUsingSqlAndValues("select x", values);
+
+		assertEquals(future.join().get("id"), "someId");
+		boundedExecutor.shutdown();
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AsyncDataUpdaterTest {
+	private DataUpdaterSpy dataUpdaterSpy;
+	private Executor executor;
+	private AsyncDataUpdaterImp asyncDataUpdater;
+
+	@BeforeMethod
+	public void setUp() {
+		dataUpdaterSpy = new DataUpdaterSpy();
+		executor = Runnable::run;
+		asyncDataUpdater = AsyncDataUpdaterImp.usingDataUpdaterAndExecutor(dataUpdaterSpy,
+				executor);
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(asyncDataUpdater.getDataUpdater(), dataUpdaterSpy);
+		assertSame(asyncDataUpdater.getExecutor(), executor);
+	}
+
+	@Test
+	public void testExecute() {
+		dataUpdaterSpy.noOfAffectedRows = 3;
+		List<Object> values = List.of("someId");
+
+		int affectedRows = asyncDataUpdater.executeUsingSqlAndValues("update x", values).join();
+
+		assertEquals(affectedRows, 3);
+		assertEquals(dataUpdaterSpy.sql, "update x");
+		assertSame(dataUpdaterSpy.values, values);
+	}
+
+	@Test
+	public void testExecuteBatch() {
+		List<List<Object>> listOfValues = List.of(List.of("a"), List.of("b"));
+
+		int[] updateCounts = asyncDataUpdater
+				.executeBatchUsingSqlAndListOfValuesAndBatchSize("update x", listOfValues, 10)
+				.join();
+
+		assertEquals(updateCounts.length, 2);
+		assertSame(dataUpdaterSpy.listOfValues, listOfValues);
+		assertEquals(dataUpdaterSpy.batchSize, 10);
+	}
+
+	@Test
+	public void testExecuteBatches() {
+		Map<String, List<List<Object>>> listOfValuesForSql = new LinkedHashMap<>();
+		listOfValuesForSql.put("update x", List.of(List.of("a")));
+
+		Map<String, int[]> updateCounts = asyncDataUpdater
+				.executeBatchesUsingListOfValuesForSqlAndBatchSize(listOfValuesForSql, 5).join();
+
+		assertEquals(updateCounts.get("update x").length, 1);
+		assertSame(dataUpdaterSpy.listOfValuesForSql, listOfValuesForSql);
+		assertEquals(dataUpdaterSpy.batchSize, 5);
+	}
+
+	@Test
+	public void testErrorIsGivenUnwrappedToHandlers() {
+		dataUpdaterSpy.throwError = true;
+
+		Throwable handled = asyncDataUpdater.executeUsingSqlAndValues("update x", List.of())
+				.handle((affectedRows, error) -> error).join();
+
+		assertTrue(handled instanceof SqlStorageException);
+		assertEquals(handled.getMessage(), "Error from executeUsingSqlAndValues in DataUpdaterSpy");
+	}
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CachingRecordReaderTest {
+	private RecordReaderSpy recordReaderSpy;
+	private RecordCache recordCache;
+	private CachingRecordReader recordReader;
+	private Map<String, Object> conditions;
+
+	@BeforeMethod
+	public void setUp() {
+		recordReaderSpy = new RecordReaderSpy();
+		recordCache = RecordCache.usingMaxSize(10);
+		recordCache.cacheTableUsingTimeToLive("country", Duration.ofMinutes(1));
+		recordReader = CachingRecordReader.usingRecordReaderAndRecordCache(recordReaderSpy,
+				recordCache);
+		conditions = new HashMap<>();
+		conditions.put("alpha2code", "SE");
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(recordReader.getRecordReader(), recordReaderSpy);
+		assertSame(recordReader.getRecordCache(), recordCache);
+	}
+
+	@Test
+	public void testReadAllFromCachedTableIsCached() {
+		List<Map<String, Object>> first = recordReader.readAllFromTable("country");
+		List<Map<String, Object>> second = recordReader.readAllFromTable("country");
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertEquals(recordReaderSpy.tableName, "country");
+		assertSame(second, first);
+	}
+
+	@Test
+	public void testReadFromCachedTableUsingConditionsIsCached() {
+		recordReader.readFromTableUsingConditions("country", conditions);
+		List<Map<String, Object>> result = recordReader.readFromTableUsingConditions("country",
+				conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertSame(recordReaderSpy.conditions, conditions);
+		assertEquals(result.get(0).get("read"), 1);
+	}
+
+	@Test
+	public void testReadOneRowFromCachedTableIsCached() {
+		recordReader.readOneRowFromDbUsingTableAndConditions("country", conditions);
+		Map<String, Object> row = recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertEquals(row.get("read"), 1);
+	}
+
+	@Test
+	public void testReadsFromTableNotCachedAreNotCached() {
+		recordReader.readAllFromTable("organisation");
+		recordReader.readFromTableUsingConditions("organisation", conditions);
+		recordReader.readOneRowFromDbUsingTableAndConditions("organisation", conditions);
+		recordReader.readOneRowFromDbUsingTableAndConditions("organisation", conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 4);
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testReadsUsingRowMapperAreNotCached() {
+		RowMapper<String> rowMapper = resultSet -> "mapped";
+		recordReader.readAllFromTable("country", rowMapper);
+		recordReader.readFromTableUsingConditions("country", conditions, rowMapper);
+		Object result = recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				conditions, rowMapper);
+
+		assertEquals(recordReaderSpy.noOfReads, 3);
+		assertSame(recordReaderSpy.rowMapper, rowMapper);
+		assertEquals(result, recordReaderSpy.mappedResult);
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testFailedReadIsNotCached() {
+		recordReaderSpy.throwError = true;
+		try {
+			recordReader.readOneRowFromDbUsingTableAndConditions("country", conditions);
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), "Error from RecordReaderSpy");
+		}
+		recordReaderSpy.throwError = false;
+		recordReader.readOneRowFromDbUsingTableAndConditions("country", conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+	}
+
+	@Test
+	public void testUpdateThroughCachingRecordUpdaterInvalidatesTable() {
+		CachingRecordUpdater recordUpdater = CachingRecordUpdater
+				.usingRecordUpdaterAndRecordCache(new RecordUpdaterSpy(), recordCache);
+		recordReader.readFromTableUsingConditions("country", conditions);
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("country",
+				new HashMap<>(), conditions);
+		List<Map<String, Object>> result = recordReader.readFromTableUsingConditions("country",
+				conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+		assertEquals(result.get(0).get("read"), 2);
+	}
+
+	@Test
+	public void testReadUsingKeysIsNotCached() {
+		recordReader.readFromTableUsingKeyColumnAndKeys("country", "alpha2code", List.of("SE"));
+		recordReader.readFromTableUsingKeyColumnAndKeys("country", "alpha2code", List.of("SE"));
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+		assertEquals(recordReaderSpy.keyColumn, "alpha2code");
+	}
+
+	@Test
+	public void testReadPageIsNotCached() {
+		List<String> keyColumns = List.of("id");
+		List<Object> afterKey = List.of(1);
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"country", conditions, keyColumns, afterKey, 10);
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"country", conditions, keyColumns, afterKey, 10);
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+		assertSame(recordReaderSpy.keyColumns, keyColumns);
+		assertSame(recordReaderSpy.afterKey, afterKey);
+		assertEquals(recordReaderSpy.pageSize, 10);
+	}
+
+	@Test
+	public void testReadsUsingColumnNamesArePassedOn() {
+		List<String> columnNames = List.of("alpha2code");
+		Map<String, Object> someConditions = new HashMap<>();
+		someConditions.put("alpha2code", "SE");
+
+		recordReader.readAllFromTable("country", columnNames);
+		recordReader.readFromTableUsingConditions("country", someConditions, columnNames);
+		recordReader.readOneRowFromDbUsingTableAndConditions("country", someConditions,
+				columnNames);
+
+		assertEquals(recordReaderSpy.noOfReads, 3);
+		assertSame(recordReaderSpy.conditions, someConditions);
+		assertSame(recordReaderSpy.columnNames, columnNames);
+	}
+
+	@Test
+	public void testReadOptionalOneRowFromCachedTableIsCached() {
+		recordReader.readOptionalOneRowFromDbUsingTableAndConditions("country", conditions);
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("country", conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertEquals(row.get().get("read"), 1);
+	}
+
+	@Test
+	public void testReadOptionalMissFromCachedTableIsCached() {
+		recordReaderSpy.returnNoRows = true;
+		recordReader.readOptionalOneRowFromDbUsingTableAndConditions("country", conditions);
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("country", conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertTrue(row.isEmpty());
+	}
+
+	@Test
+	public void testReadOptionalFromTableNotCachedIsNotCached() {
+		recordReaderSpy.returnNoRows = true;
+		recordReader.readOptionalOneRowFromDbUsingTableAndConditions("organisation", conditions);
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("organisation", conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+		assertTrue(row.isEmpty());
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testReadOptionalWithMoreThanOneCachedRowIsReadByRecordReader() {
+		recordReaderSpy.returnTwoRows = true;
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("country", conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+		assertEquals(row.get().get("read"), 2);
+	}
+
+	@Test
+	public void testReadOptionalWithMoreThanOneCachedRowThrowsErrorFromRecordReader() {
+		recordReaderSpy.returnTwoRows = true;
+		SqlStorageException error = SqlStorageException.withMessageAndException(
+				"Error reading data from country", new RuntimeException("more than one row"));
+		recordReaderSpy.errorToThrowOnOptionalRead = error;
+
+		try {
+			recordReader.readOptionalOneRowFromDbUsingTableAndConditions("country", conditions);
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertSame(e, error);
+		}
+	}
+}
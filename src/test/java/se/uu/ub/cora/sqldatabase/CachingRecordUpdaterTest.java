@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CachingRecordUpdaterTest {
+	private RecordUpdaterSpy recordUpdaterSpy;
+	private RecordCache recordCache;
+	private CachingRecordUpdater recordUpdater;
+	private Map<String, Object> values;
+	private Map<String, Object> conditions;
+
+	@BeforeMethod
+	public void setUp() {
+		recordUpdaterSpy = new RecordUpdaterSpy();
+		recordCache = RecordCache.usingMaxSize(10);
+		recordCache.cacheTableUsingTimeToLive("country", Duration.ofMinutes(1));
+		recordCache.cacheTableUsingTimeToLive("organisation", Duration.ofMinutes(1));
+		recordUpdater = CachingRecordUpdater.usingRecordUpdaterAndRecordCache(recordUpdaterSpy,
+				recordCache);
+		values = new HashMap<>();
+		values.put("name", "Sweden");
+		conditions = new HashMap<>();
+		conditions.put("alpha2code", "SE");
+		readIntoCache("country");
+		readIntoCache("organisation");
+	}
+
+	private void readIntoCache(String tableName) {
+		recordCache.getOrReadListUsingTableAndConditions(tableName, conditions,
+				() -> List.of(new HashMap<>()));
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(recordUpdater.getRecordUpdater(), recordUpdaterSpy);
+		assertSame(recordUpdater.getTableInvalidator(), recordCache);
+	}
+
+	@Test
+	public void testUpdateIsDelegatedAndInvalidatesTable() {
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("country", values,
+				conditions);
+
+		assertEquals(recordUpdaterSpy.tableName, "country");
+		assertSame(recordUpdaterSpy.values, values);
+		assertSame(recordUpdaterSpy.conditions, conditions);
+		assertEquals(recordCache.size(), 1);
+	}
+
+	@Test
+	public void testBulkUpdateIsDelegatedAndInvalidatesTable() {
+		List<RowUpdate> rowUpdates = List
+				.of(RowUpdate.usingColumnsWithValuesAndConditions(values, conditions));
+		recordUpdater.updateTableUsingNameAndRowUpdatesAndBatchSize("country", rowUpdates, 50);
+
+		assertEquals(recordUpdaterSpy.tableName, "country");
+		assertSame(recordUpdaterSpy.rowUpdates, rowUpdates);
+		assertEquals(recordUpdaterSpy.batchSize, 50);
+		assertEquals(recordCache.size(), 1);
+	}
+
+	@Test
+	public void testFailedUpdateInvalidatesTable() {
+		recordUpdaterSpy.throwError = true;
+		try {
+			recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("country", values,
+					conditions);
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), "Error from RecordUpdaterSpy");
+		}
+		assertEquals(recordCache.size(), 1);
+	}
+
+	@Test
+	public void testUpdateOfAllTablesIsPublished() {
+		TableChangePublisherSpy publisher = new TableChangePublisherSpy();
+		recordCache.publishTableChangesUsing(publisher);
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("country", values,
+				conditions);
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("notCached", values,
+				conditions);
+
+		assertEquals(publisher.publishedTables, List.of("country", "notCached"));
+	}
+
+	@Test
+	public void testUpdateInvalidatesAndPublishesTableInTableSnapshots() {
+		TableSnapshots tableSnapshots = new TableSnapshots();
+		tableSnapshots.snapshotTableUsingRefreshInterval("country", Duration.ofMinutes(1));
+		TableChangePublisherSpy publisher = new TableChangePublisherSpy();
+		tableSnapshots.publishTableChangesUsing(publisher);
+		List<Map<String, Object>> rows = List.of(new HashMap<>());
+		TableSnapshot snapshot = tableSnapshots.getOrLoadSnapshot("country",
+				() -> TableSnapshot.usingTableNameAndColumnNamesAndRows("country", Set.of(), rows));
+		recordUpdater = CachingRecordUpdater.usingRecordUpdaterAndTableInvalidator(
+				recordUpdaterSpy, tableSnapshots);
+
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("country", values,
+				conditions);
+
+		assertSame(recordUpdater.getTableInvalidator(), tableSnapshots);
+		assertNotSame(tableSnapshots.getOrLoadSnapshot("country",
+				() -> TableSnapshot.usingTableNameAndColumnNamesAndRows("country", Set.of(), rows)),
+				snapshot);
+		assertEquals(publisher.publishedTables, List.of("country"));
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CoalescingDataReaderTest {
+	private DataReaderSpy dataReaderSpy;
+	private CoalescingDataReader dataReader;
+	private List<Object> values;
+
+	@BeforeMethod
+	public void setUp() {
+		dataReaderSpy = new DataReaderSpy();
+		dataReader = CoalescingDataReader.usingDataReader(dataReaderSpy);
+		values = new ArrayList<>();
+		values.add("someId");
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(dataReader.getDataReader(), dataReaderSpy);
+	}
+
+	@Test
+	public void testExecuteQueryIsPassedOn() {
+		List<Map<String, Object>> result = dataReader
+				.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+
+		assertEquals(dataReaderSpy.sql, "select x");
+		assertSame(dataReaderSpy.values, values);
+		assertEquals(result.get(0).get("id"), "someId");
+		assertEquals(dataReader.getNoOfRunningQueries(), 0);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testExecuteQueryResultIsUnmodifiable() {
+		List<Map<String, Object>> result = dataReader
+				.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+		result.clear();
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testExecuteQueryResultRowIsUnmodifiable() {
+		List<Map<String, Object>> result = dataReader
+				.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+		result.get(0).put("id", "otherId");
+	}
+
+	@Test
+	public void testSequentialQueriesAreNotCoalesced() {
+		dataReader.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+		dataReader.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+
+		assertEquals(dataReaderSpy.noOfQueries, 2);
+		assertEquals(dataReader.getNoOfCoalescedCalls(), 0L);
+	}
+
+	@Test
+	public void testConcurrentIdenticalQueriesAreCoalesced() throws Exception {
+		dataReaderSpy.finishQuery = new CountDownLatch(1);
+		AtomicReference<Object> firstResult = new AtomicReference<>();
+		AtomicReference<Object> secondResult = new AtomicReference<>();
+
+		Thread first = startQueryInThread("select x", values, firstResult);
+		dataReaderSpy.queryStarted.await(10, TimeUnit.SECONDS);
+		List<Object> equalValues = new ArrayList<>(values);
+		Thread second = startQueryInThread("select x", equalValues, secondResult);
+		waitUntilNoOfCoalescedCallsIs(1);
+		dataReaderSpy.finishQuery.countDown();
+		first.join();
+		second.join();
+
+		assertEquals(dataReaderSpy.noOfQueries, 1);
+		assertSame(secondResult.get(), firstResult.get());
+		assertEquals(dataReader.getNoOfRunningQueries(), 0);
+	}
+
+	private Thread startQueryInThread(String sql, List<Object> values,
+			AtomicReference<Object> result) {
+		Thread thread = new Thread(() -> {
+			try {
+				result.set(dataReader.executePreparedStatementQueryUsingSqlAndValues(sql, values));
+			} catch (SqlStorageException e) {
+				result.set(e);
+			}
+		});
+		thread.start();
+		return thread;
+	}
+
+	private void waitUntilNoOfCoalescedCallsIs(long expected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (dataReader.getNoOfCoalescedCalls() < expected
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertEquals(dataReader.getNoOfCoalescedCalls(), expected);
+	}
+
+	@Test
+	public void testConcurrentQueriesWithDifferentValuesAreNotCoalesced() throws Exception {
+		dataReaderSpy.finishQuery = new CountDownLatch(1);
+		AtomicReference<Object> firstResult = new AtomicReference<>();
+		AtomicReference<Object> secondResult = new AtomicReference<>();
+
+		Thread first = startQueryInThread("select x", values, firstResult);
+		dataReaderSpy.queryStarted.await(10, TimeUnit.SECONDS);
+		dataReaderSpy.finishQuery.countDown();
+		Thread second = startQueryInThread("select x", List.of("otherId"), secondResult);
+		first.join();
+		second.join();
+
+		assertEquals(dataReaderSpy.noOfQueries, 2);
+		assertEquals(dataReader.getNoOfCoalescedCalls(), 0L);
+	}
+
+	@Test
+	public void testErrorIsGivenToAllCoalescedCallers() throws Exception {
+		dataReaderSpy.finishQuery = new CountDownLatch(1);
+		dataReaderSpy.throwError = true;
+		AtomicReference<Object> firstResult = new AtomicReference<>();
+		AtomicReference<Object> secondResult = new AtomicReference<>();
+
+		Thread first = startQueryInThread("select x", values, firstResult);
+		dataReaderSpy.queryStarted.await(10, TimeUnit.SECONDS);
+		Thread second = startQueryInThread("select x", values, secondResult);
+		waitUntilNoOfCoalescedCallsIs(1);
+		dataReaderSpy.finishQuery.countDown();
+		first.join();
+		second.join();
+
+		SqlStorageException firstError = (SqlStorageException) firstResult.get();
+		SqlStorageException secondError = (SqlStorageException) secondResult.get();
+		assertEquals(secondError.getMessage(), firstError.getMessage());
+		assertSame(secondError.getCause(), firstError);
+		assertEquals(dataReader.getNoOfRunningQueries(), 0);
+	}
+
+	@Test
+	public void testQueryAfterErrorRunsNewQuery() {
+		dataReaderSpy.throwError = true;
+		try {
+			dataReader.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertTrue(e.getMessage().startsWith("Error from"));
+		}
+		dataReaderSpy.throwError = false;
+
+		dataReader.executePreparedStatementQueryUsingSqlAndValues("select x", values);
+
+		assertEquals(dataReaderSpy.noOfQueries, 2);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testReadOneRowResultIsUnmodifiable() {
+		Map<String, Object> row = dataReader.readOneRowOrFailUsingSqlAndValues("select x",
+				values);
+
+		assertEquals(dataReaderSpy.sql, "select x");
+		assertSame(dataReaderSpy.values, values);
+		assertEquals(row.get("id"), "someId");
+		row.put("id", "otherId");
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testReadOptionalOneRowResultIsUnmodifiable() {
+		Optional<Map<String, Object>> row = dataReader
+				.readOptionalOneRowUsingSqlAndValues("select x", values);
+
+		assertEquals(dataReaderSpy.sql, "select x");
+		assertEquals(row.get().get("id"), "someId");
+		row.get().put("id", "otherId");
+	}
+
+	@Test
+	public void testReadOptionalOneRowMissIsPassedOn() {
+		dataReaderSpy.returnEmptyOptional = true;
+
+		Optional<Map<String, Object>> row = dataReader
+				.readOptionalOneRowUsingSqlAndValues("select x", values);
+
+		assertTrue(row.isEmpty());
+		assertEquals(dataReaderSpy.noOfQueries, 1);
+	}
+
+	@Test
+	public void testReadUsingRowMapperIsPassedOn() {
+		RowMapper<String> rowMapper = resultSet -> "mapped";
+
+		List<String> result = dataReader.executePreparedStatementQueryUsingSqlAndValues("select x",
+				values, rowMapper);
+		String one = dataReader.readOneRowOrFailUsingSqlAndValues("select y", values, rowMapper);
+
+		assertEquals(result, List.of("someMappedResult"));
+		assertEquals(one, "someMappedResult");
+		assertSame(dataReaderSpy.rowMapper, rowMapper);
+		assertEquals(dataReaderSpy.sql, "select y");
+	}
+
+	@Test
+	public void testStreamIsPassedOn() {
+		List<Map<String, Object>> streamed = new ArrayList<>();
+
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize("select x", values, 10, streamed::add);
+
+		assertEquals(dataReaderSpy.fetchSize, 10);
+		assertEquals(streamed.size(), 1);
+	}
+
+	@Test
+	public void testPublishIsPassedOn() {
+		assertSame(dataReader.publishRowsUsingSqlAndValuesAndFetchSize("select x", values, 10),
+				dataReaderSpy.publisher);
+		assertEquals(dataReaderSpy.fetchSize, 10);
+	}
+}
@@ -20,14 +20,21 @@
 package se.uu.ub.cora.sqldatabase;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -421,4 +428,552 @@ public class DataReaderImpTest {
 		assertEquals(preparedStatementSpy.usedSetObjects.get("2"), "SWE");
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testStreamRowsHandsEachRowToConsumer() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		List<String> columnNames = createListOfColumnNames();
+		resultSetSpy.columnNames = columnNames;
+		resultSetSpy.rowValues.add(createMapWithColumnNamesAndValues(columnNames, ""));
+		resultSetSpy.rowValues.add(createMapWithColumnNamesAndValues(columnNames, "2"));
+
+		List<Map<String, Object>> consumedRows = new ArrayList<>();
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100,
+				consumedRows::add);
+
+		assertEquals(consumedRows.size(), 2);
+		assertEquals(consumedRows.get(0).get(columnNames.get(0)), "value1");
+		assertEquals(consumedRows.get(1).get(columnNames.get(0)), "value12");
+	}
+
+	@Test
+	public void testStreamRowsSetsFetchSizeAndValues() throws Exception {
+		values.add("SE");
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100, row -> {
+		});
+		PreparedStatementSpy preparedStatementSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy;
+		assertEquals(sqlConnectionProviderSpy.connection.sql, SOME_SQL);
+		assertEquals(preparedStatementSpy.fetchSize, 100);
+		assertEquals(preparedStatementSpy.usedSetObjects.get("1"), "SE");
+	}
+
+	@Test
+	public void testStreamRowsTurnsOffAutoCommitAndRestoresIt() throws Exception {
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100, row -> {
+		});
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		assertEquals(connectionSpy.autoCommitCalls, List.of(false, true));
+	}
+
+	@Test
+	public void testStreamRowsClosesResources() throws Exception {
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100, row -> {
+		});
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		assertTrue(connectionSpy.closeWasCalled);
+		assertTrue(connectionSpy.preparedStatementSpy.closeWasCalled);
+		assertTrue(connectionSpy.preparedStatementSpy.resultSet.closeWasCalled);
+	}
+
+	@Test
+	public void testStreamRowsRestoresAutoCommitWhenConsumerThrowsError() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+		try {
+			dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100, row -> {
+				throw new RuntimeException("error from consumer");
+			});
+		} catch (RuntimeException e) {
+			assertEquals(e.getMessage(), "error from consumer");
+		}
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		assertEquals(connectionSpy.autoCommitCalls, List.of(false, true));
+		assertTrue(connectionSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testStreamRowsReadErrorIsKeptWhenRestoringAutoCommitFails() throws Exception {
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		connectionSpy.preparedStatementSpy.errorToThrowOnExecute = new SQLException(
+				"error thrown from executeQuery in spy");
+		connectionSpy.throwErrorWhenAutoCommitIsTurnedOn = true;
+		try {
+			dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100, row -> {
+			});
+			fail();
+		} catch (SqlStorageException e) {
+			Throwable readError = e.getCause();
+			assertEquals(readError.getMessage(), "error thrown from executeQuery in spy");
+			Throwable[] suppressed = readError.getSuppressed();
+			assertEquals(suppressed.length, 1);
+			assertEquals(suppressed[0].getMessage(), "error thrown from setAutoCommit in spy");
+		}
+		assertEquals(connectionSpy.autoCommitCalls, List.of(false, true));
+		assertTrue(connectionSpy.closeWasCalled);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ ERROR_READING_DATA_USING_SQL + SOME_SQL)
+	public void testStreamRowsSqlErrorThrowsError() throws Exception {
+		sqlConnectionProviderSpy.returnErrorConnection = true;
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100, row -> {
+		});
+	}
+
+	@Test
+	public void testStreamRowsSqlErrorLogs() throws Exception {
+		sqlConnectionProviderSpy.returnErrorConnection = true;
+		try {
+			dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100, row -> {
+			});
+		} catch (SqlStorageException e) {
+			assertEquals(e.getCause().getMessage(), "error thrown from prepareStatement in spy");
+		}
+		assertEquals(loggerFactorySpy.getErrorLogMessageUsingClassNameAndNo(testedClassName, 0),
+				ERROR_READING_DATA_USING_SQL + SOME_SQL);
+	}
+
+	@Test
+	public void testPublishRowsDoesNotQueryBeforeRequest() throws Exception {
+		SubscriberSpy subscriber = new SubscriberSpy();
+
+		dataReader.publishRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100)
+				.subscribe(subscriber);
+
+		assertNotNull(subscriber.subscription);
+		assertEquals(sqlConnectionProviderSpy.noOfGetConnectionCalls, 0);
+	}
+
+	@Test
+	public void testPublishRowsReadsOnlyRequestedRows() throws Exception {
+		ResultSetSpy resultSetSpy = setThreeRowsInResultSetSpy();
+		values.add("SE");
+		SubscriberSpy subscriber = subscribeToPublishedRows();
+
+		subscriber.subscription.request(2);
+
+		PreparedStatementSpy preparedStatementSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy;
+		assertEquals(sqlConnectionProviderSpy.connection.sql, SOME_SQL);
+		assertEquals(preparedStatementSpy.fetchSize, 100);
+		assertEquals(preparedStatementSpy.usedSetObjects.get("1"), "SE");
+		assertEquals(subscriber.receivedRows.size(), 2);
+		assertEquals(subscriber.receivedRows.get(1).get("someColumnName"), "value12");
+		assertEquals(resultSetSpy.noOfNextCalls, 2);
+		assertEquals(sqlConnectionProviderSpy.connection.autoCommitCalls, List.of(false));
+		assertFalse(sqlConnectionProviderSpy.connection.closeWasCalled);
+	}
+
+	private ResultSetSpy setThreeRowsInResultSetSpy() {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		List<String> columnNames = createListOfColumnNames();
+		resultSetSpy.columnNames = columnNames;
+		resultSetSpy.rowValues.add(createMapWithColumnNamesAndValues(columnNames, ""));
+		resultSetSpy.rowValues.add(createMapWithColumnNamesAndValues(columnNames, "2"));
+		resultSetSpy.rowValues.add(createMapWithColumnNamesAndValues(columnNames, "3"));
+		return resultSetSpy;
+	}
+
+	private SubscriberSpy subscribeToPublishedRows() {
+		SubscriberSpy subscriber = new SubscriberSpy();
+		dataReader.publishRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 100)
+				.subscribe(subscriber);
+		return subscriber;
+	}
+
+	@Test
+	public void testPublishRowsCompletesAndReleasesConnectionAfterLastRow() throws Exception {
+		setThreeRowsInResultSetSpy();
+		SubscriberSpy subscriber = subscribeToPublishedRows();
+
+		subscriber.subscription.request(2);
+		subscriber.subscription.request(2);
+
+		assertEquals(subscriber.receivedRows.size(), 3);
+		assertTrue(subscriber.completed);
+		assertResourcesAreReleased();
+	}
+
+	private void assertResourcesAreReleased() {
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		assertEquals(connectionSpy.autoCommitCalls, List.of(false, true));
+		assertTrue(connectionSpy.closeWasCalled);
+		assertTrue(connectionSpy.preparedStatementSpy.closeWasCalled);
+		assertTrue(connectionSpy.preparedStatementSpy.resultSet.closeWasCalled);
+	}
+
+	@Test
+	public void testPublishRowsRequestFromOnNextIsNotRecursive() throws Exception {
+		setThreeRowsInResultSetSpy();
+		SubscriberSpy subscriber = subscribeToPublishedRows();
+		subscriber.requestOneMoreOnNext = true;
+
+		subscriber.subscription.request(1);
+
+		assertEquals(subscriber.receivedRows.size(), 3);
+		assertTrue(subscriber.completed);
+		assertEquals(subscriber.noOfCompleteAndErrorCalls, 1);
+	}
+
+	@Test
+	public void testPublishRowsCancelReleasesConnection() throws Exception {
+		ResultSetSpy resultSetSpy = setThreeRowsInResultSetSpy();
+		SubscriberSpy subscriber = subscribeToPublishedRows();
+		subscriber.cancelAfterNoOfRows = 1;
+
+		subscriber.subscription.request(Long.MAX_VALUE);
+		subscriber.subscription.request(1);
+
+		assertEquals(subscriber.receivedRows.size(), 1);
+		assertEquals(resultSetSpy.noOfNextCalls, 1);
+		assertFalse(subscriber.completed);
+		assertResourcesAreReleased();
+	}
+
+	@Test
+	public void testPublishRowsCancelBeforeRequestDoesNotQuery() throws Exception {
+		SubscriberSpy subscriber = subscribeToPublishedRows();
+
+		subscriber.subscription.cancel();
+		subscriber.subscription.request(1);
+
+		assertEquals(sqlConnectionProviderSpy.noOfGetConnectionCalls, 0);
+		assertEquals(subscriber.noOfCompleteAndErrorCalls, 0);
+	}
+
+	@Test
+	public void testPublishRowsSqlErrorIsSignalledAndLogged() throws Exception {
+		sqlConnectionProviderSpy.returnErrorConnection = true;
+		SubscriberSpy subscriber = subscribeToPublishedRows();
+
+		subscriber.subscription.request(1);
+
+		assertTrue(subscriber.error instanceof SqlStorageException);
+		assertEquals(subscriber.error.getMessage(), ERROR_READING_DATA_USING_SQL + SOME_SQL);
+		assertEquals(subscriber.error.getCause().getMessage(),
+				"error thrown from prepareStatement in spy");
+		assertEquals(loggerFactorySpy.getErrorLogMessageUsingClassNameAndNo(testedClassName, 0),
+				ERROR_READING_DATA_USING_SQL + SOME_SQL);
+		assertEquals(sqlConnectionProviderSpy.connection.autoCommitCalls, List.of(false, true));
+		assertTrue(sqlConnectionProviderSpy.connection.closeWasCalled);
+	}
+
+	@Test
+	public void testPublishRowsNonPositiveRequestIsSignalledAsError() throws Exception {
+		setThreeRowsInResultSetSpy();
+		SubscriberSpy subscriber = subscribeToPublishedRows();
+		subscriber.subscription.request(1);
+
+		subscriber.subscription.request(0);
+
+		assertTrue(subscriber.error instanceof IllegalArgumentException);
+		assertEquals(subscriber.error.getMessage(),
+				"Invalid request of 0 rows, must be positive");
+		assertResourcesAreReleased();
+	}
+
+	@Test
+	public void testValuesAreReadUsingColumnIndex() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+
+		Map<String, Object> readRow = dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL,
+				values);
+
+		assertEquals(readRow.get("someColumnName"), "value1");
+		assertEquals(resultSetSpy.noOfGetObjectUsingColumnLabelCalls, 0);
+	}
+
+	@Test
+	public void testDuplicateColumnLabelUsesValueFromFirstColumn() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		resultSetSpy.columnNames = List.of("id", "name", "id");
+		resultSetSpy.rowValuesByColumnIndex.add(List.of("firstId", "someName", "secondId"));
+
+		Map<String, Object> readRow = dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL,
+				values);
+
+		assertEquals(readRow.size(), 2);
+		assertEquals(readRow.get("id"), "firstId");
+		assertEquals(readRow.get("name"), "someName");
+	}
+
+	@Test
+	public void testExecuteUsingRowMapperReturnsMappedRows() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		List<String> columnNames = createListOfColumnNames();
+		resultSetSpy.columnNames = columnNames;
+		resultSetSpy.rowValues.add(createMapWithColumnNamesAndValues(columnNames, ""));
+		resultSetSpy.rowValues.add(createMapWithColumnNamesAndValues(columnNames, "2"));
+
+		List<String> result = dataReader.executePreparedStatementQueryUsingSqlAndValues(SOME_SQL,
+				values, resultSet -> (String) resultSet.getObject(1));
+
+		assertEquals(result, List.of("value1", "value12"));
+		assertTrue(resultSetSpy.closeWasCalled);
+		assertTrue(sqlConnectionProviderSpy.connection.closeWasCalled);
+	}
+
+	@Test
+	public void testRowMapperIsToldAboutStartOfResultWithoutRows() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		List<ResultSet> startedResults = new ArrayList<>();
+		RowMapper<Object> rowMapper = new RowMapper<>() {
+			@Override
+			public void startResult(ResultSet resultSet) {
+				startedResults.add(resultSet);
+			}
+
+			@Override
+			public Object mapRow(ResultSet resultSet) throws SQLException {
+				return resultSet.getObject(1);
+			}
+		};
+
+		List<Object> result = dataReader.executePreparedStatementQueryUsingSqlAndValues(SOME_SQL,
+				values, rowMapper);
+
+		assertTrue(result.isEmpty());
+		assertEquals(startedResults, List.of(resultSetSpy));
+	}
+
+	@Test
+	public void testExecuteUsingRowMapperDoesNotReadMetadata() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+
+		dataReader.executePreparedStatementQueryUsingSqlAndValues(SOME_SQL, values,
+				resultSet -> resultSet.getObject(1));
+
+		assertEquals(resultSetSpy.getMetadataWasCalled, false);
+	}
+
+	@Test
+	public void testRowMapperSqlErrorThrowsErrorAndLogs() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+		try {
+			dataReader.executePreparedStatementQueryUsingSqlAndValues(SOME_SQL, values,
+					resultSet -> {
+						throw new SQLException("error from rowMapper");
+					});
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), ERROR_READING_DATA_USING_SQL + SOME_SQL);
+			assertEquals(e.getCause().getMessage(), "error from rowMapper");
+		}
+		assertEquals(loggerFactorySpy.getErrorLogMessageUsingClassNameAndNo(testedClassName, 0),
+				ERROR_READING_DATA_USING_SQL + SOME_SQL);
+	}
+
+	@Test
+	public void testReadOneUsingRowMapperReturnsMappedRow() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+
+		Object result = dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values,
+				resultSet -> resultSet.getObject(3));
+
+		assertEquals(result, 3);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ ERROR_READING_DATA_USING_SQL + SOME_SQL + ": no row returned")
+	public void testReadOneUsingRowMapperNoResultsThrowsException() throws Exception {
+		dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values,
+				resultSet -> resultSet.getObject(1));
+	}
+
+	@Test
+	public void testReadOneLimitsQueryToTwoRows() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+
+		dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values);
+
+		PreparedStatementSpy preparedStatementSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy;
+		assertEquals(preparedStatementSpy.maxRows, 2);
+		assertEquals(preparedStatementSpy.fetchSize, 2);
+		assertEquals(resultSetSpy.noOfNextCalls, 2);
+	}
+
+	@Test
+	public void testReadOneStopsReadingAtSecondRow() throws Exception {
+		ResultSetSpy resultSetSpy = setThreeRowsInResultSetSpy();
+		List<Map<String, Object>> mappedRows = new ArrayList<>();
+		MapRowMapper mapRowMapper = new MapRowMapper();
+		try {
+			dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values, resultSet -> {
+				Map<String, Object> row = mapRowMapper.mapRow(resultSet);
+				mappedRows.add(row);
+				return row;
+			});
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(),
+					ERROR_READING_DATA_USING_SQL + SOME_SQL + ": more than one row returned");
+		}
+		assertEquals(resultSetSpy.noOfNextCalls, 2);
+		assertEquals(mappedRows.size(), 1);
+		assertTrue(resultSetSpy.closeWasCalled);
+		assertTrue(sqlConnectionProviderSpy.connection.closeWasCalled);
+	}
+
+	@Test
+	public void testReadOptionalNoResultsReturnsEmpty() throws Exception {
+		Optional<Map<String, Object>> row = dataReader.readOptionalOneRowUsingSqlAndValues(SOME_SQL,
+				values);
+
+		assertTrue(row.isEmpty());
+		assertTrue(sqlConnectionProviderSpy.connection.closeWasCalled);
+	}
+
+	@Test
+	public void testReadOptionalReturnsRow() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+
+		Optional<Map<String, Object>> row = dataReader.readOptionalOneRowUsingSqlAndValues(SOME_SQL,
+				values);
+
+		assertEquals(row.get().get("twoColumnName"), 3);
+		PreparedStatementSpy preparedStatementSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy;
+		assertEquals(preparedStatementSpy.maxRows, 2);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ ERROR_READING_DATA_USING_SQL + SOME_SQL + ": more than one row returned")
+	public void testReadOptionalMoreThanOneRowThrowsException() throws Exception {
+		setThreeRowsInResultSetSpy();
+		dataReader.readOptionalOneRowUsingSqlAndValues(SOME_SQL, values);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ ERROR_READING_DATA_USING_SQL + SOME_SQL)
+	public void testReadOptionalSqlErrorThrowsError() throws Exception {
+		sqlConnectionProviderSpy.returnErrorConnection = true;
+		dataReader.readOptionalOneRowUsingSqlAndValues(SOME_SQL, values);
+	}
+
+	@Test
+	public void testReadOptionalUsingRowMapperReturnsMappedRow() throws Exception {
+		ResultSetSpy resultSetSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet;
+		setValuesInResultSetSpy(resultSetSpy);
+
+		Optional<Object> result = dataReader.readOptionalOneRowUsingSqlAndValues(SOME_SQL, values,
+				resultSet -> resultSet.getObject(3));
+
+		assertEquals(result.get(), 3);
+	}
+
+	@Test
+	public void testReadOptionalUsingRowMapperNoResultsReturnsEmpty() throws Exception {
+		Optional<Object> result = dataReader.readOptionalOneRowUsingSqlAndValues(SOME_SQL, values,
+				resultSet -> resultSet.getObject(1));
+
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void testStatementMetricsAreNotUsedByDefault() throws Exception {
+		assertNull(dataReader.getStatementMetrics());
+	}
+
+	@Test
+	public void testReadIsRecordedInStatementMetrics() throws Exception {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		dataReader = DataReaderImp.usingSqlConnectionProviderAndStatementMetrics(
+				sqlConnectionProviderSpy, statementMetrics);
+		setThreeRowsInResultSetSpy();
+
+		dataReader.executePreparedStatementQueryUsingSqlAndValues(SOME_SQL, values);
+
+		assertSame(dataReader.getStatementMetrics(), statementMetrics);
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getFingerprint(), SOME_SQL);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfErrors(), 0L);
+		assertEquals(statistics.getNoOfRows(), 3L);
+	}
+
+	@Test
+	public void testReadOneRowIsRecordedInStatementMetrics() throws Exception {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		dataReader = DataReaderImp.usingSqlConnectionProviderAndStatementMetrics(
+				sqlConnectionProviderSpy, statementMetrics);
+		setValuesInResultSetSpy(sqlConnectionProviderSpy.connection.preparedStatementSpy.resultSet);
+
+		dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values);
+		dataReader.readOptionalOneRowUsingSqlAndValues(SOME_SQL, values);
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfCalls(), 2L);
+		assertEquals(statistics.getNoOfRows(), 1L);
+	}
+
+	@Test
+	public void testFailedReadIsRecordedInStatementMetrics() throws Exception {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		dataReader = DataReaderImp.usingSqlConnectionProviderAndStatementMetrics(
+				sqlConnectionProviderSpy, statementMetrics);
+		sqlConnectionProviderSpy.returnErrorConnection = true;
+
+		try {
+			dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values);
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), ERROR_READING_DATA_USING_SQL + SOME_SQL);
+		}
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfErrors(), 1L);
+	}
+
+	@Test
+	public void testReadWithMoreThanOneRowIsRecordedAsError() throws Exception {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		dataReader = DataReaderImp.usingSqlConnectionProviderAndStatementMetrics(
+				sqlConnectionProviderSpy, statementMetrics);
+		setThreeRowsInResultSetSpy();
+
+		try {
+			dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values);
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertEquals(statementMetrics.getStatistics().get(0).getNoOfErrors(), 1L);
+		}
+	}
+
+	@Test
+	public void testReadWithNoRowIsRecordedAsSuccessfulCall() throws Exception {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		dataReader = DataReaderImp.usingSqlConnectionProviderAndStatementMetrics(
+				sqlConnectionProviderSpy, statementMetrics);
+
+		try {
+			dataReader.readOneRowOrFailUsingSqlAndValues(SOME_SQL, values);
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(),
+					ERROR_READING_DATA_USING_SQL + SOME_SQL + ": no row returned");
+		}
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfErrors(), 0L);
+		assertEquals(statistics.getNoOfRows(), 0L);
+	}
+
+	@Test
+	public void testStreamedRowsAreRecordedInStatementMetrics() throws Exception {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		dataReader = DataReaderImp.usingSqlConnectionProviderAndStatementMetrics(
+				sqlConnectionProviderSpy, statementMetrics);
+		setThreeRowsInResultSetSpy();
+
+		dataReader.streamRowsUsingSqlAndValuesAndFetchSize(SOME_SQL, values, 10, row -> {
+		});
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfRows(), 3L);
+	}
+}
@@ -22,6 +22,10 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 public class DataReaderSpy implements DataReader {
 
@@ -32,6 +36,18 @@ public class DataReaderSpy implements DataReader {
 	public boolean throwError = false;
 	public boolean readOneRowFromDbUsingTableAndConditionsWasCalled = false;
 	public Map<String, Object> oneRowResult;
+	public int fetchSize;
+	public RowMapper<?> rowMapper;
+	public Object mappedResult = "someMappedResult";
+	public int noOfQueries = 0;
+	public CountDownLatch queryStarted = new CountDownLatch(1);
+	public CountDownLatch finishQuery;
+	public List<Map<String, Object>> rowsToReturn;
+	public List<String> executedSqls = new ArrayList<>();
+	public List<List<Object>> executedValues = new ArrayList<>();
+	public Flow.Publisher<Map<String, Object>> publisher = subscriber -> {
+	};
+	public boolean returnEmptyOptional = false;
 
 	@Override
 	public List<Map<String, Object>> executePreparedStatementQueryUsingSqlAndValues(String sql,
@@ -39,15 +55,33 @@ public class DataReaderSpy implements DataReader {
 		this.sql = sql;
 		this.values = values;
 		executePreparedStatementQueryUsingSqlAndValuesWasCalled = true;
+		noOfQueries++;
+		executedSqls.add(sql);
+		executedValues.add(values);
+		queryStarted.countDown();
+		waitForFinishQueryIfSet();
 		if (throwError) {
 			throw SqlStorageException.withMessage(
 					"Error from executePreparedStatementQueryUsingSqlAndValues in DataReaderSpy");
 		}
+		if (rowsToReturn != null) {
+			return rowsToReturn;
+		}
 		Map<String, Object> innerResult = createResult();
 		result.add(innerResult);
 		return result;
 	}
 
+	private void waitForFinishQueryIfSet() {
+		if (finishQuery != null) {
+			try {
+				finishQuery.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
 	private Map<String, Object> createResult() {
 		Map<String, Object> innerResult = new HashMap<>();
 		innerResult.put("id", "someId");
@@ -60,6 +94,7 @@ public class DataReaderSpy implements DataReader {
 		this.sql = sql;
 		this.values = values;
 		readOneRowFromDbUsingTableAndConditionsWasCalled = true;
+		noOfQueries++;
 		if (throwError) {
 			throw SqlStorageException
 					.withMessage("Error from readOneRowOrFailUsingSqlAndValues in DataReaderSpy");
@@ -68,4 +103,86 @@ public class DataReaderSpy implements DataReader {
 		return oneRowResult;
 	}
 
+	@Override
+	public void streamRowsUsingSqlAndValuesAndFetchSize(String sql, List<Object> values,
+			int fetchSize, Consumer<Map<String, Object>> rowConsumer) {
+		this.sql = sql;
+		this.values = values;
+		this.fetchSize = fetchSize;
+		if (throwError) {
+			throw SqlStorageException.withMessage(
+					"Error from streamRowsUsingSqlAndValuesAndFetchSize in DataReaderSpy");
+		}
+		Map<String, Object> innerResult = createResult();
+		result.add(innerResult);
+		rowConsumer.accept(innerResult);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> List<T> executePreparedStatementQueryUsingSqlAndValues(String sql,
+			List<Object> values, RowMapper<T> rowMapper) {
+		this.sql = sql;
+		this.values = values;
+		this.rowMapper = rowMapper;
+		if (throwError) {
+			throw SqlStorageException.withMessage(
+					"Error from executePreparedStatementQueryUsingSqlAndValues in DataReaderSpy");
+		}
+		return (List<T>) List.of(mappedResult);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T readOneRowOrFailUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper) {
+		this.sql = sql;
+		this.values = values;
+		this.rowMapper = rowMapper;
+		if (throwError) {
+			throw SqlStorageException
+					.withMessage("Error from readOneRowOrFailUsingSqlAndValues in DataReaderSpy");
+		}
+		return (T) mappedResult;
+	}
+
+	@Override
+	public Flow.Publisher<Map<String, Object>> publishRowsUsingSqlAndValuesAndFetchSize(String sql,
+			List<Object> values, int fetchSize) {
+		this.sql = sql;
+		this.values = values;
+		this.fetchSize = fetchSize;
+		return publisher;
+	}
+
+	@Override
+	public Optional<Map<String, Object>> readOptionalOneRowUsingSqlAndValues(String sql,
+			List<Object> values) {
+		this.sql = sql;
+		this.values = values;
+		noOfQueries++;
+		if (throwError) {
+			throw SqlStorageException.withMessage(
+					"Error from readOptionalOneRowUsingSqlAndValues in DataReaderSpy");
+		}
+		if (returnEmptyOptional) {
+			return Optional.empty();
+		}
+		oneRowResult = createResult();
+		return Optional.of(oneRowResult);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> Optional<T> readOptionalOneRowUsingSqlAndValues(String sql, List<Object> values,
+			RowMapper<T> rowMapper) {
+		this.sql = sql;
+		this.values = values;
+		this.rowMapper = rowMapper;
+		if (returnEmptyOptional) {
+			return Optional.empty();
+		}
+		return Optional.of((T) mappedResult);
+	}
+
 }
@@ -19,20 +19,50 @@
 package se.uu.ub.cora.sqldatabase;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class DataUpdaterSpy implements DataUpdater {
 
 	public String sql = "";
 	public List<Object> values = new ArrayList<>();
+	public List<List<Object>> listOfValues = new ArrayList<>();
+	public int batchSize = 0;
+	public Map<String, List<List<Object>>> listOfValuesForSql = new LinkedHashMap<>();
+	public boolean throwError = false;
+	public int noOfAffectedRows = 0;
 
 	@Override
 	public int executeUsingSqlAndValues(String sql, List<Object> values) {
 		this.sql = sql;
 		this.values = values;
+		if (throwError) {
+			throw SqlStorageException
+					.withMessage("Error from executeUsingSqlAndValues in DataUpdaterSpy");
+		}
+		return noOfAffectedRows;
+	}
+
+	@Override
+	public int[] executeBatchUsingSqlAndListOfValuesAndBatchSize(String sql,
+			List<List<Object>> listOfValues, int batchSize) {
+		this.sql = sql;
+		this.listOfValues = listOfValues;
+		this.batchSize = batchSize;
+		return new int[listOfValues.size()];
+	}
 
-		// TODO Auto-generated method stub
-		return 0;
+	@Override
+	public Map<String, int[]> executeBatchesUsingListOfValuesForSqlAndBatchSize(
+			Map<String, List<List<Object>>> listOfValuesForSql, int batchSize) {
+		this.listOfValuesForSql = listOfValuesForSql;
+		this.batchSize = batchSize;
+		Map<String, int[]> updateCounts = new LinkedHashMap<>();
+		for (Map.Entry<String, List<List<Object>>> entry : listOfValuesForSql.entrySet()) {
+			updateCounts.put(entry.getKey(), new int[entry.getValue().size()]);
+		}
+		return updateCounts;
 	}
 
 }
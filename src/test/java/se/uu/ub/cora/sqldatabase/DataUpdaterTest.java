@@ -19,10 +19,16 @@
 package se.uu.ub.cora.sqldatabase;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -115,4 +121,234 @@ public class DataUpdaterTest {
 		int updatedRows = dataUpdater.executeUsingSqlAndValues(sql, values);
 		assertEquals(updatedRows, 5);
 	}
+
+	private List<List<Object>> createListOfValues(int noOfValues) {
+		List<List<Object>> listOfValues = new ArrayList<>();
+		for (int i = 0; i < noOfValues; i++) {
+			listOfValues.add(List.of("value" + i, i));
+		}
+		return listOfValues;
+	}
+
+	@Test
+	public void testBatchIsExecutedInChunksOfBatchSize() throws Exception {
+		int[] updateCounts = dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql,
+				createListOfValues(5), 2);
+
+		PreparedStatementSpy preparedStatementSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy;
+		assertEquals(sqlConnectionProviderSpy.connection.sql, sql);
+		assertEquals(preparedStatementSpy.executedBatchSizes, List.of(2, 2, 1));
+		assertEquals(updateCounts, new int[] { 1, 1, 1, 1, 1 });
+		assertEquals(preparedStatementSpy.addedBatches.size(), 5);
+		assertEquals(preparedStatementSpy.addedBatches.get(3).get("1"), "value3");
+		assertEquals(preparedStatementSpy.addedBatches.get(3).get("2"), 3);
+		assertTrue(preparedStatementSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testBatchIsExecutedInOneTransaction() throws Exception {
+		dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql, createListOfValues(3),
+				2);
+
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		assertEquals(connectionSpy.autoCommitCalls, List.of(false, true));
+		assertTrue(connectionSpy.commitWasCalled);
+		assertFalse(connectionSpy.rollbackWasCalled);
+		assertTrue(connectionSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testBatchUsesTransactionOfCallerWhenAutoCommitIsOff() throws Exception {
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		connectionSpy.autoCommit = false;
+		dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql, createListOfValues(3),
+				2);
+
+		assertTrue(connectionSpy.autoCommitCalls.isEmpty());
+		assertFalse(connectionSpy.commitWasCalled);
+		assertFalse(connectionSpy.rollbackWasCalled);
+		assertEquals(connectionSpy.preparedStatementSpy.executedBatchSizes, List.of(2, 1));
+		assertTrue(connectionSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testBatchErrorIsNotRolledBackWhenAutoCommitIsOff() throws Exception {
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		connectionSpy.autoCommit = false;
+		connectionSpy.preparedStatementSpy.throwErrorOnExecuteBatch = true;
+		try {
+			dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql,
+					createListOfValues(3), 2);
+			fail();
+		} catch (SqlStorageException e) {
+			assertEquals(e.getCause().getMessage(), "error thrown from executeBatch in spy");
+		}
+		assertTrue(connectionSpy.autoCommitCalls.isEmpty());
+		assertFalse(connectionSpy.rollbackWasCalled);
+		assertTrue(connectionSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testEmptyBatchExecutesNothing() throws Exception {
+		int[] updateCounts = dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql,
+				new ArrayList<>(), 2);
+
+		assertEquals(updateCounts.length, 0);
+		PreparedStatementSpy preparedStatementSpy = sqlConnectionProviderSpy.connection.preparedStatementSpy;
+		assertTrue(preparedStatementSpy.executedBatchSizes.isEmpty());
+	}
+
+	@Test
+	public void testBatchErrorRollsBackAndThrowsError() throws Exception {
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		connectionSpy.preparedStatementSpy.throwErrorOnExecuteBatch = true;
+		try {
+			dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql,
+					createListOfValues(3), 2);
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), "Error executing batch: " + sql);
+			assertEquals(e.getCause().getMessage(), "error thrown from executeBatch in spy");
+		}
+		assertTrue(connectionSpy.rollbackWasCalled);
+		assertFalse(connectionSpy.commitWasCalled);
+		assertEquals(connectionSpy.autoCommitCalls, List.of(false, true));
+		assertTrue(connectionSpy.closeWasCalled);
+	}
+
+	@Test
+	public void testBatchErrorIsKeptWhenRollbackAndRestoringAutoCommitFails() throws Exception {
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		connectionSpy.preparedStatementSpy.throwErrorOnExecuteBatch = true;
+		connectionSpy.throwErrorOnRollback = true;
+		connectionSpy.throwErrorWhenAutoCommitIsTurnedOn = true;
+		try {
+			dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql,
+					createListOfValues(3), 2);
+			fail();
+		} catch (SqlStorageException e) {
+			Throwable batchError = e.getCause();
+			assertEquals(batchError.getMessage(), "error thrown from executeBatch in spy");
+			Throwable[] suppressed = batchError.getSuppressed();
+			assertEquals(suppressed.length, 2);
+			assertEquals(suppressed[0].getMessage(), "error thrown from rollback in spy");
+			assertEquals(suppressed[1].getMessage(), "error thrown from setAutoCommit in spy");
+		}
+		assertTrue(connectionSpy.closeWasCalled);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid batch size: 0")
+	public void testBatchSizeZeroThrowsError() throws Exception {
+		dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql, createListOfValues(3),
+				0);
+	}
+
+	@Test
+	public void testManySqlBatchesAreExecutedInOneTransaction() throws Exception {
+		Map<String, List<List<Object>>> listOfValuesForSql = new LinkedHashMap<>();
+		listOfValuesForSql.put(sql, createListOfValues(3));
+		listOfValuesForSql.put("update otherTable set x=? where y = ?", createListOfValues(1));
+		Map<String, int[]> updateCounts = dataUpdater
+				.executeBatchesUsingListOfValuesForSqlAndBatchSize(listOfValuesForSql, 2);
+
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		assertEquals(connectionSpy.sql, "update otherTable set x=? where y = ?");
+		assertEquals(connectionSpy.noOfPrepareStatementCalls, 2);
+		assertEquals(connectionSpy.preparedStatementSpy.executedBatchSizes, List.of(2, 1, 1));
+		assertEquals(updateCounts.get(sql), new int[] { 1, 1, 1 });
+		assertEquals(updateCounts.get("update otherTable set x=? where y = ?"), new int[] { 1 });
+		assertEquals(connectionSpy.autoCommitCalls, List.of(false, true));
+		assertTrue(connectionSpy.commitWasCalled);
+	}
+
+	@Test
+	public void testManySqlBatchesErrorNamesAllSql() throws Exception {
+		Map<String, List<List<Object>>> listOfValuesForSql = new LinkedHashMap<>();
+		listOfValuesForSql.put(sql, createListOfValues(1));
+		listOfValuesForSql.put("update otherTable set x=? where y = ?", createListOfValues(1));
+		ConnectionSpy connectionSpy = sqlConnectionProviderSpy.connection;
+		connectionSpy.preparedStatementSpy.throwErrorOnExecuteBatch = true;
+		try {
+			dataUpdater.executeBatchesUsingListOfValuesForSqlAndBatchSize(listOfValuesForSql, 2);
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), "Error executing batch: " + sql
+					+ "; update otherTable set x=? where y = ?");
+		}
+		assertTrue(connectionSpy.rollbackWasCalled);
+	}
+
+	@Test
+	public void testStatementMetricsAreNotUsedByDefault() {
+		assertNull(((DataUpdaterImp) dataUpdater).getStatementMetrics());
+	}
+
+	@Test
+	public void testUpdateIsRecordedInStatementMetrics() {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		DataUpdaterImp recordingDataUpdater = DataUpdaterImp
+				.usingSqlConnectionProviderAndStatementMetrics(sqlConnectionProviderSpy,
+						statementMetrics);
+		sqlConnectionProviderSpy.connection.preparedStatementSpy.noOfAffectedRows = 5;
+
+		recordingDataUpdater.executeUsingSqlAndValues(sql, values);
+
+		assertSame(recordingDataUpdater.getStatementMetrics(), statementMetrics);
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getFingerprint(), "update testtable set x=? where y = ?");
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfRows(), 5L);
+	}
+
+	@Test
+	public void testFailedUpdateIsRecordedInStatementMetrics() {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		DataUpdaterImp recordingDataUpdater = DataUpdaterImp
+				.usingSqlConnectionProviderAndStatementMetrics(sqlConnectionProviderSpy,
+						statementMetrics);
+		sqlConnectionProviderSpy.returnErrorConnection = true;
+
+		try {
+			recordingDataUpdater.executeUsingSqlAndValues(sql, values);
+		} catch (SqlStorageException e) {
+			assertEquals(e.getCause().getMessage(), "error thrown from prepareStatement in spy");
+		}
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfErrors(), 1L);
+	}
+
+	@Test
+	public void testBatchIsRecordedInStatementMetricsAsOneCall() {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		DataUpdaterImp recordingDataUpdater = DataUpdaterImp
+				.usingSqlConnectionProviderAndStatementMetrics(sqlConnectionProviderSpy,
+						statementMetrics);
+
+		recordingDataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql,
+				createListOfValues(5), 2);
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfRows(), 5L);
+	}
+
+	@Test
+	public void testFailedBatchIsRecordedInStatementMetrics() {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		DataUpdaterImp recordingDataUpdater = DataUpdaterImp
+				.usingSqlConnectionProviderAndStatementMetrics(sqlConnectionProviderSpy,
+						statementMetrics);
+		sqlConnectionProviderSpy.connection.preparedStatementSpy.throwErrorOnExecuteBatch = true;
+
+		try {
+			recordingDataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(sql,
+					createListOfValues(3), 2);
+		} catch (SqlStorageException e) {
+			assertEquals(e.getCause().getMessage(), "error thrown from executeBatch in spy");
+		}
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfErrors(), 1L);
+	}
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+	private LatencyHistogram histogram;
+
+	@BeforeMethod
+	public void setUp() {
+		histogram = new LatencyHistogram();
+	}
+
+	@Test
+	public void testEmptyHistogram() {
+		assertEquals(histogram.getCount(), 0L);
+		assertEquals(histogram.getMaxValue(), 0L);
+		assertEquals(histogram.getValueAtPercentile(99), 0L);
+	}
+
+	@Test
+	public void testSmallValuesAreExact() {
+		for (int value = 1; value <= 100; value++) {
+			histogram.recordValue(value);
+		}
+
+		assertEquals(histogram.getCount(), 100L);
+		assertEquals(histogram.getValueAtPercentile(0), 1L);
+		assertEquals(histogram.getValueAtPercentile(50), 50L);
+		assertEquals(histogram.getValueAtPercentile(99), 99L);
+		assertEquals(histogram.getValueAtPercentile(100), 100L);
+		assertEquals(histogram.getMaxValue(), 100L);
+	}
+
+	@Test
+	public void testLargeValuesAreWithinPrecision() {
+		for (long value = 1; value <= 10_000; value++) {
+			histogram.recordValue(value * 1_000);
+		}
+
+		assertValueIsWithinPrecision(histogram.getValueAtPercentile(50), 5_000_000);
+		assertValueIsWithinPrecision(histogram.getValueAtPercentile(99.9), 9_990_000);
+		assertEquals(histogram.getValueAtPercentile(100), 10_000_000L);
+	}
+
+	private void assertValueIsWithinPrecision(long value, long expected) {
+		assertTrue(value >= expected, value + " is less than " + expected);
+		assertTrue(value <= expected + expected / 64, value + " is too far above " + expected);
+	}
+
+	@Test
+	public void testOutlierIsSeenOnlyInHighPercentiles() {
+		for (int i = 0; i < 999; i++) {
+			histogram.recordValue(1_000);
+		}
+		histogram.recordValue(1_000_000_000L);
+
+		assertValueIsWithinPrecision(histogram.getValueAtPercentile(99.9), 1_000);
+		assertEquals(histogram.getValueAtPercentile(99.99), 1_000_000_000L);
+		assertEquals(histogram.getMaxValue(), 1_000_000_000L);
+	}
+
+	@Test
+	public void testLongMaxValue() {
+		histogram.recordValue(Long.MAX_VALUE);
+
+		assertEquals(histogram.getValueAtPercentile(100), Long.MAX_VALUE);
+	}
+
+	@Test
+	public void testFewerSubBucketBitsGiveLowerPrecision() {
+		LatencyHistogram lowPrecisionHistogram = new LatencyHistogram(5);
+		lowPrecisionHistogram.recordValue(1_000_000);
+		lowPrecisionHistogram.recordValue(Long.MAX_VALUE);
+
+		long value = lowPrecisionHistogram.getValueAtPercentile(50);
+		assertTrue(value >= 1_000_000);
+		assertTrue(value <= 1_000_000 + 1_000_000 / 16);
+		assertTrue(value > 1_000_000 + 1_000_000 / 64);
+		assertEquals(lowPrecisionHistogram.getValueAtPercentile(100), Long.MAX_VALUE);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid value: -1, must not be negative")
+	public void testNegativeValueThrowsError() {
+		histogram.recordValue(-1);
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid percentile: 100.5, must be between 0 and 100")
+	public void testInvalidPercentileThrowsError() {
+		histogram.getValueAtPercentile(100.5);
+	}
+
+	@Test
+	public void testReset() {
+		histogram.recordValue(1_000);
+		histogram.reset();
+
+		assertEquals(histogram.getCount(), 0L);
+		assertEquals(histogram.getMaxValue(), 0L);
+		assertEquals(histogram.getValueAtPercentile(50), 0L);
+	}
+}
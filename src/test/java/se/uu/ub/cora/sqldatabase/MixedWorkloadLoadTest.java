@@ -0,0 +1,270 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.connection.PoolSettings;
+import se.uu.ub.cora.connection.PooledConnectionProviderImp;
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+
+/**
+ * Runs a mixed read and update workload through {@link RecordReaderFactoryImp} and
+ * {@link RecordUpdaterFactoryImp} against a real database and prints throughput and latency
+ * percentiles, to size pools and caches before deploying.
+ * <p>
+ * Operations are started at a fixed rate. Each operation has an intended start time, and its
+ * latency is measured from the intended start time rather than from when a worker thread got
+ * around to starting it. Time spent waiting for a free worker while the database is slow is then
+ * part of the latency, the same as it is for a client that keeps sending requests, so stalls are
+ * not hidden by coordinated omission. Service times, measured from the actual start, are printed
+ * as well for comparison. The achieved rate is the number of measured operations divided by the
+ * time from the start of the measurement to the last completed operation, so it drops below the
+ * intended rate when the database can not keep up.
+ * <p>
+ * The test creates and fills the table load_test_record. Settings are read from system properties:
+ * <ul>
+ * <li>load.url: the Postgres database, no default</li>
+ * <li>load.user and load.password: user and password for the database, default cora</li>
+ * <li>load.rate: operations started per second, default 2000</li>
+ * <li>load.threads: worker threads, default 32</li>
+ * <li>load.poolSize: max connections in the pool, default 16</li>
+ * <li>load.readPercent: percent of operations that are reads, default 90</li>
+ * <li>load.rows: rows in the table, default 10000</li>
+ * <li>load.cacheSeconds: time to live in a RecordCache for the table, 0 to not cache, default 0
+ * </li>
+ * <li>load.warmupSeconds and load.seconds: warmup and measured time, default 10 and 30</li>
+ * </ul>
+ * The test is skipped if load.url is not set or no connection to a Postgres database can be
+ * made, so that it does not run as part of a normal build. Run it manually with load.url set, for
+ * example -Dload.url=jdbc:postgresql://localhost:5432/cora.
+ */
+public class MixedWorkloadLoadTest {
+	private static final String TABLE_NAME = "load_test_record";
+	private static final String POSTGRES = "PostgreSQL";
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99, 100 };
+	private final String url = System.getProperty("load.url");
+	private final String user = System.getProperty("load.user", "cora");
+	private final String password = System.getProperty("load.password", "cora");
+	private final int rate = Integer.getInteger("load.rate", 2000);
+	private final int noOfThreads = Integer.getInteger("load.threads", 32);
+	private final int poolSize = Integer.getInteger("load.poolSize", 16);
+	private final int readPercent = Integer.getInteger("load.readPercent", 90);
+	private final int noOfRows = Integer.getInteger("load.rows", 10_000);
+	private final int cacheSeconds = Integer.getInteger("load.cacheSeconds", 0);
+	private final int warmupSeconds = Integer.getInteger("load.warmupSeconds", 10);
+	private final int measureSeconds = Integer.getInteger("load.seconds", 30);
+
+	private final LatencyHistogram readLatencies = new LatencyHistogram();
+	private final LatencyHistogram updateLatencies = new LatencyHistogram();
+	private final LatencyHistogram serviceTimes = new LatencyHistogram();
+	private final LongAdder noOfErrors = new LongAdder();
+	private final AtomicLong nextOperation = new AtomicLong();
+	private final AtomicLong lastCompletionTime = new AtomicLong();
+	private RecordReaderFactory recordReaderFactory;
+	private RecordUpdaterFactory recordUpdaterFactory;
+	private long startTime;
+	private long intervalInNanos;
+	private long measureStartTime;
+	private long endTime;
+
+	@Test
+	public void runMixedWorkload() throws Exception {
+		skipIfNoDatabaseIsConfigured();
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
+		PooledConnectionProviderImp pool = PooledConnectionProviderImp
+				.usingUriAndUserAndPasswordAndPoolSettings(url, user, password,
+						PoolSettings.defaultSettings().withMaxSize(poolSize)
+								.withAcquisitionTimeout(Duration.ofSeconds(30)));
+		skipIfDatabaseIsNotAvailable(pool);
+		createAndFillTable(pool);
+		createFactories(pool);
+		runWorkers();
+		printReport();
+		pool.close();
+	}
+
+	private void skipIfNoDatabaseIsConfigured() {
+		if (url == null || url.isBlank()) {
+			throw new SkipException("No database configured, set load.url to run the load test");
+		}
+	}
+
+	private void skipIfDatabaseIsNotAvailable(PooledConnectionProviderImp pool)
+			throws SQLException {
+		try (Connection connection = pool.getConnection()) {
+			skipIfNotPostgres(pool, connection.getMetaData());
+		} catch (SqlStorageException e) {
+			pool.close();
+			throw new SkipException("No database available at " + url + ": " + e.getMessage());
+		}
+	}
+
+	private void skipIfNotPostgres(PooledConnectionProviderImp pool, DatabaseMetaData metaData)
+			throws SQLException {
+		if (metaData == null || !POSTGRES.equals(metaData.getDatabaseProductName())) {
+			pool.close();
+			throw new SkipException("No postgres database available at " + url);
+		}
+	}
+
+	private void createAndFillTable(PooledConnectionProviderImp pool) {
+		DataUpdater dataUpdater = DataUpdaterImp.usingSqlConnectionProvider(pool);
+		dataUpdater.executeUsingSqlAndValues("drop table if exists " + TABLE_NAME, List.of());
+		dataUpdater.executeUsingSqlAndValues("create table " + TABLE_NAME
+				+ " (id integer primary key, name varchar(64), counter integer)", List.of());
+		List<List<Object>> rows = new ArrayList<>(noOfRows);
+		for (int id = 1; id <= noOfRows; id++) {
+			rows.add(List.of(id, "name" + id, 0));
+		}
+		dataUpdater.executeBatchUsingSqlAndListOfValuesAndBatchSize(
+				"insert into " + TABLE_NAME + " (id, name, counter) values (?, ?, ?)", rows, 1000);
+	}
+
+	private void createFactories(PooledConnectionProviderImp pool) {
+		if (cacheSeconds > 0) {
+			RecordCache recordCache = RecordCache.usingMaxSize(noOfRows);
+			recordCache.cacheTableUsingTimeToLive(TABLE_NAME, Duration.ofSeconds(cacheSeconds));
+			recordReaderFactory = RecordReaderFactoryImp.usingSqlConnectionProvider(pool)
+					.withRecordCache(recordCache);
+			recordUpdaterFactory = RecordUpdaterFactoryImp.usingSqlConnectionProvider(pool)
+					.withRecordCache(recordCache);
+		} else {
+			recordReaderFactory = RecordReaderFactoryImp.usingSqlConnectionProvider(pool);
+			recordUpdaterFactory = RecordUpdaterFactoryImp.usingSqlConnectionProvider(pool);
+		}
+	}
+
+	private void runWorkers() throws InterruptedException {
+		intervalInNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+		startTime = System.nanoTime();
+		measureStartTime = startTime + TimeUnit.SECONDS.toNanos(warmupSeconds);
+		endTime = measureStartTime + TimeUnit.SECONDS.toNanos(measureSeconds);
+		CountDownLatch done = new CountDownLatch(noOfThreads);
+		for (int i = 0; i < noOfThreads; i++) {
+			Thread worker = new Thread(() -> runOperationsUntilEndTime(done), "load-worker-" + i);
+			worker.setDaemon(true);
+			worker.start();
+		}
+		done.await();
+	}
+
+	private void runOperationsUntilEndTime(CountDownLatch done) {
+		try {
+			long intendedStartTime = getIntendedStartTimeOfNextOperation();
+			while (intendedStartTime < endTime) {
+				waitUntil(intendedStartTime);
+				runAndMeasureOperation(intendedStartTime);
+				intendedStartTime = getIntendedStartTimeOfNextOperation();
+			}
+		} finally {
+			done.countDown();
+		}
+	}
+
+	private long getIntendedStartTimeOfNextOperation() {
+		return startTime + nextOperation.getAndIncrement() * intervalInNanos;
+	}
+
+	private void waitUntil(long time) {
+		long remaining = time - System.nanoTime();
+		while (remaining > 0) {
+			LockSupport.parkNanos(remaining);
+			remaining = time - System.nanoTime();
+		}
+	}
+
+	private void runAndMeasureOperation(long intendedStartTime) {
+		boolean read = ThreadLocalRandom.current().nextInt(100) < readPercent;
+		long actualStartTime = System.nanoTime();
+		try {
+			runOperation(read);
+		} catch (RuntimeException e) {
+			noOfErrors.increment();
+		}
+		long now = System.nanoTime();
+		if (intendedStartTime >= measureStartTime) {
+			LatencyHistogram latencies = read ? readLatencies : updateLatencies;
+			latencies.recordValue(now - intendedStartTime);
+			serviceTimes.recordValue(now - actualStartTime);
+			lastCompletionTime.accumulateAndGet(now, Math::max);
+		}
+	}
+
+	private void runOperation(boolean read) {
+		int id = ThreadLocalRandom.current().nextInt(noOfRows) + 1;
+		if (read) {
+			recordReaderFactory.factor().readOneRowFromDbUsingTableAndConditions(TABLE_NAME,
+					Map.of("id", id));
+		} else {
+			recordUpdaterFactory.factor().updateTableUsingNameAndColumnsWithValuesAndConditions(
+					TABLE_NAME, Map.of("counter", ThreadLocalRandom.current().nextInt()),
+					Map.of("id", id));
+		}
+	}
+
+	private void printReport() {
+		System.out.println(String.format("intended rate: %,d/s  achieved: %,d/s  threads: %d"
+				+ "  pool: %d  cache: %s  errors: %,d", rate, calculateAchievedRate(), noOfThreads,
+				poolSize, cacheSeconds > 0 ? cacheSeconds + " s" : "off", noOfErrors.sum()));
+		printPercentiles("reads, from intended start", readLatencies);
+		printPercentiles("updates, from intended start", updateLatencies);
+		printPercentiles("service time, from actual start", serviceTimes);
+	}
+
+	private long calculateAchievedRate() {
+		long noOfOperations = readLatencies.getCount() + updateLatencies.getCount();
+		long elapsedNanos = lastCompletionTime.get() - measureStartTime;
+		if (noOfOperations == 0 || elapsedNanos <= 0) {
+			return 0;
+		}
+		return noOfOperations * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	private void printPercentiles(String name, LatencyHistogram histogram) {
+		StringBuilder line = new StringBuilder(
+				String.format("%-32s count: %,10d", name, histogram.getCount()));
+		for (double percentile : PERCENTILES) {
+			line.append(String.format("  p%s: %,.3f ms", formatPercentile(percentile),
+					histogram.getValueAtPercentile(percentile) / 1_000_000.0));
+		}
+		System.out.println(line);
+	}
+
+	private String formatPercentile(double percentile) {
+		return percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+				: String.valueOf(percentile);
+	}
+}
@@ -0,0 +1,38 @@
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class NotificationReceiverSpy implements NotificationReceiver {
+
+	public List<List<String>> payloadsToReturn = new ArrayList<>();
+	public List<Connection> connections = new ArrayList<>();
+	public int timeoutInMillis = 0;
+	public int noOfCallsBeforeError = -1;
+	public PostgresTableChangeListener listenerToCloseWhenDone;
+	public Runnable onFirstCall = () -> {
+	};
+	private int noOfCalls = 0;
+
+	@Override
+	public List<String> receivePayloads(Connection connection, int timeoutInMillis)
+			throws SQLException {
+		if (noOfCalls == 0) {
+			onFirstCall.run();
+		}
+		connections.add(connection);
+		this.timeoutInMillis = timeoutInMillis;
+		if (noOfCalls++ == noOfCallsBeforeError) {
+			throw new SQLException("error thrown from NotificationReceiverSpy");
+		}
+		if (payloadsToReturn.isEmpty()) {
+			listenerToCloseWhenDone.close();
+			return Collections.emptyList();
+		}
+		return payloadsToReturn.remove(0);
+	}
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.connection.ConnectionSpy;
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+
+public class PostgresTableChangeListenerTest {
+	private LoggerFactorySpy loggerFactorySpy;
+	private SqlConnectionProviderSpy sqlConnectionProvider;
+	private RecordCache recordCache;
+	private NotificationReceiverSpy notificationReceiver;
+	private PostgresTableChangeListener listener;
+	private Map<String, Object> conditions = new HashMap<>();
+
+	@BeforeMethod
+	public void setUp() {
+		loggerFactorySpy = new LoggerFactorySpy();
+		LoggerProvider.setLoggerFactory(loggerFactorySpy);
+		sqlConnectionProvider = new SqlConnectionProviderSpy();
+		recordCache = RecordCache.usingMaxSize(10);
+		recordCache.cacheTableUsingTimeToLive("country", Duration.ofMinutes(1));
+		recordCache.cacheTableUsingTimeToLive("organisation", Duration.ofMinutes(1));
+		listener = PostgresTableChangeListener.usingSqlConnectionProviderAndChannelAndTableInvalidator(
+				sqlConnectionProvider, "cora_table_changes", recordCache);
+		notificationReceiver = new NotificationReceiverSpy();
+		notificationReceiver.listenerToCloseWhenDone = listener;
+		listener.setNotificationReceiver(notificationReceiver);
+	}
+
+	private void readIntoCache(String tableName) {
+		recordCache.getOrReadListUsingTableAndConditions(tableName, conditions, ArrayList::new);
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(listener.getSqlConnectionProvider(), sqlConnectionProvider);
+		assertEquals(listener.getChannel(), "cora_table_changes");
+		assertSame(listener.getTableInvalidator(), recordCache);
+		assertFalse(listener.isRunning());
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid channel name: cora; drop table country")
+	public void testInvalidChannelThrowsError() {
+		PostgresTableChangeListener.usingSqlConnectionProviderAndChannelAndTableInvalidator(
+				sqlConnectionProvider, "cora; drop table country", recordCache);
+	}
+
+	@Test
+	public void testListenIsSentOnConnection() {
+		listener.startInCurrentThread();
+
+		ConnectionSpy connection = sqlConnectionProvider.connection;
+		assertEquals(connection.sql, "LISTEN cora_table_changes");
+		assertTrue(connection.preparedStatementSpy.closeWasCalled);
+		assertSame(notificationReceiver.connections.get(0), connection);
+		assertEquals(notificationReceiver.timeoutInMillis, 500);
+		assertTrue(connection.closeWasCalled);
+		assertFalse(listener.isRunning());
+	}
+
+	@Test
+	public void testCacheIsInvalidatedWhenListeningStarts() {
+		readIntoCache("country");
+		listener.startInCurrentThread();
+
+		assertEquals(recordCache.size(), 0);
+	}
+
+	@Test
+	public void testReceivedTablesAreInvalidated() {
+		notificationReceiver.onFirstCall = () -> {
+			readIntoCache("country");
+			readIntoCache("organisation");
+		};
+		notificationReceiver.payloadsToReturn.add(List.of());
+		notificationReceiver.payloadsToReturn.add(List.of("country"));
+		listener.startInCurrentThread();
+
+		assertEquals(notificationReceiver.connections.size(), 3);
+		assertEquals(recordCache.size(), 1);
+		readIntoCache("organisation");
+		assertEquals(recordCache.getNoOfHits(), 1L);
+	}
+
+	@Test
+	public void testErrorIsLoggedAndListeningStopsIfInterruptedBeforeReconnecting() {
+		notificationReceiver.noOfCallsBeforeError = 0;
+		Thread.currentThread().interrupt();
+		listener.startInCurrentThread();
+
+		assertTrue(Thread.interrupted());
+		assertFalse(listener.isRunning());
+		assertTrue(sqlConnectionProvider.connection.closeWasCalled);
+		assertEquals(loggerFactorySpy.getErrorLogMessageUsingClassNameAndNo(
+				"PostgresTableChangeListener", 0), "Error listening to channel cora_table_changes");
+	}
+
+	@Test
+	public void testNewConnectionIsUsedAfterError() {
+		notificationReceiver.noOfCallsBeforeError = 0;
+		listener.startInCurrentThread();
+
+		assertEquals(notificationReceiver.connections.size(), 2);
+		assertEquals(sqlConnectionProvider.noOfGetConnectionCalls, 2);
+	}
+
+	@Test
+	public void testStartListensInDaemonThreadUntilClosed() throws Exception {
+		List<Boolean> runningWhenReceiving = new ArrayList<>();
+		notificationReceiver.onFirstCall = () -> runningWhenReceiving.add(listener.isRunning());
+		listener.start();
+		waitUntilListenerIsStopped();
+
+		assertEquals(runningWhenReceiving, List.of(true));
+		assertFalse(listener.isRunning());
+		assertEquals(notificationReceiver.connections.size(), 1);
+	}
+
+	private void waitUntilListenerIsStopped() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (listener.isRunning() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	public void testStartAfterCloseListensAgainUsingNewConnection() throws Exception {
+		listener.start();
+		waitUntilListenerIsStopped();
+		NotificationReceiverSpy secondReceiver = new NotificationReceiverSpy();
+		secondReceiver.listenerToCloseWhenDone = listener;
+		List<Boolean> runningWhenReceiving = new ArrayList<>();
+		secondReceiver.onFirstCall = () -> runningWhenReceiving.add(listener.isRunning());
+		listener.setNotificationReceiver(secondReceiver);
+
+		listener.start();
+		waitUntilListenerIsStopped();
+
+		assertEquals(runningWhenReceiving, List.of(true));
+		assertFalse(listener.isRunning());
+		assertEquals(secondReceiver.connections.size(), 1);
+		assertEquals(sqlConnectionProvider.noOfGetConnectionCalls, 2);
+	}
+
+	@Test
+	public void testStartWhenRunningDoesNotStartAnotherListener() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		notificationReceiver.onFirstCall = () -> waitIgnoringInterrupts(release);
+		listener.start();
+		listener.start();
+		release.countDown();
+		waitUntilListenerIsStopped();
+
+		assertEquals(sqlConnectionProvider.noOfGetConnectionCalls, 1);
+	}
+
+	private void waitIgnoringInterrupts(CountDownLatch latch) {
+		boolean waiting = true;
+		while (waiting) {
+			try {
+				waiting = !latch.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				// the listener thread is interrupted by close, keep waiting for the latch
+			}
+		}
+	}
+
+	@Test
+	public void testStartWaitsForPreviousListenerThreadToEnd() throws Exception {
+		CountDownLatch receiving = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		notificationReceiver.onFirstCall = () -> {
+			receiving.countDown();
+			waitIgnoringInterrupts(release);
+		};
+		listener.start();
+		receiving.await(5, TimeUnit.SECONDS);
+		listener.close();
+		Thread releaser = new Thread(() -> {
+			sleepIgnoringInterrupts(50);
+			release.countDown();
+		});
+		releaser.start();
+
+		listener.start();
+
+		assertEquals(release.getCount(), 0L);
+		listener.close();
+		releaser.join();
+	}
+
+	private void sleepIgnoringInterrupts(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testStartThrowsErrorIfInterruptedWhileWaitingForPreviousListener()
+			throws Exception {
+		CountDownLatch receiving = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		notificationReceiver.onFirstCall = () -> {
+			receiving.countDown();
+			waitIgnoringInterrupts(release);
+		};
+		listener.start();
+		receiving.await(5, TimeUnit.SECONDS);
+		listener.close();
+		Thread.currentThread().interrupt();
+
+		try {
+			listener.start();
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertTrue(Thread.interrupted());
+			assertEquals(e.getMessage(), "Interrupted while waiting for listener on channel "
+					+ "cora_table_changes to stop");
+			assertTrue(e.getCause() instanceof InterruptedException);
+			assertFalse(listener.isRunning());
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void testCloseStopsListening() {
+		listener.close();
+		listener.listen();
+
+		assertFalse(listener.isRunning());
+		assertEquals(notificationReceiver.connections.size(), 0);
+	}
+}
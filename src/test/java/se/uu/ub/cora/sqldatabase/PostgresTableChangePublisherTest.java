@@ -0,0 +1,69 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+
+public class PostgresTableChangePublisherTest {
+	private LoggerFactorySpy loggerFactorySpy;
+	private DataReaderSpy dataReader;
+	private PostgresTableChangePublisher publisher;
+
+	@BeforeMethod
+	public void setUp() {
+		loggerFactorySpy = new LoggerFactorySpy();
+		LoggerProvider.setLoggerFactory(loggerFactorySpy);
+		dataReader = new DataReaderSpy();
+		publisher = PostgresTableChangePublisher.usingDataReaderAndChannel(dataReader,
+				"cora_table_changes");
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(publisher.getDataReader(), dataReader);
+		assertEquals(publisher.getChannel(), "cora_table_changes");
+	}
+
+	@Test
+	public void testPublishSendsNotifyWithTableAsPayload() {
+		publisher.publishChangeOfTable("country");
+
+		assertEquals(dataReader.sql, "select pg_notify(?, ?)");
+		assertEquals(dataReader.values, List.of("cora_table_changes", "country"));
+	}
+
+	@Test
+	public void testPublishErrorIsLoggedAndNotThrown() {
+		dataReader.throwError = true;
+		publisher.publishChangeOfTable("country");
+
+		assertEquals(loggerFactorySpy.getErrorLogMessageUsingClassNameAndNo(
+				"PostgresTableChangePublisher", 0),
+				"Error publishing change of table country on channel cora_table_changes");
+	}
+}
@@ -1,8 +1,11 @@
 package se.uu.ub.cora.sqldatabase;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -126,4 +129,30 @@ public class RealDbTest {
 		assertNotNull(result);
 	}
 
+	@Test(enabled = false)
+	private void testTableChangeIsPublishedToListener() throws Exception {
+		SqlConnectionProvider sProvider = ParameterConnectionProviderImp.usingUriAndUserAndPassword(
+				"jdbc:postgresql://localhost:5432/cora", "cora", "cora");
+		RecordCache recordCache = RecordCache.usingMaxSize(100);
+		recordCache.cacheTableUsingTimeToLive("country", Duration.ofMinutes(10));
+		PostgresTableChangeListener listener = PostgresTableChangeListener
+				.usingSqlConnectionProviderAndChannelAndTableInvalidator(sProvider,
+						"cora_table_changes", recordCache);
+		listener.start();
+		Thread.sleep(500);
+		recordCache.getOrReadListUsingTableAndConditions("country", new HashMap<>(),
+				ArrayList::new);
+		PostgresTableChangePublisher publisher = PostgresTableChangePublisher
+				.usingDataReaderAndChannel(DataReaderImp.usingSqlConnectionProvider(sProvider),
+						"cora_table_changes");
+		long publishedAt = System.nanoTime();
+		publisher.publishChangeOfTable("country");
+		while (recordCache.size() > 0) {
+			Thread.sleep(1);
+		}
+		System.out.println("invalidated after ms: " + (System.nanoTime() - publishedAt) / 1000000);
+		listener.close();
+		assertEquals(recordCache.size(), 0);
+	}
+
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RecordCacheTest {
+	private RecordCache cache;
+	private Map<String, Object> conditions;
+	private int noOfReads;
+
+	@BeforeMethod
+	public void setUp() {
+		cache = RecordCache.usingMaxSize(10);
+		cache.cacheTableUsingTimeToLive("country", Duration.ofMinutes(1));
+		conditions = new HashMap<>();
+		conditions.put("alpha2code", "SE");
+		noOfReads = 0;
+	}
+
+	private List<Map<String, Object>> readList() {
+		noOfReads++;
+		List<Map<String, Object>> rows = new ArrayList<>();
+		Map<String, Object> row = new HashMap<>();
+		row.put("read", noOfReads);
+		rows.add(row);
+		return rows;
+	}
+
+	private List<Map<String, Object>> getOrReadList(String tableName,
+			Map<String, Object> conditions) {
+		return cache.getOrReadListUsingTableAndConditions(tableName, conditions, this::readList);
+	}
+
+	@Test
+	public void testTableIsOnlyCachedWhenConfigured() {
+		assertTrue(cache.isTableCached("country"));
+		assertFalse(cache.isTableCached("organisation"));
+	}
+
+	@Test(expectedExceptions = IllegalArgumentException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid cache size: 0")
+	public void testInvalidMaxSizeThrowsError() {
+		RecordCache.usingMaxSize(0);
+	}
+
+	@Test
+	public void testSecondReadIsReturnedFromCache() {
+		List<Map<String, Object>> first = getOrReadList("country", conditions);
+		List<Map<String, Object>> second = getOrReadList("country", conditions);
+
+		assertSame(second, first);
+		assertEquals(noOfReads, 1);
+		assertEquals(cache.getNoOfHits(), 1L);
+		assertEquals(cache.getNoOfMisses(), 1L);
+	}
+
+	@Test
+	public void testEqualConditionsInOtherMapAreSameKey() {
+		List<Map<String, Object>> first = getOrReadList("country", conditions);
+		Map<String, Object> otherConditions = new HashMap<>();
+		otherConditions.put("alpha2code", "SE");
+
+		assertSame(getOrReadList("country", otherConditions), first);
+	}
+
+	@Test
+	public void testOtherConditionsAreReadAgain() {
+		getOrReadList("country", conditions);
+		Map<String, Object> otherConditions = new HashMap<>();
+		otherConditions.put("alpha2code", "NO");
+		getOrReadList("country", otherConditions);
+
+		assertEquals(noOfReads, 2);
+	}
+
+	@Test
+	public void testChangeOfCallersConditionsDoesNotChangeCachedKey() {
+		List<Map<String, Object>> first = getOrReadList("country", conditions);
+		conditions.put("alpha2code", "NO");
+		Map<String, Object> originalConditions = new HashMap<>();
+		originalConditions.put("alpha2code", "SE");
+
+		assertSame(getOrReadList("country", originalConditions), first);
+	}
+
+	@Test
+	public void testListAndOneRowAreCachedSeparately() {
+		getOrReadList("country", conditions);
+		Map<String, Object> row = cache.getOrReadOneRowUsingTableAndConditions("country",
+				conditions, () -> readList().get(0));
+
+		assertEquals(row.get("read"), 2);
+		assertSame(cache.getOrReadOneRowUsingTableAndConditions("country", conditions,
+				() -> readList().get(0)), row);
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testCachedListCanNotBeChanged() {
+		getOrReadList("country", conditions).clear();
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testCachedRowsCanNotBeChanged() {
+		getOrReadList("country", conditions).get(0).put("read", 5);
+	}
+
+	@Test
+	public void testInvalidateTableRemovesOnlyThatTable() {
+		cache.cacheTableUsingTimeToLive("organisation", Duration.ofMinutes(1));
+		getOrReadList("country", conditions);
+		List<Map<String, Object>> organisations = getOrReadList("organisation", conditions);
+		cache.invalidateTable("country");
+
+		assertEquals(cache.size(), 1);
+		assertEquals(getOrReadList("country", conditions).get(0).get("read"), 3);
+		assertSame(getOrReadList("organisation", conditions), organisations);
+		assertEquals(noOfReads, 3);
+	}
+
+	@Test
+	public void testResultReadWhileTableIsInvalidatedIsNotStored() {
+		List<Map<String, Object>> first = cache.getOrReadListUsingTableAndConditions("country",
+				conditions, () -> {
+					cache.invalidateTable("country");
+					return readList();
+				});
+		List<Map<String, Object>> second = getOrReadList("country", conditions);
+
+		assertNotSame(second, first);
+		assertEquals(noOfReads, 2);
+	}
+
+	@Test
+	public void testExpiredResultIsReadAgain() throws Exception {
+		cache.cacheTableUsingTimeToLive("country", Duration.ofMillis(1));
+		getOrReadList("country", conditions);
+		Thread.sleep(5);
+		getOrReadList("country", conditions);
+
+		assertEquals(noOfReads, 2);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedAreEvictedWhenFull() {
+		List<Map<String, Object>> first = readConditionNo(0);
+		for (int i = 1; i < 10; i++) {
+			readConditionNo(i);
+		}
+		assertSame(readConditionNo(0), first);
+		readConditionNo(10);
+
+		assertEquals(cache.size(), 9);
+		assertSame(readConditionNo(0), first);
+		assertEquals(noOfReads, 11);
+		readConditionNo(1);
+		assertEquals(noOfReads, 12);
+	}
+
+	private List<Map<String, Object>> readConditionNo(int conditionNo) {
+		Map<String, Object> numberedConditions = new HashMap<>();
+		numberedConditions.put("id", conditionNo);
+		return getOrReadList("country", numberedConditions);
+	}
+
+	@Test
+	public void testInvalidateAllTables() {
+		cache.cacheTableUsingTimeToLive("organisation", Duration.ofMinutes(1));
+		getOrReadList("country", conditions);
+		getOrReadList("organisation", conditions);
+		cache.invalidateAllTables();
+
+		assertEquals(cache.size(), 0);
+		getOrReadList("country", conditions);
+		assertEquals(noOfReads, 3);
+	}
+
+	@Test
+	public void testResultReadWhileAllTablesAreInvalidatedIsNotStored() {
+		cache.getOrReadListUsingTableAndConditions("country", conditions, () -> {
+			cache.invalidateAllTables();
+			return readList();
+		});
+
+		assertEquals(cache.size(), 0);
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RecordLoaderTest {
+	private RecordReaderSpy recordReaderSpy;
+	private RecordLoader<String> recordLoader;
+
+	@BeforeMethod
+	public void setUp() {
+		recordReaderSpy = new RecordReaderSpy();
+		recordLoader = RecordLoader.usingRecordReaderAndTableNameAndKeyColumn(recordReaderSpy,
+				"country", "alpha2code");
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(recordLoader.getRecordReader(), recordReaderSpy);
+		assertEquals(recordLoader.getTableName(), "country");
+		assertEquals(recordLoader.getKeyColumn(), "alpha2code");
+	}
+
+	@Test
+	public void testLoadDoesNotReadBeforeDispatch() {
+		CompletableFuture<List<Map<String, Object>>> load = recordLoader.load("SE");
+
+		assertFalse(load.isDone());
+		assertEquals(recordReaderSpy.noOfReads, 0);
+	}
+
+	@Test
+	public void testDispatchReadsAllLoadedKeysInOneRead() {
+		CompletableFuture<List<Map<String, Object>>> se = recordLoader.load("SE");
+		CompletableFuture<List<Map<String, Object>>> no = recordLoader.load("NO");
+
+		recordLoader.dispatch();
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertEquals(recordReaderSpy.tableName, "country");
+		assertEquals(recordReaderSpy.keyColumn, "alpha2code");
+		assertEquals(recordReaderSpy.keys, List.of("SE", "NO"));
+		assertEquals(se.join().get(0).get("read"), 1);
+		assertEquals(no.join().get(0).get("read"), 1);
+	}
+
+	@Test
+	public void testSameKeyIsOnlyReadOnce() {
+		CompletableFuture<List<Map<String, Object>>> first = recordLoader.load("SE");
+		recordLoader.dispatch();
+		CompletableFuture<List<Map<String, Object>>> second = recordLoader.load("SE");
+		recordLoader.dispatch();
+
+		assertSame(second, first);
+		assertEquals(recordReaderSpy.noOfReads, 1);
+	}
+
+	@Test
+	public void testDispatchWithoutLoadedKeysDoesNotRead() {
+		recordLoader.dispatch();
+
+		assertEquals(recordReaderSpy.noOfReads, 0);
+	}
+
+	@Test
+	public void testNullKeyMatchesNothing() {
+		CompletableFuture<List<Map<String, Object>>> load = recordLoader.load(null);
+
+		assertTrue(load.join().isEmpty());
+		recordLoader.dispatch();
+		assertEquals(recordReaderSpy.noOfReads, 0);
+	}
+
+	@Test
+	public void testFailedReadCompletesLoadsWithErrorAndIsReadAgain() {
+		recordReaderSpy.throwError = true;
+		CompletableFuture<List<Map<String, Object>>> failed = recordLoader.load("SE");
+		recordLoader.dispatch();
+
+		assertTrue(failed.isCompletedExceptionally());
+
+		recordReaderSpy.throwError = false;
+		CompletableFuture<List<Map<String, Object>>> retried = recordLoader.load("SE");
+		recordLoader.dispatch();
+
+		assertEquals(retried.join().get(0).get("read"), 1);
+	}
+}
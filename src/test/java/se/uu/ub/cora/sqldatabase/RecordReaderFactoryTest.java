@@ -20,6 +20,8 @@
 package se.uu.ub.cora.sqldatabase;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
@@ -59,4 +61,79 @@ public class RecordReaderFactoryTest {
 		DataReaderImp dataReader = (DataReaderImp) recordReader.getDataReader();
 		assertSame(dataReader.getSqlConnectionProvider(), connectionProvider);
 	}
+
+	@Test
+	public void testFactorUsingRecordCache() throws Exception {
+		RecordCache recordCache = RecordCache.usingMaxSize(10);
+		readerFactory = readerFactory.withRecordCache(recordCache);
+		CachingRecordReader recordReader = (CachingRecordReader) readerFactory.factor();
+
+		assertSame(readerFactory.getRecordCache(), recordCache);
+		assertSame(recordReader.getRecordCache(), recordCache);
+		RecordReaderImp wrappedReader = (RecordReaderImp) recordReader.getRecordReader();
+		DataReaderImp dataReader = (DataReaderImp) wrappedReader.getDataReader();
+		assertSame(dataReader.getSqlConnectionProvider(), connectionProvider);
+	}
+
+	@Test
+	public void testFactorUsingTableSnapshots() throws Exception {
+		TableSnapshots tableSnapshots = new TableSnapshots();
+		readerFactory = readerFactory.withTableSnapshots(tableSnapshots);
+		SnapshotRecordReader recordReader = (SnapshotRecordReader) readerFactory.factor();
+
+		assertSame(readerFactory.getTableSnapshots(), tableSnapshots);
+		assertSame(recordReader.getTableSnapshots(), tableSnapshots);
+		RecordReaderImp wrappedReader = (RecordReaderImp) recordReader.getRecordReader();
+		DataReaderImp dataReader = (DataReaderImp) wrappedReader.getDataReader();
+		assertSame(dataReader.getSqlConnectionProvider(), connectionProvider);
+	}
+
+	@Test
+	public void testFactorUsingStatementMetrics() throws Exception {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		readerFactory = readerFactory.withStatementMetrics(statementMetrics);
+		RecordReaderImp recordReader = (RecordReaderImp) readerFactory.factor();
+
+		assertSame(readerFactory.getStatementMetrics(), statementMetrics);
+		DataReaderImp dataReader = (DataReaderImp) recordReader.getDataReader();
+		assertSame(dataReader.getSqlConnectionProvider(), connectionProvider);
+		assertSame(dataReader.getStatementMetrics(), statementMetrics);
+	}
+
+	@Test
+	public void testFactorWithoutStatementMetrics() throws Exception {
+		RecordReaderImp recordReader = (RecordReaderImp) readerFactory.factor();
+
+		DataReaderImp dataReader = (DataReaderImp) recordReader.getDataReader();
+		assertNull(dataReader.getStatementMetrics());
+	}
+
+	@Test
+	public void testWithReturnsNewFactory() throws Exception {
+		RecordReaderFactoryImp cachingFactory = readerFactory
+				.withRecordCache(RecordCache.usingMaxSize(10));
+
+		assertNotSame(cachingFactory, readerFactory);
+		assertNull(readerFactory.getRecordCache());
+		assertSame(cachingFactory.getSqlConnectionProvider(), connectionProvider);
+	}
+
+	@Test
+	public void testFactorUsingRecordCacheTableSnapshotsAndStatementMetrics() throws Exception {
+		RecordCache recordCache = RecordCache.usingMaxSize(10);
+		TableSnapshots tableSnapshots = new TableSnapshots();
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		readerFactory = readerFactory.withStatementMetrics(statementMetrics)
+				.withTableSnapshots(tableSnapshots).withRecordCache(recordCache);
+		CachingRecordReader recordReader = (CachingRecordReader) readerFactory.factor();
+
+		assertSame(recordReader.getRecordCache(), recordCache);
+		SnapshotRecordReader snapshotReader = (SnapshotRecordReader) recordReader
+				.getRecordReader();
+		assertSame(snapshotReader.getTableSnapshots(), tableSnapshots);
+		RecordReaderImp wrappedReader = (RecordReaderImp) snapshotReader.getRecordReader();
+		DataReaderImp dataReader = (DataReaderImp) wrappedReader.getDataReader();
+		assertSame(dataReader.getSqlConnectionProvider(), connectionProvider);
+		assertSame(dataReader.getStatementMetrics(), statementMetrics);
+	}
 }
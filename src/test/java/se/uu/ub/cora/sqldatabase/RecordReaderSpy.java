@@ -0,0 +1,195 @@
+package se.uu.ub.cora.sqldatabase;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import se.uu.ub.cora.connection.ResultSetSpy;
+
+public class RecordReaderSpy implements RecordReader {
+
+	public int noOfReads = 0;
+	public String tableName;
+	public Map<String, Object> conditions;
+	public RowMapper<?> rowMapper;
+	public String mappedResult = "someMappedResult";
+	public boolean throwError = false;
+	public List<Map<String, Object>> allRows;
+	public List<String> allColumnNames;
+	public String keyColumn;
+	public Collection<?> keys;
+	public List<String> keyColumns;
+	public List<Object> afterKey;
+	public int pageSize;
+	public List<String> columnNames;
+	public boolean returnNoRows = false;
+	public boolean returnTwoRows = false;
+	public SqlStorageException errorToThrowOnOptionalRead;
+
+	private List<Map<String, Object>> createResult() {
+		List<Map<String, Object>> result = new ArrayList<>();
+		Map<String, Object> row = new HashMap<>();
+		row.put("read", noOfReads);
+		result.add(row);
+		return result;
+	}
+
+	private void registerRead(String tableName, Map<String, Object> conditions) {
+		if (throwError) {
+			throw SqlStorageException.withMessage("Error from RecordReaderSpy");
+		}
+		noOfReads++;
+		this.tableName = tableName;
+		this.conditions = conditions;
+	}
+
+	@Override
+	public List<Map<String, Object>> readAllFromTable(String tableName) {
+		registerRead(tableName, null);
+		if (allRows != null) {
+			return allRows;
+		}
+		return createResult();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> List<T> readAllFromTable(String tableName, RowMapper<T> rowMapper) {
+		registerRead(tableName, null);
+		this.rowMapper = rowMapper;
+		if (allRows != null) {
+			startResultUsingColumnNamesOfAllRows(rowMapper);
+			return (List<T>) allRows;
+		}
+		return (List<T>) List.of(mappedResult);
+	}
+
+	private void startResultUsingColumnNamesOfAllRows(RowMapper<?> rowMapper) {
+		ResultSetSpy resultSet = new ResultSetSpy();
+		if (allColumnNames != null) {
+			resultSet.columnNames = allColumnNames;
+		} else if (!allRows.isEmpty()) {
+			resultSet.columnNames = new ArrayList<>(allRows.get(0).keySet());
+		}
+		try {
+			rowMapper.startResult(resultSet);
+		} catch (SQLException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions) {
+		registerRead(tableName, conditions);
+		if (returnNoRows) {
+			return new ArrayList<>();
+		}
+		if (returnTwoRows) {
+			List<Map<String, Object>> result = createResult();
+			result.addAll(createResult());
+			return result;
+		}
+		return createResult();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> List<T> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		registerRead(tableName, conditions);
+		this.rowMapper = rowMapper;
+		return (List<T>) List.of(mappedResult);
+	}
+
+	@Override
+	public Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions) {
+		registerRead(tableName, conditions);
+		return createResult().get(0);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		registerRead(tableName, conditions);
+		this.rowMapper = rowMapper;
+		return (T) mappedResult;
+	}
+
+	@Override
+	public <K> Map<K, List<Map<String, Object>>> readFromTableUsingKeyColumnAndKeys(
+			String tableName, String keyColumn, Collection<K> keys) {
+		registerRead(tableName, null);
+		this.keyColumn = keyColumn;
+		this.keys = keys;
+		Map<K, List<Map<String, Object>>> rowsForKeys = new LinkedHashMap<>();
+		for (K key : keys) {
+			rowsForKeys.put(key, createResult());
+		}
+		return rowsForKeys;
+	}
+
+	@Override
+	public RecordPage readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+			String tableName, Map<String, Object> conditions, List<String> keyColumns,
+			List<Object> afterKey, int pageSize) {
+		registerRead(tableName, conditions);
+		this.keyColumns = keyColumns;
+		this.afterKey = afterKey;
+		this.pageSize = pageSize;
+		return RecordPage.usingRowsAndNextKey(createResult(), null);
+	}
+
+	@Override
+	public List<Map<String, Object>> readAllFromTable(String tableName, List<String> columnNames) {
+		registerRead(tableName, null);
+		this.columnNames = columnNames;
+		return createResult();
+	}
+
+	@Override
+	public List<Map<String, Object>> readFromTableUsingConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		registerRead(tableName, conditions);
+		this.columnNames = columnNames;
+		return createResult();
+	}
+
+	@Override
+	public Map<String, Object> readOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, List<String> columnNames) {
+		registerRead(tableName, conditions);
+		this.columnNames = columnNames;
+		return createResult().get(0);
+	}
+
+	@Override
+	public Optional<Map<String, Object>> readOptionalOneRowFromDbUsingTableAndConditions(
+			String tableName, Map<String, Object> conditions) {
+		registerRead(tableName, conditions);
+		if (errorToThrowOnOptionalRead != null) {
+			throw errorToThrowOnOptionalRead;
+		}
+		if (returnNoRows) {
+			return Optional.empty();
+		}
+		return Optional.of(createResult().get(0));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> Optional<T> readOptionalOneRowFromDbUsingTableAndConditions(String tableName,
+			Map<String, Object> conditions, RowMapper<T> rowMapper) {
+		registerRead(tableName, conditions);
+		this.rowMapper = rowMapper;
+		return Optional.of((T) mappedResult);
+	}
+
+}
@@ -20,12 +20,19 @@
 package se.uu.ub.cora.sqldatabase;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Set;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -128,6 +135,26 @@ public class RecordReaderTest {
 		assertSame(result, dataReader.oneRowResult);
 	}
 
+	@Test
+	public void testGeneratedSqlIsReusedForSameTableAndConditionNames() throws Exception {
+		recordReader.readFromTableUsingConditions("someTableName", conditions);
+		String firstSql = dataReader.sql;
+		Map<String, Object> otherConditions = new HashMap<>();
+		otherConditions.put("alpha2code", "NO");
+		recordReader.readFromTableUsingConditions("someTableName", otherConditions);
+
+		assertSame(dataReader.sql, firstSql);
+	}
+
+	@Test
+	public void testGeneratedSelectAllSqlIsReusedForSameTable() throws Exception {
+		recordReader.readAllFromTable("someTableName");
+		String firstSql = dataReader.sql;
+		recordReader.readAllFromTable("someTableName");
+
+		assertSame(dataReader.sql, firstSql);
+	}
+
 	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
 			+ "Error reading data from someTableName")
 	public void testReadOneRowFromDbUsingTableAndConditionsThrowError() throws Exception {
@@ -179,4 +206,362 @@ public class RecordReaderTest {
 		recordReader.readFromTableUsingConditions("someTableName", conditions);
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testReadAllUsingRowMapper() throws Exception {
+		RowMapper<Object> rowMapper = resultSet -> resultSet.getObject(1);
+		List<Object> result = recordReader.readAllFromTable("someTableName", rowMapper);
+
+		assertEquals(dataReader.sql, "select * from someTableName");
+		assertTrue(dataReader.values.isEmpty());
+		assertSame(dataReader.rowMapper, rowMapper);
+		assertEquals(result, List.of(dataReader.mappedResult));
+	}
+
+	@Test
+	public void testReadFromTableUsingConditionsAndRowMapper() throws Exception {
+		RowMapper<Object> rowMapper = resultSet -> resultSet.getObject(1);
+		List<Object> result = recordReader.readFromTableUsingConditions("someTableName",
+				conditions, rowMapper);
+
+		assertEquals(dataReader.sql, "select * from someTableName where alpha2code = ?");
+		assertEquals(dataReader.values, List.of("SE"));
+		assertSame(dataReader.rowMapper, rowMapper);
+		assertEquals(result, List.of(dataReader.mappedResult));
+	}
+
+	@Test
+	public void testReadOneRowUsingConditionsAndRowMapper() throws Exception {
+		RowMapper<Object> rowMapper = resultSet -> resultSet.getObject(1);
+		Object result = recordReader.readOneRowFromDbUsingTableAndConditions("someTableName",
+				conditions, rowMapper);
+
+		assertEquals(dataReader.sql, "select * from someTableName where alpha2code = ?");
+		assertEquals(dataReader.values, List.of("SE"));
+		assertSame(dataReader.rowMapper, rowMapper);
+		assertSame(result, dataReader.mappedResult);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from someTableName")
+	public void testReadOneRowUsingRowMapperThrowsError() throws Exception {
+		dataReader.throwError = true;
+		recordReader.readOneRowFromDbUsingTableAndConditions("someTableName", conditions,
+				resultSet -> resultSet.getObject(1));
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from someTableName")
+	public void testReadAllUsingRowMapperThrowsError() throws Exception {
+		dataReader.throwError = true;
+		recordReader.readAllFromTable("someTableName", resultSet -> resultSet.getObject(1));
+	}
+
+	@Test
+	public void testReadUsingKeysSendsOneQueryWithPaddedInList() throws Exception {
+		dataReader.rowsToReturn = List.of(createRow("id", 1L), createRow("id", 3L),
+				createRow("id", 3L));
+
+		Map<Integer, List<Map<String, Object>>> result = recordReader
+				.readFromTableUsingKeyColumnAndKeys("someTableName", "id", List.of(1, 2, 3));
+
+		assertEquals(dataReader.noOfQueries, 1);
+		assertEquals(dataReader.sql, "select * from someTableName where id in (?, ?, ?, ?)");
+		assertEquals(dataReader.values, List.of(1, 2, 3, 3));
+		assertEquals(result.keySet(), Set.of(1, 2, 3));
+		assertEquals(result.get(1), List.of(createRow("id", 1L)));
+		assertTrue(result.get(2).isEmpty());
+		assertEquals(result.get(3).size(), 2);
+	}
+
+	private Map<String, Object> createRow(String columnName, Object value) {
+		Map<String, Object> row = new HashMap<>();
+		row.put(columnName, value);
+		return row;
+	}
+
+	@Test
+	public void testReadUsingKeysKeepsOrderAndSkipsDuplicatesAndNulls() throws Exception {
+		dataReader.rowsToReturn = List.of(createRow("code", "a"));
+		List<String> keys = new ArrayList<>(List.of("b", "a", "b"));
+		keys.add(null);
+
+		Map<String, List<Map<String, Object>>> result = recordReader
+				.readFromTableUsingKeyColumnAndKeys("someTableName", "code", keys);
+
+		assertEquals(dataReader.sql, "select * from someTableName where code in (?, ?)");
+		assertEquals(dataReader.values, List.of("b", "a"));
+		assertEquals(new ArrayList<>(result.keySet()), List.of("b", "a"));
+	}
+
+	@Test
+	public void testReadUsingNoKeysSendsNoQuery() throws Exception {
+		Map<String, List<Map<String, Object>>> result = recordReader
+				.readFromTableUsingKeyColumnAndKeys("someTableName", "code", List.of());
+
+		assertEquals(dataReader.noOfQueries, 0);
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void testReadUsingManyKeysIsSplitInChunks() throws Exception {
+		List<Integer> keys = new ArrayList<>();
+		for (int i = 0; i < RecordReaderImp.MAX_NO_OF_KEYS_PER_QUERY + 3; i++) {
+			keys.add(i);
+		}
+
+		recordReader.readFromTableUsingKeyColumnAndKeys("someTableName", "id", keys);
+
+		assertEquals(dataReader.noOfQueries, 2);
+		assertEquals(dataReader.executedValues.get(0).size(),
+				RecordReaderImp.MAX_NO_OF_KEYS_PER_QUERY);
+		assertEquals(dataReader.executedValues.get(1),
+				List.of(RecordReaderImp.MAX_NO_OF_KEYS_PER_QUERY,
+						RecordReaderImp.MAX_NO_OF_KEYS_PER_QUERY + 1,
+						RecordReaderImp.MAX_NO_OF_KEYS_PER_QUERY + 2,
+						RecordReaderImp.MAX_NO_OF_KEYS_PER_QUERY + 2));
+	}
+
+	@Test
+	public void testReadUsingKeysReusesSqlForSameNoOfPlaceholders() throws Exception {
+		recordReader.readFromTableUsingKeyColumnAndKeys("someTableName", "id", List.of(1, 2, 3));
+		recordReader.readFromTableUsingKeyColumnAndKeys("someTableName", "id",
+				List.of(4, 5, 6, 7));
+
+		assertSame(dataReader.executedSqls.get(1), dataReader.executedSqls.get(0));
+	}
+
+	@Test
+	public void testReadUsingKeysMatchesDecimalValuesFromDatabase() throws Exception {
+		dataReader.rowsToReturn = List.of(createRow("id", new BigDecimal("1")),
+				createRow("id", new BigDecimal("2.00")));
+
+		Map<Integer, List<Map<String, Object>>> result = recordReader
+				.readFromTableUsingKeyColumnAndKeys("someTableName", "id", List.of(1, 2));
+
+		assertEquals(result.get(1).size(), 1);
+		assertEquals(result.get(2).size(), 1);
+	}
+
+	@Test
+	public void testReadUsingKeysWithKeyColumnMissingInRowsThrowsError() throws Exception {
+		dataReader.rowsToReturn = List.of(createRow("alpha2code", "SE"));
+		try {
+			recordReader.readFromTableUsingKeyColumnAndKeys("someTableName", "alpha2Code",
+					List.of("SE"));
+			fail();
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), "Error reading data from someTableName");
+			assertEquals(e.getCause().getMessage(),
+					"Key column: alpha2Code is missing in read rows");
+		}
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from someTableName")
+	public void testReadUsingKeysThrowsError() throws Exception {
+		dataReader.throwError = true;
+		recordReader.readFromTableUsingKeyColumnAndKeys("someTableName", "id", List.of(1));
+	}
+
+	@Test
+	public void testReadFirstPageWithoutConditions() throws Exception {
+		dataReader.rowsToReturn = List.of(createRow("id", 1), createRow("id", 2));
+
+		RecordPage page = recordReader
+				.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", Map.of(), List.of("id"), null, 2);
+
+		assertEquals(dataReader.sql, "select * from someTableName order by id limit ?");
+		assertEquals(dataReader.values, List.of(3));
+		assertEquals(page.getRows().size(), 2);
+		assertFalse(page.hasNextPage());
+		assertNull(page.getNextKey());
+	}
+
+	@Test
+	public void testReadPageAfterKeyWithConditionsAndTwoKeyColumns() throws Exception {
+		dataReader.rowsToReturn = List.of(createKeyRow("SE", 2), createKeyRow("SE", 3),
+				createKeyRow("SE", 4));
+
+		RecordPage page = recordReader
+				.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of("domain", "id"), List.of("NO", 7), 2);
+
+		assertEquals(dataReader.sql, "select * from someTableName where alpha2code = ?"
+				+ " and (domain, id) > (?, ?) order by domain, id limit ?");
+		assertEquals(dataReader.values, List.of("SE", "NO", 7, 3));
+		assertEquals(page.getRows(), List.of(createKeyRow("SE", 2), createKeyRow("SE", 3)));
+		assertTrue(page.hasNextPage());
+		assertEquals(page.getNextKey(), List.of("SE", 3));
+	}
+
+	private Map<String, Object> createKeyRow(String domain, int id) {
+		Map<String, Object> row = new HashMap<>();
+		row.put("domain", domain);
+		row.put("id", id);
+		return row;
+	}
+
+	@Test
+	public void testReadPageAfterKeyWithOneKeyColumn() throws Exception {
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", Map.of(), List.of("id"), List.of(10), 5);
+
+		assertEquals(dataReader.sql,
+				"select * from someTableName where id > ? order by id limit ?");
+		assertEquals(dataReader.values, List.of(10, 6));
+	}
+
+	@Test
+	public void testReadPageSqlIsReused() throws Exception {
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of("id"), List.of(10), 5);
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of("id"), List.of(20), 5);
+
+		assertSame(dataReader.executedSqls.get(1), dataReader.executedSqls.get(0));
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid page key, expected 2 values but got 1")
+	public void testReadPageWithWrongSizeOfKey() throws Exception {
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of("domain", "id"), List.of(10), 5);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid page, no key columns")
+	public void testReadPageWithoutKeyColumns() throws Exception {
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of(), null, 5);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid page size: 0")
+	public void testReadPageWithInvalidPageSize() throws Exception {
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of("id"), null, 0);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid page size: 2147483647")
+	public void testReadPageWithMaxIntPageSize() throws Exception {
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of("id"), null, Integer.MAX_VALUE);
+	}
+
+	@Test
+	public void testReadPageWithKeyColumnMissingInRowsThrowsError() throws Exception {
+		dataReader.rowsToReturn = List.of(createKeyRow("SE", 2), createKeyRow("SE", 3));
+		try {
+			recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+					"someTableName", conditions, List.of("Domain", "id"), null, 1);
+			fail();
+		} catch (SqlStorageException e) {
+			assertEquals(e.getMessage(), "Error reading data from someTableName");
+			assertEquals(e.getCause().getMessage(), "Key column: Domain is missing in read rows");
+		}
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from someTableName")
+	public void testReadPageThrowsError() throws Exception {
+		dataReader.throwError = true;
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"someTableName", conditions, List.of("id"), null, 5);
+	}
+
+	@Test
+	public void testReadAllUsingColumnNames() throws Exception {
+		List<Map<String, Object>> result = recordReader.readAllFromTable("someTableName",
+				List.of("id", "name"));
+
+		assertEquals(dataReader.sql, "select id, name from someTableName");
+		assertTrue(dataReader.values.isEmpty());
+		assertSame(result, dataReader.result);
+	}
+
+	@Test
+	public void testReadUsingConditionsAndColumnNames() throws Exception {
+		List<Map<String, Object>> result = recordReader.readFromTableUsingConditions(
+				"someTableName", conditions, List.of("id"));
+
+		assertEquals(dataReader.sql, "select id from someTableName where alpha2code = ?");
+		assertEquals(dataReader.values, List.of("SE"));
+		assertSame(result, dataReader.result);
+	}
+
+	@Test
+	public void testReadOneRowUsingConditionsAndColumnNames() throws Exception {
+		Map<String, Object> row = recordReader.readOneRowFromDbUsingTableAndConditions(
+				"someTableName", conditions, List.of("id", "name"));
+
+		assertEquals(dataReader.sql, "select id, name from someTableName where alpha2code = ?");
+		assertEquals(dataReader.values, List.of("SE"));
+		assertSame(row, dataReader.oneRowResult);
+	}
+
+	@Test
+	public void testProjectionIsPartOfCachedSql() throws Exception {
+		recordReader.readFromTableUsingConditions("someTableName", conditions, List.of("id"));
+		recordReader.readFromTableUsingConditions("someTableName", conditions,
+				List.of("id", "name"));
+		recordReader.readFromTableUsingConditions("someTableName", conditions, List.of("id"));
+
+		assertEquals(dataReader.executedSqls.get(1),
+				"select id, name from someTableName where alpha2code = ?");
+		assertSame(dataReader.executedSqls.get(2), dataReader.executedSqls.get(0));
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid projection, no column names")
+	public void testReadUsingNoColumnNames() throws Exception {
+		recordReader.readAllFromTable("someTableName", List.of());
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from someTableName")
+	public void testReadOneRowUsingColumnNamesThrowsError() throws Exception {
+		dataReader.throwError = true;
+		recordReader.readOneRowFromDbUsingTableAndConditions("someTableName", conditions,
+				List.of("id"));
+	}
+
+	@Test
+	public void testReadOptionalOneRowReturnsResultFromDataReader() throws Exception {
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("someTableName", conditions);
+
+		assertEquals(dataReader.sql, "select * from someTableName where alpha2code = ?");
+		assertEquals(dataReader.values, List.of("SE"));
+		assertSame(row.get(), dataReader.oneRowResult);
+	}
+
+	@Test
+	public void testReadOptionalOneRowMissReturnsEmpty() throws Exception {
+		dataReader.returnEmptyOptional = true;
+
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("someTableName", conditions);
+
+		assertTrue(row.isEmpty());
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from someTableName")
+	public void testReadOptionalOneRowThrowsError() throws Exception {
+		dataReader.throwError = true;
+		recordReader.readOptionalOneRowFromDbUsingTableAndConditions("someTableName", conditions);
+	}
+
+	@Test
+	public void testReadOptionalOneRowUsingRowMapper() throws Exception {
+		RowMapper<Object> rowMapper = resultSet -> resultSet.getObject(1);
+		Optional<Object> result = recordReader.readOptionalOneRowFromDbUsingTableAndConditions(
+				"someTableName", conditions, rowMapper);
+
+		assertEquals(dataReader.sql, "select * from someTableName where alpha2code = ?");
+		assertSame(dataReader.rowMapper, rowMapper);
+		assertSame(result.get(), dataReader.mappedResult);
+	}
+}
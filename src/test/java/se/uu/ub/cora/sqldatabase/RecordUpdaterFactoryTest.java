@@ -18,18 +18,24 @@
  */
 package se.uu.ub.cora.sqldatabase;
 
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+
 public class RecordUpdaterFactoryTest {
 	private SqlConnectionProviderSpy connectionProvider;
 	private RecordUpdaterFactoryImp factory;
 
 	@BeforeMethod
 	public void setUp() {
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
 		connectionProvider = new SqlConnectionProviderSpy();
 		factory = RecordUpdaterFactoryImp.usingSqlConnectionProvider(connectionProvider);
 	}
@@ -53,4 +59,79 @@ public class RecordUpdaterFactoryTest {
 	public void testSqlConnectionProvider() {
 		assertSame(factory.getSqlConnectionProvider(), connectionProvider);
 	}
+
+	@Test
+	public void testFactorUsingRecordCache() {
+		RecordCache recordCache = RecordCache.usingMaxSize(10);
+		factory = factory.withRecordCache(recordCache);
+		CachingRecordUpdater recordUpdater = (CachingRecordUpdater) factory.factor();
+
+		assertSame(factory.getRecordCache(), recordCache);
+		assertSame(recordUpdater.getTableInvalidator(), recordCache);
+		RecordUpdaterImp wrappedUpdater = (RecordUpdaterImp) recordUpdater.getRecordUpdater();
+		DataUpdaterImp dataUpdater = (DataUpdaterImp) wrappedUpdater.getDataUpdater();
+		assertSame(dataUpdater.getSqlConnectionProvider(), connectionProvider);
+	}
+
+	@Test
+	public void testFactorUsingTableSnapshots() {
+		TableSnapshots tableSnapshots = new TableSnapshots();
+		factory = factory.withTableSnapshots(tableSnapshots);
+		CachingRecordUpdater recordUpdater = (CachingRecordUpdater) factory.factor();
+
+		assertSame(factory.getTableSnapshots(), tableSnapshots);
+		assertSame(recordUpdater.getTableInvalidator(), tableSnapshots);
+		RecordUpdaterImp wrappedUpdater = (RecordUpdaterImp) recordUpdater.getRecordUpdater();
+		DataUpdaterImp dataUpdater = (DataUpdaterImp) wrappedUpdater.getDataUpdater();
+		assertSame(dataUpdater.getSqlConnectionProvider(), connectionProvider);
+	}
+
+	@Test
+	public void testFactorUsingStatementMetrics() {
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		factory = factory.withStatementMetrics(statementMetrics);
+		RecordUpdaterImp recordUpdater = (RecordUpdaterImp) factory.factor();
+
+		assertSame(factory.getStatementMetrics(), statementMetrics);
+		DataUpdaterImp dataUpdater = (DataUpdaterImp) recordUpdater.getDataUpdater();
+		assertSame(dataUpdater.getSqlConnectionProvider(), connectionProvider);
+		assertSame(dataUpdater.getStatementMetrics(), statementMetrics);
+	}
+
+	@Test
+	public void testFactorWithoutStatementMetrics() {
+		RecordUpdaterImp recordUpdater = (RecordUpdaterImp) factory.factor();
+
+		DataUpdaterImp dataUpdater = (DataUpdaterImp) recordUpdater.getDataUpdater();
+		assertNull(dataUpdater.getStatementMetrics());
+	}
+
+	@Test
+	public void testWithReturnsNewFactory() {
+		RecordUpdaterFactoryImp cachingFactory = factory
+				.withRecordCache(RecordCache.usingMaxSize(10));
+
+		assertNotSame(cachingFactory, factory);
+		assertNull(factory.getRecordCache());
+		assertSame(cachingFactory.getSqlConnectionProvider(), connectionProvider);
+	}
+
+	@Test
+	public void testFactorUsingRecordCacheTableSnapshotsAndStatementMetrics() {
+		RecordCache recordCache = RecordCache.usingMaxSize(10);
+		TableSnapshots tableSnapshots = new TableSnapshots();
+		StatementMetrics statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(10);
+		factory = factory.withStatementMetrics(statementMetrics).withTableSnapshots(tableSnapshots)
+				.withRecordCache(recordCache);
+		CachingRecordUpdater recordUpdater = (CachingRecordUpdater) factory.factor();
+
+		assertSame(recordUpdater.getTableInvalidator(), recordCache);
+		CachingRecordUpdater snapshotUpdater = (CachingRecordUpdater) recordUpdater
+				.getRecordUpdater();
+		assertSame(snapshotUpdater.getTableInvalidator(), tableSnapshots);
+		RecordUpdaterImp wrappedUpdater = (RecordUpdaterImp) snapshotUpdater.getRecordUpdater();
+		DataUpdaterImp dataUpdater = (DataUpdaterImp) wrappedUpdater.getDataUpdater();
+		assertSame(dataUpdater.getSqlConnectionProvider(), connectionProvider);
+		assertSame(dataUpdater.getStatementMetrics(), statementMetrics);
+	}
 }
@@ -0,0 +1,39 @@
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.List;
+import java.util.Map;
+
+public class RecordUpdaterSpy implements RecordUpdater {
+
+	public String tableName;
+	public Map<String, Object> values;
+	public Map<String, Object> conditions;
+	public List<RowUpdate> rowUpdates;
+	public int batchSize = 0;
+	public boolean throwError = false;
+
+	@Override
+	public void updateTableUsingNameAndColumnsWithValuesAndConditions(String tableName,
+			Map<String, Object> values, Map<String, Object> conditions) {
+		this.tableName = tableName;
+		this.values = values;
+		this.conditions = conditions;
+		throwErrorIfSet();
+	}
+
+	private void throwErrorIfSet() {
+		if (throwError) {
+			throw SqlStorageException.withMessage("Error from RecordUpdaterSpy");
+		}
+	}
+
+	@Override
+	public void updateTableUsingNameAndRowUpdatesAndBatchSize(String tableName,
+			List<RowUpdate> rowUpdates, int batchSize) {
+		this.tableName = tableName;
+		this.rowUpdates = rowUpdates;
+		this.batchSize = batchSize;
+		throwErrorIfSet();
+	}
+
+}
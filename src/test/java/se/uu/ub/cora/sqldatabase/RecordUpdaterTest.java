@@ -19,8 +19,11 @@
 package se.uu.ub.cora.sqldatabase;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.testng.annotations.BeforeMethod;
@@ -88,4 +91,70 @@ public class RecordUpdaterTest {
 		assertEquals(dataUpdaterSpy.values.get(3), "swe");
 	}
 
+	@Test
+	public void testGeneratedSqlIsReusedForSameColumnsAndConditions() {
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("organisation", values,
+				conditions);
+		DataUpdaterSpy dataUpdaterSpy = (DataUpdaterSpy) recordUpdater.getDataUpdater();
+		String firstSql = dataUpdaterSpy.sql;
+		Map<String, Object> otherValues = new HashMap<>();
+		otherValues.put("organisation_name", "someOtherOrganisationName");
+		Map<String, Object> otherConditions = new HashMap<>();
+		otherConditions.put("organisation_id", 456);
+		recordUpdater.updateTableUsingNameAndColumnsWithValuesAndConditions("organisation",
+				otherValues, otherConditions);
+
+		assertSame(dataUpdaterSpy.sql, firstSql);
+		assertEquals(dataUpdaterSpy.values.get(0), "someOtherOrganisationName");
+		assertEquals(dataUpdaterSpy.values.get(1), 456);
+	}
+
+	private RowUpdate createRowUpdate(String name, int id) {
+		Map<String, Object> rowValues = new HashMap<>();
+		rowValues.put("organisation_name", name);
+		Map<String, Object> rowConditions = new HashMap<>();
+		rowConditions.put("organisation_id", id);
+		return RowUpdate.usingColumnsWithValuesAndConditions(rowValues, rowConditions);
+	}
+
+	@Test
+	public void testUpdateManyRowsWithSameShapeUsesOneSql() {
+		List<RowUpdate> rowUpdates = List.of(createRowUpdate("firstName", 1),
+				createRowUpdate("secondName", 2));
+		recordUpdater.updateTableUsingNameAndRowUpdatesAndBatchSize("organisation", rowUpdates,
+				100);
+
+		DataUpdaterSpy dataUpdaterSpy = (DataUpdaterSpy) recordUpdater.getDataUpdater();
+		assertEquals(dataUpdaterSpy.batchSize, 100);
+		assertEquals(dataUpdaterSpy.listOfValuesForSql.size(), 1);
+		List<List<Object>> listOfValues = dataUpdaterSpy.listOfValuesForSql
+				.get("update organisation set organisation_name = ? where organisation_id = ?");
+		assertEquals(listOfValues, List.of(List.of("firstName", 1), List.of("secondName", 2)));
+	}
+
+	@Test
+	public void testUpdateManyRowsIsGroupedByShapeInOrderOfFirstUse() {
+		RowUpdate otherShape = createRowUpdate("someNewOrganisationName", 123);
+		otherShape.getColumnsWithValues().put("organisation_code", "someNewOrgCode");
+		List<RowUpdate> rowUpdates = List.of(createRowUpdate("firstName", 1), otherShape,
+				createRowUpdate("secondName", 2));
+		recordUpdater.updateTableUsingNameAndRowUpdatesAndBatchSize("organisation", rowUpdates,
+				10);
+
+		DataUpdaterSpy dataUpdaterSpy = (DataUpdaterSpy) recordUpdater.getDataUpdater();
+		List<String> sqls = new ArrayList<>(dataUpdaterSpy.listOfValuesForSql.keySet());
+		assertEquals(sqls, List.of(
+				"update organisation set organisation_name = ? where organisation_id = ?",
+				"update organisation set organisation_code = ?, organisation_name = ? where organisation_id = ?"));
+		assertEquals(dataUpdaterSpy.listOfValuesForSql.get(sqls.get(0)).size(), 2);
+		assertEquals(dataUpdaterSpy.listOfValuesForSql.get(sqls.get(1)),
+				List.of(List.of("someNewOrgCode", "someNewOrganisationName", 123)));
+	}
+
+	@Test
+	public void testRowUpdate() {
+		RowUpdate rowUpdate = RowUpdate.usingColumnsWithValuesAndConditions(values, conditions);
+		assertSame(rowUpdate.getColumnsWithValues(), values);
+		assertSame(rowUpdate.getConditions(), conditions);
+	}
 }
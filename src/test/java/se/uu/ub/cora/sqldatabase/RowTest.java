@@ -0,0 +1,178 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RowTest {
+	private RowHeader header;
+	private Row row;
+
+	@BeforeMethod
+	public void setUp() {
+		header = RowHeader.usingColumnNames(List.of("id", "name", "code"));
+		row = Row.usingHeaderAndValues(header, new Object[] { 1, "someName", null });
+	}
+
+	@Test
+	public void testHeaderPositions() {
+		assertEquals(header.size(), 3);
+		assertEquals(header.positionOf("name"), 1);
+		assertEquals(header.getColumnName(1), "name");
+		assertEquals(header.positionOf("notAColumn"), -1);
+	}
+
+	@Test
+	public void testDuplicateColumnNameIsOnlyIncludedOnce() {
+		RowHeader duplicateHeader = RowHeader.usingColumnNames(List.of("id", "name", "id"));
+		assertEquals(duplicateHeader.size(), 2);
+		assertEquals(duplicateHeader.positionOf("id"), 0);
+		assertEquals(duplicateHeader.getColumnIndex(0), 1);
+	}
+
+	@Test
+	public void testColumnIndexesSkipLaterDuplicates() {
+		RowHeader duplicateHeader = RowHeader
+				.usingColumnNames(List.of("id", "id", "name", "code"));
+		assertEquals(duplicateHeader.getColumnName(1), "name");
+		assertEquals(duplicateHeader.getColumnIndex(1), 3);
+		assertEquals(duplicateHeader.getColumnIndex(2), 4);
+	}
+
+	@Test
+	public void testGetAndContainsKey() {
+		assertEquals(row.size(), 3);
+		assertSame(row.getHeader(), header);
+		assertEquals(row.get("id"), 1);
+		assertEquals(row.get("name"), "someName");
+		assertEquals(row.getValue(1), "someName");
+		assertTrue(row.containsKey("code"));
+		assertNull(row.get("code"));
+		assertFalse(row.containsKey("notAColumn"));
+		assertNull(row.get("notAColumn"));
+	}
+
+	@Test
+	public void testRowIsEqualToHashMapWithSameContent() {
+		Map<String, Object> expected = new HashMap<>();
+		expected.put("id", 1);
+		expected.put("name", "someName");
+		expected.put("code", null);
+
+		assertEquals(row, expected);
+		assertEquals(expected, row);
+		assertEquals(row.hashCode(), expected.hashCode());
+		assertEquals(row.keySet(), expected.keySet());
+	}
+
+	@Test
+	public void testPutChangesValueOfExistingColumn() {
+		Object previous = row.put("name", "someOtherName");
+		assertEquals(previous, "someName");
+		assertEquals(row.get("name"), "someOtherName");
+	}
+
+	@Test
+	public void testSetValueOnEntryChangesValue() {
+		for (Entry<String, Object> entry : row.entrySet()) {
+			entry.setValue(entry.getKey() + "Changed");
+		}
+		assertEquals(row.get("code"), "codeChanged");
+	}
+
+	@Test
+	public void testPutOfNewColumnAddsColumn() {
+		row.put("notAColumn", "someValue");
+
+		assertEquals(row.size(), 4);
+		assertEquals(row.get("notAColumn"), "someValue");
+		assertEquals(row.get("name"), "someName");
+		assertTrue(row.containsKey("notAColumn"));
+		assertFalse(header.positionOf("notAColumn") >= 0);
+	}
+
+	@Test
+	public void testRemoveRemovesColumn() {
+		Object previous = row.remove("id");
+
+		assertEquals(previous, 1);
+		assertEquals(row.size(), 2);
+		assertFalse(row.containsKey("id"));
+		assertNull(row.getValue(0));
+		assertEquals(row.getValue(1), "someName");
+	}
+
+	@Test
+	public void testRemoveThroughIteratorRemovesColumn() {
+		Iterator<Entry<String, Object>> iterator = row.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Entry<String, Object> entry = iterator.next();
+			if (entry.getKey().equals("name")) {
+				iterator.remove();
+			} else {
+				entry.setValue(entry.getKey() + "Changed");
+			}
+		}
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put("id", "idChanged");
+		expected.put("code", "codeChanged");
+		assertEquals(row, expected);
+	}
+
+	@Test(expectedExceptions = IllegalStateException.class)
+	public void testRemoveThroughIteratorBeforeNextThrowsError() {
+		row.entrySet().iterator().remove();
+	}
+
+	@Test
+	public void testRowCanBeChangedAfterColumnIsAdded() {
+		row.put("notAColumn", "someValue");
+		row.put("name", "someOtherName");
+		row.keySet().remove("code");
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put("id", 1);
+		expected.put("name", "someOtherName");
+		expected.put("notAColumn", "someValue");
+		assertEquals(row, expected);
+		assertEquals(row.hashCode(), expected.hashCode());
+	}
+
+	@Test
+	public void testClearRemovesAllColumns() {
+		row.clear();
+
+		assertTrue(row.isEmpty());
+		assertSame(row.getHeader(), header);
+	}
+}
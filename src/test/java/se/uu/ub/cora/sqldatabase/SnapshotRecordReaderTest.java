@@ -0,0 +1,420 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SnapshotRecordReaderTest {
+	private RecordReaderSpy recordReaderSpy;
+	private TableSnapshots tableSnapshots;
+	private SnapshotRecordReader recordReader;
+
+	@BeforeMethod
+	public void setUp() {
+		recordReaderSpy = new RecordReaderSpy();
+		recordReaderSpy.allRows = List.of(createCountry(1, "SE", "Europe"),
+				createCountry(2, "NO", "Europe"), createCountry(3, "JP", "Asia"));
+		tableSnapshots = new TableSnapshots();
+		tableSnapshots.snapshotTableUsingRefreshInterval("country", Duration.ofMinutes(1));
+		recordReader = SnapshotRecordReader.usingRecordReaderAndTableSnapshots(recordReaderSpy,
+				tableSnapshots);
+	}
+
+	private Map<String, Object> createCountry(int id, String alpha2code, String region) {
+		Map<String, Object> row = new HashMap<>();
+		row.put("id", id);
+		row.put("alpha2code", alpha2code);
+		row.put("region", region);
+		row.put("comment", null);
+		return row;
+	}
+
+	private Map<String, Object> createConditions(String columnName, Object value) {
+		Map<String, Object> conditions = new HashMap<>();
+		conditions.put(columnName, value);
+		return conditions;
+	}
+
+	@Test
+	public void testInit() {
+		assertSame(recordReader.getRecordReader(), recordReaderSpy);
+		assertSame(recordReader.getTableSnapshots(), tableSnapshots);
+	}
+
+	@Test
+	public void testReadAllIsLoadedOnce() {
+		List<Map<String, Object>> first = recordReader.readAllFromTable("country");
+		List<Map<String, Object>> second = recordReader.readAllFromTable("country");
+
+		assertEquals(first, recordReaderSpy.allRows);
+		assertSame(second, first);
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertEquals(recordReaderSpy.tableName, "country");
+	}
+
+	@Test(expectedExceptions = UnsupportedOperationException.class)
+	public void testSnapshotRowsCanNotBeChanged() {
+		recordReader.readAllFromTable("country").get(0).put("region", "Asia");
+	}
+
+	@Test
+	public void testReadUsingConditionsUsesSnapshot() {
+		recordReader.readAllFromTable("country");
+		List<Map<String, Object>> europe = recordReader.readFromTableUsingConditions("country",
+				createConditions("region", "Europe"));
+
+		assertEquals(europe.size(), 2);
+		assertEquals(europe.get(0).get("alpha2code"), "SE");
+		assertEquals(europe.get(1).get("alpha2code"), "NO");
+		assertEquals(recordReaderSpy.noOfReads, 1);
+	}
+
+	@Test
+	public void testReadUsingTwoConditions() {
+		Map<String, Object> conditions = createConditions("region", "Europe");
+		conditions.put("alpha2code", "NO");
+		List<Map<String, Object>> result = recordReader.readFromTableUsingConditions("country",
+				conditions);
+
+		assertEquals(result.size(), 1);
+		assertEquals(result.get(0).get("id"), 2);
+	}
+
+	@Test
+	public void testReadUsingConditionsWithoutMatchIsEmpty() {
+		assertTrue(recordReader
+				.readFromTableUsingConditions("country", createConditions("region", "Africa"))
+				.isEmpty());
+	}
+
+	@Test
+	public void testNullConditionMatchesNoRows() {
+		assertTrue(recordReader
+				.readFromTableUsingConditions("country", createConditions("comment", null))
+				.isEmpty());
+	}
+
+	@Test
+	public void testIntegralNumbersAreComparedAsLongs() {
+		Map<String, Object> row = recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				createConditions("id", 3L));
+
+		assertEquals(row.get("alpha2code"), "JP");
+	}
+
+	@Test
+	public void testDecimalValuesAreComparedAsNumbers() {
+		recordReaderSpy.allRows = List.of(createCountry(1, "SE", "Europe"),
+				createCountry(2, "NO", "Europe"));
+		recordReaderSpy.allRows.get(1).put("id", new BigDecimal("2.0"));
+		Map<String, Object> row = recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				createConditions("id", 2));
+
+		assertEquals(row.get("alpha2code"), "NO");
+	}
+
+	@Test
+	public void testReadOneRowUsesSnapshot() {
+		Map<String, Object> row = recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				createConditions("alpha2code", "SE"));
+
+		assertEquals(row.get("id"), 1);
+		assertEquals(recordReaderSpy.noOfReads, 1);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from country")
+	public void testReadOneRowWithManyMatchesThrowsError() {
+		recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				createConditions("region", "Europe"));
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from country")
+	public void testReadOneRowWithoutMatchThrowsError() {
+		recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				createConditions("region", "Africa"));
+	}
+
+	@Test
+	public void testReadOptionalOneRowUsesSnapshot() {
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("country",
+						createConditions("alpha2code", "SE"));
+
+		assertEquals(row.get().get("id"), 1);
+		assertEquals(recordReaderSpy.noOfReads, 1);
+	}
+
+	@Test
+	public void testReadOptionalOneRowWithoutMatchReturnsEmpty() {
+		Optional<Map<String, Object>> row = recordReader
+				.readOptionalOneRowFromDbUsingTableAndConditions("country",
+						createConditions("region", "Africa"));
+
+		assertTrue(row.isEmpty());
+		assertEquals(recordReaderSpy.noOfReads, 1);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from country")
+	public void testReadOptionalOneRowWithManyMatchesThrowsError() {
+		recordReader.readOptionalOneRowFromDbUsingTableAndConditions("country",
+				createConditions("region", "Europe"));
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from country")
+	public void testConditionOnMissingColumnThrowsError() {
+		recordReader.readFromTableUsingConditions("country",
+				createConditions("noSuchColumn", "SE"));
+	}
+
+	@Test
+	public void testSnapshotIsLoadedUsingMapRowMapper() {
+		recordReader.readAllFromTable("country");
+
+		assertTrue(recordReaderSpy.rowMapper instanceof MapRowMapper);
+	}
+
+	@Test
+	public void testConditionColumnNamesAreFoldedToLowerCase() {
+		List<Map<String, Object>> result = recordReader.readFromTableUsingConditions("country",
+				createConditions("Alpha2Code", "NO"));
+
+		assertEquals(result.size(), 1);
+		assertEquals(result.get(0).get("id"), 2);
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Error reading data from country")
+	public void testConditionOnMissingColumnInEmptyTableThrowsError() {
+		recordReaderSpy.allRows = List.of();
+		recordReaderSpy.allColumnNames = List.of("id", "alpha2code", "region", "comment");
+
+		recordReader.readFromTableUsingConditions("country",
+				createConditions("noSuchColumn", "SE"));
+	}
+
+	@Test
+	public void testConditionOnExistingColumnInEmptyTableIsEmpty() {
+		recordReaderSpy.allRows = List.of();
+		recordReaderSpy.allColumnNames = List.of("id", "alpha2code", "region", "comment");
+
+		assertTrue(recordReader
+				.readFromTableUsingConditions("country", createConditions("region", "Europe"))
+				.isEmpty());
+	}
+
+	@Test
+	public void testTableWithoutSnapshotIsReadUsingRecordReader() {
+		Map<String, Object> conditions = createConditions("id", 1);
+		recordReader.readAllFromTable("organisation");
+		recordReader.readFromTableUsingConditions("organisation", conditions);
+		recordReader.readOneRowFromDbUsingTableAndConditions("organisation", conditions);
+
+		assertEquals(recordReaderSpy.noOfReads, 3);
+		assertSame(recordReaderSpy.conditions, conditions);
+	}
+
+	@Test
+	public void testReadsUsingRowMapperUseRecordReader() {
+		RowMapper<String> rowMapper = resultSet -> "mapped";
+		Map<String, Object> conditions = createConditions("id", 1);
+		recordReader.readAllFromTable("country", rowMapper);
+		recordReader.readFromTableUsingConditions("country", conditions, rowMapper);
+		Object result = recordReader.readOneRowFromDbUsingTableAndConditions("country",
+				conditions, rowMapper);
+
+		assertEquals(recordReaderSpy.noOfReads, 3);
+		assertSame(recordReaderSpy.rowMapper, rowMapper);
+		assertEquals(result, recordReaderSpy.mappedResult);
+	}
+
+	@Test
+	public void testInvalidatedTableIsLoadedAgain() {
+		recordReader.readAllFromTable("country");
+		tableSnapshots.invalidateTable("country");
+		recordReaderSpy.allRows = new ArrayList<>();
+		List<Map<String, Object>> rows = recordReader.readAllFromTable("country");
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+		assertTrue(rows.isEmpty());
+	}
+
+	@Test
+	public void testInvalidateAllTablesLoadsAgain() {
+		recordReader.readAllFromTable("country");
+		tableSnapshots.invalidateAllTables();
+		tableSnapshots.invalidateTable("notSnapshotted");
+		recordReader.readAllFromTable("country");
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+	}
+
+	@Test
+	public void testSnapshotOlderThanRefreshIntervalIsLoadedAgain() throws Exception {
+		tableSnapshots.snapshotTableUsingRefreshInterval("country", Duration.ofMillis(1));
+		recordReader.readAllFromTable("country");
+		Thread.sleep(5);
+		recordReader.readAllFromTable("country");
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+	}
+
+	@Test
+	public void testFirstLoadIsOnlyDoneByOneOfManyConcurrentReaders() throws Exception {
+		CountDownLatch loadStarted = new CountDownLatch(1);
+		CountDownLatch releaseLoad = new CountDownLatch(1);
+		AtomicInteger noOfLoads = new AtomicInteger();
+		RecordReaderSpy slowReader = new RecordReaderSpy() {
+			@Override
+			public <T> List<T> readAllFromTable(String tableName, RowMapper<T> rowMapper) {
+				noOfLoads.incrementAndGet();
+				loadStarted.countDown();
+				awaitQuietly(releaseLoad);
+				return super.readAllFromTable(tableName, rowMapper);
+			}
+		};
+		slowReader.allRows = List.of(createCountry(1, "SE", "Europe"));
+		recordReader = SnapshotRecordReader.usingRecordReaderAndTableSnapshots(slowReader,
+				tableSnapshots);
+		List<Thread> readers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			readers.add(new Thread(() -> recordReader.readAllFromTable("country")));
+		}
+		readers.get(0).start();
+		loadStarted.await();
+		for (Thread reader : readers.subList(1, readers.size())) {
+			reader.start();
+		}
+		Thread.sleep(20);
+		releaseLoad.countDown();
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		assertEquals(noOfLoads.get(), 1);
+	}
+
+	private void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Test
+	public void testUpdatedTableIsInvalidatedAndPublished() {
+		TableChangePublisherSpy publisher = new TableChangePublisherSpy();
+		tableSnapshots.publishTableChangesUsing(publisher);
+		recordReader.readAllFromTable("country");
+		tableSnapshots.invalidateTableAndPublishChange("country");
+		tableSnapshots.invalidateTableAndPublishChange("notSnapshotted");
+		recordReader.readAllFromTable("country");
+
+		assertEquals(recordReaderSpy.noOfReads, 2);
+		assertEquals(publisher.publishedTables, List.of("country", "notSnapshotted"));
+	}
+
+	@Test
+	public void testSnapshotLoadedWhileTableIsInvalidatedIsNotKept() {
+		RecordReaderSpy invalidatingReader = new RecordReaderSpy() {
+			@Override
+			public <T> List<T> readAllFromTable(String tableName, RowMapper<T> rowMapper) {
+				tableSnapshots.invalidateTable(tableName);
+				return super.readAllFromTable(tableName, rowMapper);
+			}
+		};
+		invalidatingReader.allRows = recordReaderSpy.allRows;
+		recordReader = SnapshotRecordReader.usingRecordReaderAndTableSnapshots(invalidatingReader,
+				tableSnapshots);
+		recordReader.readAllFromTable("country");
+		recordReader.readAllFromTable("country");
+
+		assertEquals(invalidatingReader.noOfReads, 2);
+	}
+
+	@Test
+	public void testReadUsingKeysUsesSnapshot() {
+		Map<Integer, List<Map<String, Object>>> result = recordReader
+				.readFromTableUsingKeyColumnAndKeys("country", "id", List.of(3, 4, 1));
+
+		assertEquals(recordReaderSpy.noOfReads, 1);
+		assertEquals(recordReaderSpy.keys, null);
+		assertEquals(result.get(3).get(0).get("alpha2code"), "JP");
+		assertTrue(result.get(4).isEmpty());
+		assertEquals(result.get(1).get(0).get("alpha2code"), "SE");
+	}
+
+	@Test
+	public void testReadUsingKeysFromOtherTableIsPassedOn() {
+		List<String> keys = List.of("SEK");
+		recordReader.readFromTableUsingKeyColumnAndKeys("currency", "code", keys);
+
+		assertEquals(recordReaderSpy.tableName, "currency");
+		assertEquals(recordReaderSpy.keyColumn, "code");
+		assertSame(recordReaderSpy.keys, keys);
+	}
+
+	@Test
+	public void testReadPageIsPassedOn() {
+		Map<String, Object> conditions = createConditions("region", "Europe");
+		List<String> keyColumns = List.of("id");
+
+		recordReader.readPageFromTableUsingConditionsAndKeyColumnsAndAfterKeyAndPageSize(
+				"country", conditions, keyColumns, null, 10);
+
+		assertSame(recordReaderSpy.conditions, conditions);
+		assertSame(recordReaderSpy.keyColumns, keyColumns);
+		assertEquals(recordReaderSpy.pageSize, 10);
+	}
+
+	@Test
+	public void testReadsUsingColumnNamesArePassedOn() {
+		List<String> columnNames = List.of("alpha2code");
+		Map<String, Object> someConditions = new HashMap<>();
+		someConditions.put("alpha2code", "SE");
+
+		recordReader.readAllFromTable("country", columnNames);
+		recordReader.readFromTableUsingConditions("country", someConditions, columnNames);
+		recordReader.readOneRowFromDbUsingTableAndConditions("country", someConditions,
+				columnNames);
+
+		assertEquals(recordReaderSpy.noOfReads, 3);
+		assertSame(recordReaderSpy.conditions, someConditions);
+		assertSame(recordReaderSpy.columnNames, columnNames);
+	}
+}
@@ -29,10 +29,12 @@ public class SqlConnectionProviderSpy implements SqlConnectionProvider {
 	public ConnectionSpy connection = new ConnectionSpy();
 	public boolean returnErrorConnection = false;
 	public boolean getConnectionHasBeenCalled = false;
+	public int noOfGetConnectionCalls = 0;
 
 	@Override
 	public Connection getConnection() {
 		getConnectionHasBeenCalled = true;
+		noOfGetConnectionCalls++;
 		if (returnErrorConnection) {
 			connection.returnErrorConnection = true;
 		}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.connection.PoolSettings;
+
+public class SqlExecutorsTest {
+
+	@Test
+	public void testBoundedExecutorIsSizedToPool() {
+		ExecutorService executor = SqlExecutors.createBoundedExecutorUsingPoolSettings(
+				PoolSettings.defaultSettings().withMaxSize(7));
+
+		assertEquals(((ThreadPoolExecutor) executor).getMaximumPoolSize(), 7);
+		assertEquals(((ThreadPoolExecutor) executor).getCorePoolSize(), 7);
+		executor.shutdown();
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid number of threads: 0")
+	public void testInvalidNoOfThreads() {
+		SqlExecutors.createBoundedExecutorUsingNoOfThreads(0);
+	}
+
+	@Test
+	public void testNoMoreThanNoOfThreadsTasksRunAtTheSameTime() throws Exception {
+		ExecutorService executor = SqlExecutors.createBoundedExecutorUsingNoOfThreads(2);
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(6);
+		for (int i = 0; i < 6; i++) {
+			executor.execute(() -> runAndRecordMaxRunning(running, maxRunning, done));
+		}
+
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		assertTrue(maxRunning.get() <= 2);
+		executor.shutdown();
+	}
+
+	private void runAndRecordMaxRunning(AtomicInteger running, AtomicInteger maxRunning,
+			CountDownLatch done) {
+		int nowRunning = running.incrementAndGet();
+		maxRunning.accumulateAndGet(nowRunning, Math::max);
+		try {
+			Thread.sleep(20);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		running.decrementAndGet();
+		done.countDown();
+	}
+
+	@Test
+	public void testThreadsAreDaemonThreads() throws Exception {
+		ExecutorService executor = SqlExecutors.createBoundedExecutorUsingNoOfThreads(1);
+
+		boolean daemon = executor.submit(() -> Thread.currentThread().isDaemon()).get();
+		String name = executor.submit(() -> Thread.currentThread().getName()).get();
+
+		assertTrue(daemon);
+		assertTrue(name.startsWith("cora-sql-"));
+		executor.shutdown();
+	}
+
+	@Test
+	public void testVirtualThreadExecutorWhenAvailable() throws Exception {
+		if (!SqlExecutors.virtualThreadsAreAvailable()) {
+			return;
+		}
+		ExecutorService executor = SqlExecutors.createVirtualThreadExecutor();
+
+		String threadDescription = executor.submit(() -> Thread.currentThread().toString()).get();
+
+		assertTrue(threadDescription.startsWith("VirtualThread"));
+		executor.shutdown();
+	}
+
+	@Test
+	public void testVirtualThreadExecutorWhenNotAvailable() {
+		if (SqlExecutors.virtualThreadsAreAvailable()) {
+			return;
+		}
+		try {
+			SqlExecutors.createVirtualThreadExecutor();
+			fail("an error should have been thrown");
+		} catch (SqlStorageException e) {
+			assertTrue(e.getMessage().startsWith("Virtual threads are not available in java "));
+			assertTrue(e.getCause() instanceof NoSuchMethodException);
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+
+import org.testng.annotations.Test;
+
+public class SqlFingerprintTest {
+
+	@Test
+	public void testSqlWithPlaceholdersIsKept() {
+		assertEquals(SqlFingerprint.fingerprintSql("select * from country where alpha2code = ?"),
+				"select * from country where alpha2code = ?");
+	}
+
+	@Test
+	public void testWhitespaceAndCaseAreNormalised() {
+		assertEquals(
+				SqlFingerprint.fingerprintSql("  SELECT *\n\tFROM   country WHERE id = ? ;  "),
+				"select * from country where id = ?");
+	}
+
+	@Test
+	public void testStringLiteralsAreReplaced() {
+		assertEquals(SqlFingerprint
+				.fingerprintSql("select * from country where alpha2code = 'SE' and name = 'it''s'"),
+				"select * from country where alpha2code = ? and name = ?");
+	}
+
+	@Test
+	public void testNumberLiteralsAreReplaced() {
+		assertEquals(SqlFingerprint.fingerprintSql("select * from t where id = 51 and x > 1.5"),
+				"select * from t where id = ? and x > ?");
+	}
+
+	@Test
+	public void testDigitsInIdentifiersAreKept() {
+		assertEquals(SqlFingerprint.fingerprintSql("select alpha2code from table_2 where x = 3"),
+				"select alpha2code from table_2 where x = ?");
+	}
+
+	@Test
+	public void testQuotedIdentifiersAreKept() {
+		assertEquals(SqlFingerprint.fingerprintSql("select \"Name 1\" from Country"),
+				"select \"Name 1\" from country");
+	}
+
+	@Test
+	public void testPlaceholderListsAreCollapsed() {
+		String expected = "select * from country where id in (?, ...)";
+
+		assertEquals(SqlFingerprint.fingerprintSql("select * from country where id in (?, ?)"),
+				expected);
+		assertEquals(SqlFingerprint
+				.fingerprintSql("select * from country where id in (?,?, ?, ?, 7, 'x')"), expected);
+	}
+
+	@Test
+	public void testSeparatePlaceholdersAreNotCollapsed() {
+		assertEquals(SqlFingerprint.fingerprintSql("update t set a = ?, b = ? where c = ?"),
+				"update t set a = ?, b = ? where c = ?");
+	}
+}
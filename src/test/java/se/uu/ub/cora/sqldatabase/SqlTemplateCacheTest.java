@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.sqldatabase.SqlTemplateCache.SqlShape;
+
+public class SqlTemplateCacheTest {
+	private SqlTemplateCache cache;
+	private List<SqlShape> createdForShapes;
+
+	@BeforeMethod
+	public void setUp() {
+		cache = SqlTemplateCache.withMaxSize(2);
+		createdForShapes = new ArrayList<>();
+	}
+
+	private String createSql(SqlShape shape) {
+		createdForShapes.add(shape);
+		return new StringBuilder("select * from ").append(shape.getTableName()).append(" where ")
+				.append(String.join(" and ", createConditionParts(shape))).toString();
+	}
+
+	private List<String> createConditionParts(SqlShape shape) {
+		List<String> names = new ArrayList<>();
+		for (Object name : shape.getKeyGroup(0)) {
+			names.add(name + " = ?");
+		}
+		return names;
+	}
+
+	private SqlShape createShape(String tableName, String... conditionNames) {
+		Map<String, Object> conditions = new LinkedHashMap<>();
+		for (String conditionName : conditionNames) {
+			conditions.put(conditionName, "someValue");
+		}
+		return SqlShape.usingTypeTableAndKeyGroups("select", tableName, conditions.keySet());
+	}
+
+	@Test
+	public void testSqlIsCreatedUsingShape() {
+		String sql = cache.getOrCreateSql(createShape("someTable", "id", "type"), this::createSql);
+
+		assertEquals(sql, "select * from someTable where id = ? and type = ?");
+		assertEquals(cache.size(), 1);
+	}
+
+	@Test
+	public void testSameShapeReturnsSameSqlInstanceWithoutCreatingAgain() {
+		String firstSql = cache.getOrCreateSql(createShape("someTable", "id"), this::createSql);
+		String secondSql = cache.getOrCreateSql(createShape("someTable", "id"), this::createSql);
+
+		assertSame(secondSql, firstSql);
+		assertEquals(createdForShapes.size(), 1);
+	}
+
+	@Test
+	public void testOtherOrderOfKeysIsOtherShape() {
+		String firstSql = cache.getOrCreateSql(createShape("someTable", "id", "type"),
+				this::createSql);
+		String secondSql = cache.getOrCreateSql(createShape("someTable", "type", "id"),
+				this::createSql);
+
+		assertEquals(secondSql, "select * from someTable where type = ? and id = ?");
+		assertNotEquals(secondSql, firstSql);
+		assertEquals(cache.size(), 2);
+	}
+
+	@Test
+	public void testOtherTableOrTypeIsOtherShape() {
+		SqlShape shape = createShape("someTable", "id");
+		SqlShape otherTable = createShape("someOtherTable", "id");
+		SqlShape otherType = SqlShape.usingTypeTableAndKeyGroups("update", "someTable",
+				List.of("id"));
+
+		assertNotEquals(otherTable, shape);
+		assertNotEquals(otherType, shape);
+	}
+
+	@Test
+	public void testStoredShapeDoesNotChangeWhenCallersKeysChange() {
+		Map<String, Object> conditions = new LinkedHashMap<>();
+		conditions.put("id", "someValue");
+		SqlShape shape = SqlShape.usingTypeTableAndKeyGroups("select", "someTable",
+				conditions.keySet());
+		cache.getOrCreateSql(shape, this::createSql);
+		conditions.put("type", "someValue");
+
+		String sql = cache.getOrCreateSql(createShape("someTable", "id"), this::createSql);
+
+		assertEquals(sql, "select * from someTable where id = ?");
+		assertEquals(createdForShapes.size(), 1);
+	}
+
+	@Test
+	public void testSqlIsCreatedButNotStoredWhenCacheIsFull() {
+		cache.getOrCreateSql(createShape("someTable", "id"), this::createSql);
+		cache.getOrCreateSql(createShape("someTable", "type"), this::createSql);
+
+		String sql = cache.getOrCreateSql(createShape("someTable", "name"), this::createSql);
+		cache.getOrCreateSql(createShape("someTable", "name"), this::createSql);
+
+		assertEquals(sql, "select * from someTable where name = ?");
+		assertEquals(cache.size(), 2);
+		assertEquals(createdForShapes.size(), 4);
+	}
+
+	@Test
+	public void testSharedCacheIsSameInstance() {
+		assertSame(SqlTemplateCache.shared(), SqlTemplateCache.shared());
+	}
+}
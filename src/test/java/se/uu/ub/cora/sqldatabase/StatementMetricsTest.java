@@ -0,0 +1,242 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+import se.uu.ub.cora.sqldatabase.log.LoggerSpy;
+
+public class StatementMetricsTest {
+	private static final String SOME_SQL = "select * from country where alpha2code = ?";
+	private LoggerFactorySpy loggerFactorySpy;
+	private StatementMetrics statementMetrics;
+
+	@BeforeMethod
+	public void setUp() {
+		loggerFactorySpy = new LoggerFactorySpy();
+		LoggerProvider.setLoggerFactory(loggerFactorySpy);
+		statementMetrics = StatementMetrics.usingMaxNoOfFingerprints(2);
+	}
+
+	@AfterMethod
+	public void tearDown() {
+		statementMetrics.close();
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid max number of fingerprints: 0")
+	public void testInvalidMaxNoOfFingerprintsThrowsError() {
+		StatementMetrics.usingMaxNoOfFingerprints(0);
+	}
+
+	@Test
+	public void testNoStatisticsBeforeAnyCall() {
+		assertEquals(statementMetrics.getStatistics().size(), 0);
+	}
+
+	@Test
+	public void testRecordedPhasesAndRows() {
+		StatementRecording recording = StatementRecording.startUsingMetricsAndSql(statementMetrics,
+				SOME_SQL);
+		recording.connectionAcquired();
+		recording.executed();
+		recording.materialisedNoOfRows(3);
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getFingerprint(), SOME_SQL);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfErrors(), 0L);
+		assertEquals(statistics.getNoOfRows(), 3L);
+		assertTrue(statistics.getTotalTimeInNanos() >= statistics.getExecuteNanosAtPercentile(100));
+	}
+
+	@Test
+	public void testFailedCallIsCountedAsCallAndError() {
+		StatementRecording recording = StatementRecording.startUsingMetricsAndSql(statementMetrics,
+				SOME_SQL);
+		recording.failed();
+
+		StatementStatistics statistics = statementMetrics.getStatistics().get(0);
+		assertEquals(statistics.getNoOfCalls(), 1L);
+		assertEquals(statistics.getNoOfErrors(), 1L);
+		assertEquals(statistics.getNoOfRows(), 0L);
+	}
+
+	@Test
+	public void testNoMetricsGiveRecordingThatDoesNotRecord() {
+		StatementRecording recording = StatementRecording.startUsingMetricsAndSql(null, SOME_SQL);
+		recording.connectionAcquired();
+		recording.executedWithNoOfAffectedRows(1);
+		recording.failed();
+
+		assertSame(recording, StatementRecording.NOT_RECORDING);
+	}
+
+	@Test
+	public void testStatementsWithSameFingerprintAreCountedTogether() {
+		recordCallUsingSqlAndNoOfRows("select * from country where alpha2code = 'SE'", 1);
+		recordCallUsingSqlAndNoOfRows("SELECT * FROM country WHERE alpha2code = 'NO'", 1);
+
+		List<StatementStatistics> statistics = statementMetrics.getStatistics();
+		assertEquals(statistics.size(), 1);
+		assertEquals(statistics.get(0).getFingerprint(), SOME_SQL);
+		assertEquals(statistics.get(0).getNoOfCalls(), 2L);
+	}
+
+	private void recordCallUsingSqlAndNoOfRows(String sql, int noOfRows) {
+		StatementRecording recording = StatementRecording.startUsingMetricsAndSql(statementMetrics,
+				sql);
+		recording.connectionAcquired();
+		recording.executedWithNoOfAffectedRows(noOfRows);
+	}
+
+	@Test
+	public void testSameSqlGivesSameStatistics() {
+		StatementStatistics first = statementMetrics.getStatisticsForSql(SOME_SQL);
+		StatementStatistics second = statementMetrics.getStatisticsForSql(SOME_SQL);
+
+		assertSame(second, first);
+	}
+
+	@Test
+	public void testFingerprintsAboveMaxAreCountedAsOtherStatements() {
+		recordCallUsingSqlAndNoOfRows("select * from a", 1);
+		recordCallUsingSqlAndNoOfRows("select * from b", 1);
+		recordCallUsingSqlAndNoOfRows("select * from c", 1);
+		recordCallUsingSqlAndNoOfRows("select * from d", 1);
+
+		List<StatementStatistics> statistics = statementMetrics.getStatistics();
+		assertEquals(statistics.size(), 3);
+		StatementStatistics otherStatistics = findStatisticsUsingFingerprint(statistics,
+				StatementMetrics.OTHER_STATEMENTS);
+		assertEquals(otherStatistics.getNoOfCalls(), 2L);
+	}
+
+	private StatementStatistics findStatisticsUsingFingerprint(List<StatementStatistics> statistics,
+			String fingerprint) {
+		for (StatementStatistics fingerprintStatistics : statistics) {
+			if (fingerprintStatistics.getFingerprint().equals(fingerprint)) {
+				return fingerprintStatistics;
+			}
+		}
+		throw new AssertionError("no statistics for fingerprint: " + fingerprint);
+	}
+
+	@Test
+	public void testStatisticsAreOrderedByTotalTimeLongestFirst() throws Exception {
+		recordCallUsingSqlAndNoOfRows("select * from fast", 1);
+		StatementRecording recording = StatementRecording.startUsingMetricsAndSql(statementMetrics,
+				"select * from slow");
+		Thread.sleep(5);
+		recording.executedWithNoOfAffectedRows(1);
+
+		List<StatementStatistics> statistics = statementMetrics.getStatistics();
+		assertEquals(statistics.get(0).getFingerprint(), "select * from slow");
+		assertEquals(statistics.get(1).getFingerprint(), "select * from fast");
+		assertTrue(statistics.get(0).getExecuteNanosAtPercentile(50) >= 5_000_000);
+	}
+
+	@Test
+	public void testReset() {
+		recordCallUsingSqlAndNoOfRows(SOME_SQL, 1);
+
+		statementMetrics.reset();
+
+		assertEquals(statementMetrics.getStatistics().size(), 0);
+		recordCallUsingSqlAndNoOfRows(SOME_SQL, 1);
+		assertEquals(statementMetrics.getStatistics().get(0).getNoOfCalls(), 1L);
+	}
+
+	@Test
+	public void testLogStatistics() {
+		recordCallUsingSqlAndNoOfRows(SOME_SQL, 7);
+
+		statementMetrics.logStatistics();
+
+		String message = loggerFactorySpy.getInfoLogMessageUsingClassNameAndNo("StatementMetrics",
+				0);
+		assertTrue(message.startsWith("sql: " + SOME_SQL + " calls: 1 errors: 0 rows: 7 total: "),
+				message);
+		assertTrue(message.contains(" execute p50/p99/max: "), message);
+	}
+
+	@Test
+	public void testStatisticsAreLoggedPeriodically() throws Exception {
+		recordCallUsingSqlAndNoOfRows(SOME_SQL, 1);
+
+		statementMetrics.startLoggingUsingInterval(Duration.ofMillis(10));
+
+		LoggerSpy loggerSpy = loggerFactorySpy.createdLoggers.get("StatementMetrics");
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (loggerSpy.infoMessages.size() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(loggerSpy.infoMessages.size() >= 2);
+	}
+
+	@Test
+	public void testPeriodicLoggingContinuesAfterErrorInLogger() throws Exception {
+		recordCallUsingSqlAndNoOfRows(SOME_SQL, 1);
+		LoggerSpy loggerSpy = loggerFactorySpy.createdLoggers.get("StatementMetrics");
+		RuntimeException error = new RuntimeException("logger failed");
+		loggerSpy.errorToThrowOnInfo = error;
+
+		statementMetrics.startLoggingUsingInterval(Duration.ofMillis(10));
+
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (loggerSpy.errorMessages.size() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertTrue(loggerSpy.errorMessages.size() >= 2);
+		assertEquals(loggerSpy.errorMessages.get(0), "Error logging statement metrics");
+		assertSame(loggerSpy.errorExceptions.get(0), error);
+	}
+
+	@Test
+	public void testLoggingCanBeStartedAgainAfterClose() {
+		statementMetrics.startLoggingUsingInterval(Duration.ofMinutes(1));
+		statementMetrics.close();
+
+		statementMetrics.startLoggingUsingInterval(Duration.ofMinutes(1));
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Logging of statement metrics is already started")
+	public void testStartingLoggingTwiceThrowsError() {
+		statementMetrics.startLoggingUsingInterval(Duration.ofMinutes(1));
+		statementMetrics.startLoggingUsingInterval(Duration.ofMinutes(1));
+	}
+
+	@Test(expectedExceptions = SqlStorageException.class, expectedExceptionsMessageRegExp = ""
+			+ "Invalid logging interval: PT0S")
+	public void testInvalidLoggingIntervalThrowsError() {
+		statementMetrics.startLoggingUsingInterval(Duration.ZERO);
+	}
+}
@@ -0,0 +1,47 @@
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+
+public class SubscriberSpy implements Subscriber<Map<String, Object>> {
+
+	public Subscription subscription;
+	public List<Map<String, Object>> receivedRows = new ArrayList<>();
+	public boolean completed = false;
+	public Throwable error;
+	public int noOfCompleteAndErrorCalls = 0;
+	public boolean requestOneMoreOnNext = false;
+	public int cancelAfterNoOfRows = -1;
+
+	@Override
+	public void onSubscribe(Subscription subscription) {
+		this.subscription = subscription;
+	}
+
+	@Override
+	public void onNext(Map<String, Object> row) {
+		receivedRows.add(row);
+		if (receivedRows.size() == cancelAfterNoOfRows) {
+			subscription.cancel();
+		}
+		if (requestOneMoreOnNext) {
+			subscription.request(1);
+		}
+	}
+
+	@Override
+	public void onError(Throwable throwable) {
+		error = throwable;
+		noOfCompleteAndErrorCalls++;
+	}
+
+	@Override
+	public void onComplete() {
+		completed = true;
+		noOfCompleteAndErrorCalls++;
+	}
+
+}
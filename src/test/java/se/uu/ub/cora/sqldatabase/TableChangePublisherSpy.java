@@ -0,0 +1,15 @@
+package se.uu.ub.cora.sqldatabase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TableChangePublisherSpy implements TableChangePublisher {
+
+	public List<String> publishedTables = new ArrayList<>();
+
+	@Override
+	public void publishChangeOfTable(String tableName) {
+		publishedTables.add(tableName);
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.testng.annotations.Test;
+
+public class ValueNormalizerTest {
+
+	@Test
+	public void testIntegralNumbersAreNormalizedToLongs() {
+		assertEquals(ValueNormalizer.normalizeValue(1), 1L);
+		assertEquals(ValueNormalizer.normalizeValue((short) 1), 1L);
+		assertEquals(ValueNormalizer.normalizeValue((byte) 1), 1L);
+		assertEquals(ValueNormalizer.normalizeValue(1L), 1L);
+	}
+
+	@Test
+	public void testIntegralDecimalsAreNormalizedToLongs() {
+		assertEquals(ValueNormalizer.normalizeValue(new BigDecimal("1")), 1L);
+		assertEquals(ValueNormalizer.normalizeValue(new BigDecimal("1.000")), 1L);
+		assertEquals(ValueNormalizer.normalizeValue(new BigDecimal("1E+3")), 1000L);
+		assertEquals(ValueNormalizer.normalizeValue(BigInteger.valueOf(5)), 5L);
+		assertEquals(ValueNormalizer.normalizeValue(2.0d), 2L);
+		assertEquals(ValueNormalizer.normalizeValue(2.0f), 2L);
+	}
+
+	@Test
+	public void testFractionalNumbersAreNormalizedToDecimalsWithoutTrailingZeros() {
+		assertEquals(ValueNormalizer.normalizeValue(new BigDecimal("1.50")),
+				new BigDecimal("1.5"));
+		assertEquals(ValueNormalizer.normalizeValue(0.1d), new BigDecimal("0.1"));
+		assertEquals(ValueNormalizer.normalizeValue(0.1f), new BigDecimal("0.1"));
+	}
+
+	@Test
+	public void testNumbersTooLargeForLongAreNormalizedToDecimals() {
+		BigInteger large = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE);
+		assertEquals(ValueNormalizer.normalizeValue(large), new BigDecimal(large));
+		assertEquals(ValueNormalizer.normalizeValue(new BigDecimal(large)),
+				new BigDecimal(large));
+		assertEquals(ValueNormalizer.normalizeValue(Long.MIN_VALUE), Long.MIN_VALUE);
+	}
+
+	@Test
+	public void testNotANumberIsKept() {
+		assertEquals(ValueNormalizer.normalizeValue(Double.NaN), Double.NaN);
+		assertEquals(ValueNormalizer.normalizeValue(Float.POSITIVE_INFINITY),
+				Double.POSITIVE_INFINITY);
+	}
+
+	@Test
+	public void testOtherValuesAreKept() {
+		assertEquals(ValueNormalizer.normalizeValue("someValue"), "someValue");
+		assertEquals(ValueNormalizer.normalizeValue(null), null);
+	}
+}
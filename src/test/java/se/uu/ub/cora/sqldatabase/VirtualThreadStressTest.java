@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 Uppsala University Library
+ *
+ * This file is part of Cora.
+ *
+ *     Cora is free software: you can redistribute it and/or modify
+ *     it under the terms of the GNU General Public License as published by
+ *     the Free Software Foundation, either version 3 of the License, or
+ *     (at your option) any later version.
+ *
+ *     Cora is distributed in the hope that it will be useful,
+ *     but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *     MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *     GNU General Public License for more details.
+ *
+ *     You should have received a copy of the GNU General Public License
+ *     along with Cora.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package se.uu.ub.cora.sqldatabase;
+
+import static org.testng.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import se.uu.ub.cora.connection.ConnectionProviderSpy;
+import se.uu.ub.cora.connection.PoolSettings;
+import se.uu.ub.cora.connection.PooledConnectionProviderImp;
+import se.uu.ub.cora.logger.LoggerProvider;
+import se.uu.ub.cora.sqldatabase.log.LoggerFactorySpy;
+
+/**
+ * Runs 10 000 concurrent readers, each on its own virtual thread, through DataReaderImp and a
+ * connection pool while a JFR recording of jdk.VirtualThreadPinned events is running, and fails if
+ * any virtual thread was pinned to its carrier thread.
+ * <p>
+ * The first test reads through a pool of connection spies, so it only finds pinning in this
+ * library, and runs without a database. The second test reads through the postgres driver against
+ * a real database, so pinning inside the driver is found as well. The database is read from the
+ * system properties stress.url, stress.user and stress.password, default a local Postgres
+ * jdbc:postgresql://localhost:5432/cora with user and password cora, and the test is skipped if no
+ * connection to a Postgres database can be made.
+ * <p>
+ * Both tests are skipped on java versions before 21, that do not have virtual threads. The JFR api
+ * is used through reflection so that the test compiles without the jdk.jfr module, add it with
+ * --add-modules jdk.jfr if the tests are run on the module path.
+ */
+public class VirtualThreadStressTest {
+	private static final int NO_OF_READERS = 10_000;
+	private static final int POOL_SIZE = 16;
+	private static final int FIRST_JAVA_VERSION_WITH_VIRTUAL_THREADS = 21;
+	private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+	private static final String POSTGRES = "PostgreSQL";
+	private final String url = System.getProperty("stress.url",
+			"jdbc:postgresql://localhost:5432/cora");
+	private final String user = System.getProperty("stress.user", "cora");
+	private final String password = System.getProperty("stress.password", "cora");
+
+	@Test
+	public void testConcurrentVirtualThreadReadersUsingPoolAreNotPinned() throws Exception {
+		skipIfVirtualThreadsAreNotAvailable();
+		PooledConnectionProviderImp pool = PooledConnectionProviderImp
+				.usingSqlConnectionProviderAndPoolSettings(new ConnectionProviderSpy(),
+						createPoolSettings());
+
+		assertReadersOnVirtualThreadsAreNotPinned(pool);
+	}
+
+	@Test
+	public void testConcurrentVirtualThreadReadersUsingDatabaseAreNotPinned() throws Exception {
+		skipIfVirtualThreadsAreNotAvailable();
+		PooledConnectionProviderImp pool = PooledConnectionProviderImp
+				.usingUriAndUserAndPasswordAndPoolSettings(url, user, password,
+						createPoolSettings());
+		skipIfDatabaseIsNotAvailable(pool);
+
+		assertReadersOnVirtualThreadsAreNotPinned(pool);
+	}
+
+	private void skipIfVirtualThreadsAreNotAvailable() {
+		if (Runtime.version().feature() < FIRST_JAVA_VERSION_WITH_VIRTUAL_THREADS) {
+			throw new SkipException("Virtual threads are not available in java "
+					+ Runtime.version());
+		}
+	}
+
+	private PoolSettings createPoolSettings() {
+		return PoolSettings.defaultSettings().withMaxSize(POOL_SIZE)
+				.withAcquisitionTimeout(Duration.ofMinutes(1));
+	}
+
+	private void skipIfDatabaseIsNotAvailable(PooledConnectionProviderImp pool) throws Exception {
+		try (Connection connection = pool.getConnection()) {
+			skipIfNotPostgres(pool, connection.getMetaData());
+		} catch (SqlStorageException e) {
+			pool.close();
+			throw new SkipException("No database available at " + url + ": " + e.getMessage());
+		}
+	}
+
+	private void skipIfNotPostgres(PooledConnectionProviderImp pool, DatabaseMetaData metaData)
+			throws SQLException {
+		if (metaData == null || !POSTGRES.equals(metaData.getDatabaseProductName())) {
+			pool.close();
+			throw new SkipException("No postgres database available at " + url);
+		}
+	}
+
+	private void assertReadersOnVirtualThreadsAreNotPinned(PooledConnectionProviderImp pool)
+			throws Exception {
+		LoggerProvider.setLoggerFactory(new LoggerFactorySpy());
+		Object recording = startRecordingOfPinnedEvents();
+		runReadersOnVirtualThreads(pool);
+		List<?> pinnedEvents = stopRecordingAndReadEvents(recording);
+
+		pinnedEvents.forEach(System.out::println);
+		assertEquals(pinnedEvents.size(), 0);
+	}
+
+	private void runReadersOnVirtualThreads(PooledConnectionProviderImp pool) throws Exception {
+		DataReader dataReader = DataReaderImp.usingSqlConnectionProvider(pool);
+		ExecutorService executor = SqlExecutors.createVirtualThreadExecutor();
+		List<Future<?>> readers = new ArrayList<>(NO_OF_READERS);
+		long start = System.nanoTime();
+		for (int i = 0; i < NO_OF_READERS; i++) {
+			readers.add(executor.submit(() -> dataReader
+					.executePreparedStatementQueryUsingSqlAndValues("select 1", List.of())));
+		}
+		for (Future<?> reader : readers) {
+			reader.get();
+		}
+		long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		System.out.println(String.format("readers: %,d  connections: %d  time: %d ms",
+				NO_OF_READERS, pool.getNoOfConnections(), millis));
+		executor.shutdown();
+		pool.close();
+	}
+
+	private Object startRecordingOfPinnedEvents() throws Exception {
+		Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+		Object recording = recordingClass.getConstructor().newInstance();
+		Object eventSettings = recordingClass.getMethod("enable", String.class).invoke(recording,
+				PINNED_EVENT);
+		Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class)
+				.invoke(eventSettings, Duration.ZERO);
+		recordingClass.getMethod("start").invoke(recording);
+		return recording;
+	}
+
+	private List<?> stopRecordingAndReadEvents(Object recording) throws Exception {
+		Class<?> recordingClass = recording.getClass();
+		recordingClass.getMethod("stop").invoke(recording);
+		Path file = Files.createTempFile("pinned", ".jfr");
+		recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+		Method readAllEvents = Class.forName("jdk.jfr.consumer.RecordingFile")
+				.getMethod("readAllEvents", Path.class);
+		List<?> events = (List<?>) readAllEvents.invoke(null, file);
+		Files.delete(file);
+		return events;
+	}
+}
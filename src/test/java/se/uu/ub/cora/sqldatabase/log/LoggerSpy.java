@@ -31,6 +31,7 @@ public class LoggerSpy implements Logger {
 	public List<String> errorMessages = new ArrayList<>();
 	public List<String> infoMessages = new ArrayList<>();
 	public List<Exception> errorExceptions = new ArrayList<>();
+	public RuntimeException errorToThrowOnInfo;
 
 	@Override
 	public void logFatalUsingMessage(String message) {
@@ -69,6 +70,9 @@ public class LoggerSpy implements Logger {
 	@Override
 	public void logInfoUsingMessage(String message) {
 		infoMessages.add(message);
+		if (errorToThrowOnInfo != null) {
+			throw errorToThrowOnInfo;
+		}
 	}
 
 	@Override